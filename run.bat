@@ -1,4 +1,8 @@
 @echo off
 echo Starting YouTube Timestamp Recorder...
-java -cp target\classes com.example.App
+if exist target\app-cds.jsa (
+    java -XX:SharedArchiveFile=target\app-cds.jsa -Xshare:auto -cp target\classes com.example.App
+) else (
+    java -cp target\classes com.example.App
+)
 pause
@@ -3,6 +3,11 @@ package com.example;
 import com.example.model.TimestampModel;
 import com.example.view.SwingTimestampView;
 import com.example.controller.TimestampController;
+import com.example.diagnostics.EdtWatchdog;
+import com.example.diagnostics.GcMonitor;
+import com.example.diagnostics.StartupTimer;
+import com.example.metrics.MetricsRegistry;
+import com.example.view.components.UIComponents;
 import javax.swing.SwingUtilities;
 
 /**
@@ -10,7 +15,23 @@ import javax.swing.SwingUtilities;
  * Uses MVC architecture pattern
  */
 public class App {
+    /** Set to true to load the custom font before building the UI instead of swapping it in later */
+    public static final String EAGER_STARTUP_PROPERTY = "recorder.eagerStartup";
+    
     public static void main(String[] args) {
+        StartupTimer.markMainStarted();
+        
+        // Optionally dump metrics on exit (-Drecorder.metrics.dump=file)
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.installExitDump();
+        
+        // Load the custom font in parallel with look-and-feel setup and UI construction
+        if (Boolean.getBoolean(EAGER_STARTUP_PROPERTY)) {
+            UIComponents.loadCustomFont();
+        } else {
+            UIComponents.loadCustomFontAsync();
+        }
+        
         // Ensure GUI creation happens on EDT
         SwingUtilities.invokeLater(() -> {
             try {
@@ -34,6 +55,15 @@ public class App {
             view.show();
             
             System.out.println("Timestamp Recorder v3.0 (MVC Architecture) started successfully!");
+            
+            // JMX registration and GC pause reporting pull in the management classes, so keep them off the startup path
+            Thread jmxExport = new Thread(() -> {
+                metrics.exportToJmx();
+                GcMonitor.install();
+                EdtWatchdog.install();
+            }, "jmx-export");
+            jmxExport.setDaemon(true);
+            jmxExport.start();
         });
     }
 }
\ No newline at end of file
@@ -0,0 +1,160 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Output stream that compresses on a background thread.
+ * Writers fill large buffers that are handed over through a small bounded
+ * queue, so formatting and compression overlap. A writer that gets ahead of
+ * the compressor blocks until a buffer is recycled. Errors from the
+ * compressor are rethrown on the next write or on close().
+ */
+public class AsyncCompressingOutputStream extends OutputStream {
+    private static final int BUFFER_SIZE = Compression.BUFFER_SIZE;
+    private static final int BUFFERS_IN_FLIGHT = 4;
+    private static final byte[] END_OF_STREAM = new byte[0];
+    
+    private final BlockingQueue<byte[]> filled = new ArrayBlockingQueue<>(BUFFERS_IN_FLIGHT);
+    private final BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(BUFFERS_IN_FLIGHT + 1);
+    private final BlockingQueue<Integer> lengths = new ArrayBlockingQueue<>(BUFFERS_IN_FLIGHT + 1);
+    private final Thread compressor;
+    private volatile IOException failure;
+    private byte[] current;
+    private int position;
+    private boolean closed;
+    
+    /**
+     * @param compressed the compressing stream (e.g. from Compression.compress); closed by this stream
+     */
+    public AsyncCompressingOutputStream(OutputStream compressed) {
+        for (int i = 0; i <= BUFFERS_IN_FLIGHT; i++) {
+            free.add(new byte[BUFFER_SIZE]);
+        }
+        current = free.poll();
+        compressor = new Thread(() -> drain(compressed), "compressor");
+        compressor.setDaemon(true);
+        compressor.start();
+    }
+    
+    private void drain(OutputStream compressed) {
+        try {
+            while (true) {
+                byte[] buffer = filled.take();
+                if (buffer == END_OF_STREAM) {
+                    break;
+                }
+                int length = lengths.take();
+                // After a failure keep draining so the writer never blocks
+                if (failure == null) {
+                    try {
+                        compressed.write(buffer, 0, length);
+                    } catch (IOException e) {
+                        failure = e;
+                    }
+                }
+                free.put(buffer);
+            }
+        } catch (InterruptedException e) {
+            failure = new InterruptedIOException("Compression interrupted");
+        } finally {
+            try {
+                compressed.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+    
+    @Override
+    public void write(int b) throws IOException {
+        if (position == current.length) {
+            handOff();
+        }
+        current[position++] = (byte) b;
+    }
+    
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (position == current.length) {
+                handOff();
+            }
+            int chunk = Math.min(length, current.length - position);
+            System.arraycopy(bytes, offset, current, position, chunk);
+            position += chunk;
+            offset += chunk;
+            length -= chunk;
+        }
+    }
+    
+    private void handOff() throws IOException {
+        checkFailure();
+        try {
+            lengths.put(position);
+            filled.put(current);
+            current = free.take();
+            position = 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the compressor");
+        }
+        checkFailure();
+    }
+    
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Compression failed: " + failure.getMessage(), failure);
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        IOException error = null;
+        try {
+            if (position > 0) {
+                handOff();
+            }
+        } catch (IOException e) {
+            error = e;
+        }
+        // Even after a failure, so the compressor closes the file and exits
+        try {
+            finish();
+        } catch (InterruptedIOException e) {
+            if (error == null) {
+                error = e;
+            } else {
+                error.addSuppressed(e);
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        checkFailure();
+    }
+    
+    /**
+     * Ends the compressor thread; if this thread is interrupted, the compressor is interrupted instead
+     */
+    private void finish() throws InterruptedIOException {
+        try {
+            filled.put(END_OF_STREAM);
+            compressor.join();
+        } catch (InterruptedException e) {
+            // drain() still closes the compressed stream on its way out
+            compressor.interrupt();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while finishing compression");
+        }
+    }
+}
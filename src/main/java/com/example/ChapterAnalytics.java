@@ -0,0 +1,268 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Chapter statistics kept up to date in O(log n) per inserted or removed entry
+ * - chapters: the MAIN times (a sorted multiset), each lasting until the next one
+ * - sub counts and density: range counts from the shared TimelineBuckets
+ * - gaps: every gap between consecutive marked seconds, ordered by length, so the longest
+ *   unmarked stretches are read off the top instead of rescanning all entries
+ */
+public class ChapterAnalytics {
+
+    /**
+     * A chapter starting at a MAIN entry
+     */
+    public static class Chapter {
+        public final int startSeconds;
+        // Seconds until the next MAIN entry, or -1 for the last chapter
+        public final int durationSeconds;
+        public final int subCount;
+
+        Chapter(int startSeconds, int durationSeconds, int subCount) {
+            this.startSeconds = startSeconds;
+            this.durationSeconds = durationSeconds;
+            this.subCount = subCount;
+        }
+    }
+
+    /**
+     * A stretch of time with no entries between two marked seconds
+     */
+    public static class Gap {
+        public final int startSeconds;
+        public final int lengthSeconds;
+
+        Gap(int startSeconds, int lengthSeconds) {
+            this.startSeconds = startSeconds;
+            this.lengthSeconds = lengthSeconds;
+        }
+    }
+
+    private final TimelineBuckets timeline;
+    // second -> number of MAIN entries at that second
+    private final TreeMap<Integer, Integer> mainSeconds = new TreeMap<>();
+    // second -> number of entries of any type at that second
+    private final TreeMap<Integer, Integer> markedSeconds = new TreeMap<>();
+    // Gaps packed as (length << 32 | start), largest last
+    private final TreeSet<Long> gaps = new TreeSet<>();
+    private int entryCount;
+    private int chapterCount;
+    // Seconds touched since the last takeChangedRange(), empty when changedFrom > changedTo
+    private int changedFrom = Integer.MAX_VALUE;
+    private int changedTo = Integer.MIN_VALUE;
+
+    public ChapterAnalytics(TimelineBuckets timeline) {
+        this.timeline = timeline;
+    }
+
+    public void add(int seconds, TimestampType type) {
+        markChanged(seconds, seconds);
+        entryCount++;
+        if (type == TimestampType.MAIN) {
+            chapterCount++;
+            mainSeconds.merge(seconds, 1, Integer::sum);
+        }
+        if (markedSeconds.merge(seconds, 1, Integer::sum) == 1) {
+            // A newly marked second splits the gap around it
+            Integer before = markedSeconds.lowerKey(seconds);
+            Integer after = markedSeconds.higherKey(seconds);
+            if (before != null && after != null) {
+                gaps.remove(gap(before, after));
+            }
+            if (before != null) {
+                gaps.add(gap(before, seconds));
+            }
+            if (after != null) {
+                gaps.add(gap(seconds, after));
+            }
+        }
+    }
+
+    public void remove(int seconds, TimestampType type) {
+        markChanged(seconds, seconds);
+        entryCount--;
+        if (type == TimestampType.MAIN) {
+            chapterCount--;
+            decrement(mainSeconds, seconds);
+        }
+        if (decrement(markedSeconds, seconds)) {
+            // The second is unmarked again: merge the gaps on either side
+            Integer before = markedSeconds.lowerKey(seconds);
+            Integer after = markedSeconds.higherKey(seconds);
+            if (before != null) {
+                gaps.remove(gap(before, seconds));
+            }
+            if (after != null) {
+                gaps.remove(gap(seconds, after));
+            }
+            if (before != null && after != null) {
+                gaps.add(gap(before, after));
+            }
+        }
+    }
+
+    public void clear() {
+        mainSeconds.clear();
+        markedSeconds.clear();
+        gaps.clear();
+        entryCount = 0;
+        chapterCount = 0;
+        markChanged(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Recomputes everything from entries sorted by time
+     */
+    public void rebuild(List<TimestampEntry> sortedEntries) {
+        clear();
+        for (TimestampEntry entry : sortedEntries) {
+            int seconds = entry.getSeconds();
+            if (entry.getType() == TimestampType.MAIN) {
+                chapterCount++;
+                mainSeconds.merge(seconds, 1, Integer::sum);
+            }
+            markedSeconds.merge(seconds, 1, Integer::sum);
+        }
+        entryCount = sortedEntries.size();
+        Integer previous = null;
+        for (Integer seconds : markedSeconds.keySet()) {
+            if (previous != null) {
+                gaps.add(gap(previous, seconds));
+            }
+            previous = seconds;
+        }
+    }
+
+    public int getChapterCount() {
+        return chapterCount;
+    }
+
+    /**
+     * Chapters in time order, with their durations and SUB counts
+     * @param limit maximum number of chapters to return
+     */
+    public List<Chapter> getChapters(int limit) {
+        return getChapters(Integer.MIN_VALUE, Integer.MAX_VALUE, limit);
+    }
+
+    /**
+     * Chapters starting between fromSeconds and toSeconds (both inclusive), in time order
+     * @param limit maximum number of chapters to return
+     */
+    public List<Chapter> getChapters(int fromSeconds, int toSeconds, int limit) {
+        List<Chapter> chapters = new ArrayList<>();
+        Iterator<Map.Entry<Integer, Integer>> iterator = mainSeconds.tailMap(fromSeconds, true).entrySet().iterator();
+        Map.Entry<Integer, Integer> current = iterator.hasNext() ? iterator.next() : null;
+        while (current != null && current.getKey() <= toSeconds && chapters.size() < limit) {
+            Map.Entry<Integer, Integer> next = iterator.hasNext() ? iterator.next() : null;
+            int start = current.getKey();
+            // Several MAIN entries at the same second: all but the last are zero-length chapters
+            for (int i = 1; i < current.getValue() && chapters.size() < limit; i++) {
+                chapters.add(new Chapter(start, 0, 0));
+            }
+            if (chapters.size() == limit) {
+                break;
+            }
+            int end = next != null ? next.getKey() : Integer.MAX_VALUE;
+            chapters.add(new Chapter(start, next != null ? end - start : -1,
+                    timeline.count(TimestampType.SUB, start, end)));
+            current = next;
+        }
+        return chapters;
+    }
+
+    /**
+     * The range of seconds touched by add(), remove(), clear() or rebuild() since the last call,
+     * as {from, to} (inclusive), or null if nothing changed. A clear or rebuild reports the whole
+     * range. Only chapters starting in the range or just before it can differ; there is a single
+     * reader (the statistics panel), since the call resets the range.
+     */
+    public int[] takeChangedRange() {
+        if (changedFrom > changedTo) {
+            return null;
+        }
+        int[] range = {changedFrom, changedTo};
+        changedFrom = Integer.MAX_VALUE;
+        changedTo = Integer.MIN_VALUE;
+        return range;
+    }
+
+    /**
+     * The longest gaps between marked seconds, longest first
+     */
+    public List<Gap> getLongestGaps(int limit) {
+        List<Gap> longest = new ArrayList<>(limit);
+        Iterator<Long> iterator = gaps.descendingIterator();
+        while (iterator.hasNext() && longest.size() < limit) {
+            long packed = iterator.next();
+            longest.add(new Gap((int) packed, (int) (packed >>> 32)));
+        }
+        return longest;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Entries per minute between the first and last marked second
+     */
+    public double getMarksPerMinute() {
+        if (markedSeconds.isEmpty()) {
+            return 0;
+        }
+        int span = markedSeconds.lastKey() - markedSeconds.firstKey();
+        return span == 0 ? entryCount : entryCount * 60.0 / span;
+    }
+
+    /**
+     * Entries per minute in the given time range
+     */
+    public double getMarksPerMinute(int fromSeconds, int toSeconds) {
+        if (toSeconds <= fromSeconds) {
+            return 0;
+        }
+        int marks = timeline.count(TimestampType.MAIN, fromSeconds, toSeconds)
+                + timeline.count(TimestampType.SUB, fromSeconds, toSeconds);
+        return marks * 60.0 / (toSeconds - fromSeconds);
+    }
+
+    /**
+     * Last marked second, or 0 when empty
+     */
+    public int getLastMarkedSecond() {
+        return markedSeconds.isEmpty() ? 0 : markedSeconds.lastKey();
+    }
+
+    private void markChanged(int from, int to) {
+        changedFrom = Math.min(changedFrom, from);
+        changedTo = Math.max(changedTo, to);
+    }
+
+    private static long gap(int start, int end) {
+        return ((long) (end - start) << 32) | (start & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return true if the key's count dropped to zero and it was removed
+     */
+    private static boolean decrement(TreeMap<Integer, Integer> counts, int key) {
+        Integer count = counts.get(key);
+        if (count == null) {
+            return false;
+        }
+        if (count == 1) {
+            counts.remove(key);
+            return true;
+        }
+        counts.put(key, count - 1);
+        return false;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Transparent compression for saved and exported files.
+ * The format is chosen from the file name when writing (.gz for GZIP,
+ * .zz for raw zlib DEFLATE) and detected from the magic bytes when reading,
+ * whatever the file is called.
+ */
+public enum Compression {
+    NONE(""),
+    GZIP(".gz"),
+    DEFLATE(".zz");
+    
+    /** Deflater level (1-9) used for writing, overridable with -Drecorder.compression.level */
+    public static final String LEVEL_PROPERTY = "recorder.compression.level";
+    
+    static final int BUFFER_SIZE = 256 * 1024;
+    // Bytes test-inflated before a stream is taken for zlib
+    private static final int SNIFF_BYTES = 512;
+    
+    private final String suffix;
+    
+    Compression(String suffix) {
+        this.suffix = suffix;
+    }
+    
+    public String getSuffix() {
+        return suffix;
+    }
+    
+    /**
+     * Compression implied by a file name's suffix
+     */
+    public static Compression forFileName(String name) {
+        String lower = name.toLowerCase();
+        if (lower.endsWith(GZIP.suffix)) {
+            return GZIP;
+        }
+        if (lower.endsWith(DEFLATE.suffix)) {
+            return DEFLATE;
+        }
+        return NONE;
+    }
+    
+    /**
+     * Default compression level from -Drecorder.compression.level, or Deflater.DEFAULT_COMPRESSION
+     */
+    public static int defaultLevel() {
+        return Integer.getInteger(LEVEL_PROPERTY, Deflater.DEFAULT_COMPRESSION);
+    }
+    
+    /**
+     * Detects GZIP or zlib data from the first bytes and returns a stream of the
+     * decompressed content; plain data is returned unchanged. The result supports mark/reset.
+     */
+    public static InputStream decompressIfNeeded(InputStream in) throws IOException {
+        BufferedInputStream buffered = in instanceof BufferedInputStream
+                ? (BufferedInputStream) in : new BufferedInputStream(in, BUFFER_SIZE);
+        buffered.mark(2);
+        int first = buffered.read();
+        int second = buffered.read();
+        buffered.reset();
+        if (first == 0x1F && second == 0x8B) {
+            return new BufferedInputStream(new GZIPInputStream(buffered, BUFFER_SIZE), BUFFER_SIZE);
+        }
+        // zlib header: deflate method, 32K window, no preset dictionary and a valid header checksum.
+        // "x^" is also the header of levels 2-5, so a text file could start like that; the first
+        // bytes must also inflate cleanly
+        if (first == 0x78 && second >= 0 && (second & 0x20) == 0 && (first * 256 + second) % 31 == 0
+                && inflates(buffered)) {
+            return new BufferedInputStream(new InflaterInputStream(buffered, new Inflater(), BUFFER_SIZE), BUFFER_SIZE);
+        }
+        return buffered;
+    }
+    
+    /**
+     * Whether the next bytes of the stream start a valid zlib stream; leaves the stream where it was
+     */
+    private static boolean inflates(BufferedInputStream in) throws IOException {
+        byte[] head = new byte[SNIFF_BYTES];
+        in.mark(head.length);
+        int length = 0;
+        int read;
+        while (length < head.length && (read = in.read(head, length, head.length - length)) > 0) {
+            length += read;
+        }
+        in.reset();
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(head, 0, length);
+            byte[] output = new byte[4096];
+            while (!inflater.finished() && !inflater.needsInput() && !inflater.needsDictionary()) {
+                inflater.inflate(output);
+            }
+            return !inflater.needsDictionary();
+        } catch (DataFormatException e) {
+            return false;
+        } finally {
+            inflater.end();
+        }
+    }
+    
+    /**
+     * Wraps the output in this compression at the given Deflater level
+     */
+    public OutputStream compress(OutputStream out, int level) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPOutputStream(out, BUFFER_SIZE) {
+                    {
+                        def.setLevel(level);
+                    }
+                };
+            case DEFLATE:
+                return new DeflaterOutputStream(out, new Deflater(level), BUFFER_SIZE) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            def.end();
+                        }
+                    }
+                };
+            default:
+                return out;
+        }
+    }
+}
@@ -1,10 +1,23 @@
 package com.example;
 
+import com.example.diagnostics.RecorderEvents;
+import com.example.metrics.Counter;
+import com.example.metrics.Histogram;
+import com.example.metrics.MetricsRegistry;
+import com.example.exporter.ExporterRegistry;
+import com.example.exporter.TextExporter;
+import com.example.exporter.TimestampExporter;
+import com.example.importer.BatchingEntrySink;
+import com.example.importer.EntrySink;
+import com.example.importer.ImporterRegistry;
+import com.example.importer.TimecodeScanner;
+import com.example.importer.TimestampImporter;
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,16 +25,66 @@ import java.util.List;
  * Service class for file operations (loading and saving timestamps)
  */
 public class FileService {
+    /**
+     * Told about every file written by saveTimestamps() or export(), e.g. to keep a search index current
+     */
+    public interface SavedFileListener {
+        void saved(File file, List<TimestampEntry> entries);
+    }
+    
+    private static final Histogram LOAD_LATENCY = MetricsRegistry.getInstance().latency("file.load");
+    private static final Counter LOAD_BYTES = MetricsRegistry.getInstance().counter("file.load.bytes");
+    private static final Counter LOAD_ENTRIES = MetricsRegistry.getInstance().counter("file.load.entries");
+    private static final Counter PARSE_FAILURES = MetricsRegistry.getInstance().counter("file.load.parseFailures");
+    private static final Counter LOAD_FAILURES = MetricsRegistry.getInstance().counter("file.load.failures");
+    private static final Histogram EXPORT_LATENCY = MetricsRegistry.getInstance().latency("file.export");
+    private static final Counter EXPORT_BYTES = MetricsRegistry.getInstance().counter("file.export.bytes");
+    private static final Counter EXPORT_ENTRIES = MetricsRegistry.getInstance().counter("file.export.entries");
+    private static final Histogram SCAN_LATENCY = MetricsRegistry.getInstance().latency("scan.text");
+    private static final Counter SCAN_CHARS = MetricsRegistry.getInstance().counter("scan.chars");
+    
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+    private static final int IMPORT_BUFFER_SIZE = 64 * 1024;
+    
+    private final ExporterRegistry exporterRegistry = new ExporterRegistry();
+    private final ImporterRegistry importerRegistry = new ImporterRegistry();
+    private int compressionLevel = Compression.defaultLevel();
+    private SavedFileListener savedFileListener;
+    
+    /**
+     * Export formats available to export()
+     */
+    public ExporterRegistry getExporterRegistry() {
+        return exporterRegistry;
+    }
+    
+    /**
+     * Deflater level (1-9, or -1 for the default) used when writing .gz / .zz files
+     */
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+    
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+    
+    public void setSavedFileListener(SavedFileListener savedFileListener) {
+        this.savedFileListener = savedFileListener;
+    }
     
     /**
      * Saves timestamps to a text file
      */
     public boolean saveTimestamps(List<TimestampEntry> timestamps, File file) {
-        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath())) {
-            for (TimestampEntry entry : timestamps) {
-                writer.write(entry.toExportString());
-                writer.newLine();
+        try {
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(openOutput(file), StandardCharsets.UTF_8))) {
+                for (TimestampEntry entry : timestamps) {
+                    writer.write(entry.toExportString());
+                    writer.newLine();
+                }
             }
+            notifySaved(file, timestamps);
             return true;
         } catch (IOException e) {
             System.err.println("Error saving timestamps: " + e.getMessage());
@@ -30,102 +93,172 @@ public class FileService {
     }
     
     /**
-     * Loads timestamps from a text file
+     * Loads timestamps from a file in any supported format
+     * @throws IOException if the file could not be read; entries parsed before the error are dropped
      */
-    public List<TimestampEntry> loadTimestamps(File file) {
+    public List<TimestampEntry> loadTimestamps(File file) throws IOException {
         List<TimestampEntry> timestamps = new ArrayList<>();
-        
-        try (BufferedReader reader = Files.newBufferedReader(file.toPath())) {
-            String line;
-            int lineNumber = 0;
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                System.out.println("Processing line " + lineNumber + ": '" + line + "'");
-                TimestampEntry entry = parseTimestampLine(line);
-                if (entry != null) {
-                    timestamps.add(entry);
-                    System.out.println("Successfully parsed: " + entry.getTimestamp() + " - " + entry.getNotes());
-                } else {
-                    System.out.println("Failed to parse line " + lineNumber);
-                }
-            }
-            System.out.println("Total entries loaded: " + timestamps.size());
+        BatchingEntrySink sink = new BatchingEntrySink(timestamps::addAll);
+        importEntries(file, sink);
+        return timestamps;
+    }
+    
+    /**
+     * Streams entries from a file into the sink, picking the importer by sniffing the file's first bytes.
+     * The sink is flushed before returning. Entries, skipped lines and failed loads are counted in the
+     * file.load.* metrics rather than logged.
+     * @return the importer that was used
+     * @throws IOException if the file could not be read; entries before the error have reached the sink
+     */
+    public TimestampImporter importEntries(File file, BatchingEntrySink sink) throws IOException {
+        long start = System.nanoTime();
+        RecorderEvents.FileLoad event = new RecorderEvents.FileLoad();
+        event.begin();
+        try {
+            return readEntries(file, sink);
         } catch (IOException e) {
-            System.err.println("Error loading timestamps: " + e.getMessage());
-            e.printStackTrace();
+            LOAD_FAILURES.increment();
+            sink.flush();
+            throw e;
+        } finally {
+            LOAD_LATENCY.recordSince(start);
+            LOAD_ENTRIES.add(sink.getEntryCount());
+            LOAD_BYTES.add(file.length());
+            PARSE_FAILURES.add(sink.getErrorCount());
+            if (event.shouldCommit()) {
+                event.path = file.getPath();
+                event.bytes = file.length();
+                event.entries = (int) sink.getEntryCount();
+                event.parseErrors = (int) sink.getErrorCount();
+                event.commit();
+            }
+        }
+    }
+    
+    /**
+     * Streams entries from a file into the sink like importEntries(), without logging or recording metrics,
+     * for bulk readers such as the library crawler. The sink is flushed before returning.
+     * @return the importer that was used
+     */
+    public TimestampImporter readEntries(File file, BatchingEntrySink sink) throws IOException {
+        try (InputStream in = openInput(file)) {
+            TimestampImporter importer = sniff(in);
+            importer.read(in, sink);
+            sink.flush();
+            return importer;
         }
-        
-        return timestamps;
     }
     
     /**
-     * Parses a line from the file to create a TimestampEntry
+     * Opens a file for reading, transparently decompressing GZIP or zlib content
      */
-    private TimestampEntry parseTimestampLine(String line) {
-        if (line == null || line.trim().isEmpty()) {
-            return null;
+    private InputStream openInput(File file) throws IOException {
+        InputStream raw = new BufferedInputStream(Files.newInputStream(file.toPath()), IMPORT_BUFFER_SIZE);
+        try {
+            return Compression.decompressIfNeeded(raw);
+        } catch (IOException e) {
+            raw.close();
+            throw e;
         }
-        
-        // Skip comment lines and header lines
-        String trimmedLine = line.trim();
-        if (trimmedLine.startsWith("#") || trimmedLine.startsWith("=") || 
-            trimmedLine.toLowerCase().contains("timestamp export") ||
-            trimmedLine.toLowerCase().contains("generated on")) {
-            return null;
+    }
+    
+    /**
+     * Opens a file for writing; .gz and .zz files are compressed on a background thread
+     */
+    private OutputStream openOutput(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        OutputStream out = Channels.newOutputStream(channel);
+        Compression compression = Compression.forFileName(file.getName());
+        if (compression == Compression.NONE) {
+            return new BufferedOutputStream(out, EXPORT_BUFFER_SIZE);
         }
-        
-        TimestampType type = TimestampType.MAIN;
-        
-        // Check if it's a sub-timestamp (starts with full-width spaces or regular spaces)
-        if (trimmedLine.startsWith("\u3000\u3000") || trimmedLine.startsWith("    ")) {
-            type = TimestampType.SUB;
-            if (trimmedLine.startsWith("\u3000\u3000")) {
-                trimmedLine = trimmedLine.substring(2).trim(); // Remove full-width spaces
-            } else {
-                trimmedLine = trimmedLine.substring(4).trim(); // Remove regular spaces
-            }
+        return new AsyncCompressingOutputStream(compression.compress(out, compressionLevel));
+    }
+    
+    /**
+     * Picks an importer from the stream's first bytes and rewinds the stream
+     */
+    private TimestampImporter sniff(InputStream in) throws IOException {
+        byte[] head = new byte[ImporterRegistry.SNIFF_BYTES];
+        in.mark(head.length);
+        int length = 0;
+        int read;
+        while (length < head.length && (read = in.read(head, length, head.length - length)) > 0) {
+            length += read;
         }
-        
-        // Split timestamp and notes - look for first space after timestamp pattern
-        String[] parts = trimmedLine.split(" ", 2);
-        if (parts.length >= 1) {
-            String timestamp = parts[0];
-            String notes = parts.length > 1 ? parts[1] : "";
-            
-            // Validate timestamp format (basic check)
-            if (timestamp.matches("^\\d+:\\d{2}(:\\d{2})?$")) {
-                return new TimestampEntry(timestamp, notes, type);
-            } else {
-                System.out.println("Invalid timestamp format: " + timestamp);
-            }
+        in.reset();
+        return importerRegistry.detect(head, length);
+    }
+    
+    /**
+     * Extracts every timecode found anywhere in a document, with the text around it as notes
+     */
+    public void scanDocument(File file, EntrySink sink) throws IOException {
+        try (Reader reader = new InputStreamReader(openInput(file), StandardCharsets.UTF_8)) {
+            long start = System.nanoTime();
+            TimecodeScanner scanner = new TimecodeScanner();
+            scanner.scan(reader, (line, millis, timecode, context) ->
+                    sink.accept(new TimestampEntry(millis, Timecode.styleOf(timecode),
+                            NoteSegments.parse(context), TimestampType.MAIN)));
+            SCAN_CHARS.add(scanner.getCharsScanned());
+            SCAN_LATENCY.recordSince(start);
         }
-        
-        return null;
+    }
+    
+    /**
+     * Extracts every timecode found anywhere in pasted text, with the text around it as notes
+     */
+    public void scanText(CharSequence text, EntrySink sink) {
+        long start = System.nanoTime();
+        TimecodeScanner scanner = new TimecodeScanner();
+        scanner.scan(text, (line, millis, timecode, context) ->
+                sink.accept(new TimestampEntry(millis, Timecode.styleOf(timecode),
+                        NoteSegments.parse(context), TimestampType.MAIN)));
+        SCAN_CHARS.add(scanner.getCharsScanned());
+        SCAN_LATENCY.recordSince(start);
     }
     
     /**
      * Exports timestamps to a formatted text file
      */
     public boolean exportTimestamps(List<TimestampEntry> timestamps, File file) {
-        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath())) {
-            // Write header
-            writer.write("Timestamp Export - Generated on " + 
-                        LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-            writer.newLine();
-            writer.write("======================================================");
-            writer.newLine();
-            writer.newLine();
-            
-            // Write timestamps
-            for (TimestampEntry entry : timestamps) {
-                writer.write(entry.toExportString());
-                writer.newLine();
+        return export(timestamps, file, new TextExporter());
+    }
+    
+    /**
+     * Streams timestamps to a file through the given exporter
+     */
+    public boolean export(List<TimestampEntry> timestamps, File file, TimestampExporter exporter) {
+        long start = System.nanoTime();
+        RecorderEvents.FileExport event = new RecorderEvents.FileExport();
+        event.begin();
+        try {
+            try (OutputStream out = openOutput(file)) {
+                exporter.export(timestamps, out);
             }
-            
+            EXPORT_ENTRIES.add(timestamps.size());
+            EXPORT_BYTES.add(file.length());
+            notifySaved(file, timestamps);
             return true;
         } catch (IOException e) {
             System.err.println("Error exporting timestamps: " + e.getMessage());
             return false;
+        } finally {
+            EXPORT_LATENCY.recordSince(start);
+            if (event.shouldCommit()) {
+                event.path = file.getPath();
+                event.bytes = file.length();
+                event.entries = timestamps.size();
+                event.commit();
+            }
+        }
+    }
+    
+    private void notifySaved(File file, List<TimestampEntry> timestamps) {
+        SavedFileListener listener = savedFileListener;
+        if (listener != null) {
+            listener.saved(file, timestamps);
         }
     }
     
@@ -0,0 +1,90 @@
+package com.example;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a single file for changes and runs a callback once writes have settled
+ * Editors and scripts often write a file in several steps (or replace it by renaming),
+ * so each change restarts a short debounce delay and only the last one triggers the callback
+ */
+public class FileWatcher implements Closeable {
+    public static final long DEBOUNCE_MS = 300;
+
+    private final Path fileName;
+    private final WatchService watchService;
+    private final ScheduledExecutorService debouncer;
+    private final Runnable onChange;
+    private ScheduledFuture<?> pending;
+
+    /**
+     * Starts watching; onChange runs on a background thread
+     */
+    public FileWatcher(File file, Runnable onChange) throws IOException {
+        Path path = file.getAbsoluteFile().toPath();
+        this.fileName = path.getFileName();
+        this.onChange = onChange;
+        this.watchService = path.getFileSystem().newWatchService();
+        // Watch the directory: a file replaced by rename gets a new identity
+        path.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.debouncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "file-watch-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Thread watchThread = new Thread(this::watch, "file-watch " + fileName);
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context())) {
+                        scheduleChange();
+                    }
+                }
+                if (!key.reset()) {
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    private synchronized void scheduleChange() {
+        if (debouncer.isShutdown()) {
+            return;
+        }
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = debouncer.schedule(onChange, DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        debouncer.shutdownNow();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("Error closing file watcher: " + e.getMessage());
+        }
+    }
+}
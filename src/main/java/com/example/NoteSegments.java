@@ -0,0 +1,431 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ordered note segments stored in one shared character array with offsets.
+ * The text form joins segments with " | " (the format used by exports), and
+ * is built lazily and cached. Editing a segment only rewrites that segment:
+ * it is overwritten in place when it fits, otherwise appended to the backing
+ * array, which is compacted once more than half of it is stale.
+ * Notes of entries in a session are interned: the segments are then ids into
+ * the session's NotesDictionary, holding one reference each, and are decoded
+ * on read. Editing interned notes turns them back into plain ones first.
+ */
+public final class NoteSegments {
+    public static final String SEPARATOR = " | ";
+    
+    private static final int[] NO_BOUNDS = new int[0];
+    private static final char[] NO_CHARS = new char[0];
+    
+    private char[] chars;
+    private int used;
+    // start/end offsets into chars, two ints per segment
+    private int[] bounds;
+    private int count;
+    private String joined;
+    // Set while interned; chars and bounds are then unused
+    private NotesDictionary dictionary;
+    private int[] ids;
+    
+    private NoteSegments(char[] chars, int used, int[] bounds, int count) {
+        this.chars = chars;
+        this.used = used;
+        this.bounds = bounds;
+        this.count = count;
+    }
+    
+    /**
+     * Empty notes
+     */
+    public static NoteSegments empty() {
+        return new NoteSegments(NO_CHARS, 0, NO_BOUNDS, 0);
+    }
+    
+    /**
+     * Builds segments from note input fields: trims each note and skips blank ones
+     */
+    public static NoteSegments of(List<String> notes) {
+        int total = 0;
+        int segments = 0;
+        for (String note : notes) {
+            if (note != null && !note.trim().isEmpty()) {
+                total += note.length();
+                segments++;
+            }
+        }
+        NoteSegments result = new NoteSegments(new char[total], 0, new int[segments * 2], 0);
+        for (String note : notes) {
+            if (note != null && !note.trim().isEmpty()) {
+                result.appendSegment(note.trim());
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Splits the " | "-joined text form into segments, keeping them verbatim so
+     * that parse(text).toString() returns the original text
+     */
+    public static NoteSegments parse(String text) {
+        if (text == null || text.isEmpty()) {
+            return empty();
+        }
+        int segments = 1;
+        for (int i = text.indexOf(SEPARATOR); i >= 0; i = text.indexOf(SEPARATOR, i + SEPARATOR.length())) {
+            segments++;
+        }
+        NoteSegments result = new NoteSegments(new char[text.length()], 0, new int[segments * 2], 0);
+        int start = 0;
+        int sep;
+        while ((sep = text.indexOf(SEPARATOR, start)) >= 0) {
+            result.appendSegment(text, start, sep);
+            start = sep + SEPARATOR.length();
+        }
+        result.appendSegment(text, start, text.length());
+        result.joined = text;
+        return result;
+    }
+    
+    public int size() {
+        return count;
+    }
+    
+    public boolean isEmpty() {
+        return count == 0;
+    }
+    
+    /**
+     * Returns the segment at the given index
+     */
+    public String get(int index) {
+        checkIndex(index);
+        if (dictionary != null) {
+            return dictionary.get(ids[index]);
+        }
+        return new String(chars, bounds[2 * index], bounds[2 * index + 1] - bounds[2 * index]);
+    }
+    
+    /**
+     * Length of the segment at the given index, without materializing it
+     */
+    public int segmentLength(int index) {
+        checkIndex(index);
+        if (dictionary != null) {
+            return get(index).length();
+        }
+        return bounds[2 * index + 1] - bounds[2 * index];
+    }
+    
+    /**
+     * Replaces a single segment
+     */
+    public void set(int index, String text) {
+        checkIndex(index);
+        detach();
+        int start = bounds[2 * index];
+        int slot = bounds[2 * index + 1] - start;
+        if (text.length() <= slot) {
+            text.getChars(0, text.length(), chars, start);
+            bounds[2 * index + 1] = start + text.length();
+        } else {
+            ensureCharCapacity(text.length());
+            text.getChars(0, text.length(), chars, used);
+            bounds[2 * index] = used;
+            bounds[2 * index + 1] = used + text.length();
+            used += text.length();
+        }
+        joined = null;
+        compactIfSparse();
+    }
+    
+    /**
+     * Appends a segment at the end
+     */
+    public void add(String text) {
+        detach();
+        appendSegment(text);
+        joined = null;
+    }
+    
+    /**
+     * Removes a segment; its characters become garbage until the next compaction
+     */
+    public void remove(int index) {
+        checkIndex(index);
+        detach();
+        System.arraycopy(bounds, 2 * index + 2, bounds, 2 * index, 2 * (count - index - 1));
+        count--;
+        joined = null;
+        compactIfSparse();
+    }
+    
+    /**
+     * Updates these segments to match the given text form, rewriting only the
+     * segments that changed when the segment count is unchanged
+     */
+    public void update(String text) {
+        if (text == null) {
+            text = "";
+        }
+        if (text.equals(joined) || (dictionary != null && text.equals(toString()))) {
+            return;
+        }
+        detach();
+        NoteSegments updated = parse(text);
+        if (updated.count != count) {
+            chars = updated.chars;
+            used = updated.used;
+            bounds = updated.bounds;
+            count = updated.count;
+            joined = text;
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            if (!segmentEquals(i, updated, i)) {
+                set(i, updated.get(i));
+            }
+        }
+        joined = text;
+    }
+    
+    /**
+     * Writes a single segment straight from the backing array
+     */
+    public void writeSegment(int index, Writer out) throws IOException {
+        checkIndex(index);
+        if (dictionary != null) {
+            out.write(get(index));
+            return;
+        }
+        out.write(chars, bounds[2 * index], bounds[2 * index + 1] - bounds[2 * index]);
+    }
+    
+    /**
+     * Writes all segments joined with the given separator, without building the joined string
+     */
+    public void writeTo(Writer out, String separator) throws IOException {
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                out.write(separator);
+            }
+            if (dictionary != null) {
+                out.write(get(i));
+                continue;
+            }
+            out.write(chars, bounds[2 * i], bounds[2 * i + 1] - bounds[2 * i]);
+        }
+    }
+    
+    /**
+     * Returns the segments as a new list
+     */
+    public List<String> toList() {
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        List<String> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(get(i));
+        }
+        return list;
+    }
+    
+    /**
+     * Returns an independent copy of these segments, never interned
+     */
+    public NoteSegments copy() {
+        if (dictionary != null) {
+            NoteSegments copy = empty();
+            for (int i = 0; i < count; i++) {
+                copy.appendSegment(get(i));
+            }
+            return copy;
+        }
+        NoteSegments copy = new NoteSegments(Arrays.copyOf(chars, used), used, Arrays.copyOf(bounds, 2 * count), count);
+        copy.joined = joined;
+        return copy;
+    }
+    
+    /**
+     * The " | "-joined text form, built on first use and cached until the next edit;
+     * not cached while interned, as that would keep a private copy of the text
+     */
+    @Override
+    public String toString() {
+        if (dictionary != null) {
+            return String.join(SEPARATOR, toList());
+        }
+        String result = joined;
+        if (result == null) {
+            int length = 0;
+            for (int i = 0; i < count; i++) {
+                length += bounds[2 * i + 1] - bounds[2 * i];
+            }
+            StringBuilder builder = new StringBuilder(length + Math.max(0, count - 1) * SEPARATOR.length());
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    builder.append(SEPARATOR);
+                }
+                builder.append(chars, bounds[2 * i], bounds[2 * i + 1] - bounds[2 * i]);
+            }
+            result = builder.toString();
+            joined = result;
+        }
+        return result;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof NoteSegments)) {
+            return false;
+        }
+        NoteSegments other = (NoteSegments) o;
+        if (count != other.count) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (!segmentEquals(i, other, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    @Override
+    public int hashCode() {
+        int hash = count;
+        for (int i = 0; i < count; i++) {
+            if (dictionary != null) {
+                String segment = get(i);
+                for (int c = 0; c < segment.length(); c++) {
+                    hash = 31 * hash + segment.charAt(c);
+                }
+                hash = 31 * hash + '|';
+                continue;
+            }
+            for (int c = bounds[2 * i]; c < bounds[2 * i + 1]; c++) {
+                hash = 31 * hash + chars[c];
+            }
+            hash = 31 * hash + '|';
+        }
+        return hash;
+    }
+    
+    /**
+     * Moves these segments into the given dictionary, taking one reference per segment;
+     * notes interned in another dictionary give their references back to it first
+     */
+    void intern(NotesDictionary target) {
+        if (dictionary == target) {
+            return;
+        }
+        detach();
+        int[] interned = new int[count];
+        for (int i = 0; i < count; i++) {
+            interned[i] = target.acquire(get(i));
+        }
+        ids = interned;
+        dictionary = target;
+        chars = NO_CHARS;
+        used = 0;
+        bounds = NO_BOUNDS;
+        joined = null;
+    }
+    
+    /**
+     * Turns interned segments back into plain ones and releases their references
+     */
+    void detach() {
+        if (dictionary == null) {
+            return;
+        }
+        List<String> segments = toList();
+        NotesDictionary owner = dictionary;
+        int[] released = ids;
+        dictionary = null;
+        ids = null;
+        count = 0;
+        for (String segment : segments) {
+            appendSegment(segment);
+        }
+        for (int id : released) {
+            owner.release(id);
+        }
+    }
+    
+    private boolean segmentEquals(int index, NoteSegments other, int otherIndex) {
+        if (dictionary != null || other.dictionary != null) {
+            return get(index).equals(other.get(otherIndex));
+        }
+        int start = bounds[2 * index];
+        int length = bounds[2 * index + 1] - start;
+        int otherStart = other.bounds[2 * otherIndex];
+        if (length != other.bounds[2 * otherIndex + 1] - otherStart) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (chars[start + i] != other.chars[otherStart + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void appendSegment(String text) {
+        appendSegment(text, 0, text.length());
+    }
+    
+    private void appendSegment(String text, int from, int to) {
+        int length = to - from;
+        ensureCharCapacity(length);
+        if (2 * count + 2 > bounds.length) {
+            bounds = Arrays.copyOf(bounds, Math.max(4, bounds.length * 2));
+        }
+        text.getChars(from, to, chars, used);
+        bounds[2 * count] = used;
+        bounds[2 * count + 1] = used + length;
+        used += length;
+        count++;
+    }
+    
+    private void ensureCharCapacity(int extra) {
+        if (used + extra > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(used + extra, chars.length * 2));
+        }
+    }
+    
+    private void compactIfSparse() {
+        int live = 0;
+        for (int i = 0; i < count; i++) {
+            live += bounds[2 * i + 1] - bounds[2 * i];
+        }
+        if (used > 16 && live * 2 < used) {
+            char[] compacted = new char[live];
+            int position = 0;
+            for (int i = 0; i < count; i++) {
+                int length = bounds[2 * i + 1] - bounds[2 * i];
+                System.arraycopy(chars, bounds[2 * i], compacted, position, length);
+                bounds[2 * i] = position;
+                bounds[2 * i + 1] = position + length;
+                position += length;
+            }
+            chars = compacted;
+            used = live;
+        }
+    }
+    
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Segment " + index + " of " + count);
+        }
+    }
+}
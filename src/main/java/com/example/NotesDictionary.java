@@ -0,0 +1,243 @@
+package com.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Session-wide dictionary of note segments, so repeated annotations ("goal", "replay", speaker
+ * names) are stored once. Each distinct segment gets an int id and its UTF-8 bytes in one shared
+ * arena; ids are reference counted, and a segment's id and bytes are freed when its last reference
+ * is released. Ids never move, the bytes do: the arena is compacted once more than half of it is free.
+ * Thread-safe, so exports on a background thread can read while the session is being edited.
+ */
+public class NotesDictionary {
+    private static final int INITIAL_IDS = 64;
+    private static final int INITIAL_ARENA = 1024;
+    private static final int EMPTY = -1;
+
+    private byte[] arena = new byte[INITIAL_ARENA];
+    private int arenaUsed;
+    private int arenaFree;
+
+    // Per id; a free id has refCounts == 0 and is chained through offsets
+    private int[] offsets = new int[INITIAL_IDS];
+    private int[] lengths = new int[INITIAL_IDS];
+    private int[] refCounts = new int[INITIAL_IDS];
+    private int idCount;
+    private int freeIds = EMPTY;
+    private int liveIds;
+    private long references;
+    private long referencedBytes;
+
+    // Open-addressing table of ids by content hash, linear probing
+    private int[] table = newTable(INITIAL_IDS * 2);
+
+    /**
+     * Returns the id of the given text, adding it if needed, and takes a reference to it
+     */
+    public synchronized int acquire(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(bytes, 0, bytes.length);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != EMPTY) {
+            int id = table[slot];
+            if (lengths[id] == bytes.length
+                    && Arrays.equals(arena, offsets[id], offsets[id] + lengths[id], bytes, 0, bytes.length)) {
+                reference(id);
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int id = allocateId();
+        offsets[id] = store(bytes);
+        lengths[id] = bytes.length;
+        table[slot] = id;
+        liveIds++;
+        reference(id);
+        if (liveIds * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return id;
+    }
+
+    /**
+     * Gives back a reference taken by acquire(); the segment is freed with its last reference
+     */
+    public synchronized void release(int id) {
+        if (id < 0 || id >= idCount || refCounts[id] == 0) {
+            throw new IllegalArgumentException("Note id " + id + " is not in use");
+        }
+        references--;
+        referencedBytes -= lengths[id];
+        if (--refCounts[id] > 0) {
+            return;
+        }
+        removeFromTable(id);
+        arenaFree += lengths[id];
+        offsets[id] = freeIds;
+        lengths[id] = 0;
+        freeIds = id;
+        liveIds--;
+        if (arenaUsed > INITIAL_ARENA && arenaFree * 2 > arenaUsed) {
+            compact();
+        }
+    }
+
+    public synchronized String get(int id) {
+        if (id < 0 || id >= idCount || refCounts[id] == 0) {
+            throw new IllegalArgumentException("Note id " + id + " is not in use");
+        }
+        return new String(arena, offsets[id], lengths[id], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Number of distinct segments stored
+     */
+    public synchronized int getDistinctCount() {
+        return liveIds;
+    }
+
+    /**
+     * Number of segment references held, i.e. segments across all entries
+     */
+    public synchronized long getReferenceCount() {
+        return references;
+    }
+
+    /**
+     * UTF-8 bytes of the distinct segments
+     */
+    public synchronized long getStoredBytes() {
+        return arenaUsed - arenaFree;
+    }
+
+    /**
+     * UTF-8 bytes the referenced segments would take if each entry kept its own copy
+     */
+    public synchronized long getReferencedBytes() {
+        return referencedBytes;
+    }
+
+    /**
+     * How many times smaller the stored text is than one copy per entry; 1 when nothing repeats
+     */
+    public synchronized double getDedupeRatio() {
+        long stored = arenaUsed - arenaFree;
+        return stored == 0 ? 1.0 : (double) referencedBytes / stored;
+    }
+
+    /**
+     * One-line memory summary, e.g. for the About dialog
+     */
+    public synchronized String describe() {
+        return String.format("%d note segments, %d distinct in %d KB (%d KB arena), dedupe ratio %.1fx",
+                references, liveIds, (arenaUsed - arenaFree) >> 10, arena.length >> 10, getDedupeRatio());
+    }
+
+    private void reference(int id) {
+        refCounts[id]++;
+        references++;
+        referencedBytes += lengths[id];
+    }
+
+    private int allocateId() {
+        if (freeIds != EMPTY) {
+            int id = freeIds;
+            freeIds = offsets[id];
+            return id;
+        }
+        if (idCount == offsets.length) {
+            int capacity = idCount * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            refCounts = Arrays.copyOf(refCounts, capacity);
+        }
+        return idCount++;
+    }
+
+    private int store(byte[] bytes) {
+        if (arenaUsed + bytes.length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arenaUsed + bytes.length, arena.length * 2));
+        }
+        System.arraycopy(bytes, 0, arena, arenaUsed, bytes.length);
+        int offset = arenaUsed;
+        arenaUsed += bytes.length;
+        return offset;
+    }
+
+    /**
+     * Moves the live segments to the front of the arena in offset order; ids stay the same
+     */
+    private void compact() {
+        Integer[] live = new Integer[liveIds];
+        int count = 0;
+        for (int id = 0; id < idCount; id++) {
+            if (refCounts[id] > 0) {
+                live[count++] = id;
+            }
+        }
+        Arrays.sort(live, (a, b) -> Integer.compare(offsets[a], offsets[b]));
+        int position = 0;
+        for (int id : live) {
+            System.arraycopy(arena, offsets[id], arena, position, lengths[id]);
+            offsets[id] = position;
+            position += lengths[id];
+        }
+        arenaUsed = position;
+        arenaFree = 0;
+        if (arena.length > INITIAL_ARENA && position * 4 < arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(INITIAL_ARENA, position * 2));
+        }
+    }
+
+    /**
+     * Removes an id from the table, shifting later entries of its probe run back so lookups still find them
+     */
+    private void removeFromTable(int id) {
+        int mask = table.length - 1;
+        int slot = hash(arena, offsets[id], lengths[id]) & mask;
+        while (table[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        int gap = slot;
+        for (int next = (gap + 1) & mask; table[next] != EMPTY; next = (next + 1) & mask) {
+            int home = hash(arena, offsets[table[next]], lengths[table[next]]) & mask;
+            // Move the entry back unless its home lies cyclically within (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                table[gap] = table[next];
+                gap = next;
+            }
+        }
+        table[gap] = EMPTY;
+    }
+
+    private void rehash(int capacity) {
+        table = newTable(capacity);
+        int mask = capacity - 1;
+        for (int id = 0; id < idCount; id++) {
+            if (refCounts[id] > 0) {
+                int slot = hash(arena, offsets[id], lengths[id]) & mask;
+                while (table[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = id;
+            }
+        }
+    }
+
+    private static int[] newTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        // Spread the bits, since the table index uses the low ones
+        return hash ^ (hash >>> 16);
+    }
+}
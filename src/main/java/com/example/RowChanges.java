@@ -0,0 +1,77 @@
+package com.example;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The rows one change to TimestampService's list removed and inserted, so a view reading the live list
+ * can update just those rows instead of comparing against a copy. Entries whose notes changed in place
+ * keep their rows and are not listed. Large changes (loads, big batches) only report that everything changed.
+ */
+public final class RowChanges {
+    private static final RowChanges ALL = new RowChanges(null, null, null);
+    private static final RowChanges NONE = new RowChanges(new int[0], Collections.emptyList(), new int[0]);
+
+    private final int[] removedRows;
+    private final List<TimestampEntry> removedEntries;
+    private final int[] insertedRows;
+
+    private RowChanges(int[] removedRows, List<TimestampEntry> removedEntries, int[] insertedRows) {
+        this.removedRows = removedRows;
+        this.removedEntries = removedEntries;
+        this.insertedRows = insertedRows;
+    }
+
+    public static RowChanges all() {
+        return ALL;
+    }
+
+    static RowChanges none() {
+        return NONE;
+    }
+
+    /**
+     * @param removedRows rows before the change, ascending
+     * @param removedEntries the entries that were at those rows, in the same order
+     * @param insertedRows rows after the change, ascending
+     */
+    static RowChanges of(int[] removedRows, List<TimestampEntry> removedEntries, int[] insertedRows) {
+        if (removedRows.length == 0 && insertedRows.length == 0) {
+            return NONE;
+        }
+        return new RowChanges(removedRows, Collections.unmodifiableList(removedEntries), insertedRows);
+    }
+
+    /**
+     * Whether the rows can't be told apart, so the whole list has to be re-read
+     */
+    public boolean isAll() {
+        return removedRows == null;
+    }
+
+    /**
+     * Rows removed, numbered as before the change, ascending; empty when isAll()
+     */
+    public int[] getRemovedRows() {
+        return isAll() ? new int[0] : removedRows.clone();
+    }
+
+    /**
+     * The removed entries, in the order of getRemovedRows()
+     */
+    public List<TimestampEntry> getRemovedEntries() {
+        return isAll() ? Collections.emptyList() : removedEntries;
+    }
+
+    /**
+     * Rows inserted, numbered as after the change, ascending; empty when isAll()
+     */
+    public int[] getInsertedRows() {
+        return isAll() ? new int[0] : insertedRows.clone();
+    }
+
+    @Override
+    public String toString() {
+        return isAll() ? "all rows" : removedRows.length + " removed, " + insertedRows.length + " inserted";
+    }
+}
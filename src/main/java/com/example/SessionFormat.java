@@ -0,0 +1,42 @@
+package com.example;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Layout of the binary session format (.tsr):
+ * <pre>
+ * header  : "TSRS" magic, u8 version
+ * record  : u8 tag (1 = entry, 0 = end of file)
+ *           u8 type (TimestampType ordinal)
+ *           u8 style (Timecode.Style ordinal)
+ *           i64           time in milliseconds
+ *           i64           dateAdded (local date-time as epoch millis at UTC)
+ *           i32           segment count, then a utf-8 string per note segment
+ * string  : i32 byte length followed by UTF-8 bytes
+ * </pre>
+ * All integers are big-endian (DataOutputStream order).
+ * Version 1 files have no style byte and the time as a utf-8 timecode string instead of i64 millis.
+ */
+public final class SessionFormat {
+    public static final byte[] MAGIC = "TSRS".getBytes(StandardCharsets.US_ASCII);
+    public static final int VERSION = 2;
+    /** Earlier version with times written as timecode strings, still read */
+    public static final int VERSION_TEXT_TIMES = 1;
+    public static final int TAG_END = 0;
+    public static final int TAG_ENTRY = 1;
+    public static final String FILE_EXTENSION = "tsr";
+    
+    private SessionFormat() {
+    }
+    
+    public static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+    
+    public static LocalDateTime fromEpochMillis(long epochMillis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000),
+                Math.floorMod(epochMillis, 1000) * 1_000_000, ZoneOffset.UTC);
+    }
+}
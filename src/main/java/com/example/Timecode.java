@@ -0,0 +1,182 @@
+package com.example;
+
+/**
+ * Timecodes as fixed-point milliseconds (a plain long), with parsing and formatting for
+ * mm:ss, hh:mm:ss, mm:ss.SSS, hh:mm:ss.SSS and frame-based hh:mm:ss:ff
+ * Frames are converted at the configured frame rate (-Drecorder.fps, default 30)
+ */
+public final class Timecode {
+    public static final String FPS_PROPERTY = "recorder.fps";
+    public static final int DEFAULT_FPS = 30;
+    /** Returned by parse() for text that is not a timecode */
+    public static final long INVALID = -1;
+
+    private static final int FPS = Math.max(1, Integer.getInteger(FPS_PROPERTY, DEFAULT_FPS));
+
+    /**
+     * How a timecode is written
+     */
+    public enum Style {
+        /** mm:ss or h:mm:ss */
+        SECONDS,
+        /** mm:ss.SSS or h:mm:ss.SSS */
+        MILLIS,
+        /** hh:mm:ss:ff */
+        FRAMES
+    }
+
+    private Timecode() {
+    }
+
+    public static int getFrameRate() {
+        return FPS;
+    }
+
+    /**
+     * Parses a timecode to milliseconds without regex or splitting; returns INVALID if it is not one.
+     * Accepts [h:]m:s with an optional .f, .ff or .fff fraction, or h:m:s:ff frames.
+     */
+    public static long parse(String text) {
+        if (text == null) {
+            return INVALID;
+        }
+        int length = text.length();
+        long[] groups = new long[4];
+        int count = 0;
+        int i = 0;
+        while (true) {
+            int start = i;
+            long value = 0;
+            while (i < length && isDigit(text.charAt(i))) {
+                value = value * 10 + (text.charAt(i) - '0');
+                if (value > Integer.MAX_VALUE) {
+                    return INVALID;
+                }
+                i++;
+            }
+            if (i == start || count == groups.length) {
+                return INVALID;
+            }
+            groups[count++] = value;
+            if (i < length && text.charAt(i) == ':') {
+                i++;
+                continue;
+            }
+            break;
+        }
+
+        long fraction = 0;
+        if (i < length && text.charAt(i) == '.' && count <= 3) {
+            int digits = 0;
+            i++;
+            while (i < length && isDigit(text.charAt(i)) && digits < 3) {
+                fraction = fraction * 10 + (text.charAt(i) - '0');
+                digits++;
+                i++;
+            }
+            if (digits == 0) {
+                return INVALID;
+            }
+            for (; digits < 3; digits++) {
+                fraction *= 10;
+            }
+        }
+        if (i != length || count < 2) {
+            return INVALID;
+        }
+
+        switch (count) {
+            case 2:
+                return (groups[0] * 60 + groups[1]) * 1000 + fraction;
+            case 3:
+                return (groups[0] * 3600 + groups[1] * 60 + groups[2]) * 1000 + fraction;
+            default:
+                if (groups[3] >= FPS) {
+                    return INVALID;
+                }
+                return (groups[0] * 3600 + groups[1] * 60 + groups[2]) * 1000 + framesToMillis(groups[3]);
+        }
+    }
+
+    public static boolean isValid(String text) {
+        return parse(text) != INVALID;
+    }
+
+    /**
+     * The style a timecode is written in, so edits can keep it; SECONDS if it is not a timecode
+     */
+    public static Style styleOf(String text) {
+        if (text == null) {
+            return Style.SECONDS;
+        }
+        if (text.indexOf('.') >= 0) {
+            return Style.MILLIS;
+        }
+        int colons = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == ':') {
+                colons++;
+            }
+        }
+        return colons == 3 ? Style.FRAMES : Style.SECONDS;
+    }
+
+    /**
+     * Formats whole seconds as mm:ss / h:mm:ss, anything finer as mm:ss.SSS / h:mm:ss.SSS
+     */
+    public static String format(long millis) {
+        return format(millis, millis % 1000 == 0 ? Style.SECONDS : Style.MILLIS);
+    }
+
+    public static String format(long millis, Style style) {
+        millis = Math.max(0, millis);
+        // Built by hand: entries keep only millis, so this runs for every painted cell and exported line
+        StringBuilder text = new StringBuilder(12);
+        if (style == Style.FRAMES) {
+            long totalFrames = millisToFrames(millis);
+            long totalSeconds = totalFrames / FPS;
+            appendTwoDigits(text, totalSeconds / 3600).append(':');
+            appendTwoDigits(text, (totalSeconds % 3600) / 60).append(':');
+            appendTwoDigits(text, totalSeconds % 60).append(':');
+            return appendTwoDigits(text, totalFrames % FPS).toString();
+        }
+        long totalSeconds = millis / 1000;
+        long hours = totalSeconds / 3600;
+        if (hours > 0) {
+            text.append(hours).append(':');
+        }
+        appendTwoDigits(text, (totalSeconds % 3600) / 60).append(':');
+        appendTwoDigits(text, totalSeconds % 60);
+        if (style == Style.MILLIS) {
+            long fraction = millis % 1000;
+            text.append('.').append((char) ('0' + fraction / 100));
+            appendTwoDigits(text, fraction % 100);
+        }
+        return text.toString();
+    }
+
+    private static StringBuilder appendTwoDigits(StringBuilder text, long value) {
+        if (value < 10) {
+            text.append('0');
+        }
+        return text.append(value);
+    }
+
+    /**
+     * Milliseconds of the given number of frames, rounded to the nearest millisecond
+     */
+    public static long framesToMillis(long frames) {
+        return (frames * 1000 + FPS / 2) / FPS;
+    }
+
+    /**
+     * Frame containing the given time, rounded to the nearest frame
+     */
+    public static long millisToFrames(long millis) {
+        return (millis * FPS + 500) / 1000;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
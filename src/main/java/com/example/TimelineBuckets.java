@@ -0,0 +1,162 @@
+package com.example;
+
+import java.util.EnumMap;
+import java.util.List;
+
+/**
+ * Multi-resolution marker counts along the video timeline, per TimestampType
+ * Level 0 counts entries per second, each higher level sums pairs of buckets of the level below,
+ * so the number of markers in any time range is answered from O(log n) buckets
+ * regardless of how many entries there are
+ */
+public class TimelineBuckets {
+    private static final int INITIAL_SECONDS = 1024;
+
+    // levels.get(type)[level][bucket]; bucket covers 2^level seconds
+    private final EnumMap<TimestampType, int[][]> levels = new EnumMap<>(TimestampType.class);
+    private int capacitySeconds;
+
+    public TimelineBuckets() {
+        reset(INITIAL_SECONDS);
+    }
+
+    public void add(int seconds, TimestampType type) {
+        seconds = Math.max(0, seconds);
+        ensureCapacity(seconds + 1);
+        update(seconds, type, 1);
+    }
+
+    public void remove(int seconds, TimestampType type) {
+        seconds = Math.max(0, seconds);
+        if (seconds < capacitySeconds) {
+            update(seconds, type, -1);
+        }
+    }
+
+    public void clear() {
+        reset(INITIAL_SECONDS);
+    }
+
+    /**
+     * Recounts everything from the given entries
+     */
+    public void rebuild(List<TimestampEntry> entries) {
+        int last = 0;
+        for (TimestampEntry entry : entries) {
+            last = Math.max(last, entry.getSeconds());
+        }
+        reset(last + 1);
+        for (TimestampEntry entry : entries) {
+            levels.get(entry.getType())[0][Math.max(0, entry.getSeconds())]++;
+        }
+        // Sum each level from the one below instead of walking every entry up the pyramid
+        for (int[][] pyramid : levels.values()) {
+            for (int level = 1; level < pyramid.length; level++) {
+                int[] below = pyramid[level - 1];
+                int[] counts = pyramid[level];
+                for (int bucket = 0; bucket < counts.length; bucket++) {
+                    counts[bucket] = below[2 * bucket] + below[2 * bucket + 1];
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of entries of the given type in [fromSecond, toSecond)
+     */
+    public int count(TimestampType type, int fromSecond, int toSecond) {
+        int[][] pyramid = levels.get(type);
+        int from = Math.max(0, fromSecond);
+        int to = Math.min(capacitySeconds, toSecond);
+        int total = 0;
+        // Take the largest aligned bucket that fits at each step
+        while (from < to) {
+            int level = from == 0 ? pyramid.length - 1 : Integer.numberOfTrailingZeros(from);
+            while ((1 << level) > to - from) {
+                level--;
+            }
+            total += pyramid[level][from >>> level];
+            from += 1 << level;
+        }
+        return total;
+    }
+
+    /**
+     * One past the last second holding an entry of any type (0 when empty)
+     */
+    public int getDurationSeconds() {
+        int duration = 0;
+        for (int[][] pyramid : levels.values()) {
+            duration = Math.max(duration, lastSecond(pyramid) + 1);
+        }
+        return duration;
+    }
+
+    /**
+     * Last second with a non-zero count, found by descending from the top level; -1 when empty
+     */
+    private static int lastSecond(int[][] pyramid) {
+        int bucket = 0;
+        if (pyramid[pyramid.length - 1][0] == 0) {
+            return -1;
+        }
+        for (int level = pyramid.length - 2; level >= 0; level--) {
+            bucket = pyramid[level][2 * bucket + 1] != 0 ? 2 * bucket + 1 : 2 * bucket;
+        }
+        return bucket;
+    }
+
+    private void update(int seconds, TimestampType type, int delta) {
+        int[][] pyramid = levels.get(type);
+        for (int level = 0; level < pyramid.length; level++) {
+            pyramid[level][seconds >>> level] += delta;
+        }
+    }
+
+    private void ensureCapacity(int seconds) {
+        if (seconds <= capacitySeconds) {
+            return;
+        }
+        // Grow the base level by doubling; the old pyramid becomes the left half of the new one
+        int newCapacity = capacitySeconds;
+        while (newCapacity < seconds) {
+            newCapacity *= 2;
+        }
+        for (TimestampType type : TimestampType.values()) {
+            int[][] old = levels.get(type);
+            int[][] pyramid = newPyramid(newCapacity);
+            for (int level = 0; level < old.length; level++) {
+                System.arraycopy(old[level], 0, pyramid[level], 0, old[level].length);
+            }
+            int top = old[old.length - 1][0];
+            for (int level = old.length; level < pyramid.length; level++) {
+                pyramid[level][0] = top;
+            }
+            levels.put(type, pyramid);
+        }
+        capacitySeconds = newCapacity;
+    }
+
+    private void reset(int seconds) {
+        int capacity = INITIAL_SECONDS;
+        while (capacity < seconds) {
+            capacity *= 2;
+        }
+        capacitySeconds = capacity;
+        for (TimestampType type : TimestampType.values()) {
+            levels.put(type, newPyramid(capacity));
+        }
+    }
+
+    /**
+     * Levels for a power-of-two capacity, from per-second buckets up to a single bucket
+     */
+    private static int[][] newPyramid(int capacity) {
+        int levelCount = Integer.numberOfTrailingZeros(capacity) + 1;
+        int[][] pyramid = new int[levelCount][];
+        for (int level = 0; level < levelCount; level++) {
+            pyramid[level] = new int[capacity >>> level];
+        }
+        return pyramid;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts, deletes and note updates applied together by TimestampService.apply()
+ * Operations name entries rather than rows, so a batch stays valid whatever the order
+ * it is built in, and applying one returns the batch that undoes it
+ */
+public class TimestampBatch {
+    final List<TimestampEntry> inserts = new ArrayList<>();
+    final List<TimestampEntry> deletes = new ArrayList<>();
+    final List<TimestampEntry> noteTargets = new ArrayList<>();
+    final List<NoteSegments> noteValues = new ArrayList<>();
+
+    /**
+     * Insert an entry; entries with an invalid timestamp are skipped when the batch is applied
+     */
+    public TimestampBatch insert(TimestampEntry entry) {
+        inserts.add(entry);
+        return this;
+    }
+
+    public TimestampBatch insert(String timestamp, NoteSegments notes, TimestampType type) {
+        return insert(new TimestampEntry(timestamp, notes, type));
+    }
+
+    public TimestampBatch insertAll(List<TimestampEntry> entries) {
+        inserts.addAll(entries);
+        return this;
+    }
+
+    /**
+     * Delete an entry currently in the list; entries not in the list are ignored
+     */
+    public TimestampBatch delete(TimestampEntry entry) {
+        deletes.add(entry);
+        return this;
+    }
+
+    /**
+     * Replace the notes of an entry currently in the list
+     */
+    public TimestampBatch updateNotes(TimestampEntry entry, NoteSegments notes) {
+        noteTargets.add(entry);
+        noteValues.add(notes);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return inserts.isEmpty() && deletes.isEmpty() && noteTargets.isEmpty();
+    }
+
+    /**
+     * Number of operations in the batch
+     */
+    public int size() {
+        return inserts.size() + deletes.size() + noteTargets.size();
+    }
+}
@@ -5,26 +5,79 @@ import java.time.format.DateTimeFormatter;
 
 /**
  * Represents a timestamp entry with time, notes, and type information
+ * The time is kept as milliseconds plus the style it was written in, so it is never re-parsed and
+ * is shown the way it was entered (mm:ss, with a fraction, or in frames)
  */
 public class TimestampEntry {
-    private String timestamp;
-    private String notes;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    // Timecode.INVALID if the entry was built from text that is not a timecode
+    private long millis;
+    private Timecode.Style style;
+    private NoteSegments notes;
     private TimestampType type;
     private LocalDateTime dateAdded;
     
     public TimestampEntry(String timestamp, String notes, TimestampType type) {
-        this.timestamp = timestamp;
+        this(timestamp, NoteSegments.parse(notes), type);
+    }
+    
+    public TimestampEntry(String timestamp, NoteSegments notes, TimestampType type) {
+        this(Timecode.parse(timestamp), Timecode.styleOf(timestamp), notes, type);
+    }
+    
+    public TimestampEntry(long millis, Timecode.Style style, NoteSegments notes, TimestampType type) {
+        this.millis = millis;
+        this.style = style;
         this.notes = notes;
         this.type = type;
         this.dateAdded = LocalDateTime.now();
     }
     
     // Getters
+    /**
+     * Returns the time formatted in its style, or an empty string if it is not valid
+     */
     public String getTimestamp() {
-        return timestamp;
+        return millis == Timecode.INVALID ? "" : Timecode.format(millis, style);
+    }
+    
+    /**
+     * False if the entry was built from text that is not a timecode
+     */
+    public boolean isValid() {
+        return millis != Timecode.INVALID;
+    }
+    
+    public Timecode.Style getStyle() {
+        return style;
     }
     
+    /**
+     * Returns the notes joined with " | "
+     */
     public String getNotes() {
+        return notes.toString();
+    }
+    
+    /**
+     * Returns the timestamp in whole seconds
+     */
+    public int getSeconds() {
+        return (int) (getMillis() / 1000);
+    }
+    
+    /**
+     * Returns the timestamp in milliseconds, 0 if it is not valid
+     */
+    public long getMillis() {
+        return Math.max(0, millis);
+    }
+    
+    /**
+     * Returns the individual note segments
+     */
+    public NoteSegments getNoteSegments() {
         return notes;
     }
     
@@ -38,13 +91,28 @@ public class TimestampEntry {
     
     // Setters
     public void setTimestamp(String timestamp) {
-        this.timestamp = timestamp;
+        this.millis = Timecode.parse(timestamp);
+        this.style = Timecode.styleOf(timestamp);
     }
     
+    /**
+     * Sets the notes from their " | "-joined form; only changed segments are rewritten
+     */
     public void setNotes(String notes) {
+        this.notes.update(notes);
+    }
+    
+    public void setNoteSegments(NoteSegments notes) {
         this.notes = notes;
     }
     
+    /**
+     * Replaces a single note segment
+     */
+    public void setNoteSegment(int index, String text) {
+        notes.set(index, text);
+    }
+    
     public void setType(TimestampType type) {
         this.type = type;
     }
@@ -58,9 +126,9 @@ public class TimestampEntry {
      */
     public String getDisplayTimestamp() {
         if (type == TimestampType.SUB) {
-            return "\u3000\u3000" + timestamp; // Full-width spaces for indentation
+            return "\u3000\u3000" + getTimestamp(); // Full-width spaces for indentation
         }
-        return timestamp;
+        return getTimestamp();
     }
     
     /**
@@ -68,20 +136,26 @@ public class TimestampEntry {
      */
     public String getDisplayNotes() {
         if (type == TimestampType.SUB) {
-            return "\u3000\u3000" + notes; // Full-width spaces for indentation
+            return "\u3000\u3000" + getNotes(); // Full-width spaces for indentation
         }
-        return notes;
+        return getNotes();
+    }
+    
+    /**
+     * Returns the date added formatted for display
+     */
+    public String getDisplayDateAdded() {
+        return dateAdded.format(DATE_FORMATTER);
     }
     
     /**
      * Converts this entry to a table row for JTable display
      */
     public Object[] toTableRow() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
         return new Object[] {
             getDisplayTimestamp(),
             getDisplayNotes(),
-            dateAdded.format(formatter)
+            getDisplayDateAdded()
         };
     }
     
@@ -90,15 +164,15 @@ public class TimestampEntry {
      */
     public String toExportString() {
         if (type == TimestampType.SUB) {
-            return "\u3000\u3000" + timestamp + " " + notes;
+            return "\u3000\u3000" + getTimestamp() + " " + getNotes();
         }
-        return timestamp + " " + notes;
+        return getTimestamp() + " " + getNotes();
     }
     
     @Override
     public String toString() {
         return "TimestampEntry{" +
-                "timestamp='" + timestamp + '\'' +
+                "timestamp='" + getTimestamp() + '\'' +
                 ", notes='" + notes + '\'' +
                 ", type=" + type +
                 ", dateAdded=" + dateAdded +
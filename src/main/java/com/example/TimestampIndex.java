@@ -0,0 +1,289 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+
+/**
+ * Secondary indexes over the chronologically sorted timestamp list
+ * - date added: epoch-millis keys kept sorted, with each entry's time and type alongside, for range queries
+ *   (primitives only, so the index doesn't keep entries reachable when they live off-heap)
+ * - type: one bitset of row positions per TimestampType
+ * - timeline: marker counts per time range (TimelineBuckets)
+ * - analytics: chapter durations, density and gaps (ChapterAnalytics)
+ * All are updated incrementally as rows are inserted and removed
+ */
+public class TimestampIndex {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final TimestampType[] TYPES = TimestampType.values();
+
+    private long[] dateKeys = new long[INITIAL_CAPACITY];
+    private long[] dateMillis = new long[INITIAL_CAPACITY];
+    private byte[] dateTypes = new byte[INITIAL_CAPACITY];
+    private int dateCount;
+
+    private final EnumMap<TimestampType, RowBits> typeRows = new EnumMap<>(TimestampType.class);
+    private final TimelineBuckets timeline = new TimelineBuckets();
+    private final ChapterAnalytics analytics = new ChapterAnalytics(timeline);
+
+    /**
+     * Receives the entries found by a date-added range query
+     */
+    public interface AddedEntryVisitor {
+        void visit(long addedMillis, long millis, TimestampType type);
+    }
+
+    public TimestampIndex() {
+        for (TimestampType type : TimestampType.values()) {
+            typeRows.put(type, new RowBits());
+        }
+    }
+
+    /**
+     * Records an entry inserted at the given row of the sorted list
+     */
+    public void insert(int row, TimestampEntry entry) {
+        for (RowBits bits : typeRows.values()) {
+            bits.insert(row, false);
+        }
+        typeRows.get(entry.getType()).set(row);
+        insertDate(entry);
+        timeline.add(entry.getSeconds(), entry.getType());
+        analytics.add(entry.getSeconds(), entry.getType());
+    }
+
+    /**
+     * Records the entry removed from the given row of the sorted list
+     */
+    public void remove(int row, TimestampEntry entry) {
+        for (RowBits bits : typeRows.values()) {
+            bits.remove(row);
+        }
+        removeDate(entry);
+        timeline.remove(entry.getSeconds(), entry.getType());
+        analytics.remove(entry.getSeconds(), entry.getType());
+    }
+
+    /**
+     * Rebuilds all indexes from scratch, e.g. after a load or a batch insert
+     */
+    public void rebuild(List<TimestampEntry> sortedEntries) {
+        int size = sortedEntries.size();
+        for (RowBits bits : typeRows.values()) {
+            bits.reset(size);
+        }
+        dateKeys = new long[Math.max(INITIAL_CAPACITY, size)];
+        dateMillis = new long[dateKeys.length];
+        dateTypes = new byte[dateKeys.length];
+        dateCount = size;
+
+        boolean ordered = true;
+        for (int row = 0; row < size; row++) {
+            TimestampEntry entry = sortedEntries.get(row);
+            typeRows.get(entry.getType()).set(row);
+            dateKeys[row] = dateKey(entry);
+            dateMillis[row] = entry.getMillis();
+            dateTypes[row] = (byte) entry.getType().ordinal();
+            ordered &= row == 0 || dateKeys[row - 1] <= dateKeys[row];
+        }
+        if (!ordered) {
+            sortDates();
+        }
+        timeline.rebuild(sortedEntries);
+        analytics.rebuild(sortedEntries);
+    }
+
+    public void clear() {
+        rebuild(new ArrayList<>());
+    }
+
+    public TimelineBuckets getTimeline() {
+        return timeline;
+    }
+
+    public ChapterAnalytics getAnalytics() {
+        return analytics;
+    }
+
+    /**
+     * Returns the rows holding entries of the given type, in ascending order
+     */
+    public int[] rowsOfType(TimestampType type) {
+        return typeRows.get(type).toArray();
+    }
+
+    /**
+     * Visits the entries added in [from, to), ordered by date added; either bound may be null
+     */
+    public void forEachAddedBetween(LocalDateTime from, LocalDateTime to, AddedEntryVisitor visitor) {
+        int start = from == null ? 0 : lowerBound(SessionFormat.toEpochMillis(from));
+        int end = to == null ? dateCount : lowerBound(SessionFormat.toEpochMillis(to));
+        for (int i = start; i < end; i++) {
+            visitor.visit(dateKeys[i], dateMillis[i], TYPES[dateTypes[i]]);
+        }
+    }
+
+    private void insertDate(TimestampEntry entry) {
+        if (dateCount == dateKeys.length) {
+            dateKeys = Arrays.copyOf(dateKeys, dateCount * 2);
+            dateMillis = Arrays.copyOf(dateMillis, dateCount * 2);
+            dateTypes = Arrays.copyOf(dateTypes, dateCount * 2);
+        }
+        long key = dateKey(entry);
+        // Entries are normally stamped "now", so this is almost always an append
+        int position = upperBound(key);
+        System.arraycopy(dateKeys, position, dateKeys, position + 1, dateCount - position);
+        System.arraycopy(dateMillis, position, dateMillis, position + 1, dateCount - position);
+        System.arraycopy(dateTypes, position, dateTypes, position + 1, dateCount - position);
+        dateKeys[position] = key;
+        dateMillis[position] = entry.getMillis();
+        dateTypes[position] = (byte) entry.getType().ordinal();
+        dateCount++;
+    }
+
+    /**
+     * Removes one record of the entry's date, time and type; records that match are interchangeable
+     */
+    private void removeDate(TimestampEntry entry) {
+        long key = dateKey(entry);
+        long millis = entry.getMillis();
+        byte type = (byte) entry.getType().ordinal();
+        for (int i = lowerBound(key); i < dateCount && dateKeys[i] == key; i++) {
+            if (dateMillis[i] == millis && dateTypes[i] == type) {
+                System.arraycopy(dateKeys, i + 1, dateKeys, i, dateCount - i - 1);
+                System.arraycopy(dateMillis, i + 1, dateMillis, i, dateCount - i - 1);
+                System.arraycopy(dateTypes, i + 1, dateTypes, i, dateCount - i - 1);
+                dateCount--;
+                return;
+            }
+        }
+    }
+
+    private void sortDates() {
+        long[] keys = Arrays.copyOf(dateKeys, dateCount);
+        long[] millis = Arrays.copyOf(dateMillis, dateCount);
+        byte[] types = Arrays.copyOf(dateTypes, dateCount);
+        Integer[] order = new Integer[dateCount];
+        for (int i = 0; i < dateCount; i++) {
+            order[i] = i;
+        }
+        // Compare the precomputed keys; stable, so entries added at the same instant keep their row order
+        Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+        for (int i = 0; i < dateCount; i++) {
+            dateKeys[i] = keys[order[i]];
+            dateMillis[i] = millis[order[i]];
+            dateTypes[i] = types[order[i]];
+        }
+    }
+
+    /**
+     * First position whose key is >= the given key
+     */
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = dateCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (dateKeys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First position whose key is > the given key
+     */
+    private int upperBound(long key) {
+        int low = 0;
+        int high = dateCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (dateKeys[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long dateKey(TimestampEntry entry) {
+        return SessionFormat.toEpochMillis(entry.getDateAdded());
+    }
+
+    /**
+     * Bitset over row positions that can open or close a gap when a row is inserted or removed
+     */
+    private static final class RowBits {
+        private long[] words = new long[1];
+        private int size;
+
+        void reset(int size) {
+            this.words = new long[Math.max(1, (size + 63) >>> 6)];
+            this.size = size;
+        }
+
+        void set(int row) {
+            words[row >>> 6] |= 1L << row;
+        }
+
+        /**
+         * Shifts rows >= position up by one and stores the bit at position
+         */
+        void insert(int position, boolean value) {
+            if (size + 1 > words.length << 6) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+            int word = position >>> 6;
+            int last = size >>> 6;
+            // Carry the top bit of each word into the next one, from the end down
+            for (int i = last; i > word; i--) {
+                words[i] = (words[i] << 1) | (words[i - 1] >>> 63);
+            }
+            long mask = (1L << position) - 1; // bits below position within its word
+            long low = words[word] & mask;
+            long high = words[word] & ~mask;
+            words[word] = low | (high << 1) | (value ? 1L << position : 0);
+            size++;
+        }
+
+        /**
+         * Drops the bit at position and shifts rows above it down by one
+         */
+        void remove(int position) {
+            int word = position >>> 6;
+            int last = (size - 1) >>> 6;
+            long mask = (1L << position) - 1;
+            long low = words[word] & mask;
+            long high = (words[word] >>> 1) & ~mask;
+            words[word] = low | high;
+            for (int i = word; i < last; i++) {
+                words[i] |= words[i + 1] << 63;
+                words[i + 1] >>>= 1;
+            }
+            size--;
+        }
+
+        int[] toArray() {
+            int count = 0;
+            for (long word : words) {
+                count += Long.bitCount(word);
+            }
+            int[] rows = new int[count];
+            int n = 0;
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    rows[n++] = (i << 6) + Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return rows;
+        }
+    }
+}
@@ -1,32 +1,71 @@
 package com.example;
 
+import com.example.diagnostics.RecorderEvents;
+import com.example.metrics.Histogram;
+import com.example.metrics.MetricsRegistry;
+import com.example.store.EntryStore;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 /**
  * Service class for managing timestamp operations and business logic
+ * Timestamps are kept in chronological order, so list indexes match table rows
+ * Entries live in an EntryStore: on the heap by default, or in memory-mapped files with -Drecorder.store=mapped
+ * With the heap store, notes of entries in the list are interned in a session NotesDictionary; entries
+ * leaving the list get plain notes back, so undo and callers can keep using them
  */
 public class TimestampService {
-    private List<TimestampEntry> timestamps;
+    private static final Histogram SORT_LATENCY = MetricsRegistry.getInstance().latency("model.sort");
+    private static final Histogram SORT_SIZE = MetricsRegistry.getInstance().histogram("model.sort.entries", "entries");
+    // Batches up to this size are inserted one by one instead of merged and re-indexed
+    private static final int INCREMENTAL_BATCH_LIMIT = 64;
+    private static final Comparator<TimestampEntry> CHRONOLOGICAL = Comparator.comparingLong(TimestampEntry::getMillis);
+    
+    private final EntryStore store;
+    private final TimestampIndex index;
+    // Null when the store rebuilds entries on demand, as their notes then live in the store's own files
+    private NotesDictionary notes;
+    // Rows touched by the latest change, for views reading the live list
+    private RowChanges changes = RowChanges.all();
     
     public TimestampService() {
-        this.timestamps = new ArrayList<>();
+        this(EntryStore.create());
+    }
+    
+    public TimestampService(EntryStore store) {
+        this.store = store;
+        this.index = new TimestampIndex();
+        this.notes = store.keepsEntries() ? new NotesDictionary() : null;
     }
     
     /**
      * Add a new timestamp entry
      */
     public boolean addTimestamp(String timestamp, String notes, TimestampType type) {
+        return addTimestamp(timestamp, NoteSegments.parse(notes), type);
+    }
+    
+    /**
+     * Add a new timestamp entry with structured note segments
+     */
+    public boolean addTimestamp(String timestamp, NoteSegments notes, TimestampType type) {
+        changes = RowChanges.none();
         try {
-            // Validate timestamp format
-            if (!isValidTimestamp(timestamp)) {
+            TimestampEntry entry = new TimestampEntry(timestamp, notes, type);
+            if (!entry.isValid()) {
                 return false;
             }
-            
-            TimestampEntry entry = new TimestampEntry(timestamp, notes, type);
-            timestamps.add(entry);
+            int row = insertionPoint(entry.getMillis());
+            adopt(entry);
+            store.add(row, entry);
+            index.insert(row, entry);
+            changes = RowChanges.of(new int[0], Collections.emptyList(), new int[] {row});
             return true;
         } catch (Exception e) {
             System.err.println("Error adding timestamp: " + e.getMessage());
@@ -34,13 +73,105 @@ public class TimestampService {
         }
     }
     
+    /**
+     * Add already-built entries, skipping any with an invalid timestamp
+     * @return the number of entries added
+     */
+    public int addEntries(List<TimestampEntry> entries) {
+        return apply(new TimestampBatch().insertAll(entries)).deletes.size();
+    }
+    
+    /**
+     * Applies a batch as one operation. Deletes are marked in a bitset and compacted in a single pass
+     * together with merging in the sorted inserts, so the cost is O(n + k log k) rather than O(n) per
+     * operation; small batches update the list and indexes in place instead.
+     * Deletes and note updates only apply to entries in the list before the batch.
+     * @return the batch that undoes what was applied, empty if nothing changed
+     */
+    public TimestampBatch apply(TimestampBatch batch) {
+        changes = RowChanges.none();
+        TimestampBatch inverse = new TimestampBatch();
+        BitSet deleted = new BitSet(store.size());
+        for (TimestampEntry entry : batch.deletes) {
+            int row = indexOf(entry);
+            if (row >= 0 && !deleted.get(row)) {
+                deleted.set(row);
+                inverse.insert(entry);
+            }
+        }
+        for (int i = 0; i < batch.noteTargets.size(); i++) {
+            TimestampEntry entry = batch.noteTargets.get(i);
+            int row = indexOf(entry);
+            if (row >= 0 && !deleted.get(row)) {
+                release(entry);
+                inverse.updateNotes(entry, entry.getNoteSegments());
+                entry.setNoteSegments(batch.noteValues.get(i).copy());
+                adopt(entry);
+                store.updated(row);
+            }
+        }
+        // Undo repeated updates of one entry newest first
+        Collections.reverse(inverse.noteTargets);
+        Collections.reverse(inverse.noteValues);
+        List<TimestampEntry> valid = new ArrayList<>(batch.inserts.size());
+        for (TimestampEntry entry : batch.inserts) {
+            if (entry.isValid()) {
+                valid.add(entry);
+                inverse.delete(entry);
+            }
+        }
+        
+        int removed = deleted.cardinality();
+        if (removed + valid.size() <= INCREMENTAL_BATCH_LIMIT) {
+            // Small batches (e.g. live marks, usually appended at the end) update the indexes in place
+            List<TimestampEntry> removedEntries = new ArrayList<>(removed);
+            for (int row = deleted.previousSetBit(store.size() - 1); row >= 0; row = deleted.previousSetBit(row - 1)) {
+                TimestampEntry entry = store.remove(row);
+                index.remove(row, entry);
+                release(entry);
+                removedEntries.add(entry);
+            }
+            Collections.reverse(removedEntries);
+            insertInPlace(valid);
+            changes = RowChanges.of(deleted.stream().toArray(), removedEntries, rowsOf(valid));
+            return inverse;
+        }
+        // Sort the inserts, then compact and merge in one pass; existing entries win ties
+        sortChronologically(valid);
+        for (TimestampEntry entry : valid) {
+            adopt(entry);
+        }
+        List<TimestampEntry> merged = new ArrayList<>(store.size() - removed + valid.size());
+        int j = 0;
+        for (int i = 0; i < store.size(); i++) {
+            if (deleted.get(i)) {
+                release(store.get(i));
+                continue;
+            }
+            long millis = store.millisAt(i);
+            while (j < valid.size() && valid.get(j).getMillis() < millis) {
+                merged.add(valid.get(j++));
+            }
+            merged.add(store.get(i));
+        }
+        merged.addAll(valid.subList(j, valid.size()));
+        store.replaceAll(merged);
+        index.rebuild(merged);
+        changes = RowChanges.all();
+        return inverse;
+    }
+    
     /**
      * Remove timestamp at specified index
      */
     public boolean removeTimestamp(int index) {
+        changes = RowChanges.none();
         try {
-            if (index >= 0 && index < timestamps.size()) {
-                timestamps.remove(index);
+            if (index >= 0 && index < store.size()) {
+                TimestampEntry removed = store.remove(index);
+                this.index.remove(index, removed);
+                release(removed);
+                changes = RowChanges.of(new int[] {index}, Collections.singletonList(removed), new int[0]);
                 return true;
             }
             return false;
@@ -54,8 +185,25 @@ public class TimestampService {
      * Update note for timestamp at specified index
      */
     public void updateNote(int index, String newNote) {
-        if (index >= 0 && index < timestamps.size()) {
-            timestamps.get(index).setNotes(newNote);
+        changes = RowChanges.none();
+        if (index >= 0 && index < store.size()) {
+            TimestampEntry entry = store.get(index);
+            entry.setNotes(newNote);
+            adopt(entry);
+            store.updated(index);
+        }
+    }
+    
+    /**
+     * Update a single note segment for timestamp at specified index
+     */
+    public void updateNoteSegment(int index, int segment, String text) {
+        changes = RowChanges.none();
+        if (index >= 0 && index < store.size()) {
+            TimestampEntry entry = store.get(index);
+            entry.setNoteSegment(segment, text);
+            adopt(entry);
+            store.updated(index);
         }
     }
     
@@ -63,89 +211,453 @@ public class TimestampService {
      * Clear all timestamps
      */
     public void clearAll() {
-        timestamps.clear();
+        store.clear();
+        index.clear();
+        restartNotes();
+        changes = RowChanges.all();
     }
     
     /**
-     * Get all timestamps
+     * Entry at the given row, without copying the list
+     */
+    public TimestampEntry getEntry(int row) {
+        return store.get(row);
+    }
+    
+    public int size() {
+        return store.size();
+    }
+    
+    /**
+     * Get all timestamps in chronological order; later changes don't affect the returned list
      */
     public List<TimestampEntry> getTimestamps() {
-        return new ArrayList<>(timestamps);
+        return store.snapshot();
+    }
+    
+    /**
+     * All timestamps in chronological order as a read-only list that follows later changes, without
+     * copying them; only read it on the thread that changes the list. See getLastChanges().
+     */
+    public List<TimestampEntry> viewTimestamps() {
+        return store.view();
+    }
+    
+    /**
+     * The rows removed and inserted by the latest change
+     */
+    public RowChanges getLastChanges() {
+        return changes;
+    }
+    
+    /**
+     * Copies of all timestamps in chronological order. Notes are edited in place on the session's
+     * entries, so work that reads entries off the EDT, e.g. a background save, takes copies instead.
+     */
+    public List<TimestampEntry> copyTimestamps() {
+        List<TimestampEntry> snapshot = store.snapshot();
+        List<TimestampEntry> copies = new ArrayList<>(snapshot.size());
+        for (TimestampEntry entry : snapshot) {
+            TimestampEntry copy = new TimestampEntry(entry.getMillis(), entry.getStyle(), entry.getNoteSegments().copy(),
+                    entry.getType());
+            copy.setDateAdded(entry.getDateAdded());
+            copies.add(copy);
+        }
+        return copies;
     }
     
     /**
      * Set timestamps list
      */
     public void setTimestamps(List<TimestampEntry> timestamps) {
-        this.timestamps = new ArrayList<>(timestamps);
+        List<TimestampEntry> sorted = new ArrayList<>(timestamps);
+        sortChronologically(sorted);
+        restartNotes();
+        for (TimestampEntry entry : sorted) {
+            adopt(entry);
+        }
+        store.replaceAll(sorted);
+        index.rebuild(sorted);
+        changes = RowChanges.all();
     }
     
     /**
-     * Parse timestamp string to seconds
+     * Describes where the entries are kept, for diagnostics
      */
-    public int parseTimestampToSeconds(String timestamp) {
-        try {
-            String[] parts = timestamp.split(":");
-            if (parts.length == 2) {
-                // mm:ss format
-                int minutes = Integer.parseInt(parts[0]);
-                int seconds = Integer.parseInt(parts[1]);
-                return minutes * 60 + seconds;
-            } else if (parts.length == 3) {
-                // hh:mm:ss format
-                int hours = Integer.parseInt(parts[0]);
-                int minutes = Integer.parseInt(parts[1]);
-                int seconds = Integer.parseInt(parts[2]);
-                return hours * 3600 + minutes * 60 + seconds;
-            }
-            return 0;
-        } catch (NumberFormatException e) {
-            return 0;
+    public String getStorageDescription() {
+        NotesDictionary dictionary = notes;
+        return dictionary == null ? store.describe() : store.describe() + "; notes: " + dictionary.describe();
+    }
+    
+    /**
+     * Counts of the changes made by reconcile(), and the batch that undoes them
+     */
+    public static class ReconcileResult {
+        public final int inserted;
+        public final int removed;
+        public final int updated;
+        public final TimestampBatch inverse;
+        
+        ReconcileResult(int inserted, int removed, int updated, TimestampBatch inverse) {
+            this.inserted = inserted;
+            this.removed = removed;
+            this.updated = updated;
+            this.inverse = inverse;
+        }
+        
+        public boolean isEmpty() {
+            return inserted == 0 && removed == 0 && updated == 0;
+        }
+        
+        @Override
+        public String toString() {
+            return inserted + " added, " + removed + " removed, " + updated + " updated";
         }
     }
     
     /**
-     * Add seconds to timestamp and return new timestamp string
+     * Brings the list in line with a freshly re-read version of it, touching only what differs.
+     * Entries are matched by (time, type, notes); an unmatched pair with the same time and type
+     * becomes a note update, anything else an insert or removal. Unchanged entries keep their identity
+     * and date added. Like apply(), the result carries the batch that undoes the changes.
      */
-    public String addSecondsToTimestamp(String timestamp, int secondsToAdd) {
-        try {
-            int totalSeconds = parseTimestampToSeconds(timestamp) + secondsToAdd;
-            if (totalSeconds < 0) totalSeconds = 0;
-            
-            int hours = totalSeconds / 3600;
-            int minutes = (totalSeconds % 3600) / 60;
-            int seconds = totalSeconds % 60;
+    public ReconcileResult reconcile(List<TimestampEntry> reloaded) {
+        changes = RowChanges.none();
+        TimestampBatch inverse = new TimestampBatch();
+        List<TimestampEntry> incoming = new ArrayList<>(reloaded.size());
+        for (TimestampEntry entry : reloaded) {
+            if (entry.isValid()) {
+                incoming.add(entry);
+            }
+        }
+        sortChronologically(incoming);
+        
+        List<TimestampEntry> result = new ArrayList<>(incoming.size());
+        List<Integer> removedRows = new ArrayList<>();
+        List<TimestampEntry> inserted = new ArrayList<>();
+        int updated = 0;
+        int i = 0;
+        int j = 0;
+        // Merge both sorted lists one timecode at a time
+        while (i < store.size() || j < incoming.size()) {
+            long millis = Math.min(
+                i < store.size() ? store.millisAt(i) : Long.MAX_VALUE,
+                j < incoming.size() ? incoming.get(j).getMillis() : Long.MAX_VALUE);
+            int oldEnd = i;
+            while (oldEnd < store.size() && store.millisAt(oldEnd) == millis) {
+                oldEnd++;
+            }
+            int newEnd = j;
+            while (newEnd < incoming.size() && incoming.get(newEnd).getMillis() == millis) {
+                newEnd++;
+            }
             
-            if (hours > 0) {
-                return String.format("%d:%02d:%02d", hours, minutes, seconds);
-            } else {
-                return String.format("%02d:%02d", minutes, seconds);
+            // Exact matches first, then same-type pairs as note updates
+            TimestampEntry[] current = new TimestampEntry[oldEnd - i];
+            for (int o = i; o < oldEnd; o++) {
+                current[o - i] = store.get(o);
             }
-        } catch (Exception e) {
-            return timestamp; // Return original if error
+            TimestampEntry[] matched = new TimestampEntry[newEnd - j];
+            boolean[] used = new boolean[oldEnd - i];
+            for (int n = j; n < newEnd; n++) {
+                for (int o = i; o < oldEnd; o++) {
+                    if (!used[o - i] && sameEntry(current[o - i], incoming.get(n))) {
+                        used[o - i] = true;
+                        matched[n - j] = current[o - i];
+                        break;
+                    }
+                }
+            }
+            for (int n = j; n < newEnd; n++) {
+                for (int o = i; o < oldEnd && matched[n - j] == null; o++) {
+                    if (!used[o - i] && current[o - i].getType() == incoming.get(n).getType()) {
+                        used[o - i] = true;
+                        matched[n - j] = current[o - i];
+                        inverse.updateNotes(matched[n - j], matched[n - j].getNoteSegments().copy());
+                        matched[n - j].setNotes(incoming.get(n).getNotes());
+                        adopt(matched[n - j]);
+                        store.updated(o);
+                        updated++;
+                    }
+                }
+            }
+            for (int o = i; o < oldEnd; o++) {
+                if (!used[o - i]) {
+                    removedRows.add(o);
+                    inverse.insert(current[o - i]);
+                }
+            }
+            for (int n = j; n < newEnd; n++) {
+                if (matched[n - j] != null) {
+                    result.add(matched[n - j]);
+                } else {
+                    result.add(incoming.get(n));
+                    inserted.add(incoming.get(n));
+                    inverse.delete(incoming.get(n));
+                }
+            }
+            i = oldEnd;
+            j = newEnd;
+        }
+        
+        if (removedRows.size() + inserted.size() <= INCREMENTAL_BATCH_LIMIT) {
+            // Few changes: update the list and indexes in place, removing from the end first
+            TimestampEntry[] removedEntries = new TimestampEntry[removedRows.size()];
+            for (int r = removedRows.size() - 1; r >= 0; r--) {
+                int row = removedRows.get(r);
+                TimestampEntry removed = store.remove(row);
+                index.remove(row, removed);
+                release(removed);
+                removedEntries[r] = removed;
+            }
+            insertInPlace(inserted);
+            changes = RowChanges.of(removedRows.stream().mapToInt(Integer::intValue).toArray(),
+                    Arrays.asList(removedEntries), rowsOf(inserted));
+        } else {
+            for (int row : removedRows) {
+                release(store.get(row));
+            }
+            for (TimestampEntry entry : inserted) {
+                adopt(entry);
+            }
+            store.replaceAll(result);
+            index.rebuild(result);
+            changes = RowChanges.all();
         }
+        return new ReconcileResult(inserted.size(), removedRows.size(), updated, inverse);
     }
     
     /**
-     * Validate timestamp format
+     * Inserts entries one by one at their place in time order
      */
-    private boolean isValidTimestamp(String timestamp) {
-        if (timestamp == null || timestamp.trim().isEmpty()) {
-            return false;
+    private void insertInPlace(List<TimestampEntry> entries) {
+        for (TimestampEntry entry : entries) {
+            int row = insertionPoint(entry.getMillis());
+            adopt(entry);
+            store.add(row, entry);
+            index.insert(row, entry);
         }
-        
-        String[] parts = timestamp.split(":");
-        if (parts.length != 2 && parts.length != 3) {
-            return false;
+    }
+    
+    /**
+     * Rows the given entries ended up at, ascending; found by binary search, so only for a few entries
+     */
+    private int[] rowsOf(List<TimestampEntry> entries) {
+        BitSet rows = new BitSet();
+        for (TimestampEntry entry : entries) {
+            int row = indexOf(entry);
+            if (row >= 0) {
+                rows.set(row);
+            }
         }
-        
-        try {
-            for (String part : parts) {
-                Integer.parseInt(part);
+        return rows.stream().toArray();
+    }
+    
+    /**
+     * Interns the notes of an entry joining the list
+     */
+    private void adopt(TimestampEntry entry) {
+        if (notes != null) {
+            entry.getNoteSegments().intern(notes);
+        }
+    }
+    
+    /**
+     * Gives an entry leaving the list plain notes again, freeing its references
+     */
+    private void release(TimestampEntry entry) {
+        if (notes != null) {
+            entry.getNoteSegments().detach();
+        }
+    }
+    
+    /**
+     * Starts an empty dictionary when the whole list is replaced; entries still interned in the old one
+     * are moved over if they come back, and the old one is dropped with the last of them
+     */
+    private void restartNotes() {
+        if (notes != null) {
+            notes = new NotesDictionary();
+        }
+    }
+    
+    private static boolean sameEntry(TimestampEntry current, TimestampEntry reloaded) {
+        return current.getType() == reloaded.getType() && current.getNotes().equals(reloaded.getNotes());
+    }
+    
+    /**
+     * Rows (indexes into getTimestamps()) holding entries of the given type, ascending
+     */
+    public int[] rowsOfType(TimestampType type) {
+        return index.rowsOfType(type);
+    }
+    
+    /**
+     * Entries added in [from, to), ordered by date added; either bound may be null
+     */
+    public List<TimestampEntry> entriesAddedBetween(LocalDateTime from, LocalDateTime to) {
+        int[] rows = rowsAddedBetween(from, to, null);
+        List<TimestampEntry> entries = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            entries.add(store.get(row));
+        }
+        entries.sort(Comparator.comparingLong(entry -> SessionFormat.toEpochMillis(entry.getDateAdded())));
+        return entries;
+    }
+    
+    /**
+     * Rows (indexes into getTimestamps()) of the entries added in [from, to), ascending
+     * @param type only entries of this type, or null for any type
+     */
+    public int[] rowsAddedBetween(LocalDateTime from, LocalDateTime to, TimestampType type) {
+        BitSet rows = new BitSet(store.size());
+        // The index records date, time and type; every row at that time with the same date and type matches
+        index.forEachAddedBetween(from, to, (added, millis, entryType) -> {
+            if (type != null && entryType != type) {
+                return;
             }
-            return true;
-        } catch (NumberFormatException e) {
-            return false;
+            for (int row = lowerBound(millis); row < store.size() && store.millisAt(row) == millis; row++) {
+                if (store.typeAt(row) == entryType && store.addedAt(row) == added) {
+                    rows.set(row);
+                }
+            }
+        });
+        return rows.stream().toArray();
+    }
+    
+    /**
+     * Row of the entry at the given time with the given notes, or of the first entry at that time if none
+     * has those notes; -1 if nothing is at that time
+     */
+    public int findRow(long millis, String notes) {
+        int first = lowerBound(millis);
+        for (int row = first; row < store.size() && store.millisAt(row) == millis; row++) {
+            if (store.get(row).getNotes().equals(notes)) {
+                return row;
+            }
+        }
+        return first < store.size() && store.millisAt(first) == millis ? first : -1;
+    }
+    
+    /**
+     * Marker counts along the timeline, kept up to date with the list
+     */
+    public TimelineBuckets getTimeline() {
+        return index.getTimeline();
+    }
+    
+    /**
+     * Chapter statistics, kept up to date with the list
+     */
+    public ChapterAnalytics getAnalytics() {
+        return index.getAnalytics();
+    }
+    
+    /**
+     * Row of the given entry, found by binary search on its time; -1 if it is not in the list
+     */
+    public int indexOf(TimestampEntry entry) {
+        long millis = entry.getMillis();
+        for (int row = lowerBound(millis); row < store.size() && store.millisAt(row) == millis; row++) {
+            if (store.get(row) == entry) {
+                return row;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * First row at or after the given time
+     */
+    private int lowerBound(long millis) {
+        int low = 0;
+        int high = store.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (store.millisAt(mid) < millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Row after the last entry at or before the given time, so equal times keep insertion order
+     */
+    private int insertionPoint(long millis) {
+        int low = 0;
+        int high = store.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (store.millisAt(mid) <= millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Stable chronological sort, recorded in the sort metrics and JFR event
+     */
+    private static void sortChronologically(List<TimestampEntry> entries) {
+        long start = System.nanoTime();
+        RecorderEvents.Sort event = new RecorderEvents.Sort();
+        event.begin();
+        entries.sort(CHRONOLOGICAL);
+        SORT_LATENCY.recordSince(start);
+        SORT_SIZE.record(entries.size());
+        if (event.shouldCommit()) {
+            event.entries = entries.size();
+            event.commit();
+        }
+    }
+    
+    /**
+     * Parse timestamp string to seconds
+     */
+    public int parseTimestampToSeconds(String timestamp) {
+        return toSeconds(timestamp);
+    }
+    
+    /**
+     * Parse a timestamp to whole seconds; returns 0 if it cannot be parsed
+     */
+    public static int toSeconds(String timestamp) {
+        return (int) (toMillis(timestamp) / 1000);
+    }
+    
+    /**
+     * Parse a timestamp in any Timecode format to milliseconds; returns 0 if it cannot be parsed
+     */
+    public static long toMillis(String timestamp) {
+        return Math.max(0, Timecode.parse(timestamp));
+    }
+    
+    /**
+     * Add seconds to timestamp and return new timestamp string
+     */
+    public String addSecondsToTimestamp(String timestamp, int secondsToAdd) {
+        return addMillisToTimestamp(timestamp, secondsToAdd * 1000L);
+    }
+    
+    /**
+     * Add milliseconds to timestamp, keeping its format where possible: whole-second timestamps
+     * gain a fraction only when the step has one, frame timecodes stay in frames
+     */
+    public String addMillisToTimestamp(String timestamp, long millisToAdd) {
+        long millis = Timecode.parse(timestamp);
+        if (millis == Timecode.INVALID) {
+            return timestamp; // Return original if error
+        }
+        millis = Math.max(0, millis + millisToAdd);
+        Timecode.Style style = Timecode.styleOf(timestamp);
+        if (style == Timecode.Style.SECONDS && millis % 1000 != 0) {
+            style = Timecode.Style.MILLIS;
         }
+        return Timecode.format(millis, style);
     }
 }
@@ -5,26 +5,87 @@ import com.example.view.TimestampView;
 import com.example.TimestampEntry;
 import com.example.TimestampType;
 import com.example.FileService;
+import com.example.FileWatcher;
+import com.example.ChapterAnalytics;
+import com.example.NoteSegments;
+import com.example.TimelineBuckets;
+import com.example.diagnostics.EdtWatchdog;
+import com.example.diff.DiffListener;
+import com.example.diff.DiffSummary;
+import com.example.diff.EntrySource;
+import com.example.diff.TimestampDiff;
+import com.example.diff.UnifiedDiffWriter;
+import com.example.exporter.TimestampExporter;
+import com.example.importer.BatchingEntrySink;
+import com.example.lint.LintReport;
+import com.example.lint.TimestampLinter;
+import com.example.live.LiveCapture;
+import com.example.search.LibraryIndex;
+import com.example.search.SearchHit;
+import com.example.task.TaskExecutor;
+import com.example.task.TaskListener;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+import javax.swing.SwingUtilities;
 
 /**
  * Controller class that coordinates between Model and View
  * Handles user interactions and business logic coordination
  */
 public class TimestampController {
+    // How long closing the window waits for saves still being written
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30_000;
+    
     private TimestampModel model;
     private TimestampView view;
     private FileService fileService;
+    private LiveCapture liveCapture;
+    private File loadedFile;
+    private boolean watchLoadedFile;
+    private FileWatcher fileWatcher;
+    private LibraryIndex libraryIndex;
+    private final TimestampLinter linter = new TimestampLinter();
+    private final TaskExecutor tasks = new TaskExecutor();
+    // Files this controller saved, as they were right after the save, so the watcher can skip them
+    private final Map<File, WrittenFile> ownWrites = new ConcurrentHashMap<>();
+    
+    /**
+     * Size and modification time of a saved file
+     */
+    private static final class WrittenFile {
+        final long length;
+        final long lastModified;
+        
+        WrittenFile(long length, long lastModified) {
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+    }
     
     public TimestampController(TimestampModel model, TimestampView view) {
         this.model = model;
         this.view = view;
         this.fileService = new FileService();
         
+        // Saved and exported files become searchable without a crawl
+        this.libraryIndex = new LibraryIndex(LibraryIndex.defaultDirectory(), fileService, tasks.executor(TaskExecutor.Pool.IO));
+        fileService.setSavedFileListener(libraryIndex::indexSaved);
+        
         // Set up the controller as an observer of the model
         model.addObserver((o, arg) -> {
-            view.refreshTable(model.getTimestamps());
+            view.refreshTable(model.viewTimestamps(), model.getLastChanges());
         });
         
         // Initialize view with controller reference
@@ -35,74 +96,103 @@ public class TimestampController {
      * Handle adding a new main timestamp
      */
     public void addTimestamp(String timestamp, List<String> notes) {
-        if (timestamp == null || timestamp.trim().isEmpty()) {
-            view.showError("Please enter a timestamp");
-            return;
-        }
+        EdtWatchdog.tagged("addTimestamp", () -> {
+            if (timestamp == null || timestamp.trim().isEmpty()) {
+                view.showError("Please enter a timestamp");
+                return;
+            }
         
-        // Combine notes with pipe separator
-        String combinedNotes = combineNotes(notes);
+            // Keep each non-empty note field as its own segment
+            NoteSegments combinedNotes = combineNotes(notes);
         
-        if (model.addTimestamp(timestamp.trim(), combinedNotes, TimestampType.MAIN)) {
-            view.clearAllNoteFields();
-        } else {
-            view.showError("Invalid timestamp format or duplicate timestamp. Use mm:ss or hh:mm:ss");
-        }
+            if (model.addTimestamp(timestamp.trim(), combinedNotes, TimestampType.MAIN)) {
+                view.clearAllNoteFields();
+            } else {
+                view.showError("Invalid timestamp format or duplicate timestamp. Use mm:ss, hh:mm:ss, mm:ss.SSS or hh:mm:ss:ff");
+            }
+        });
     }
     
     /**
      * Handle adding a new sub-timestamp
      */
     public void addSubTimestamp(String timestamp, List<String> notes) {
-        if (timestamp == null || timestamp.trim().isEmpty()) {
-            view.showError("Please enter a timestamp");
-            return;
-        }
+        EdtWatchdog.tagged("addSubTimestamp", () -> {
+            if (timestamp == null || timestamp.trim().isEmpty()) {
+                view.showError("Please enter a timestamp");
+                return;
+            }
         
-        // Combine notes with pipe separator
-        String combinedNotes = combineNotes(notes);
+            // Keep each non-empty note field as its own segment
+            NoteSegments combinedNotes = combineNotes(notes);
         
-        if (model.addTimestamp(timestamp.trim(), combinedNotes, TimestampType.SUB)) {
-            view.clearAllNoteFields();
-        } else {
-            view.showError("Invalid timestamp format or duplicate timestamp. Use mm:ss or hh:mm:ss");
-        }
+            if (model.addTimestamp(timestamp.trim(), combinedNotes, TimestampType.SUB)) {
+                view.clearAllNoteFields();
+            } else {
+                view.showError("Invalid timestamp format or duplicate timestamp. Use mm:ss, hh:mm:ss, mm:ss.SSS or hh:mm:ss:ff");
+            }
+        });
     }
     
     /**
-     * Handle timestamp modification (add/subtract seconds)
+     * Handle timestamp modification (add/subtract milliseconds)
      */
-    public void modifyTimestamp(String currentTimestamp, int seconds) {
+    public void modifyTimestamp(String currentTimestamp, long millis) {
         if (currentTimestamp == null || currentTimestamp.trim().isEmpty()) {
             view.showError("Please enter a timestamp first");
             return;
         }
         
-        String modifiedTimestamp = model.modifyTimestamp(currentTimestamp, seconds);
+        String modifiedTimestamp = model.modifyTimestamp(currentTimestamp, millis);
         view.setTimestampField(modifiedTimestamp);
     }
     
     /**
-     * Handle deleting a selected timestamp
+     * Handle deleting the selected timestamps (entry indexes), as a single undoable change
      */
-    public void deleteSelected(int selectedRow) {
-        if (selectedRow >= 0) {
-            if (model.removeTimestamp(selectedRow)) {
+    public void deleteSelected(int[] selectedRows) {
+        EdtWatchdog.tagged("deleteSelected", () -> {
+            if (selectedRows.length == 0) {
+                view.showError("Please select a timestamp to delete");
+                return;
+            }
+            int removed = model.removeTimestamps(selectedRows);
+            if (removed == 1) {
                 view.showSuccess("Timestamp deleted successfully!");
+            } else if (removed > 1) {
+                view.showSuccess(removed + " timestamps deleted successfully!");
             }
-        } else {
-            view.showError("Please select a timestamp to delete");
-        }
+        });
+    }
+    
+    /**
+     * Handle undoing the most recent change
+     */
+    public void undo() {
+        EdtWatchdog.tagged("undo", () -> {
+            if (model.undo() == null) {
+                view.showError("Nothing to undo");
+            }
+        });
+    }
+    
+    /**
+     * Description of the change undo() would revert, or null if there is none
+     */
+    public String getUndoDescription() {
+        return model.getUndoDescription();
     }
     
     /**
      * Handle clearing all timestamps
      */
     public void clearAll() {
-        if (view.confirmClearAll()) {
-            model.clearAll();
-            view.showSuccess("All timestamps cleared!");
-        }
+        EdtWatchdog.tagged("clearAll", () -> {
+            if (view.confirmClearAll()) {
+                model.clearAll();
+                view.showSuccess("All timestamps cleared!");
+            }
+        });
     }
     
     /**
@@ -113,29 +203,312 @@ public class TimestampController {
     }
     
     /**
-     * Handle loading timestamps from file
+     * Handle updating a single note segment
+     */
+    public void updateNoteSegment(int row, int segment, String text) {
+        model.updateNoteSegment(row, segment, text);
+    }
+    
+    /**
+     * Start live marking, with the stream clock starting at the given timestamp (or 0:00)
+     */
+    public void startLiveMode(String startTimestamp) {
+        if (liveCapture == null) {
+            // Drained batches are applied on the EDT like every other model change
+            liveCapture = new LiveCapture(batch -> SwingUtilities.invokeLater(() -> model.addEntries(batch)));
+        }
+        long startMillis = 0;
+        if (startTimestamp != null && !startTimestamp.trim().isEmpty()) {
+            startMillis = model.parseTimestampToMillis(startTimestamp.trim());
+        }
+        liveCapture.start(startMillis);
+    }
+    
+    /**
+     * Stop live marking; marks still buffered are added
+     */
+    public void stopLiveMode() {
+        if (liveCapture != null) {
+            liveCapture.stop();
+        }
+    }
+    
+    /**
+     * Handle a live mark (main or sub) at the current stream position
+     */
+    public void markLive(TimestampType type) {
+        if (liveCapture != null) {
+            liveCapture.mark(type);
+        }
+    }
+    
+    public boolean isLiveMode() {
+        return liveCapture != null && liveCapture.isRunning();
+    }
+    
+    /**
+     * Current stream clock position in milliseconds
+     */
+    public long getLiveElapsedMillis() {
+        return liveCapture != null ? liveCapture.getClock().elapsedMillis() : 0;
+    }
+    
+    /**
+     * Number of live marks dropped because the buffer was full
+     */
+    public long getLiveOverflowCount() {
+        return liveCapture != null ? liveCapture.getOverflowCount() : 0;
+    }
+    
+    /**
+     * Handle loading timestamps from file; the file is read in the background
      */
     public void loadTimestamps(File file) {
         if (file != null) {
-            List<TimestampEntry> loadedTimestamps = fileService.loadTimestamps(file);
-            
-            if (!loadedTimestamps.isEmpty()) {
-                model.setTimestamps(loadedTimestamps);
-                view.showSuccess("Timestamps loaded successfully! (" + loadedTimestamps.size() + " entries)");
+            load(file, count -> view.showSuccess("Timestamps loaded successfully! (" + count + " entries)"));
+        }
+    }
+    
+    /**
+     * Reads the file on the IO pool, then makes it the session on the EDT and passes on the number of
+     * entries; reports instead if none were found
+     */
+    private void load(File file, IntConsumer loaded) {
+        tasks.submit(TaskExecutor.Pool.IO, "Load " + file.getName(), context -> fileService.loadTimestamps(file),
+                TaskListener.of(loadedTimestamps -> {
+                    EdtWatchdog.tagged("loadTimestamps", () -> {
+                        if (loadedTimestamps.isEmpty()) {
+                            view.showError("No valid timestamps found in file");
+                            return;
+                        }
+                        model.setTimestamps(loadedTimestamps);
+                        loadedFile = file;
+                        updateFileWatcher();
+                        loaded.accept(loadedTimestamps.size());
+                    });
+                }, cause -> view.showError("Error loading timestamps: " + cause.getMessage())));
+    }
+    
+    /**
+     * Check a file for lines the loader would skip or misread, without loading it. May run off the EDT.
+     */
+    public LintReport lintFile(File file) throws IOException {
+        return linter.lint(file);
+    }
+    
+    /**
+     * Handle opening a library search hit: loads its file unless it is already loaded, then selects the entry
+     */
+    public void openSearchHit(SearchHit hit) {
+        File file = hit.getFile();
+        if (file.equals(loadedFile)) {
+            showSearchHit(hit);
+        } else if (!file.isFile()) {
+            view.showError(file.getName() + " no longer exists");
+        } else {
+            load(file, count -> showSearchHit(hit));
+        }
+    }
+    
+    private void showSearchHit(SearchHit hit) {
+        EdtWatchdog.tagged("openSearchHit", () -> {
+            int row = model.findRow(hit.getMillis(), hit.getNotes());
+            if (row >= 0) {
+                view.showEntry(row);
             } else {
-                view.showError("No valid timestamps found in file");
+                view.showError("The entry is no longer in " + hit.getFile().getName());
+            }
+        });
+    }
+    
+    /**
+     * Get the executor for background work; its listeners run on the EDT
+     */
+    public TaskExecutor getTasks() {
+        return tasks;
+    }
+    
+    /**
+     * Get the index of saved files for the library search
+     */
+    public LibraryIndex getLibraryIndex() {
+        return libraryIndex;
+    }
+    
+    /**
+     * Turn watching the loaded file for external changes on or off
+     */
+    public void setWatchLoadedFile(boolean watch) {
+        this.watchLoadedFile = watch;
+        updateFileWatcher();
+    }
+    
+    public boolean isWatchingLoadedFile() {
+        return watchLoadedFile;
+    }
+    
+    /**
+     * (Re)starts or stops the watcher to match the watch setting and the loaded file
+     */
+    private void updateFileWatcher() {
+        if (fileWatcher != null) {
+            fileWatcher.close();
+            fileWatcher = null;
+        }
+        if (watchLoadedFile && loadedFile != null) {
+            File file = loadedFile;
+            try {
+                fileWatcher = new FileWatcher(file, () -> reloadChangedFile(file));
+            } catch (IOException e) {
+                view.showError("Cannot watch " + file.getName() + ": " + e.getMessage());
             }
         }
     }
     
+    /**
+     * Runs on the watcher thread: re-parse on the IO pool, then apply only the differences on the EDT.
+     * Changes that are the controller's own saves are skipped, so a lossy export over the loaded file
+     * doesn't reconcile away what its format can't hold.
+     */
+    private void reloadChangedFile(File file) {
+        if (!file.isFile() || isOwnWrite(file)) {
+            return;
+        }
+        // An empty or unreadable result is most likely a file caught mid-write; the next change event will follow
+        tasks.submit(TaskExecutor.Pool.IO, "Reload " + file.getName(), context -> fileService.loadTimestamps(file),
+                TaskListener.of(reloaded -> {
+                    if (reloaded.isEmpty()) {
+                        return;
+                    }
+                    EdtWatchdog.tagged("reloadChangedFile", () -> {
+                        // A save may have finished while the file was being re-read
+                        if (file.equals(loadedFile) && !isOwnWrite(file)) {
+                            model.reloadTimestamps(reloaded);
+                        }
+                    });
+                }, cause -> { }));
+    }
+    
+    /**
+     * Remembers the size and modification time of a file just written here; runs on the saving thread
+     */
+    private void rememberOwnWrite(File file) {
+        File key = file.getAbsoluteFile();
+        ownWrites.put(key, new WrittenFile(key.length(), key.lastModified()));
+    }
+    
+    /**
+     * Whether the file is still exactly as this controller last wrote it
+     */
+    private boolean isOwnWrite(File file) {
+        WrittenFile written = ownWrites.get(file.getAbsoluteFile());
+        return written != null && written.length == file.length() && written.lastModified == file.lastModified();
+    }
+    
+    /**
+     * Extract timestamps from arbitrary text, e.g. pasted comments or chat logs.
+     * Does not touch the model, so it may run off the EDT.
+     */
+    public List<TimestampEntry> extractTimestamps(CharSequence text) {
+        List<TimestampEntry> found = new ArrayList<>();
+        BatchingEntrySink sink = new BatchingEntrySink(found::addAll);
+        fileService.scanText(text, sink);
+        sink.flush();
+        return found;
+    }
+    
+    /**
+     * Extract timestamps from any text document. Does not touch the model, so it may run off the EDT.
+     */
+    public List<TimestampEntry> extractTimestamps(File file) throws IOException {
+        List<TimestampEntry> found = new ArrayList<>();
+        BatchingEntrySink sink = new BatchingEntrySink(found::addAll);
+        fileService.scanDocument(file, sink);
+        sink.flush();
+        return found;
+    }
+    
+    /**
+     * The current session as a diff input; copies the entries, so call it on the EDT
+     */
+    public EntrySource getSessionDiffSource() {
+        return EntrySource.of("Current session", model.copyTimestamps());
+    }
+    
+    /**
+     * A timestamp file as a diff input, parsed as it is streamed
+     */
+    public EntrySource getFileDiffSource(File file) {
+        return EntrySource.of(fileService, file);
+    }
+    
+    /**
+     * Diff two inputs in time order. Does not touch the model, so it may run off the EDT.
+     */
+    public DiffSummary compare(EntrySource left, EntrySource right, DiffListener listener) throws IOException {
+        try {
+            return new TimestampDiff().diff(left, right, listener);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * Write the diff of two inputs to a file as unified-diff text. May run off the EDT.
+     */
+    public DiffSummary writeUnifiedDiff(EntrySource left, EntrySource right, File file) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8))) {
+            return compare(left, right, new UnifiedDiffWriter(out, left.getName(), right.getName()));
+        }
+    }
+    
+    /**
+     * Handle adding extracted timestamps after the user confirmed the preview
+     */
+    public void addExtractedTimestamps(List<TimestampEntry> entries) {
+        EdtWatchdog.tagged("addExtractedTimestamps", () -> {
+            if (entries.isEmpty()) {
+                view.showError("No timestamps selected");
+                return;
+            }
+            int added = model.addEntries(entries);
+            view.showSuccess(added + " timestamps added");
+        });
+    }
+    
     /**
      * Handle exporting timestamps to text file
      */
     public void exportToText(File file) {
-        if (file != null) {
-            List<TimestampEntry> timestamps = model.getTimestamps();
-            
-            if (fileService.exportToText(timestamps, file)) {
+        EdtWatchdog.tagged("exportToText", () -> {
+            export(file, fileService.getExporterRegistry().getDefaultExporter());
+        });
+    }
+    
+    /**
+     * Handle exporting timestamps with the chosen export format. The entries are copied here and
+     * written in the background, so edits made meanwhile don't end up half in the file.
+     */
+    public void export(File file, TimestampExporter exporter) {
+        EdtWatchdog.tagged("export", () -> {
+            if (file != null) {
+                List<TimestampEntry> timestamps = model.copyTimestamps();
+                tasks.submitSave("Save " + file.getName(), context -> {
+                            boolean saved = fileService.export(timestamps, file, exporter);
+                            if (saved) {
+                                rememberOwnWrite(file);
+                            }
+                            return saved;
+                        },
+                        TaskListener.of(saved -> exported(file, saved),
+                                cause -> view.showError("Error saving timestamps to file: " + cause.getMessage())));
+            }
+        });
+    }
+    
+    private void exported(File file, boolean saved) {
+        EdtWatchdog.tagged("exported", () -> {
+            if (saved) {
                 view.showSuccess("Timestamps saved successfully!");
                 
                 // Auto-open the saved file with default application
@@ -153,7 +526,31 @@ public class TimestampController {
             } else {
                 view.showError("Error saving timestamps to file");
             }
+        });
+    }
+    
+    /**
+     * Called when the window is closing: cancels background work but lets saves finish, then stops
+     * live marking, the file watcher and library indexing. Returns false if a save did not complete.
+     * Blocks for up to SHUTDOWN_TIMEOUT_MILLIS, so call it off the EDT.
+     */
+    public boolean shutdown() {
+        stopLiveMode();
+        if (fileWatcher != null) {
+            fileWatcher.close();
+            fileWatcher = null;
         }
+        // Index updates run on the IO pool, so finish them before it stops; saves still running
+        // afterwards index their files on their own thread
+        libraryIndex.close();
+        return tasks.shutdown(SHUTDOWN_TIMEOUT_MILLIS);
+    }
+    
+    /**
+     * Get the available export formats
+     */
+    public List<TimestampExporter> getExporters() {
+        return fileService.getExporterRegistry().getExporters();
     }
     
     /**
@@ -164,18 +561,52 @@ public class TimestampController {
     }
     
     /**
-     * Helper method to combine notes with pipe separator
+     * Get current timestamps as a read-only live list, without copying them; only read it on the EDT
      */
-    private String combineNotes(List<String> notes) {
-        StringBuilder combinedNotes = new StringBuilder();
-        for (String note : notes) {
-            if (note != null && !note.trim().isEmpty()) {
-                if (combinedNotes.length() > 0) {
-                    combinedNotes.append(" | ");
-                }
-                combinedNotes.append(note.trim());
-            }
+    public List<TimestampEntry> viewTimestamps() {
+        return model.viewTimestamps();
+    }
+    
+    /**
+     * Get the rows of getTimestamps() matching the table filters, or null when no filter is set
+     * @param type only entries of this type, or null for any type
+     * @param addedSince only entries added at or after this time, or null for any time
+     */
+    public int[] getFilteredRows(TimestampType type, LocalDateTime addedSince) {
+        if (type == null && addedSince == null) {
+            return null;
+        }
+        if (addedSince == null) {
+            return model.getRowsOfType(type);
         }
-        return combinedNotes.toString();
+        return model.getRowsAddedBetween(addedSince, null, type);
+    }
+    
+    /**
+     * Describes where the entries are kept, for the About dialog
+     */
+    public String getStorageDescription() {
+        return model.getStorageDescription();
+    }
+    
+    /**
+     * Get the marker counts along the timeline for the timeline strip
+     */
+    public TimelineBuckets getTimeline() {
+        return model.getTimeline();
+    }
+    
+    /**
+     * Get the chapter statistics for the statistics panel
+     */
+    public ChapterAnalytics getAnalytics() {
+        return model.getAnalytics();
+    }
+    
+    /**
+     * Helper method to turn the note fields into segments (rendered with pipe separator)
+     */
+    private NoteSegments combineNotes(List<String> notes) {
+        return NoteSegments.of(notes);
     }
 }
@@ -0,0 +1,225 @@
+package com.example.diagnostics;
+
+import com.example.metrics.Counter;
+import com.example.metrics.Histogram;
+import com.example.metrics.MetricsRegistry;
+import java.awt.Window;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+
+/**
+ * Detects when the Swing event thread stops responding. A monitor thread posts a heartbeat with
+ * invokeLater every HEARTBEAT_MILLIS; if one waits longer than -Drecorder.edt.stallMillis (default 500),
+ * the event thread's stack is sampled until it runs. Each stall is then written, tagged with the
+ * controller action in progress (see tagged()), to a rotating log:
+ * ~/.timestamp-recorder/diagnostics/edt-stalls.log, or -Drecorder.edt.log
+ * - edt.stall: stall duration in ms; edt.stalls: number of stalls
+ * Disable with -Drecorder.edt.watchdog=false.
+ */
+public final class EdtWatchdog {
+    public static final String ENABLED_PROPERTY = "recorder.edt.watchdog";
+    public static final String STALL_PROPERTY = "recorder.edt.stallMillis";
+    public static final String LOG_PROPERTY = "recorder.edt.log";
+    public static final long DEFAULT_STALL_MILLIS = 500;
+
+    private static final Histogram STALLS = MetricsRegistry.getInstance().histogram("edt.stall", "ms");
+    private static final Counter STALL_COUNT = MetricsRegistry.getInstance().counter("edt.stalls");
+    private static final long STALL_MILLIS = Math.max(50, Long.getLong(STALL_PROPERTY, DEFAULT_STALL_MILLIS));
+    private static final long HEARTBEAT_MILLIS = 100;
+    private static final long SAMPLE_MILLIS = 50;
+    private static final int MAX_SAMPLES = 100;
+    private static final int MAX_FRAMES = 40;
+    // The log is rotated to .1, .2 when it reaches this size
+    private static final long MAX_LOG_BYTES = 1 << 20;
+    private static final int LOG_FILES = 3;
+    private static final DateTimeFormatter LOG_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static volatile boolean installed;
+    private static volatile Thread eventThread;
+    // Set and restored on the EDT only, read by the monitor
+    private static volatile String currentAction;
+    private static volatile long longestStall;
+    private static volatile String longestAction;
+    private static volatile long totalStallMillis;
+
+    private EdtWatchdog() {
+    }
+
+    /**
+     * Starts the monitor thread unless disabled; later calls do nothing
+     */
+    public static synchronized void install() {
+        if (installed || !Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"))) {
+            return;
+        }
+        installed = true;
+        Thread monitor = new Thread(EdtWatchdog::monitor, "edt-watchdog");
+        monitor.setDaemon(true);
+        monitor.start();
+    }
+
+    /**
+     * Runs a controller action, tagging stalls that happen during it with the name; call on the EDT.
+     * Actions run within it are tagged "outer > inner".
+     */
+    public static void tagged(String name, Runnable action) {
+        String previous = currentAction;
+        currentAction = previous == null ? name : previous + " > " + name;
+        try {
+            action.run();
+        } finally {
+            currentAction = previous;
+        }
+    }
+
+    private static void monitor() {
+        try {
+            while (true) {
+                // Heartbeats would keep AWT from shutting down once the last window is gone
+                if (!hasWindow()) {
+                    Thread.sleep(HEARTBEAT_MILLIS);
+                    continue;
+                }
+                CountDownLatch ran = new CountDownLatch(1);
+                long posted = System.nanoTime();
+                SwingUtilities.invokeLater(() -> {
+                    // The event thread is replaced after an uncaught exception, so look it up every time
+                    eventThread = Thread.currentThread();
+                    ran.countDown();
+                });
+                if (ran.await(STALL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - posted);
+                    Thread.sleep(Math.max(0, HEARTBEAT_MILLIS - waited));
+                    continue;
+                }
+                String action = currentAction;
+                List<StackTraceElement[]> samples = new ArrayList<>();
+                do {
+                    Thread thread = eventThread;
+                    if (thread != null && samples.size() < MAX_SAMPLES) {
+                        samples.add(thread.getStackTrace());
+                    }
+                    if (action == null) {
+                        action = currentAction;
+                    }
+                } while (!ran.await(SAMPLE_MILLIS, TimeUnit.MILLISECONDS));
+                record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - posted), action, samples);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean hasWindow() {
+        for (Window window : Window.getWindows()) {
+            if (window.isDisplayable()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void record(long millis, String action, List<StackTraceElement[]> samples) {
+        STALLS.record(millis);
+        STALL_COUNT.increment();
+        totalStallMillis += millis;
+        if (millis > longestStall) {
+            longestStall = millis;
+            longestAction = action;
+        }
+        String headline = "EDT stall of " + millis + " ms" + (action != null ? " during " + action : "");
+        System.err.println(headline + "; stacks in " + logFile());
+        try {
+            writeLog(headline, samples);
+        } catch (IOException e) {
+            System.err.println("Could not write EDT stall log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends the stall with its distinct stacks, most sampled first, rotating the log when it is full
+     */
+    private static void writeLog(String headline, List<StackTraceElement[]> samples) throws IOException {
+        Map<List<StackTraceElement>, Integer> stacks = new LinkedHashMap<>();
+        for (StackTraceElement[] sample : samples) {
+            stacks.merge(Arrays.asList(sample), 1, Integer::sum);
+        }
+        List<Map.Entry<List<StackTraceElement>, Integer>> sorted = new ArrayList<>(stacks.entrySet());
+        sorted.sort((a, b) -> b.getValue() - a.getValue());
+
+        Path log = logFile();
+        Files.createDirectories(log.toAbsolutePath().getParent());
+        rotate(log);
+        try (BufferedWriter out = Files.newBufferedWriter(log, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            out.write(LocalDateTime.now().format(LOG_DATE_FORMAT) + " " + headline + " (" + samples.size() + " samples)");
+            out.newLine();
+            for (Map.Entry<List<StackTraceElement>, Integer> stack : sorted) {
+                out.write("  " + stack.getValue() + "x");
+                out.newLine();
+                List<StackTraceElement> frames = stack.getKey();
+                for (int i = 0; i < Math.min(frames.size(), MAX_FRAMES); i++) {
+                    out.write("    at " + frames.get(i));
+                    out.newLine();
+                }
+                if (frames.size() > MAX_FRAMES) {
+                    out.write("    ... " + (frames.size() - MAX_FRAMES) + " more");
+                    out.newLine();
+                }
+            }
+            out.newLine();
+        }
+    }
+
+    private static void rotate(Path log) throws IOException {
+        if (!Files.exists(log) || Files.size(log) < MAX_LOG_BYTES) {
+            return;
+        }
+        for (int i = LOG_FILES - 1; i > 0; i--) {
+            Path older = log.resolveSibling(log.getFileName() + "." + i);
+            Path newer = i == 1 ? log : log.resolveSibling(log.getFileName() + "." + (i - 1));
+            if (Files.exists(newer)) {
+                Files.move(newer, older, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    public static Path logFile() {
+        String configured = System.getProperty(LOG_PROPERTY);
+        if (configured != null) {
+            return Paths.get(configured);
+        }
+        return Paths.get(System.getProperty("user.home"), ".timestamp-recorder", "diagnostics", "edt-stalls.log");
+    }
+
+    /**
+     * One-line summary of the stalls so far, e.g. for the About dialog
+     */
+    public static String summary() {
+        if (!installed) {
+            return "EDT stalls are not being recorded";
+        }
+        if (STALLS.getCount() == 0) {
+            return "No EDT stalls over " + STALL_MILLIS + " ms";
+        }
+        return String.format("%d EDT stalls over %d ms: %d ms in total, median %d ms, longest %d ms%s",
+                STALLS.getCount(), STALL_MILLIS, totalStallMillis, STALLS.get50thPercentile(), longestStall,
+                longestAction != null ? " during " + longestAction : "");
+    }
+}
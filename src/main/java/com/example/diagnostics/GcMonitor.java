@@ -0,0 +1,99 @@
+package com.example.diagnostics;
+
+import com.example.metrics.Counter;
+import com.example.metrics.Histogram;
+import com.example.metrics.MetricsRegistry;
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Reports garbage collection pauses from the collectors' JMX notifications
+ * - gc.pause: stop-the-world pause per collection in ms; gc.concurrent: concurrent cycles, which don't pause
+ * - gc.heapAfter: heap in use after each collection in MB, to see whether the heap stays flat
+ * - pauses of at least -Drecorder.gc.warnMillis (default 200) are logged to System.err
+ */
+public final class GcMonitor {
+    public static final String WARN_PROPERTY = "recorder.gc.warnMillis";
+    public static final long DEFAULT_WARN_MILLIS = 200;
+
+    private static final Histogram PAUSES = MetricsRegistry.getInstance().histogram("gc.pause", "ms");
+    private static final Histogram CONCURRENT = MetricsRegistry.getInstance().histogram("gc.concurrent", "ms");
+    private static final Histogram HEAP_AFTER = MetricsRegistry.getInstance().histogram("gc.heapAfter", "MB");
+    private static final Counter LONG_PAUSES = MetricsRegistry.getInstance().counter("gc.longPauses");
+    private static final long WARN_MILLIS = Long.getLong(WARN_PROPERTY, DEFAULT_WARN_MILLIS);
+
+    private static final Set<String> HEAP_POOLS = new HashSet<>();
+    private static volatile boolean installed;
+    private static volatile long lastHeapAfter;
+
+    private GcMonitor() {
+    }
+
+    /**
+     * Starts listening to every collector that sends notifications; later calls do nothing
+     */
+    public static synchronized void install() {
+        if (installed) {
+            return;
+        }
+        installed = true;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                HEAP_POOLS.add(pool.getName());
+            }
+        }
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> record(notification), null, null);
+            }
+        }
+    }
+
+    private static void record(Notification notification) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        long millis = info.getGcInfo().getDuration();
+        if (info.getGcAction().contains("concurrent") || info.getGcName().contains("Cycles")) {
+            CONCURRENT.record(millis);
+            return;
+        }
+        PAUSES.record(millis);
+        long used = 0;
+        for (Map.Entry<String, MemoryUsage> pool : info.getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+            if (HEAP_POOLS.contains(pool.getKey())) {
+                used += pool.getValue().getUsed();
+            }
+        }
+        lastHeapAfter = used >> 20;
+        HEAP_AFTER.record(lastHeapAfter);
+        if (millis >= WARN_MILLIS) {
+            LONG_PAUSES.increment();
+            System.err.println("Long GC pause: " + info.getGcName() + " (" + info.getGcCause() + ") took "
+                    + millis + " ms, " + (used >> 20) + " MB in use afterwards");
+        }
+    }
+
+    /**
+     * One-line summary of the pauses so far, e.g. for the About dialog
+     */
+    public static String summary() {
+        if (PAUSES.getCount() == 0) {
+            return installed ? "No GC pauses recorded yet" : "GC pauses are not being recorded";
+        }
+        return String.format("%d GC pauses: median %d ms, p99 %d ms, longest %d ms; %d MB in use after the last",
+                PAUSES.getCount(), PAUSES.get50thPercentile(), PAUSES.get99thPercentile(), PAUSES.getMax(),
+                lastHeapAfter);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Custom Java Flight Recorder events for the recorder's hot paths.
+ * All events live here so they can be switched on and off together from a
+ * JFR settings file (see /jfr/recorder.jfc). Callers follow the
+ * begin / shouldCommit / commit pattern so a disabled event costs a single check.
+ */
+public final class RecorderEvents {
+    private static final String CATEGORY = "Timestamp Recorder";
+    
+    private RecorderEvents() {
+    }
+    
+    @Name("com.example.recorder.FileLoad")
+    @Label("File Load")
+    @Category({CATEGORY, "File"})
+    @Description("Timestamps loaded from a file")
+    public static class FileLoad extends Event {
+        @Label("Path")
+        public String path;
+        
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+        
+        @Label("Entries")
+        public int entries;
+        
+        @Label("Parse Errors")
+        public int parseErrors;
+    }
+    
+    @Name("com.example.recorder.FileExport")
+    @Label("File Export")
+    @Category({CATEGORY, "File"})
+    @Description("Timestamps written to a file")
+    public static class FileExport extends Event {
+        @Label("Path")
+        public String path;
+        
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+        
+        @Label("Entries")
+        public int entries;
+    }
+    
+    @Name("com.example.recorder.TableRefresh")
+    @Label("Table Refresh")
+    @Category({CATEGORY, "View"})
+    @Description("Timestamp table rebuilt from the model")
+    @StackTrace(false)
+    public static class TableRefresh extends Event {
+        @Label("Rows")
+        public int rows;
+    }
+    
+    @Name("com.example.recorder.Sort")
+    @Label("Sort")
+    @Category({CATEGORY, "Model"})
+    @Description("Timestamps sorted chronologically")
+    @StackTrace(false)
+    public static class Sort extends Event {
+        @Label("Entries")
+        public int entries;
+    }
+    
+    @Name("com.example.recorder.ModelMutation")
+    @Label("Model Mutation")
+    @Category({CATEGORY, "Model"})
+    @Description("A change applied to the timestamp model")
+    public static class ModelMutation extends Event {
+        @Label("Mutation")
+        public String mutation;
+        
+        @Label("Entries After")
+        public int entries;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.diagnostics;
+
+import com.example.metrics.MetricsRegistry;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time-to-first-frame: from main() entry (and from JVM start) until
+ * the main window has been painted for the first time.
+ */
+public final class StartupTimer {
+    /** Set to true to exit right after the first frame, e.g. for an AppCDS training run */
+    public static final String EXIT_AFTER_FIRST_FRAME_PROPERTY = "recorder.exitAfterFirstFrame";
+    
+    private static volatile long mainStartNanos = 0;
+    private static volatile boolean firstFrameReported = false;
+    
+    private StartupTimer() {
+    }
+    
+    /**
+     * Record the moment main() was entered
+     */
+    public static void markMainStarted() {
+        mainStartNanos = System.nanoTime();
+    }
+    
+    /**
+     * Report time-to-first-frame once; later calls are ignored
+     */
+    public static void markFirstFrame() {
+        if (firstFrameReported || mainStartNanos == 0) {
+            return;
+        }
+        firstFrameReported = true;
+        long sinceMainNanos = System.nanoTime() - mainStartNanos;
+        MetricsRegistry.getInstance().latency("startup.firstFrame").record(sinceMainNanos);
+        
+        long sinceMainMillis = TimeUnit.NANOSECONDS.toMillis(sinceMainNanos);
+        long sinceJvmStartMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        System.out.println("First frame painted " + sinceMainMillis + " ms after main() (" +
+                           sinceJvmStartMillis + " ms after JVM start)");
+        
+        if (isExitAfterFirstFrame()) {
+            System.exit(0);
+        }
+    }
+    
+    public static boolean isExitAfterFirstFrame() {
+        return Boolean.getBoolean(EXIT_AFTER_FIRST_FRAME_PROPERTY);
+    }
+}
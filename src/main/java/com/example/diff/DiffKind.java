@@ -0,0 +1,17 @@
+package com.example.diff;
+
+/**
+ * How an entry differs between the left (old) and right (new) side of a diff
+ */
+public enum DiffKind {
+    /** Same time, type and notes on both sides */
+    UNCHANGED,
+    /** Only on the right */
+    ADDED,
+    /** Only on the left */
+    REMOVED,
+    /** Same time and type, different notes */
+    NOTE_CHANGED,
+    /** Same type and notes, moved to a different time */
+    SHIFTED
+}
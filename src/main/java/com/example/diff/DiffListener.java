@@ -0,0 +1,15 @@
+package com.example.diff;
+
+import com.example.TimestampEntry;
+
+/**
+ * Receives diff results as the merge proceeds, roughly in time order
+ */
+public interface DiffListener {
+    
+    /**
+     * @param left the old entry, or null for ADDED
+     * @param right the new entry, or null for REMOVED
+     */
+    void onDiff(DiffKind kind, TimestampEntry left, TimestampEntry right);
+}
@@ -0,0 +1,77 @@
+package com.example.diff;
+
+import com.example.TimestampEntry;
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts of each kind of difference, and the most common shift offset
+ */
+public class DiffSummary {
+    private final EnumMap<DiffKind, Long> counts = new EnumMap<>(DiffKind.class);
+    private final Map<Long, Long> shiftOffsets = new HashMap<>();
+    
+    public DiffSummary() {
+        for (DiffKind kind : DiffKind.values()) {
+            counts.put(kind, 0L);
+        }
+    }
+    
+    void record(DiffKind kind, TimestampEntry left, TimestampEntry right) {
+        counts.merge(kind, 1L, Long::sum);
+        if (kind == DiffKind.SHIFTED) {
+            shiftOffsets.merge(right.getMillis() - left.getMillis(), 1L, Long::sum);
+        }
+    }
+    
+    public long getCount(DiffKind kind) {
+        return counts.get(kind);
+    }
+    
+    /**
+     * True if anything other than UNCHANGED was found
+     */
+    public boolean hasDifferences() {
+        for (DiffKind kind : DiffKind.values()) {
+            if (kind != DiffKind.UNCHANGED && counts.get(kind) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * The offset (in milliseconds, new minus old) shared by most shifted entries; 0 if none shifted
+     */
+    public long getDominantShift() {
+        long offset = 0;
+        long best = 0;
+        for (Map.Entry<Long, Long> entry : shiftOffsets.entrySet()) {
+            if (entry.getValue() > best) {
+                best = entry.getValue();
+                offset = entry.getKey();
+            }
+        }
+        return offset;
+    }
+    
+    @Override
+    public String toString() {
+        String text = getCount(DiffKind.ADDED) + " added, " + getCount(DiffKind.REMOVED) + " removed, "
+                + getCount(DiffKind.NOTE_CHANGED) + " notes changed, " + getCount(DiffKind.SHIFTED) + " shifted, "
+                + getCount(DiffKind.UNCHANGED) + " unchanged";
+        if (getCount(DiffKind.SHIFTED) > 0) {
+            text += " (mostly by " + formatShift(getDominantShift()) + ")";
+        }
+        return text;
+    }
+    
+    /**
+     * Formats a millisecond offset as signed seconds, e.g. "+5s" or "-0.25s"
+     */
+    public static String formatShift(long millis) {
+        return (millis > 0 ? "+" : "") + BigDecimal.valueOf(millis, 3).stripTrailingZeros().toPlainString() + "s";
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.diff;
+
+import com.example.FileService;
+import com.example.TimestampEntry;
+import java.io.File;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * One side of a diff: something that can be streamed (possibly more than once), with a name for display
+ */
+public interface EntrySource {
+    
+    String getName();
+    
+    EntryStream open();
+    
+    /**
+     * An in-memory session, e.g. the current model
+     */
+    static EntrySource of(String name, List<TimestampEntry> entries) {
+        return new EntrySource() {
+            @Override
+            public String getName() {
+                return name;
+            }
+            
+            @Override
+            public EntryStream open() {
+                Iterator<TimestampEntry> iterator = entries.iterator();
+                return () -> iterator.hasNext() ? iterator.next() : null;
+            }
+        };
+    }
+    
+    /**
+     * A file in any format FileService can load, parsed on a background thread as it is consumed
+     */
+    static EntrySource of(FileService fileService, File file) {
+        return new EntrySource() {
+            @Override
+            public String getName() {
+                return file.getName();
+            }
+            
+            @Override
+            public EntryStream open() {
+                return new FileEntryStream(fileService, file);
+            }
+        };
+    }
+}
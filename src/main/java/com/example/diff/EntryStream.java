@@ -0,0 +1,20 @@
+package com.example.diff;
+
+import com.example.TimestampEntry;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Pull-style sequence of entries in time order, consumed once
+ */
+public interface EntryStream extends Closeable {
+    
+    /**
+     * @return the next entry, or null at the end
+     */
+    TimestampEntry next() throws IOException;
+    
+    @Override
+    default void close() {
+    }
+}
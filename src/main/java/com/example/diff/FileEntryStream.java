@@ -0,0 +1,104 @@
+package com.example.diff;
+
+import com.example.FileService;
+import com.example.TimestampEntry;
+import com.example.importer.BatchingEntrySink;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Turns the push-style importers into a pull-style stream: a reader thread parses the file
+ * and hands batches over a small bounded queue, so at most a few batches are in memory at once
+ */
+class FileEntryStream implements EntryStream {
+    private static final int QUEUED_BATCHES = 4;
+    private static final List<TimestampEntry> END = Collections.emptyList();
+    
+    private final BlockingQueue<List<TimestampEntry>> queue = new ArrayBlockingQueue<>(QUEUED_BATCHES);
+    private final Thread reader;
+    private final File file;
+    private volatile IOException failure;
+    private List<TimestampEntry> batch = Collections.emptyList();
+    private int position;
+    private boolean ended;
+    
+    FileEntryStream(FileService fileService, File file) {
+        this.file = file;
+        this.reader = new Thread(() -> read(fileService), "diff-reader " + file.getName());
+        reader.setDaemon(true);
+        reader.start();
+    }
+    
+    /**
+     * Reads without the load metrics and events, which are for files opened as the session
+     */
+    private void read(FileService fileService) {
+        try {
+            fileService.readEntries(file, new BatchingEntrySink(this::put));
+            put(END);
+        } catch (Cancelled | ClosedByInterruptException | InterruptedIOException e) {
+            // Stream closed before the end of the file
+        } catch (IOException e) {
+            if (reader.isInterrupted()) {
+                return;
+            }
+            failure = e;
+            try {
+                put(END);
+            } catch (Cancelled cancelled) {
+                // Closed while reporting the failure
+            }
+        }
+    }
+    
+    private void put(List<TimestampEntry> entries) {
+        try {
+            queue.put(entries);
+        } catch (InterruptedException e) {
+            throw new Cancelled();
+        }
+    }
+    
+    @Override
+    public TimestampEntry next() throws IOException {
+        while (position == batch.size()) {
+            if (ended) {
+                return null;
+            }
+            try {
+                batch = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading " + file.getName());
+            }
+            position = 0;
+            if (batch == END) {
+                ended = true;
+                if (failure != null) {
+                    throw new IOException("Could not read " + file.getName() + ": " + failure.getMessage(), failure);
+                }
+            }
+        }
+        return batch.get(position++);
+    }
+    
+    @Override
+    public void close() {
+        reader.interrupt();
+    }
+    
+    /**
+     * Unwinds the importer when the stream is closed early
+     */
+    private static class Cancelled extends RuntimeException {
+        Cancelled() {
+            super(null, null, false, false);
+        }
+    }
+}
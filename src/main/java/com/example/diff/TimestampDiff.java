@@ -0,0 +1,261 @@
+package com.example.diff;
+
+import com.example.TimestampEntry;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diffs two time-ordered entry streams in a single merge pass keyed on the timecode (in milliseconds)
+ * Entries with the same time, type and notes are UNCHANGED. Leftovers wait in a sliding window of
+ * maxShiftSeconds: a later entry with the same type and notes on the other side makes them SHIFTED,
+ * otherwise a same-time, same-type leftover on the other side makes a NOTE_CHANGED pair, and the rest
+ * become REMOVED / ADDED. Only the window is held in memory, so inputs can be arbitrarily large.
+ * Results are reported in time order.
+ */
+public class TimestampDiff {
+    public static final int DEFAULT_MAX_SHIFT_SECONDS = 600;
+    public static final int DEFAULT_MAX_WINDOW_ENTRIES = 10_000;
+
+    private final int maxShiftSeconds;
+    private final int maxWindowEntries;
+
+    public TimestampDiff() {
+        this(DEFAULT_MAX_SHIFT_SECONDS, DEFAULT_MAX_WINDOW_ENTRIES);
+    }
+
+    /**
+     * @param maxShiftSeconds largest time difference still recognised as a shift
+     * @param maxWindowEntries cap on entries held while waiting for a shifted partner
+     */
+    public TimestampDiff(int maxShiftSeconds, int maxWindowEntries) {
+        this.maxShiftSeconds = maxShiftSeconds;
+        this.maxWindowEntries = maxWindowEntries;
+    }
+
+    /**
+     * Diffs two sources, opening and closing their streams
+     */
+    public DiffSummary diff(EntrySource left, EntrySource right, DiffListener listener) throws IOException {
+        try (EntryStream leftStream = left.open(); EntryStream rightStream = right.open()) {
+            return new Merge(leftStream, left.getName(), rightStream, right.getName(), listener).run();
+        }
+    }
+
+    /**
+     * An entry waiting in the window; single-sided until resolved
+     */
+    private static final class Item {
+        final long millis;
+        TimestampEntry left;
+        TimestampEntry right;
+        DiffKind kind;
+        // Unresolved leftovers from the other side at the same time, candidates for NOTE_CHANGED
+        List<Item> sameTime;
+        // Absorbed into another item's NOTE_CHANGED pair
+        boolean merged;
+
+        Item(long millis, TimestampEntry left, TimestampEntry right, DiffKind kind) {
+            this.millis = millis;
+            this.left = left;
+            this.right = right;
+            this.kind = kind;
+        }
+
+        TimestampEntry entry() {
+            return left != null ? left : right;
+        }
+    }
+
+    /**
+     * State of one diff run
+     */
+    private final class Merge {
+        private final EntryStream leftStream;
+        private final EntryStream rightStream;
+        private final String leftName;
+        private final String rightName;
+        private final DiffListener listener;
+        private final DiffSummary summary = new DiffSummary();
+        private final ArrayDeque<Item> window = new ArrayDeque<>();
+        private final Map<String, ArrayDeque<Item>> waitingLeft = new HashMap<>();
+        private final Map<String, ArrayDeque<Item>> waitingRight = new HashMap<>();
+        private TimestampEntry nextLeft;
+        private TimestampEntry nextRight;
+        private long leftCount;
+        private long rightCount;
+
+        Merge(EntryStream leftStream, String leftName, EntryStream rightStream, String rightName, DiffListener listener) {
+            this.leftStream = leftStream;
+            this.leftName = leftName;
+            this.rightStream = rightStream;
+            this.rightName = rightName;
+            this.listener = listener;
+        }
+
+        DiffSummary run() throws IOException {
+            nextLeft = leftStream.next();
+            nextRight = rightStream.next();
+            List<TimestampEntry> leftGroup = new ArrayList<>();
+            List<TimestampEntry> rightGroup = new ArrayList<>();
+            while (nextLeft != null || nextRight != null) {
+                long millis = Math.min(
+                    nextLeft != null ? nextLeft.getMillis() : Long.MAX_VALUE,
+                    nextRight != null ? nextRight.getMillis() : Long.MAX_VALUE);
+                leftGroup.clear();
+                rightGroup.clear();
+                while (nextLeft != null && nextLeft.getMillis() == millis) {
+                    leftGroup.add(nextLeft);
+                    nextLeft = advance(leftStream, leftName, millis, ++leftCount);
+                }
+                while (nextRight != null && nextRight.getMillis() == millis) {
+                    rightGroup.add(nextRight);
+                    nextRight = advance(rightStream, rightName, millis, ++rightCount);
+                }
+                mergeGroup(millis, leftGroup, rightGroup);
+                flush(millis - maxShiftSeconds * 1000L);
+            }
+            flush(Long.MAX_VALUE);
+            return summary;
+        }
+
+        private TimestampEntry advance(EntryStream stream, String name, long millis, long count) throws IOException {
+            TimestampEntry next = stream.next();
+            if (next != null && next.getMillis() < millis) {
+                throw new IOException(name + " is not in time order (entry " + (count + 1) + ", "
+                        + next.getTimestamp() + ")");
+            }
+            return next;
+        }
+
+        private void mergeGroup(long millis, List<TimestampEntry> leftGroup, List<TimestampEntry> rightGroup) {
+            boolean[] leftMatched = new boolean[leftGroup.size()];
+            List<TimestampEntry> rightLeftovers = new ArrayList<>();
+            for (TimestampEntry right : rightGroup) {
+                int match = -1;
+                for (int i = 0; i < leftGroup.size() && match < 0; i++) {
+                    if (!leftMatched[i] && key(leftGroup.get(i)).equals(key(right))) {
+                        match = i;
+                    }
+                }
+                if (match >= 0) {
+                    leftMatched[match] = true;
+                    window.addLast(new Item(millis, leftGroup.get(match), right, DiffKind.UNCHANGED));
+                } else {
+                    rightLeftovers.add(right);
+                }
+            }
+
+            List<Item> leftItems = new ArrayList<>();
+            List<Item> rightItems = new ArrayList<>();
+            for (int i = 0; i < leftGroup.size(); i++) {
+                if (!leftMatched[i]) {
+                    // An earlier right-only entry with the same notes: shifted back in time
+                    Item waiting = poll(waitingRight, key(leftGroup.get(i)));
+                    if (waiting != null) {
+                        resolveShift(waiting, leftGroup.get(i), waiting.right);
+                    } else {
+                        Item item = new Item(millis, leftGroup.get(i), null, null);
+                        leftItems.add(item);
+                        enqueue(waitingLeft, item);
+                    }
+                }
+            }
+            for (TimestampEntry right : rightLeftovers) {
+                // An earlier left-only entry with the same notes: shifted forward in time
+                Item waiting = poll(waitingLeft, key(right));
+                if (waiting != null) {
+                    resolveShift(waiting, waiting.left, right);
+                } else {
+                    Item item = new Item(millis, null, right, null);
+                    rightItems.add(item);
+                    enqueue(waitingRight, item);
+                }
+            }
+            for (Item item : leftItems) {
+                item.sameTime = rightItems;
+                window.addLast(item);
+            }
+            for (Item item : rightItems) {
+                item.sameTime = leftItems;
+                window.addLast(item);
+            }
+        }
+
+        private void resolveShift(Item item, TimestampEntry left, TimestampEntry right) {
+            item.left = left;
+            item.right = right;
+            item.kind = DiffKind.SHIFTED;
+        }
+
+        /**
+         * Reports window items older than the watermark (or beyond the size cap) in order
+         */
+        private void flush(long watermark) {
+            while (!window.isEmpty()
+                    && (window.peekFirst().millis < watermark || window.size() > maxWindowEntries)) {
+                Item item = window.pollFirst();
+                if (item.merged) {
+                    continue;
+                }
+                if (item.kind == null) {
+                    resolveLeftover(item);
+                }
+                summary.record(item.kind, item.left, item.right);
+                listener.onDiff(item.kind, item.left, item.right);
+            }
+        }
+
+        /**
+         * No shifted partner turned up: pair with a same-time leftover of the same type, or report one-sided
+         */
+        private void resolveLeftover(Item item) {
+            forget(item.left != null ? waitingLeft : waitingRight, item);
+            for (Item other : item.sameTime) {
+                if (other.kind == null && !other.merged && other.entry().getType() == item.entry().getType()) {
+                    forget(other.left != null ? waitingLeft : waitingRight, other);
+                    other.merged = true;
+                    if (item.left == null) {
+                        item.left = other.left;
+                    } else {
+                        item.right = other.right;
+                    }
+                    item.kind = DiffKind.NOTE_CHANGED;
+                    return;
+                }
+            }
+            item.kind = item.left != null ? DiffKind.REMOVED : DiffKind.ADDED;
+        }
+
+        private void enqueue(Map<String, ArrayDeque<Item>> waiting, Item item) {
+            waiting.computeIfAbsent(key(item.entry()), k -> new ArrayDeque<>()).addLast(item);
+        }
+
+        private Item poll(Map<String, ArrayDeque<Item>> waiting, String key) {
+            ArrayDeque<Item> items = waiting.get(key);
+            if (items == null) {
+                return null;
+            }
+            Item item = items.pollFirst();
+            if (items.isEmpty()) {
+                waiting.remove(key);
+            }
+            return item;
+        }
+
+        private void forget(Map<String, ArrayDeque<Item>> waiting, Item item) {
+            String key = key(item.entry());
+            ArrayDeque<Item> items = waiting.get(key);
+            if (items != null && items.remove(item) && items.isEmpty()) {
+                waiting.remove(key);
+            }
+        }
+    }
+
+    private static String key(TimestampEntry entry) {
+        return entry.getType().name() + '\u0000' + entry.getNotes();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.diff;
+
+import com.example.TimestampEntry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+
+/**
+ * Writes diff results as unified-diff style text: "---"/"+++" headers, "@@ time @@" hunks,
+ * " " context, "-" old and "+" new lines in the text export format.
+ * Hunk headers carry the time of the hunk's first line instead of line counts, so the output
+ * can be written while streaming without buffering whole hunks.
+ */
+public class UnifiedDiffWriter implements DiffListener {
+    public static final int DEFAULT_CONTEXT_LINES = 3;
+    
+    private final Writer out;
+    private final int contextLines;
+    private final ArrayDeque<TimestampEntry> context = new ArrayDeque<>();
+    // Context lines still to print after the last change
+    private int trailingContext;
+    // Whether unchanged lines were skipped since the last line written
+    private boolean gap = true;
+    
+    public UnifiedDiffWriter(Writer out, String leftName, String rightName) throws IOException {
+        this(out, leftName, rightName, DEFAULT_CONTEXT_LINES);
+    }
+    
+    public UnifiedDiffWriter(Writer out, String leftName, String rightName, int contextLines) throws IOException {
+        this.out = out;
+        this.contextLines = contextLines;
+        out.write("--- " + leftName + "\n");
+        out.write("+++ " + rightName + "\n");
+    }
+    
+    @Override
+    public void onDiff(DiffKind kind, TimestampEntry left, TimestampEntry right) {
+        try {
+            if (kind == DiffKind.UNCHANGED) {
+                unchanged(left);
+                return;
+            }
+            if (gap) {
+                TimestampEntry first = !context.isEmpty() ? context.peekFirst() : left != null ? left : right;
+                out.write("@@ " + first.getTimestamp() + " @@\n");
+                gap = false;
+            }
+            for (TimestampEntry entry : context) {
+                out.write(" " + entry.toExportString() + "\n");
+            }
+            context.clear();
+            if (left != null) {
+                out.write("-" + left.toExportString() + "\n");
+            }
+            if (right != null) {
+                out.write("+" + right.toExportString() + "\n");
+            }
+            trailingContext = contextLines;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private void unchanged(TimestampEntry entry) throws IOException {
+        if (trailingContext > 0) {
+            out.write(" " + entry.toExportString() + "\n");
+            trailingContext--;
+            return;
+        }
+        context.addLast(entry);
+        if (context.size() > contextLines) {
+            context.removeFirst();
+            gap = true;
+        }
+    }
+}
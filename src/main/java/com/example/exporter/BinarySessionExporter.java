@@ -0,0 +1,63 @@
+package com.example.exporter;
+
+import com.example.NoteSegments;
+import com.example.SessionFormat;
+import com.example.TimestampEntry;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary session format (see SessionFormat), preserving note segments and dates exactly
+ */
+public class BinarySessionExporter implements TimestampExporter {
+    
+    @Override
+    public String getId() {
+        return "session";
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return "Binary Session (*.tsr)";
+    }
+    
+    @Override
+    public String getFileExtension() {
+        return SessionFormat.FILE_EXTENSION;
+    }
+    
+    @Override
+    public void export(Iterable<TimestampEntry> entries, Writer out) throws IOException {
+        throw new IOException("The binary session format cannot be written as text");
+    }
+    
+    @Override
+    public void export(Iterable<TimestampEntry> entries, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(SessionFormat.MAGIC);
+        data.writeByte(SessionFormat.VERSION);
+        for (TimestampEntry entry : entries) {
+            data.writeByte(SessionFormat.TAG_ENTRY);
+            data.writeByte(entry.getType().ordinal());
+            data.writeByte(entry.getStyle().ordinal());
+            data.writeLong(entry.getMillis());
+            data.writeLong(SessionFormat.toEpochMillis(entry.getDateAdded()));
+            NoteSegments notes = entry.getNoteSegments();
+            data.writeInt(notes.size());
+            for (int i = 0; i < notes.size(); i++) {
+                writeString(data, notes.get(i));
+            }
+        }
+        data.writeByte(SessionFormat.TAG_END);
+        data.flush();
+    }
+    
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+}
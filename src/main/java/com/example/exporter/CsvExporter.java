@@ -0,0 +1,69 @@
+package com.example.exporter;
+
+import com.example.NoteSegments;
+import com.example.TimestampEntry;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * RFC 4180 CSV for spreadsheets. The end of each row is the start of the
+ * next entry, and is left empty for the last entry.
+ */
+public class CsvExporter implements TimestampExporter {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String CRLF = "\r\n";
+    
+    @Override
+    public String getId() {
+        return "csv";
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return "CSV Spreadsheet (*.csv)";
+    }
+    
+    @Override
+    public String getFileExtension() {
+        return "csv";
+    }
+    
+    @Override
+    public void export(Iterable<TimestampEntry> entries, Writer out) throws IOException {
+        out.write("time,seconds,end_seconds,type,notes,date_added");
+        out.write(CRLF);
+        
+        Writer field = new ExportSupport.CsvFieldWriter(out);
+        TimestampEntry pending = null;
+        for (TimestampEntry entry : entries) {
+            if (pending != null) {
+                writeRow(out, field, pending, entry.getMillis());
+            }
+            pending = entry;
+        }
+        if (pending != null) {
+            writeRow(out, field, pending, -1);
+        }
+    }
+    
+    /**
+     * seconds and end_seconds keep the milliseconds as a fraction (62.5), so sub-second entries stay distinct
+     */
+    private void writeRow(Writer out, Writer field, TimestampEntry entry, long endMillis) throws IOException {
+        out.write(entry.getTimestamp());
+        out.write(',');
+        ExportSupport.writeSeconds(out, entry.getMillis());
+        out.write(',');
+        if (endMillis >= 0) {
+            ExportSupport.writeSeconds(out, endMillis);
+        }
+        out.write(',');
+        out.write(entry.getType().name());
+        out.write(",\"");
+        entry.getNoteSegments().writeTo(field, NoteSegments.SEPARATOR);
+        out.write("\",");
+        DATE_FORMAT.formatTo(entry.getDateAdded(), out);
+        out.write(CRLF);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.exporter;
+
+import com.example.NoteSegments;
+import com.example.TimestampEntry;
+import com.example.TimestampType;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Base class for subtitle-style chapter tracks (SRT, WebVTT).
+ * Every entry becomes a cue lasting until the next entry starts; the last
+ * cue gets a fixed duration. SUB cues are indented with an en dash.
+ */
+abstract class CueExporter implements TimestampExporter {
+    // Length of the final cue, which has no following entry to end it
+    static final long LAST_CUE_MILLIS = 10_000;
+    
+    @Override
+    public void export(Iterable<TimestampEntry> entries, Writer out) throws IOException {
+        writeHeader(out);
+        TimestampEntry pending = null;
+        int index = 1;
+        for (TimestampEntry entry : entries) {
+            if (pending != null) {
+                writeCue(out, index++, pending, entry.getMillis());
+            }
+            pending = entry;
+        }
+        if (pending != null) {
+            writeCue(out, index, pending, pending.getMillis() + LAST_CUE_MILLIS);
+        }
+    }
+    
+    private void writeCue(Writer out, int index, TimestampEntry entry, long endMillis) throws IOException {
+        writeCueTiming(out, index, entry.getMillis(), endMillis);
+        if (entry.getType() == TimestampType.SUB) {
+            out.write("\u2013 ");
+        }
+        NoteSegments notes = entry.getNoteSegments();
+        if (notes.isEmpty()) {
+            out.write(entry.getTimestamp());
+        } else {
+            notes.writeTo(out, NoteSegments.SEPARATOR);
+        }
+        out.write("\n\n");
+    }
+    
+    abstract void writeHeader(Writer out) throws IOException;
+    
+    abstract void writeCueTiming(Writer out, int index, long startMillis, long endMillis) throws IOException;
+}
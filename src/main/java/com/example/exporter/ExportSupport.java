@@ -0,0 +1,176 @@
+package com.example.exporter;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Allocation-free formatting helpers shared by the built-in exporters
+ */
+final class ExportSupport {
+    
+    private ExportSupport() {
+    }
+    
+    /**
+     * Writes a non-negative integer without going through Integer.toString
+     */
+    static void writeInt(Writer out, long value) throws IOException {
+        if (value >= 10) {
+            writeInt(out, value / 10);
+        }
+        out.write((char) ('0' + value % 10));
+    }
+    
+    /**
+     * Writes milliseconds as seconds, with a fraction of up to three digits only when there is one (62, 62.5)
+     */
+    static void writeSeconds(Writer out, long millis) throws IOException {
+        writeInt(out, millis / 1000);
+        int fraction = (int) (millis % 1000);
+        if (fraction != 0) {
+            // Digits up to the last non-zero one
+            out.write('.');
+            out.write((char) ('0' + fraction / 100));
+            if (fraction % 100 != 0) {
+                out.write((char) ('0' + fraction / 10 % 10));
+                if (fraction % 10 != 0) {
+                    out.write((char) ('0' + fraction % 10));
+                }
+            }
+        }
+    }
+    
+    static void writeTwoDigits(Writer out, long value) throws IOException {
+        out.write((char) ('0' + value / 10 % 10));
+        out.write((char) ('0' + value % 10));
+    }
+    
+    /**
+     * Writes m:ss, or h:mm:ss from one hour on (the layout YouTube recognises)
+     */
+    static void writeClock(Writer out, long seconds) throws IOException {
+        long hours = seconds / 3600;
+        long minutes = seconds % 3600 / 60;
+        if (hours > 0) {
+            writeInt(out, hours);
+            out.write(':');
+            writeTwoDigits(out, minutes);
+        } else {
+            writeInt(out, minutes);
+        }
+        out.write(':');
+        writeTwoDigits(out, seconds % 60);
+    }
+    
+    /**
+     * Writes HH:MM:SS followed by the separator and milliseconds, as used by SRT (',') and WebVTT ('.')
+     */
+    static void writeCueTime(Writer out, long millis, char fractionSeparator) throws IOException {
+        long totalSeconds = millis / 1000;
+        writeTwoDigits(out, totalSeconds / 3600);
+        out.write(':');
+        writeTwoDigits(out, totalSeconds % 3600 / 60);
+        out.write(':');
+        writeTwoDigits(out, totalSeconds % 60);
+        out.write(fractionSeparator);
+        long fraction = millis % 1000;
+        out.write((char) ('0' + fraction / 100));
+        writeTwoDigits(out, fraction % 100);
+    }
+    
+    /**
+     * Escapes everything written through it for use inside a JSON string literal
+     */
+    static final class JsonStringWriter extends FilterWriter {
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+        
+        JsonStringWriter(Writer out) {
+            super(out);
+        }
+        
+        @Override
+        public void write(int c) throws IOException {
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.write("\\u00");
+                        out.write(HEX[c >> 4]);
+                        out.write(HEX[c & 0xF]);
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            for (int i = offset; i < offset + length; i++) {
+                write(buffer[i]);
+            }
+        }
+        
+        @Override
+        public void write(String str, int offset, int length) throws IOException {
+            for (int i = offset; i < offset + length; i++) {
+                write(str.charAt(i));
+            }
+        }
+        
+        @Override
+        public void close() {
+            // Never close the underlying export writer
+        }
+    }
+    
+    /**
+     * Doubles quotes for use inside a quoted CSV field
+     */
+    static final class CsvFieldWriter extends FilterWriter {
+        CsvFieldWriter(Writer out) {
+            super(out);
+        }
+        
+        @Override
+        public void write(int c) throws IOException {
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            for (int i = offset; i < offset + length; i++) {
+                write(buffer[i]);
+            }
+        }
+        
+        @Override
+        public void write(String str, int offset, int length) throws IOException {
+            for (int i = offset; i < offset + length; i++) {
+                write(str.charAt(i));
+            }
+        }
+        
+        @Override
+        public void close() {
+            // Never close the underlying export writer
+        }
+    }
+}
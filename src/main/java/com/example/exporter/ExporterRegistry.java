@@ -0,0 +1,48 @@
+package com.example.exporter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Discovers exporters through ServiceLoader; the built-in text exporter is always first
+ */
+public class ExporterRegistry {
+    private final List<TimestampExporter> exporters;
+    
+    public ExporterRegistry() {
+        List<TimestampExporter> found = new ArrayList<>();
+        found.add(new TextExporter());
+        for (TimestampExporter exporter : ServiceLoader.load(TimestampExporter.class)) {
+            if (getExporter(found, exporter.getId()) == null) {
+                found.add(exporter);
+            }
+        }
+        this.exporters = Collections.unmodifiableList(found);
+    }
+    
+    public List<TimestampExporter> getExporters() {
+        return exporters;
+    }
+    
+    /**
+     * Returns the exporter with the given id, or null
+     */
+    public TimestampExporter getExporter(String id) {
+        return getExporter(exporters, id);
+    }
+    
+    public TimestampExporter getDefaultExporter() {
+        return exporters.get(0);
+    }
+    
+    private static TimestampExporter getExporter(List<TimestampExporter> exporters, String id) {
+        for (TimestampExporter exporter : exporters) {
+            if (exporter.getId().equals(id)) {
+                return exporter;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.exporter;
+
+import com.example.NoteSegments;
+import com.example.TimestampEntry;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * JSON array of entries with their note segments kept separate.
+ * endSeconds is the start of the next entry, or null for the last entry.
+ */
+public class JsonExporter implements TimestampExporter {
+    
+    @Override
+    public String getId() {
+        return "json";
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return "JSON (*.json)";
+    }
+    
+    @Override
+    public String getFileExtension() {
+        return "json";
+    }
+    
+    @Override
+    public void export(Iterable<TimestampEntry> entries, Writer out) throws IOException {
+        Writer string = new ExportSupport.JsonStringWriter(out);
+        out.write('[');
+        TimestampEntry pending = null;
+        boolean first = true;
+        for (TimestampEntry entry : entries) {
+            if (pending != null) {
+                writeEntry(out, string, pending, entry.getMillis(), first);
+                first = false;
+            }
+            pending = entry;
+        }
+        if (pending != null) {
+            writeEntry(out, string, pending, -1, first);
+        }
+        out.write("\n]\n");
+    }
+    
+    /**
+     * seconds and endSeconds keep the milliseconds as a fraction (62.5), so sub-second entries stay distinct
+     */
+    private void writeEntry(Writer out, Writer string, TimestampEntry entry, long endMillis, boolean first)
+            throws IOException {
+        out.write(first ? "\n  {\"time\": \"" : ",\n  {\"time\": \"");
+        string.write(entry.getTimestamp());
+        out.write("\", \"seconds\": ");
+        ExportSupport.writeSeconds(out, entry.getMillis());
+        out.write(", \"endSeconds\": ");
+        if (endMillis >= 0) {
+            ExportSupport.writeSeconds(out, endMillis);
+        } else {
+            out.write("null");
+        }
+        out.write(", \"type\": \"");
+        out.write(entry.getType().name());
+        out.write("\", \"notes\": [");
+        NoteSegments notes = entry.getNoteSegments();
+        for (int i = 0; i < notes.size(); i++) {
+            out.write(i == 0 ? "\"" : ", \"");
+            notes.writeSegment(i, string);
+            out.write('"');
+        }
+        out.write("], \"dateAdded\": \"");
+        DateTimeFormatter.ISO_LOCAL_DATE_TIME.formatTo(entry.getDateAdded(), out);
+        out.write("\"}");
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.exporter;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * SubRip (.srt) chapter track
+ */
+public class SrtExporter extends CueExporter {
+    
+    @Override
+    public String getId() {
+        return "srt";
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return "SubRip Chapters (*.srt)";
+    }
+    
+    @Override
+    public String getFileExtension() {
+        return "srt";
+    }
+    
+    @Override
+    void writeHeader(Writer out) {
+        // SRT has no header
+    }
+    
+    @Override
+    void writeCueTiming(Writer out, int index, long startMillis, long endMillis) throws IOException {
+        ExportSupport.writeInt(out, index);
+        out.write('\n');
+        ExportSupport.writeCueTime(out, startMillis, ',');
+        out.write(" --> ");
+        ExportSupport.writeCueTime(out, endMillis, ',');
+        out.write('\n');
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.exporter;
+
+import com.example.NoteSegments;
+import com.example.TimestampEntry;
+import com.example.TimestampType;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The recorder's own text layout: a header, then one line per entry with
+ * SUB entries indented by two full-width spaces. This is the format read back by FileService.
+ */
+public class TextExporter implements TimestampExporter {
+    public static final String ID = "text";
+    
+    private static final DateTimeFormatter HEADER_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String NEWLINE = System.lineSeparator();
+    
+    @Override
+    public String getId() {
+        return ID;
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return "Timestamp Text (*.txt)";
+    }
+    
+    @Override
+    public String getFileExtension() {
+        return "txt";
+    }
+    
+    @Override
+    public void export(Iterable<TimestampEntry> entries, Writer out) throws IOException {
+        // Write header
+        out.write("Timestamp Export - Generated on ");
+        HEADER_DATE_FORMAT.formatTo(LocalDateTime.now(), out);
+        out.write(NEWLINE);
+        out.write("======================================================");
+        out.write(NEWLINE);
+        out.write(NEWLINE);
+        
+        // Write timestamps
+        for (TimestampEntry entry : entries) {
+            if (entry.getType() == TimestampType.SUB) {
+                out.write("\u3000\u3000");
+            }
+            out.write(entry.getTimestamp());
+            out.write(' ');
+            entry.getNoteSegments().writeTo(out, NoteSegments.SEPARATOR);
+            out.write(NEWLINE);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.exporter;
+
+import com.example.TimestampEntry;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Service provider interface for export formats.
+ * Implementations are discovered with ServiceLoader through
+ * META-INF/services/com.example.exporter.TimestampExporter and must have a
+ * public no-argument constructor. Entries arrive sorted chronologically and
+ * should be written straight to the writer in a single pass.
+ */
+public interface TimestampExporter {
+    
+    /**
+     * Stable identifier, e.g. "csv"
+     */
+    String getId();
+    
+    /**
+     * Name shown in the export dialog
+     */
+    String getDisplayName();
+    
+    /**
+     * File extension without the dot, e.g. "csv"
+     */
+    String getFileExtension();
+    
+    /**
+     * Write the entries to the output
+     */
+    void export(Iterable<TimestampEntry> entries, Writer out) throws IOException;
+    
+    /**
+     * Write the entries as bytes. Text formats use the default, which encodes
+     * export(Iterable, Writer) as UTF-8; binary formats override this instead.
+     */
+    default void export(Iterable<TimestampEntry> entries, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        export(entries, writer);
+        writer.flush();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.exporter;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * WebVTT (.vtt) chapter track
+ */
+public class WebVttExporter extends CueExporter {
+    
+    @Override
+    public String getId() {
+        return "webvtt";
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return "WebVTT Chapters (*.vtt)";
+    }
+    
+    @Override
+    public String getFileExtension() {
+        return "vtt";
+    }
+    
+    @Override
+    void writeHeader(Writer out) throws IOException {
+        out.write("WEBVTT\n\n");
+    }
+    
+    @Override
+    void writeCueTiming(Writer out, int index, long startMillis, long endMillis) throws IOException {
+        ExportSupport.writeCueTime(out, startMillis, '.');
+        out.write(" --> ");
+        ExportSupport.writeCueTime(out, endMillis, '.');
+        out.write('\n');
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.exporter;
+
+import com.example.NoteSegments;
+import com.example.TimestampEntry;
+import com.example.TimestampType;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * YouTube description chapters: one "m:ss Title" line per MAIN entry.
+ * YouTube only recognises chapters that start at 0:00, so an "Intro" chapter
+ * is added when the first MAIN entry is later than that.
+ */
+public class YouTubeChapterExporter implements TimestampExporter {
+    
+    @Override
+    public String getId() {
+        return "youtube";
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return "YouTube Chapters (*.txt)";
+    }
+    
+    @Override
+    public String getFileExtension() {
+        return "txt";
+    }
+    
+    @Override
+    public void export(Iterable<TimestampEntry> entries, Writer out) throws IOException {
+        boolean first = true;
+        for (TimestampEntry entry : entries) {
+            if (entry.getType() != TimestampType.MAIN) {
+                continue;
+            }
+            if (first && entry.getSeconds() > 0) {
+                out.write("0:00 Intro\n");
+            }
+            first = false;
+            ExportSupport.writeClock(out, entry.getSeconds());
+            out.write(' ');
+            entry.getNoteSegments().writeTo(out, NoteSegments.SEPARATOR);
+            out.write('\n');
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.importer;
+
+import com.example.TimestampEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Collects parsed entries into fixed-size batches and hands each full batch
+ * to a consumer, so importers never hold more than one batch themselves.
+ * Call flush() once the importer is done to deliver the final partial batch.
+ */
+public class BatchingEntrySink implements EntrySink {
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+    
+    private final int batchSize;
+    private final Consumer<List<TimestampEntry>> batchConsumer;
+    private List<TimestampEntry> batch;
+    private long entries = 0;
+    private long errors = 0;
+    
+    public BatchingEntrySink(Consumer<List<TimestampEntry>> batchConsumer) {
+        this(DEFAULT_BATCH_SIZE, batchConsumer);
+    }
+    
+    public BatchingEntrySink(int batchSize, Consumer<List<TimestampEntry>> batchConsumer) {
+        this.batchSize = batchSize;
+        this.batchConsumer = batchConsumer;
+        this.batch = new ArrayList<>(batchSize);
+    }
+    
+    @Override
+    public void accept(TimestampEntry entry) {
+        batch.add(entry);
+        entries++;
+        if (batch.size() >= batchSize) {
+            flush();
+        }
+    }
+    
+    @Override
+    public void parseError(long lineNumber, String reason) {
+        errors++;
+    }
+    
+    /**
+     * Deliver any pending entries
+     */
+    public void flush() {
+        if (!batch.isEmpty()) {
+            List<TimestampEntry> full = batch;
+            batch = new ArrayList<>(batchSize);
+            batchConsumer.accept(full);
+        }
+    }
+    
+    public long getEntryCount() {
+        return entries;
+    }
+    
+    public long getErrorCount() {
+        return errors;
+    }
+}
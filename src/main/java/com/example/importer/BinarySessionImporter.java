@@ -0,0 +1,103 @@
+package com.example.importer;
+
+import com.example.NoteSegments;
+import com.example.SessionFormat;
+import com.example.Timecode;
+import com.example.TimestampEntry;
+import com.example.TimestampType;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary session format written by BinarySessionExporter (see SessionFormat)
+ */
+public class BinarySessionImporter implements TimestampImporter {
+    // Guards against reading a corrupt length as a huge allocation
+    private static final int MAX_STRING_BYTES = 16 * 1024 * 1024;
+    
+    @Override
+    public String getId() {
+        return "session";
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return "Binary Session";
+    }
+    
+    @Override
+    public int sniff(byte[] head, int length) {
+        if (length < SessionFormat.MAGIC.length) {
+            return 0;
+        }
+        for (int i = 0; i < SessionFormat.MAGIC.length; i++) {
+            if (head[i] != SessionFormat.MAGIC[i]) {
+                return 0;
+            }
+        }
+        return 100;
+    }
+    
+    @Override
+    public void read(InputStream in, EntrySink sink) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        byte[] magic = new byte[SessionFormat.MAGIC.length];
+        data.readFully(magic);
+        int version = data.readUnsignedByte();
+        if (version != SessionFormat.VERSION && version != SessionFormat.VERSION_TEXT_TIMES) {
+            throw new IOException("Unsupported session format version " + version);
+        }
+        
+        TimestampType[] types = TimestampType.values();
+        Timecode.Style[] styles = Timecode.Style.values();
+        long record = 0;
+        try {
+            int tag;
+            while ((tag = data.readUnsignedByte()) == SessionFormat.TAG_ENTRY) {
+                record++;
+                int typeOrdinal = data.readUnsignedByte();
+                int styleOrdinal;
+                long millis;
+                if (version == SessionFormat.VERSION_TEXT_TIMES) {
+                    String timestamp = readString(data);
+                    styleOrdinal = Timecode.styleOf(timestamp).ordinal();
+                    millis = ImportSupport.parseTimecode(timestamp);
+                } else {
+                    styleOrdinal = data.readUnsignedByte();
+                    millis = data.readLong();
+                }
+                long dateAdded = data.readLong();
+                int segmentCount = data.readInt();
+                NoteSegments notes = NoteSegments.empty();
+                for (int i = 0; i < segmentCount; i++) {
+                    notes.add(readString(data));
+                }
+                if (typeOrdinal >= types.length || styleOrdinal >= styles.length || millis < 0) {
+                    sink.parseError(record, "Invalid session record");
+                    continue;
+                }
+                TimestampEntry entry = new TimestampEntry(millis, styles[styleOrdinal], notes, types[typeOrdinal]);
+                entry.setDateAdded(SessionFormat.fromEpochMillis(dateAdded));
+                sink.accept(entry);
+            }
+            if (tag != SessionFormat.TAG_END) {
+                sink.parseError(record + 1, "Unknown record tag " + tag);
+            }
+        } catch (EOFException e) {
+            sink.parseError(record + 1, "Truncated session file");
+        }
+    }
+    
+    private static String readString(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        if (length < 0 || length > MAX_STRING_BYTES) {
+            throw new IOException("Corrupt string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
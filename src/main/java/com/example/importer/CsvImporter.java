@@ -0,0 +1,157 @@
+package com.example.importer;
+
+import com.example.NoteSegments;
+import com.example.Timecode;
+import com.example.TimestampEntry;
+import com.example.TimestampType;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * RFC 4180 CSV. Columns are located by header name (time, type, notes,
+ * date_added, as written by CsvExporter); without a header the first column is
+ * the timecode and the second the notes.
+ */
+public class CsvImporter implements TimestampImporter {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    @Override
+    public String getId() {
+        return "csv";
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return "CSV";
+    }
+    
+    @Override
+    public int sniff(byte[] head, int length) {
+        String first = ImportSupport.firstNonBlankLine(ImportSupport.headText(head, length));
+        int comma = first.indexOf(',');
+        if (comma < 0) {
+            return 0;
+        }
+        String firstField = first.substring(0, comma).trim().replace("\"", "");
+        if (firstField.equalsIgnoreCase("time") || firstField.equalsIgnoreCase("timestamp")) {
+            return 80;
+        }
+        return ImportSupport.isTimecode(firstField) ? 60 : 0;
+    }
+    
+    @Override
+    public void read(InputStream in, EntrySink sink) throws IOException {
+        Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<String> row = new ArrayList<>();
+        int timeColumn = 0;
+        int notesColumn = 1;
+        int typeColumn = -1;
+        int dateColumn = -1;
+        long record = 0;
+        boolean firstRow = true;
+        
+        while (readRow(reader, row)) {
+            record++;
+            if (firstRow) {
+                firstRow = false;
+                int headerTime = indexOf(row, "time", "timestamp");
+                if (headerTime >= 0) {
+                    timeColumn = headerTime;
+                    notesColumn = indexOf(row, "notes", "note", "title");
+                    typeColumn = indexOf(row, "type");
+                    dateColumn = indexOf(row, "date_added", "dateadded", "date added");
+                    continue;
+                }
+            }
+            if (row.size() == 1 && row.get(0).trim().isEmpty()) {
+                continue;
+            }
+            String timestamp = timeColumn < row.size() ? row.get(timeColumn).trim() : "";
+            long millis = ImportSupport.parseTimecode(timestamp);
+            if (millis == Timecode.INVALID) {
+                sink.parseError(record, "Invalid timestamp format");
+                continue;
+            }
+            String notes = notesColumn >= 0 && notesColumn < row.size() ? row.get(notesColumn) : "";
+            TimestampType type = TimestampType.MAIN;
+            if (typeColumn >= 0 && typeColumn < row.size() && "SUB".equalsIgnoreCase(row.get(typeColumn).trim())) {
+                type = TimestampType.SUB;
+            }
+            TimestampEntry entry = new TimestampEntry(millis, Timecode.styleOf(timestamp), NoteSegments.parse(notes), type);
+            if (dateColumn >= 0 && dateColumn < row.size()) {
+                try {
+                    entry.setDateAdded(LocalDateTime.parse(row.get(dateColumn).trim(), DATE_FORMAT));
+                } catch (DateTimeParseException e) {
+                    // Keep the load time as date added
+                }
+            }
+            sink.accept(entry, timestamp);
+        }
+    }
+    
+    private static int indexOf(List<String> header, String... names) {
+        for (int i = 0; i < header.size(); i++) {
+            String column = header.get(i).trim().toLowerCase(Locale.ROOT);
+            for (String name : names) {
+                if (column.equals(name)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Reads one record into row, handling quoted fields with embedded commas, quotes and line breaks
+     */
+    static boolean readRow(Reader reader, List<String> row) throws IOException {
+        row.clear();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                row.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!any) {
+            return false;
+        }
+        row.add(field.toString());
+        return true;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.importer;
+
+import com.example.NoteSegments;
+import com.example.Timecode;
+import com.example.TimestampEntry;
+import com.example.TimestampType;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * SubRip and WebVTT chapter tracks. Each cue's start time becomes a timestamp
+ * and its text the notes; cues starting with an en dash (as written by the
+ * chapter exporters) become SUB entries.
+ */
+public class CueImporter implements TimestampImporter {
+    private static final String ARROW = "-->";
+    private static final String SUB_MARKER = "\u2013 ";
+    
+    @Override
+    public String getId() {
+        return "cue";
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return "SubRip / WebVTT Chapters";
+    }
+    
+    @Override
+    public int sniff(byte[] head, int length) {
+        String text = ImportSupport.headText(head, length);
+        if (text.startsWith("WEBVTT")) {
+            return 100;
+        }
+        String[] lines = text.trim().split("\r?\n", 3);
+        if (lines.length >= 2 && lines[0].trim().matches("\\d+") && lines[1].contains(ARROW)) {
+            return 90;
+        }
+        return 0;
+    }
+    
+    @Override
+    public void read(InputStream in, EntrySink sink) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        long lineNumber = 0;
+        long cueLine = 0;
+        String timestamp = null;
+        StringBuilder text = new StringBuilder();
+        
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.contains(ARROW)) {
+                emit(timestamp, text, sink);
+                cueLine = lineNumber;
+                timestamp = toTimecode(line.substring(0, line.indexOf(ARROW)).trim());
+                if (timestamp == null) {
+                    sink.parseError(lineNumber, "Invalid cue timing");
+                }
+            } else if (line.trim().isEmpty()) {
+                emit(timestamp, text, sink);
+                timestamp = null;
+            } else if (timestamp != null && cueLine > 0) {
+                if (text.length() > 0) {
+                    text.append(NoteSegments.SEPARATOR);
+                }
+                text.append(line.trim());
+            }
+        }
+        emit(timestamp, text, sink);
+    }
+    
+    private void emit(String timestamp, StringBuilder text, EntrySink sink) {
+        if (timestamp != null) {
+            String notes = text.toString();
+            TimestampType type = TimestampType.MAIN;
+            if (notes.startsWith(SUB_MARKER)) {
+                type = TimestampType.SUB;
+                notes = notes.substring(SUB_MARKER.length());
+            }
+            long millis = Timecode.parse(timestamp);
+            Timecode.Style style = millis % 1000 == 0 ? Timecode.Style.SECONDS : Timecode.Style.MILLIS;
+            sink.accept(new TimestampEntry(millis, style, NoteSegments.parse(notes), type), timestamp);
+        }
+        text.setLength(0);
+    }
+    
+    /**
+     * Converts "HH:MM:SS,mmm" / "MM:SS.mmm" cue times to a timecode the recorder parses, or null;
+     * entries keep the milliseconds only when there are any
+     */
+    static String toTimecode(String cueTime) {
+        String time = cueTime.replace(',', '.');
+        return ImportSupport.parseTimecode(time) == Timecode.INVALID ? null : time;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.importer;
+
+import com.example.TimestampEntry;
+
+/**
+ * Receives entries from an importer as they are parsed
+ */
+public interface EntrySink {
+    
+    /**
+     * A successfully parsed entry
+     */
+    void accept(TimestampEntry entry);
+    
+    /**
+     * A successfully parsed entry with its timecode as written in the file, for checks on the text
+     * itself (e.g. fields out of range) that the parsed time no longer shows
+     */
+    default void accept(TimestampEntry entry, String timecode) {
+        accept(entry);
+    }
+    
+    /**
+     * A line or record that could not be parsed; lineNumber is 1-based, or 0 if unknown
+     */
+    void parseError(long lineNumber, String reason);
+}
@@ -0,0 +1,88 @@
+package com.example.importer;
+
+import com.example.Timecode;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Shared helpers for the built-in importers
+ */
+final class ImportSupport {
+    static final String SUB_INDENT = "\u3000\u3000";
+    static final String SPACE_INDENT = "    ";
+    
+    private ImportSupport() {
+    }
+    
+    /**
+     * True for m:ss / mm:ss / h:mm:ss timecodes, optionally with a .f to .fff fraction,
+     * and for h:mm:ss:ff frame timecodes, without the cost of a regex
+     */
+    static boolean isTimecode(String text) {
+        int length = text.length();
+        int i = 0;
+        while (i < length && isDigit(text.charAt(i))) {
+            i++;
+        }
+        if (i == 0 || i == length || text.charAt(i) != ':') {
+            return false;
+        }
+        // Expect one or two ":dd" groups, or three when the last one counts frames
+        int groups = 0;
+        while (i < length && text.charAt(i) == ':') {
+            if (groups == 3 || i + 3 > length
+                    || !isDigit(text.charAt(i + 1)) || !isDigit(text.charAt(i + 2))) {
+                return false;
+            }
+            i += 3;
+            groups++;
+        }
+        if (i == length) {
+            return true;
+        }
+        // Fraction of a second; frame timecodes have none
+        if (groups == 3 || text.charAt(i) != '.' || length - i < 2 || length - i > 4) {
+            return false;
+        }
+        for (i++; i < length; i++) {
+            if (!isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Milliseconds of a timecode accepted by isTimecode(), or Timecode.INVALID; frame counts at or
+     * above the frame rate are invalid
+     */
+    static long parseTimecode(String text) {
+        return isTimecode(text) ? Timecode.parse(text) : Timecode.INVALID;
+    }
+    
+    static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+    
+    /**
+     * Decodes the sniffed bytes as UTF-8, skipping a byte order mark
+     */
+    static String headText(byte[] head, int length) {
+        int offset = 0;
+        if (length >= 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB && (head[2] & 0xFF) == 0xBF) {
+            offset = 3;
+        }
+        return new String(head, offset, length - offset, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * First line of the sniffed text that is not blank, or an empty string
+     */
+    static String firstNonBlankLine(String text) {
+        for (String line : text.split("\r?\n", 16)) {
+            if (!line.trim().isEmpty()) {
+                return line;
+            }
+        }
+        return "";
+    }
+}
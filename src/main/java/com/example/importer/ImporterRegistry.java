@@ -0,0 +1,45 @@
+package com.example.importer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Discovers importers through ServiceLoader and picks one by sniffing a file's first bytes
+ */
+public class ImporterRegistry {
+    /** How many leading bytes of a file the importers get to sniff */
+    public static final int SNIFF_BYTES = 8 * 1024;
+    
+    private final List<TimestampImporter> importers;
+    private final TimestampImporter fallback = new TextImporter();
+    
+    public ImporterRegistry() {
+        List<TimestampImporter> found = new ArrayList<>();
+        for (TimestampImporter importer : ServiceLoader.load(TimestampImporter.class)) {
+            found.add(importer);
+        }
+        this.importers = Collections.unmodifiableList(found);
+    }
+    
+    public List<TimestampImporter> getImporters() {
+        return importers;
+    }
+    
+    /**
+     * The most confident importer for a file starting with these bytes; plain text if none is
+     */
+    public TimestampImporter detect(byte[] head, int length) {
+        TimestampImporter best = fallback;
+        int bestScore = 0;
+        for (TimestampImporter importer : importers) {
+            int score = importer.sniff(head, length);
+            if (score > bestScore) {
+                best = importer;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.importer;
+
+import com.example.NoteSegments;
+import com.example.Timecode;
+import com.example.TimestampEntry;
+import com.example.TimestampType;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JSON array of entry objects as written by JsonExporter. "notes" may be a
+ * single string or an array of segments; unknown fields are ignored.
+ */
+public class JsonImporter implements TimestampImporter {
+    
+    @Override
+    public String getId() {
+        return "json";
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return "JSON";
+    }
+    
+    @Override
+    public int sniff(byte[] head, int length) {
+        String text = ImportSupport.headText(head, length).trim();
+        if (text.startsWith("[")) {
+            String rest = text.substring(1).trim();
+            return rest.isEmpty() || rest.startsWith("{") || rest.startsWith("]") ? 80 : 0;
+        }
+        return 0;
+    }
+    
+    @Override
+    public void read(InputStream in, EntrySink sink) throws IOException {
+        JsonTokenizer json = new JsonTokenizer(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        json.expect('[');
+        if (json.consume(']')) {
+            return;
+        }
+        do {
+            long line = json.getLine();
+            if (!readEntry(json, sink)) {
+                sink.parseError(line, "Entry without a valid \"time\"");
+            }
+        } while (json.consume(','));
+        json.expect(']');
+    }
+    
+    /**
+     * Reads one entry object and passes it to the sink
+     * @return false if it has no valid time
+     */
+    private boolean readEntry(JsonTokenizer json, EntrySink sink) throws IOException {
+        String timestamp = null;
+        NoteSegments notes = NoteSegments.empty();
+        TimestampType type = TimestampType.MAIN;
+        LocalDateTime dateAdded = null;
+        
+        json.expect('{');
+        if (!json.consume('}')) {
+            do {
+                String field = json.readString();
+                json.expect(':');
+                switch (field) {
+                    case "time":
+                        timestamp = json.readString().trim();
+                        break;
+                    case "type":
+                        type = "SUB".equalsIgnoreCase(json.readString()) ? TimestampType.SUB : TimestampType.MAIN;
+                        break;
+                    case "notes":
+                        notes = readNotes(json);
+                        break;
+                    case "dateAdded":
+                        try {
+                            dateAdded = LocalDateTime.parse(json.readString());
+                        } catch (DateTimeParseException e) {
+                            // Keep the load time as date added
+                        }
+                        break;
+                    default:
+                        json.skipValue();
+                }
+            } while (json.consume(','));
+            json.expect('}');
+        }
+        
+        long millis = timestamp == null ? Timecode.INVALID : ImportSupport.parseTimecode(timestamp);
+        if (millis == Timecode.INVALID) {
+            return false;
+        }
+        TimestampEntry entry = new TimestampEntry(millis, Timecode.styleOf(timestamp), notes, type);
+        if (dateAdded != null) {
+            entry.setDateAdded(dateAdded);
+        }
+        sink.accept(entry, timestamp);
+        return true;
+    }
+    
+    private NoteSegments readNotes(JsonTokenizer json) throws IOException {
+        if (json.peek() == '"') {
+            return NoteSegments.parse(json.readString());
+        }
+        json.expect('[');
+        NoteSegments notes = NoteSegments.empty();
+        if (json.consume(']')) {
+            return notes;
+        }
+        List<String> segments = new ArrayList<>();
+        do {
+            segments.add(json.readString());
+        } while (json.consume(','));
+        json.expect(']');
+        for (String segment : segments) {
+            notes.add(segment);
+        }
+        return notes;
+    }
+}
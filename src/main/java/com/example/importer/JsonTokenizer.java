@@ -0,0 +1,158 @@
+package com.example.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Minimal streaming JSON tokenizer: just enough to walk an array of objects
+ * one value at a time without building a document tree
+ */
+final class JsonTokenizer {
+    private final Reader in;
+    private int peeked = -2;
+    private long line = 1;
+    
+    JsonTokenizer(Reader in) {
+        this.in = in;
+    }
+    
+    long getLine() {
+        return line;
+    }
+    
+    /**
+     * Next non-whitespace character without consuming it, or -1 at end of input
+     */
+    int peek() throws IOException {
+        while (true) {
+            if (peeked == -2) {
+                peeked = in.read();
+                if (peeked == '\n') {
+                    line++;
+                }
+            }
+            if (peeked == ' ' || peeked == '\t' || peeked == '\r' || peeked == '\n' || peeked == 0xFEFF) {
+                peeked = -2;
+                continue;
+            }
+            return peeked;
+        }
+    }
+    
+    int next() throws IOException {
+        int c = peek();
+        peeked = -2;
+        return c;
+    }
+    
+    void expect(char expected) throws IOException {
+        int c = next();
+        if (c != expected) {
+            throw new IOException("Expected '" + expected + "' but found " + describe(c) + " on line " + line);
+        }
+    }
+    
+    /**
+     * Consumes the character if it is next and returns whether it was
+     */
+    boolean consume(char expected) throws IOException {
+        if (peek() == expected) {
+            peeked = -2;
+            return true;
+        }
+        return false;
+    }
+    
+    String readString() throws IOException {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            int c = in.read();
+            if (c == -1) {
+                throw new IOException("Unterminated string on line " + line);
+            }
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c == '\\') {
+                int escaped = in.read();
+                switch (escaped) {
+                    case 'n': value.append('\n'); break;
+                    case 'r': value.append('\r'); break;
+                    case 't': value.append('\t'); break;
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'u':
+                        char[] hex = new char[4];
+                        for (int i = 0; i < 4; i++) {
+                            hex[i] = (char) in.read();
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(new String(hex), 16));
+                        } catch (NumberFormatException e) {
+                            throw new IOException("Invalid unicode escape on line " + line);
+                        }
+                        break;
+                    default:
+                        value.append((char) escaped);
+                }
+            } else {
+                if (c == '\n') {
+                    line++;
+                }
+                value.append((char) c);
+            }
+        }
+    }
+    
+    /**
+     * Reads a number, true, false or null as raw text
+     */
+    String readScalar() throws IOException {
+        StringBuilder value = new StringBuilder();
+        int c = peek();
+        while (c != -1 && c != ',' && c != '}' && c != ']' && c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+            value.append((char) c);
+            peeked = -2;
+            c = in.read();
+            peeked = c;
+            if (c == '\n') {
+                line++;
+            }
+        }
+        if (value.length() == 0) {
+            throw new IOException("Unexpected " + describe(c) + " on line " + line);
+        }
+        return value.toString();
+    }
+    
+    /**
+     * Skips any value, including nested objects and arrays
+     */
+    void skipValue() throws IOException {
+        int c = peek();
+        if (c == '"') {
+            readString();
+        } else if (c == '{' || c == '[') {
+            char close = c == '{' ? '}' : ']';
+            next();
+            if (consume(close)) {
+                return;
+            }
+            do {
+                if (close == '}') {
+                    readString();
+                    expect(':');
+                }
+                skipValue();
+            } while (consume(','));
+            expect(close);
+        } else {
+            readScalar();
+        }
+    }
+    
+    private static String describe(int c) {
+        return c == -1 ? "end of input" : "'" + (char) c + "'";
+    }
+}
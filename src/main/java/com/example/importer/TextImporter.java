@@ -0,0 +1,113 @@
+package com.example.importer;
+
+import com.example.NoteSegments;
+import com.example.Timecode;
+import com.example.TimestampEntry;
+import com.example.TimestampType;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The recorder's own text layout (see TextExporter): "timecode notes" per line,
+ * SUB entries indented by two full-width or four regular spaces, header lines skipped.
+ * Also the fallback for any plain text file.
+ */
+public class TextImporter implements TimestampImporter {
+    public static final String ID = "text";
+    
+    @Override
+    public String getId() {
+        return ID;
+    }
+    
+    @Override
+    public String getDisplayName() {
+        return "Timestamp Text";
+    }
+    
+    @Override
+    public int sniff(byte[] head, int length) {
+        String text = ImportSupport.headText(head, length);
+        if (text.startsWith("Timestamp Export")) {
+            return 90;
+        }
+        String first = ImportSupport.firstNonBlankLine(text).trim();
+        int space = first.indexOf(' ');
+        return ImportSupport.isTimecode(space < 0 ? first : first.substring(0, space)) ? 50 : 10;
+    }
+    
+    @Override
+    public void read(InputStream in, EntrySink sink) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            if (isSkippable(line)) {
+                continue;
+            }
+            TimestampEntry entry = parseLine(line);
+            if (entry != null) {
+                sink.accept(entry);
+            } else {
+                sink.parseError(lineNumber, "Invalid timestamp format");
+            }
+        }
+    }
+    
+    /**
+     * Blank, comment and header lines
+     */
+    public static boolean isSkippable(String line) {
+        String trimmedLine = line.trim();
+        if (trimmedLine.isEmpty() || trimmedLine.startsWith("#") || trimmedLine.startsWith("=")) {
+            return true;
+        }
+        String lower = trimmedLine.toLowerCase();
+        return lower.contains("timestamp export") || lower.contains("generated on");
+    }
+    
+    /**
+     * Parses "timecode notes", detecting SUB indentation; returns null if the line has no valid timecode
+     */
+    public static TimestampEntry parseLine(String line) {
+        TimestampType type = TimestampType.MAIN;
+        String content = line;
+        
+        // Check if it's a sub-timestamp (starts with full-width spaces or regular spaces)
+        String stripped = stripLeadingAsciiSpace(line, 4);
+        if (line.startsWith(ImportSupport.SPACE_INDENT)) {
+            type = TimestampType.SUB;
+            content = line.substring(ImportSupport.SPACE_INDENT.length());
+        } else if (stripped.startsWith(ImportSupport.SUB_INDENT)) {
+            type = TimestampType.SUB;
+            content = stripped.substring(ImportSupport.SUB_INDENT.length());
+        }
+        content = content.trim();
+        
+        // Split timestamp and notes at the first space after the timestamp
+        int space = content.indexOf(' ');
+        String timestamp = space < 0 ? content : content.substring(0, space);
+        String notes = space < 0 ? "" : content.substring(space + 1);
+        
+        long millis = ImportSupport.parseTimecode(timestamp);
+        if (millis != Timecode.INVALID) {
+            return new TimestampEntry(millis, Timecode.styleOf(timestamp), NoteSegments.parse(notes), type);
+        }
+        return null;
+    }
+    
+    private static String stripLeadingAsciiSpace(String line, int max) {
+        int i = 0;
+        while (i < line.length() && i < max && line.charAt(i) == ' ') {
+            i++;
+        }
+        return line.substring(i);
+    }
+}
@@ -0,0 +1,329 @@
+package com.example.importer;
+
+import com.example.Timecode;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Single-pass scanner that finds every timecode (m:ss, mm:ss, h:mm:ss, up to
+ * three leading digits, with an optional .f to .fff fraction, or h:mm:ss:ff
+ * frames, as Timecode.parse() reads them) anywhere in arbitrary text, e.g. chat
+ * logs or comment dumps. Recognition is a small DFA driven one character at a
+ * time over a reusable buffer, so nothing is allocated except for the timecodes
+ * found.
+ * Each hit is reported with the text around it on the same line: the text up
+ * to the next timecode, or the text before it when nothing follows.
+ */
+public class TimecodeScanner {
+    
+    /**
+     * Receives timecodes in the order they appear
+     */
+    public interface Listener {
+        void timecode(long lineNumber, long millis, String timecode, String context);
+    }
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Further timecodes on the same line are ignored
+    private static final int MAX_HITS_PER_LINE = 256;
+    // Context longer than this is cut
+    private static final int MAX_CONTEXT = 500;
+    
+    // DFA states
+    private static final int OUTSIDE = 0;
+    private static final int LEAD_DIGITS = 1;
+    private static final int COLON_1 = 2;
+    private static final int MINUTE_1 = 3;
+    private static final int MINUTE_2 = 4;
+    private static final int COLON_2 = 5;
+    private static final int SECOND_1 = 6;
+    private static final int SECOND_2 = 7;
+    // After a failed match, until the run of digits and colons ends (e.g. 12:34:567 or 1:02:03:045)
+    private static final int SKIP_DIGITS = 8;
+    // "." after mm:ss or h:mm:ss; a sentence-ending dot is not part of the timecode
+    private static final int DOT = 9;
+    private static final int FRACTION = 10;
+    private static final int COLON_3 = 11;
+    private static final int FRAME_1 = 12;
+    private static final int FRAME_2 = 13;
+    
+    private final int[] hitStart = new int[MAX_HITS_PER_LINE];
+    private final int[] hitEnd = new int[MAX_HITS_PER_LINE];
+    private final long[] hitMillis = new long[MAX_HITS_PER_LINE];
+    private long charsScanned = 0;
+    
+    /**
+     * Total characters scanned by this instance
+     */
+    public long getCharsScanned() {
+        return charsScanned;
+    }
+    
+    /**
+     * Scans a whole character stream
+     */
+    public void scan(Reader reader, Listener listener) throws IOException {
+        char[] buffer = new char[BUFFER_SIZE];
+        int filled = 0;
+        long lineNumber = 1;
+        int read;
+        while ((read = reader.read(buffer, filled, buffer.length - filled)) > 0 || filled > 0) {
+            if (read > 0) {
+                filled += read;
+            }
+            boolean endOfInput = read <= 0;
+            int lineStart = 0;
+            for (int i = 0; i < filled; i++) {
+                if (buffer[i] == '\n') {
+                    scanLine(buffer, lineStart, i, lineNumber++, listener);
+                    lineStart = i + 1;
+                }
+            }
+            if (endOfInput || lineStart == 0 && filled == buffer.length) {
+                // Last line, or a line longer than the buffer: scan what we have
+                scanLine(buffer, lineStart, filled, lineNumber, listener);
+                if (endOfInput) {
+                    break;
+                }
+                filled = 0;
+            } else {
+                // Carry the partial line over to the next read
+                System.arraycopy(buffer, lineStart, buffer, 0, filled - lineStart);
+                filled -= lineStart;
+            }
+        }
+    }
+    
+    /**
+     * Scans a string, e.g. clipboard contents
+     */
+    public void scan(CharSequence text, Listener listener) {
+        char[] chars = text.toString().toCharArray();
+        long lineNumber = 1;
+        int lineStart = 0;
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == '\n') {
+                scanLine(chars, lineStart, i, lineNumber++, listener);
+                lineStart = i + 1;
+            }
+        }
+        scanLine(chars, lineStart, chars.length, lineNumber, listener);
+    }
+    
+    private void scanLine(char[] line, int from, int to, long lineNumber, Listener listener) {
+        charsScanned += to - from;
+        int hits = 0;
+        int state = OUTSIDE;
+        int start = 0;
+        int leadValue = 0;
+        int leadDigits = 0;
+        int minutes = 0;
+        int seconds = 0;
+        int frames = 0;
+        // Time matched before a fraction, and the fraction's digits so far
+        long wholeMillis = 0;
+        int fraction = 0;
+        int fractionDigits = 0;
+        char previous = ' ';
+        
+        for (int i = from; i <= to; i++) {
+            // A sentinel space after the line lets pending matches complete
+            char c = i < to ? line[i] : ' ';
+            boolean digit = c >= '0' && c <= '9';
+            switch (state) {
+                case OUTSIDE:
+                    if (digit && isBoundary(previous)) {
+                        state = LEAD_DIGITS;
+                        start = i;
+                        leadValue = c - '0';
+                        leadDigits = 1;
+                    }
+                    break;
+                case LEAD_DIGITS:
+                    if (digit && leadDigits < 3) {
+                        leadValue = leadValue * 10 + (c - '0');
+                        leadDigits++;
+                    } else if (c == ':') {
+                        state = COLON_1;
+                    } else {
+                        state = digit ? SKIP_DIGITS : OUTSIDE;
+                    }
+                    break;
+                case COLON_1:
+                    if (digit && c <= '5') {
+                        minutes = c - '0';
+                        state = MINUTE_1;
+                    } else {
+                        state = OUTSIDE;
+                    }
+                    break;
+                case MINUTE_1:
+                    if (digit) {
+                        minutes = minutes * 10 + (c - '0');
+                        state = MINUTE_2;
+                    } else {
+                        state = OUTSIDE;
+                    }
+                    break;
+                case MINUTE_2:
+                    if (c == ':') {
+                        state = COLON_2;
+                    } else if (c == '.') {
+                        wholeMillis = (leadValue * 60L + minutes) * 1000;
+                        state = DOT;
+                    } else if (digit) {
+                        state = SKIP_DIGITS;
+                    } else {
+                        // lead:mm complete
+                        hits = addHit(hits, start, i, (leadValue * 60L + minutes) * 1000);
+                        state = OUTSIDE;
+                    }
+                    break;
+                case COLON_2:
+                    if (digit && c <= '5') {
+                        seconds = c - '0';
+                        state = SECOND_1;
+                    } else {
+                        // "1:02: text" - the trailing colon is not part of the timecode
+                        hits = addHit(hits, start, i - 1, (leadValue * 60L + minutes) * 1000);
+                        state = OUTSIDE;
+                    }
+                    break;
+                case SECOND_1:
+                    if (digit) {
+                        seconds = seconds * 10 + (c - '0');
+                        state = SECOND_2;
+                    } else {
+                        state = OUTSIDE;
+                    }
+                    break;
+                case SECOND_2:
+                    if (c == ':') {
+                        state = COLON_3;
+                    } else if (c == '.') {
+                        wholeMillis = (leadValue * 3600L + minutes * 60 + seconds) * 1000;
+                        state = DOT;
+                    } else if (digit) {
+                        state = SKIP_DIGITS;
+                    } else {
+                        hits = addHit(hits, start, i, (leadValue * 3600L + minutes * 60 + seconds) * 1000);
+                        state = OUTSIDE;
+                    }
+                    break;
+                case DOT:
+                    if (digit) {
+                        fraction = c - '0';
+                        fractionDigits = 1;
+                        state = FRACTION;
+                    } else {
+                        // "at 1:02." - the dot ends the sentence
+                        hits = addHit(hits, start, i - 1, wholeMillis);
+                        state = OUTSIDE;
+                    }
+                    break;
+                case FRACTION:
+                    if (digit && fractionDigits < 3) {
+                        fraction = fraction * 10 + (c - '0');
+                        fractionDigits++;
+                    } else if (digit || c == ':') {
+                        state = SKIP_DIGITS;
+                    } else {
+                        for (int d = fractionDigits; d < 3; d++) {
+                            fraction *= 10;
+                        }
+                        hits = addHit(hits, start, i, wholeMillis + fraction);
+                        state = OUTSIDE;
+                    }
+                    break;
+                case COLON_3:
+                    if (digit) {
+                        frames = c - '0';
+                        state = FRAME_1;
+                    } else {
+                        // "1:02:03: text"
+                        hits = addHit(hits, start, i - 1, (leadValue * 3600L + minutes * 60 + seconds) * 1000);
+                        state = OUTSIDE;
+                    }
+                    break;
+                case FRAME_1:
+                    if (digit) {
+                        frames = frames * 10 + (c - '0');
+                        state = FRAME_2;
+                    } else {
+                        state = OUTSIDE;
+                    }
+                    break;
+                case FRAME_2:
+                    if (digit || c == ':' || c == '.') {
+                        state = SKIP_DIGITS;
+                    } else {
+                        if (frames < Timecode.getFrameRate()) {
+                            hits = addHit(hits, start, i, (leadValue * 3600L + minutes * 60 + seconds) * 1000
+                                    + Timecode.framesToMillis(frames));
+                        }
+                        state = OUTSIDE;
+                    }
+                    break;
+                case SKIP_DIGITS:
+                    if (!digit && c != ':') {
+                        state = OUTSIDE;
+                    }
+                    break;
+                default:
+                    state = OUTSIDE;
+            }
+            previous = c;
+        }
+        
+        for (int h = 0; h < hits; h++) {
+            String timecode = new String(line, hitStart[h], hitEnd[h] - hitStart[h]);
+            listener.timecode(lineNumber, hitMillis[h], timecode, context(line, from, to, hits, h));
+        }
+    }
+    
+    private int addHit(int hits, int start, int end, long millis) {
+        if (hits == MAX_HITS_PER_LINE) {
+            return hits;
+        }
+        hitStart[hits] = start;
+        hitEnd[hits] = end;
+        hitMillis[hits] = millis;
+        return hits + 1;
+    }
+    
+    private String context(char[] line, int from, int to, int hits, int h) {
+        int afterEnd = h + 1 < hits ? hitStart[h + 1] : to;
+        String after = trimmed(line, hitEnd[h], afterEnd);
+        if (!after.isEmpty()) {
+            return after;
+        }
+        int beforeStart = h > 0 ? hitEnd[h - 1] : from;
+        return trimmed(line, beforeStart, hitStart[h]);
+    }
+    
+    private static String trimmed(char[] line, int from, int to) {
+        while (from < to && isTrimmable(line[from])) {
+            from++;
+        }
+        while (to > from && isTrimmable(line[to - 1])) {
+            to--;
+        }
+        return new String(line, from, Math.min(to - from, MAX_CONTEXT));
+    }
+    
+    /**
+     * Whitespace and the separators people put around timecodes ("1:02 - intro", "[1:02]")
+     */
+    private static boolean isTrimmable(char c) {
+        return c <= ' ' || c == '-' || c == ',' || c == '\u2013' || c == '\u2014' || c == '|' || c == '[' || c == ']'
+                || c == '(' || c == ')' || c == ':' || c == '\u3000';
+    }
+    
+    /**
+     * A timecode may not continue a number, a word, another timecode or a decimal
+     */
+    private static boolean isBoundary(char previous) {
+        return !(previous >= '0' && previous <= '9') && previous != ':' && previous != '.'
+                && !Character.isLetter(previous);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Service provider interface for import formats.
+ * Implementations are discovered with ServiceLoader through
+ * META-INF/services/com.example.importer.TimestampImporter. The registry
+ * asks every importer to sniff the first few KB of a file and hands the
+ * stream to the most confident one, which pushes entries into a sink
+ * as it reads instead of building a list.
+ */
+public interface TimestampImporter {
+    
+    /**
+     * Stable identifier, e.g. "csv"
+     */
+    String getId();
+    
+    /**
+     * Name shown to the user
+     */
+    String getDisplayName();
+    
+    /**
+     * How confident this importer is that it can read a file starting with the given bytes:
+     * 0 means no, 100 means certain (e.g. a magic number matched)
+     */
+    int sniff(byte[] head, int length);
+    
+    /**
+     * Read entries from the stream into the sink; the stream is positioned at the start of the file
+     */
+    void read(InputStream in, EntrySink sink) throws IOException;
+}
@@ -0,0 +1,179 @@
+package com.example.lint;
+
+import com.example.Timecode;
+import com.example.TimestampEntry;
+import com.example.TimestampType;
+import com.example.importer.TextImporter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks one chunk of a text file on its own: the rules that need only the line itself, plus a compact
+ * record of each entry for SequenceChecker. Lines are parsed exactly as TextImporter parses them.
+ * Line numbers in a Chunk are relative to the chunk, starting at 1.
+ */
+final class LineChecker {
+    private static final TimestampType[] TYPES = TimestampType.values();
+    private static final String FULL_WIDTH = "\u3000\u3000";
+    private static final int MAX_QUOTED_CHARS = 40;
+
+    static final class Chunk {
+        int lineCount;
+        int entryCount;
+        int[] lines = new int[256];
+        long[] millis = new long[256];
+        long[] keys = new long[256];
+        byte[] types = new byte[256];
+        byte[] indents = new byte[256];
+        final List<LintIssue> issues = new ArrayList<>();
+
+        TimestampType type(int entry) {
+            return TYPES[types[entry]];
+        }
+
+        private void add(int line, long entryMillis, TimestampType type, long key, int indent) {
+            if (entryCount == lines.length) {
+                int capacity = entryCount * 2;
+                lines = Arrays.copyOf(lines, capacity);
+                millis = Arrays.copyOf(millis, capacity);
+                keys = Arrays.copyOf(keys, capacity);
+                types = Arrays.copyOf(types, capacity);
+                indents = Arrays.copyOf(indents, capacity);
+            }
+            lines[entryCount] = line;
+            millis[entryCount] = entryMillis;
+            keys[entryCount] = key;
+            types[entryCount] = (byte) type.ordinal();
+            indents[entryCount] = (byte) indent;
+            entryCount++;
+        }
+    }
+
+    private LineChecker() {
+    }
+
+    /**
+     * Checks the UTF-8 lines in data[from, to); the last line may lack its line break
+     */
+    static Chunk check(byte[] data, int from, int to) {
+        Chunk chunk = new Chunk();
+        int start = from;
+        while (start < to) {
+            int end = start;
+            while (end < to && data[end] != '\n') {
+                end++;
+            }
+            int length = end - start;
+            if (length > 0 && data[start + length - 1] == '\r') {
+                length--;
+            }
+            chunk.lineCount++;
+            checkLine(new String(data, start, length, StandardCharsets.UTF_8), chunk.lineCount, chunk);
+            start = end + 1;
+        }
+        return chunk;
+    }
+
+    private static void checkLine(String line, int number, Chunk chunk) {
+        if (TextImporter.isSkippable(line)) {
+            return;
+        }
+        TimestampEntry entry = TextImporter.parseLine(line);
+        if (entry == null) {
+            chunk.issues.add(new LintIssue(number, LintRule.INVALID_TIMECODE,
+                    "Not a timecode: \"" + quote(firstWord(line.trim())) + "\""));
+            return;
+        }
+        // As written: the entry keeps only the parsed time, which no longer shows a field out of range
+        String timecode = firstWord(stripIndent(line).trim());
+        String range = rangeProblem(timecode);
+        if (range != null) {
+            chunk.issues.add(new LintIssue(number, LintRule.FIELD_OUT_OF_RANGE, range + " in " + timecode));
+        }
+
+        // Mirrors TextImporter: four spaces, or up to three spaces and then two full-width spaces
+        int spaces = 0;
+        while (spaces < line.length() && line.charAt(spaces) == ' ') {
+            spaces++;
+        }
+        int indent = SequenceChecker.NO_INDENT;
+        if (spaces >= 4) {
+            indent = SequenceChecker.SPACE_INDENT;
+            if (spaces < line.length() && line.charAt(spaces) == '\u3000') {
+                chunk.issues.add(new LintIssue(number, LintRule.MIXED_INDENTATION,
+                        "Indented with both regular and full-width spaces"));
+            }
+        } else if (line.startsWith(FULL_WIDTH, spaces)) {
+            indent = SequenceChecker.FULL_WIDTH_INDENT;
+            if (spaces > 0) {
+                chunk.issues.add(new LintIssue(number, LintRule.MIXED_INDENTATION,
+                        "Indented with both regular and full-width spaces"));
+            }
+        }
+        chunk.add(number, entry.getMillis(), entry.getType(), key(entry.getType(), entry.getNotes()), indent);
+    }
+
+    /**
+     * Describes a minutes, seconds or frames field that is too large, or returns null.
+     * Minutes only have a limit when there is an hours field, as "75:00" is a valid mm:ss time.
+     */
+    static String rangeProblem(String timecode) {
+        long[] groups = new long[4];
+        int count = 0;
+        long value = 0;
+        for (int i = 0; i < timecode.length(); i++) {
+            char c = timecode.charAt(i);
+            if (c == ':') {
+                groups[count++] = value;
+                value = 0;
+            } else if (c == '.') {
+                break;
+            } else {
+                value = Math.min(value * 10 + (c - '0'), Integer.MAX_VALUE);
+            }
+        }
+        groups[count++] = value;
+        int seconds = count == 4 ? 2 : count - 1;
+        if (groups[seconds] > 59) {
+            return "Seconds over 59";
+        }
+        if (count >= 3 && groups[seconds - 1] > 59) {
+            return "Minutes over 59";
+        }
+        if (count == 4 && groups[3] >= Timecode.getFrameRate()) {
+            return "Frames over " + (Timecode.getFrameRate() - 1);
+        }
+        return null;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of an entry's type and notes, used to spot duplicates without keeping the notes
+     */
+    static long key(TimestampType type, String notes) {
+        long hash = 0xcbf29ce484222325L ^ type.ordinal();
+        for (int i = 0; i < notes.length(); i++) {
+            hash ^= notes.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static String stripIndent(String line) {
+        int start = 0;
+        while (start < line.length() && (line.charAt(start) == ' ' || line.charAt(start) == '\u3000')) {
+            start++;
+        }
+        return line.substring(start);
+    }
+
+    private static String firstWord(String text) {
+        int space = text.indexOf(' ');
+        return space < 0 ? text : text.substring(0, space);
+    }
+
+    private static String quote(String text) {
+        return text.length() <= MAX_QUOTED_CHARS ? text : text.substring(0, MAX_QUOTED_CHARS) + "...";
+    }
+}
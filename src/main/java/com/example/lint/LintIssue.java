@@ -0,0 +1,36 @@
+package com.example.lint;
+
+/**
+ * One problem found in a file, at a 1-based line number
+ */
+public final class LintIssue {
+    private final long line;
+    private final LintRule rule;
+    private final String message;
+
+    LintIssue(long line, LintRule rule, String message) {
+        this.line = line;
+        this.rule = rule;
+        this.message = message;
+    }
+
+    /**
+     * 1-based line number; for formats without lines (e.g. JSON) the 1-based entry number instead
+     */
+    public long getLine() {
+        return line;
+    }
+
+    public LintRule getRule() {
+        return rule;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return line + ": " + message;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.lint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+
+/**
+ * What TimestampLinter found in a file: a count per rule and the first issues in line order.
+ * Only MAX_LISTED_ISSUES issues are kept, so a badly broken huge file doesn't fill the heap.
+ */
+public class LintReport {
+    public static final int MAX_LISTED_ISSUES = 1000;
+
+    private final String name;
+    private final String format;
+    private final EnumMap<LintRule, Long> counts = new EnumMap<>(LintRule.class);
+    private final List<LintIssue> issues = new ArrayList<>();
+    private long lines;
+    private long entries;
+    private long elapsedMillis;
+
+    LintReport(String name, String format) {
+        this.name = name;
+        this.format = format;
+        for (LintRule rule : LintRule.values()) {
+            counts.put(rule, 0L);
+        }
+    }
+
+    /**
+     * Adds up the counts of several reports into one summary; issues are not listed
+     */
+    public static LintReport combine(String name, List<LintReport> reports) {
+        LintReport total = new LintReport(name, null);
+        for (LintReport report : reports) {
+            for (LintRule rule : LintRule.values()) {
+                total.counts.merge(rule, report.getCount(rule), Long::sum);
+            }
+            total.lines += report.lines;
+            total.entries += report.entries;
+            total.elapsedMillis += report.elapsedMillis;
+        }
+        return total;
+    }
+
+    void record(LintIssue issue) {
+        counts.merge(issue.getRule(), 1L, Long::sum);
+        if (issues.size() < MAX_LISTED_ISSUES) {
+            issues.add(issue);
+        }
+    }
+
+    void setTotals(long lines, long entries) {
+        this.lines = lines;
+        this.entries = entries;
+    }
+
+    void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Display name of the format the file was read as, or null for a combined report
+     */
+    public String getFormat() {
+        return format;
+    }
+
+    public long getCount(LintRule rule) {
+        return counts.get(rule);
+    }
+
+    public long getIssueCount() {
+        long total = 0;
+        for (long count : counts.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    public boolean hasIssues() {
+        return getIssueCount() > 0;
+    }
+
+    /**
+     * The first MAX_LISTED_ISSUES issues, in line order
+     */
+    public List<LintIssue> getIssues() {
+        return Collections.unmodifiableList(issues);
+    }
+
+    public boolean isTruncated() {
+        return getIssueCount() > issues.size();
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * The listed issues as "name:line: message" lines, followed by the summary
+     */
+    public String format() {
+        String newline = System.lineSeparator();
+        StringBuilder text = new StringBuilder();
+        for (LintIssue issue : issues) {
+            text.append(name).append(':').append(issue).append(newline);
+        }
+        if (isTruncated()) {
+            text.append("... ").append(getIssueCount() - issues.size()).append(" more").append(newline);
+        }
+        return text.append(this).append(newline).toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(name).append(": ");
+        if (lines > 0) {
+            text.append(lines).append(" lines, ");
+        }
+        text.append(entries).append(" entries");
+        long total = getIssueCount();
+        if (total == 0) {
+            text.append(", no issues");
+        } else {
+            text.append(", ").append(total).append(total == 1 ? " issue (" : " issues (");
+            String separator = "";
+            for (LintRule rule : LintRule.values()) {
+                if (counts.get(rule) > 0) {
+                    text.append(separator).append(counts.get(rule)).append(' ').append(rule.getLabel());
+                    separator = ", ";
+                }
+            }
+            text.append(')');
+        }
+        return text.append(" in ").append(elapsedMillis).append(" ms").toString();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.lint;
+
+/**
+ * The problems TimestampLinter looks for
+ */
+public enum LintRule {
+    /** A line that is not a comment or header but doesn't start with a timecode; the loader skips it */
+    INVALID_TIMECODE("invalid timecodes"),
+    /** Minutes or seconds over 59 (or frames over the frame rate); loaded, but probably a typo */
+    FIELD_OUT_OF_RANGE("fields out of range"),
+    /** Earlier than the entry before it */
+    OUT_OF_ORDER("out of order"),
+    /** A SUB entry with no MAIN entry before it to belong to */
+    SUB_BEFORE_MAIN("SUB before any MAIN"),
+    /** Same time, type and notes as an earlier entry */
+    DUPLICATE("duplicates"),
+    /** SUB entries indented with full-width spaces in some places and four spaces in others */
+    MIXED_INDENTATION("mixed indentation");
+
+    private final String label;
+
+    LintRule(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Plural description for summaries, e.g. "out of order"
+     */
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.lint;
+
+import com.example.Timecode;
+import com.example.TimestampType;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rules that depend on earlier entries: order, SUB before MAIN, duplicates and indentation style.
+ * Fed every entry in file order; holds only the entries at the current time, so memory stays bounded.
+ * Duplicates are therefore found among entries with the same time, which sit together in a time-ordered
+ * file; an out-of-order copy is reported as out of order instead.
+ */
+final class SequenceChecker {
+    static final int NO_INDENT = 0;
+    static final int SPACE_INDENT = 1;
+    static final int FULL_WIDTH_INDENT = 2;
+
+    // More entries than this at one time aren't checked for duplicates
+    private static final int MAX_SAME_TIME = 10_000;
+
+    private boolean seenMain;
+    private long previousMillis = -1;
+    private long previousLine;
+    private final Map<Long, Long> sameTime = new HashMap<>();
+    private int fileIndent = NO_INDENT;
+    private long fileIndentLine;
+
+    /**
+     * Checks the next entry, adding any issues to found
+     * @param key hash of the entry's type and notes, see LineChecker.key()
+     */
+    void entry(long line, long millis, TimestampType type, long key, int indent, List<LintIssue> found) {
+        if (indent != NO_INDENT) {
+            if (fileIndent == NO_INDENT) {
+                fileIndent = indent;
+                fileIndentLine = line;
+            } else if (indent != fileIndent) {
+                found.add(new LintIssue(line, LintRule.MIXED_INDENTATION, "Indented with "
+                        + describe(indent) + ", but line " + fileIndentLine + " uses " + describe(fileIndent)));
+            }
+        }
+        if (type == TimestampType.MAIN) {
+            seenMain = true;
+        } else if (!seenMain) {
+            found.add(new LintIssue(line, LintRule.SUB_BEFORE_MAIN,
+                    "SUB entry " + Timecode.format(millis) + " comes before any MAIN entry"));
+        }
+        if (millis < previousMillis) {
+            found.add(new LintIssue(line, LintRule.OUT_OF_ORDER, Timecode.format(millis)
+                    + " is earlier than " + Timecode.format(previousMillis) + " on line " + previousLine));
+        }
+        if (millis != previousMillis) {
+            sameTime.clear();
+        }
+        if (sameTime.size() < MAX_SAME_TIME) {
+            Long original = sameTime.putIfAbsent(key, line);
+            if (original != null) {
+                found.add(new LintIssue(line, LintRule.DUPLICATE,
+                        "Same time, type and notes as line " + original));
+            }
+        }
+        previousMillis = millis;
+        previousLine = line;
+    }
+
+    private static String describe(int indent) {
+        return indent == SPACE_INDENT ? "four spaces" : "full-width spaces";
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.lint;
+
+import com.example.Compression;
+import com.example.TimestampEntry;
+import com.example.importer.EntrySink;
+import com.example.importer.ImporterRegistry;
+import com.example.importer.TextImporter;
+import com.example.importer.TimestampImporter;
+import com.example.metrics.Counter;
+import com.example.metrics.Histogram;
+import com.example.metrics.MetricsRegistry;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Checks a timestamp file for lines the loader would skip or misread, without loading it.
+ * Text files are read in chunks that are checked in parallel (LineChecker) and then joined in order
+ * (SequenceChecker); only a few chunks are in flight at once, so memory stays bounded on huge files.
+ * Other formats are read through their importer on one thread and get the order-based checks.
+ * Usage: java -cp target/classes com.example.lint.TimestampLinter file...
+ */
+public class TimestampLinter {
+    public static final int DEFAULT_CHUNK_BYTES = 1 << 20;
+
+    private static final Histogram LINT_LATENCY = MetricsRegistry.getInstance().latency("lint.file");
+    private static final Counter LINT_LINES = MetricsRegistry.getInstance().counter("lint.lines");
+    private static final Counter LINT_ISSUES = MetricsRegistry.getInstance().counter("lint.issues");
+
+    private final ImporterRegistry importerRegistry = new ImporterRegistry();
+    private final int threads;
+    private final int chunkBytes;
+
+    public TimestampLinter() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * @param threads chunks checked at the same time
+     * @param chunkBytes size of each chunk; a chunk is extended to the end of its last line
+     */
+    public TimestampLinter(int threads, int chunkBytes) {
+        this.threads = Math.max(1, threads);
+        this.chunkBytes = Math.max(1024, chunkBytes);
+    }
+
+    /**
+     * Checks one file, which may be compressed. Safe to call off the EDT.
+     */
+    public LintReport lint(File file) throws IOException {
+        long start = System.nanoTime();
+        try (InputStream in = Compression.decompressIfNeeded(
+                new BufferedInputStream(Files.newInputStream(file.toPath()), 64 * 1024))) {
+            TimestampImporter importer = sniff(in);
+            LintReport report = new LintReport(file.getName(), importer.getDisplayName());
+            if (TextImporter.ID.equals(importer.getId())) {
+                lintText(in, report);
+            } else {
+                lintEntries(importer, in, report);
+            }
+            report.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+            LINT_LINES.add(report.getLines());
+            LINT_ISSUES.add(report.getIssueCount());
+            return report;
+        } finally {
+            LINT_LATENCY.recordSince(start);
+        }
+    }
+
+    private TimestampImporter sniff(InputStream in) throws IOException {
+        byte[] head = new byte[ImporterRegistry.SNIFF_BYTES];
+        in.mark(head.length);
+        int length = 0;
+        int read;
+        while (length < head.length && (read = in.read(head, length, head.length - length)) > 0) {
+            length += read;
+        }
+        in.reset();
+        return importerRegistry.detect(head, length);
+    }
+
+    /**
+     * Cuts the stream into chunks at line breaks and checks them on a pool, joining the results in order
+     */
+    private void lintText(InputStream in, LintReport report) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "lint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Joiner joiner = new Joiner(report);
+        ArrayDeque<Future<LineChecker.Chunk>> inFlight = new ArrayDeque<>();
+        try {
+            byte[] carry = new byte[0];
+            boolean first = true;
+            boolean end = false;
+            while (!end) {
+                byte[] block = Arrays.copyOf(carry, Math.max(chunkBytes, carry.length * 2));
+                int length = carry.length;
+                int read = 0;
+                while (length < block.length && (read = in.read(block, length, block.length - length)) > 0) {
+                    length += read;
+                }
+                end = read < 0;
+                // Split after the last line break; the rest starts the next chunk
+                int split = length;
+                if (!end) {
+                    split = lastLineBreak(block, carry.length, length) + 1;
+                    if (split == 0) {
+                        // A line longer than the block; keep reading it
+                        carry = Arrays.copyOf(block, length);
+                        continue;
+                    }
+                }
+                carry = Arrays.copyOfRange(block, split, length);
+                int from = first && split >= 3 && (block[0] & 0xFF) == 0xEF && (block[1] & 0xFF) == 0xBB
+                        && (block[2] & 0xFF) == 0xBF ? 3 : 0;
+                first = false;
+                int to = split;
+                if (to > from) {
+                    inFlight.add(pool.submit(() -> LineChecker.check(block, from, to)));
+                }
+                // Wait for the oldest chunk before reading more, which bounds the chunks held in memory
+                while (inFlight.size() >= threads * 2 || (end && !inFlight.isEmpty())) {
+                    joiner.join(inFlight.removeFirst().get());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Check cancelled");
+        } catch (ExecutionException e) {
+            throw new IOException("Could not check file: " + e.getCause(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        report.setTotals(joiner.lineBase, joiner.entries);
+    }
+
+    /**
+     * Position of the last '\n' in block[from, to), or -1
+     */
+    private static int lastLineBreak(byte[] block, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (block[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the chunks' issues to the report with file line numbers, running the order-based rules on the way
+     */
+    private static final class Joiner {
+        private final LintReport report;
+        private final SequenceChecker sequence = new SequenceChecker();
+        private long lineBase;
+        private long entries;
+
+        Joiner(LintReport report) {
+            this.report = report;
+        }
+
+        void join(LineChecker.Chunk chunk) {
+            List<LintIssue> found = new ArrayList<>(chunk.issues.size());
+            for (LintIssue issue : chunk.issues) {
+                found.add(new LintIssue(lineBase + issue.getLine(), issue.getRule(), issue.getMessage()));
+            }
+            for (int e = 0; e < chunk.entryCount; e++) {
+                sequence.entry(lineBase + chunk.lines[e], chunk.millis[e], chunk.type(e), chunk.keys[e],
+                        chunk.indents[e], found);
+            }
+            found.sort(Comparator.comparingLong(LintIssue::getLine));
+            for (LintIssue issue : found) {
+                report.record(issue);
+            }
+            lineBase += chunk.lineCount;
+            entries += chunk.entryCount;
+        }
+    }
+
+    /**
+     * Formats without a line layout: parse errors keep the importer's line numbers, entries are numbered
+     */
+    private void lintEntries(TimestampImporter importer, InputStream in, LintReport report) throws IOException {
+        SequenceChecker sequence = new SequenceChecker();
+        List<LintIssue> found = new ArrayList<>();
+        long[] entries = new long[1];
+        importer.read(in, new EntrySink() {
+            @Override
+            public void accept(TimestampEntry entry) {
+                sequence.entry(++entries[0], entry.getMillis(), entry.getType(),
+                        LineChecker.key(entry.getType(), entry.getNotes()), SequenceChecker.NO_INDENT, found);
+                drain();
+            }
+
+            @Override
+            public void accept(TimestampEntry entry, String timecode) {
+                accept(entry);
+                String range = LineChecker.rangeProblem(timecode);
+                if (range != null) {
+                    found.add(new LintIssue(entries[0], LintRule.FIELD_OUT_OF_RANGE, range + " in " + timecode));
+                    drain();
+                }
+            }
+
+            @Override
+            public void parseError(long lineNumber, String reason) {
+                found.add(new LintIssue(lineNumber > 0 ? lineNumber : entries[0] + 1, LintRule.INVALID_TIMECODE, reason));
+                drain();
+            }
+
+            private void drain() {
+                for (LintIssue issue : found) {
+                    report.record(issue);
+                }
+                found.clear();
+            }
+        });
+        report.setTotals(0, entries[0]);
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: java -cp target/classes com.example.lint.TimestampLinter file...");
+            System.exit(2);
+        }
+        TimestampLinter linter = new TimestampLinter();
+        List<LintReport> reports = new ArrayList<>();
+        boolean failed = false;
+        for (String arg : args) {
+            try {
+                LintReport report = linter.lint(new File(arg));
+                System.out.print(report.format());
+                reports.add(report);
+            } catch (IOException e) {
+                System.err.println("Could not check " + arg + ": " + e.getMessage());
+                failed = true;
+            }
+        }
+        LintReport total = LintReport.combine("Total", reports);
+        if (reports.size() > 1) {
+            System.out.println(total);
+        }
+        System.exit(failed ? 2 : total.hasIssues() ? 1 : 0);
+    }
+}
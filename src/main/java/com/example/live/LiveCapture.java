@@ -0,0 +1,138 @@
+package com.example.live;
+
+import com.example.NoteSegments;
+import com.example.Timecode;
+import com.example.TimestampEntry;
+import com.example.TimestampType;
+import com.example.metrics.Counter;
+import com.example.metrics.Histogram;
+import com.example.metrics.MetricsRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Live marking: each mark stores the stream clock position in a ring buffer,
+ * and a background drainer turns buffered marks into entries in batches on a fixed cadence.
+ * mark() must be called from a single thread (the EDT).
+ */
+public class LiveCapture {
+    public static final int DEFAULT_CAPACITY = 4096;
+    public static final long DRAIN_INTERVAL_MS = 100;
+    
+    private static final Counter MARKS = MetricsRegistry.getInstance().counter("live.marks");
+    private static final Counter OVERFLOWS = MetricsRegistry.getInstance().counter("live.overflows");
+    private static final Histogram MARK_LATENCY = MetricsRegistry.getInstance().latency("live.mark");
+    private static final Histogram DRAIN_BATCH = MetricsRegistry.getInstance().histogram("live.drain.batch", "marks");
+    
+    private final StreamClock clock = new StreamClock();
+    private final MarkRingBuffer buffer;
+    private final Consumer<List<TimestampEntry>> sink;
+    private ScheduledExecutorService drainer;
+    
+    /**
+     * @param sink receives each drained batch on the drainer thread
+     */
+    public LiveCapture(Consumer<List<TimestampEntry>> sink) {
+        this(DEFAULT_CAPACITY, sink);
+    }
+    
+    public LiveCapture(int capacity, Consumer<List<TimestampEntry>> sink) {
+        this.buffer = new MarkRingBuffer(capacity);
+        this.sink = sink;
+    }
+    
+    /**
+     * Starts the stream clock at the given position and the background drainer
+     */
+    public synchronized void start(long offsetMillis) {
+        if (drainer != null) {
+            return;
+        }
+        clock.start(offsetMillis);
+        drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "live-drainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        drainer.scheduleWithFixedDelay(this::drain, DRAIN_INTERVAL_MS, DRAIN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Stops the clock and drainer, delivering any marks still buffered
+     */
+    public synchronized void stop() {
+        if (drainer == null) {
+            return;
+        }
+        clock.stop();
+        drainer.shutdown();
+        try {
+            drainer.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drainer = null;
+        // The drainer has finished, so this thread is now the only consumer
+        drain();
+    }
+    
+    public boolean isRunning() {
+        return clock.isRunning();
+    }
+    
+    /**
+     * Records a mark at the current stream position
+     * @return false if the buffer was full and the mark was dropped
+     */
+    public boolean mark(TimestampType type) {
+        long start = System.nanoTime();
+        if (!clock.isRunning()) {
+            return false;
+        }
+        boolean accepted = buffer.offer(clock.elapsedMillis() << 1 | (type == TimestampType.SUB ? 1 : 0));
+        if (accepted) {
+            MARKS.increment();
+        } else {
+            OVERFLOWS.increment();
+        }
+        MARK_LATENCY.recordSince(start);
+        return accepted;
+    }
+    
+    public StreamClock getClock() {
+        return clock;
+    }
+    
+    /**
+     * Number of marks dropped because the buffer was full
+     */
+    public long getOverflowCount() {
+        return buffer.getOverflowCount();
+    }
+    
+    private void drain() {
+        try {
+            List<TimestampEntry> batch = new ArrayList<>();
+            buffer.drain(mark -> batch.add(toEntry(mark)), buffer.capacity());
+            if (!batch.isEmpty()) {
+                DRAIN_BATCH.record(batch.size());
+                sink.accept(batch);
+            }
+        } catch (RuntimeException e) {
+            // An exception would cancel the scheduled drain, so report it and keep going
+            System.err.println("Error delivering live marks: " + e.getMessage());
+        }
+    }
+    
+    private static TimestampEntry toEntry(long mark) {
+        TimestampType type = (mark & 1) != 0 ? TimestampType.SUB : TimestampType.MAIN;
+        // Keeps the milliseconds, so marks within the same second stay distinct and in order
+        long millis = mark >>> 1;
+        Timecode.Style style = millis % 1000 == 0 ? Timecode.Style.SECONDS : Timecode.Style.MILLIS;
+        return new TimestampEntry(millis, style, NoteSegments.empty(), type);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.live;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Lock-free single-producer/single-consumer ring buffer of long values
+ * offer() must only be called from one thread and drain() from one (other) thread;
+ * a full buffer rejects the value and counts it as an overflow instead of blocking
+ */
+public class MarkRingBuffer {
+    private final long[] slots;
+    private final int mask;
+    // Next position to read; written only by the consumer
+    private final AtomicLong head = new AtomicLong();
+    // Next position to write; written only by the producer
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+    // Producer's last view of head, refreshed only when the buffer looks full
+    private long cachedHead;
+    
+    /**
+     * @param capacity rounded up to a power of two, at least 2
+     */
+    public MarkRingBuffer(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new long[size];
+        this.mask = size - 1;
+    }
+    
+    /**
+     * Appends a value; returns false (and counts an overflow) if the buffer is full
+     */
+    public boolean offer(long value) {
+        long position = tail.get();
+        if (position - cachedHead >= slots.length) {
+            cachedHead = head.get();
+            if (position - cachedHead >= slots.length) {
+                overflows.incrementAndGet();
+                return false;
+            }
+        }
+        slots[(int) position & mask] = value;
+        // Release store: the slot write is visible before the new tail
+        tail.lazySet(position + 1);
+        return true;
+    }
+    
+    /**
+     * Hands up to max buffered values to the consumer, oldest first
+     * @return the number of values drained
+     */
+    public int drain(LongConsumer consumer, int max) {
+        long position = head.get();
+        int count = (int) Math.min(tail.get() - position, max);
+        for (int i = 0; i < count; i++) {
+            consumer.accept(slots[(int) (position + i) & mask]);
+        }
+        head.lazySet(position + count);
+        return count;
+    }
+    
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+    
+    public int capacity() {
+        return slots.length;
+    }
+    
+    public long getOverflowCount() {
+        return overflows.get();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.live;
+
+/**
+ * Running clock for a live stream, based on System.nanoTime so it is immune to wall-clock changes
+ * The start can be shifted to line the clock up with the stream's own timer
+ */
+public class StreamClock {
+    private volatile long startNanos;
+    private volatile boolean running;
+    
+    /**
+     * Starts the clock at the given stream position
+     */
+    public void start(long offsetMillis) {
+        startNanos = System.nanoTime() - offsetMillis * 1_000_000L;
+        running = true;
+    }
+    
+    public void stop() {
+        running = false;
+    }
+    
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * Moves the clock forward (positive) or back (negative)
+     */
+    public void adjust(long millis) {
+        startNanos -= millis * 1_000_000L;
+    }
+    
+    /**
+     * Milliseconds since the stream started, never negative
+     */
+    public long elapsedMillis() {
+        return Math.max(0, (System.nanoTime() - startNanos) / 1_000_000L);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter backed by a LongAdder so hot paths never contend
+ */
+public class Counter implements CounterMXBean {
+    private final String name;
+    private final LongAdder value = new LongAdder();
+    
+    Counter(String name) {
+        this.name = name;
+    }
+    
+    public void increment() {
+        value.increment();
+    }
+    
+    public void add(long amount) {
+        value.add(amount);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public long getCount() {
+        return value.sum();
+    }
+    
+    @Override
+    public void reset() {
+        value.reset();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.metrics;
+
+/**
+ * JMX view of a {@link Counter}
+ */
+public interface CounterMXBean {
+    
+    long getCount();
+    
+    void reset();
+}
@@ -0,0 +1,137 @@
+package com.example.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HDR-style value histogram with log-linear buckets.
+ * Every power of two is split into 16 linear sub-buckets, so recorded values
+ * keep a relative error below 1/16 while the whole long range fits in 960 slots.
+ * Recording is lock-free and allocation-free.
+ */
+public class Histogram implements HistogramMXBean {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    
+    private final String name;
+    private final String unit;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+    
+    Histogram(String name, String unit) {
+        this.name = name;
+        this.unit = unit;
+    }
+    
+    /**
+     * Record a single value; negative values are clamped to zero
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sum.add(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+    
+    /**
+     * Record the nanoseconds elapsed since the given System.nanoTime() value
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+    
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS * (shift + 1) + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+    
+    static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    }
+    
+    /**
+     * Value at the given percentile (0-100), reported as the bucket's lower bound
+     */
+    public long getPercentile(double percentile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return Math.min(bucketLowerBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public String getUnit() {
+        return unit;
+    }
+    
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+    
+    @Override
+    public double getMean() {
+        long total = count.sum();
+        return total == 0 ? 0.0 : (double) sum.sum() / total;
+    }
+    
+    @Override
+    public long getMax() {
+        return max.get();
+    }
+    
+    @Override
+    public long get50thPercentile() {
+        return getPercentile(50);
+    }
+    
+    @Override
+    public long get90thPercentile() {
+        return getPercentile(90);
+    }
+    
+    @Override
+    public long get99thPercentile() {
+        return getPercentile(99);
+    }
+    
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+}
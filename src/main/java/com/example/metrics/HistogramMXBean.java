@@ -0,0 +1,23 @@
+package com.example.metrics;
+
+/**
+ * JMX view of a {@link Histogram}
+ */
+public interface HistogramMXBean {
+    
+    String getUnit();
+    
+    long getCount();
+    
+    double getMean();
+    
+    long getMax();
+    
+    long get50thPercentile();
+    
+    long get90thPercentile();
+    
+    long get99thPercentile();
+    
+    void reset();
+}
@@ -0,0 +1,149 @@
+package com.example.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide registry of counters and histograms.
+ * Metrics are created on first use and can be exported as JMX MBeans
+ * under the "com.example.recorder" domain or dumped to a text file.
+ */
+public class MetricsRegistry {
+    public static final String JMX_DOMAIN = "com.example.recorder";
+    public static final String DUMP_PROPERTY = "recorder.metrics.dump";
+    
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+    
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private volatile MBeanServer mbeanServer;
+    
+    private MetricsRegistry() {
+    }
+    
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+    
+    /**
+     * Get or create a counter
+     */
+    public Counter counter(String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            Counter created = new Counter(name);
+            counter = counters.putIfAbsent(name, created);
+            if (counter == null) {
+                counter = created;
+                register("Counter", name, created);
+            }
+        }
+        return counter;
+    }
+    
+    /**
+     * Get or create a latency histogram recording nanoseconds
+     */
+    public Histogram latency(String name) {
+        return histogram(name, "ns");
+    }
+    
+    /**
+     * Get or create a histogram recording values in the given unit
+     */
+    public Histogram histogram(String name, String unit) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            Histogram created = new Histogram(name, unit);
+            histogram = histograms.putIfAbsent(name, created);
+            if (histogram == null) {
+                histogram = created;
+                register("Histogram", name, created);
+            }
+        }
+        return histogram;
+    }
+    
+    /**
+     * Register every existing and future metric with the platform MBean server
+     */
+    public synchronized void exportToJmx() {
+        if (mbeanServer != null) {
+            return;
+        }
+        mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (Counter counter : counters.values()) {
+            register("Counter", counter.getName(), counter);
+        }
+        for (Histogram histogram : histograms.values()) {
+            register("Histogram", histogram.getName(), histogram);
+        }
+    }
+    
+    private void register(String type, String name, Object mbean) {
+        MBeanServer server = mbeanServer;
+        if (server == null) {
+            return;
+        }
+        try {
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(mbean, objectName);
+            }
+        } catch (Exception e) {
+            System.err.println("Could not register metric " + name + " with JMX: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Dump all metrics to the file named by -Drecorder.metrics.dump when the JVM exits
+     */
+    public void installExitDump() {
+        String path = System.getProperty(DUMP_PROPERTY);
+        if (path == null || path.trim().isEmpty()) {
+            return;
+        }
+        File file = new File(path.trim());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> dumpTo(file), "metrics-dump"));
+    }
+    
+    /**
+     * Write a plain-text report of all metrics to a file
+     */
+    public boolean dumpTo(File file) {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))) {
+            writer.print(report());
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error writing metrics dump: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Build a sorted plain-text report of all metrics
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String, Counter> entry : new TreeMap<>(counters).entrySet()) {
+            report.append(String.format("counter   %-32s %d%n", entry.getKey(), entry.getValue().getCount()));
+        }
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(histograms).entrySet()) {
+            Histogram h = entry.getValue();
+            report.append(String.format("histogram %-32s count=%d mean=%.1f p50=%d p90=%d p99=%d max=%d %s%n",
+                    entry.getKey(), h.getCount(), h.getMean(), h.get50thPercentile(),
+                    h.get90thPercentile(), h.get99thPercentile(), h.getMax(), h.getUnit()));
+        }
+        return report.toString();
+    }
+}
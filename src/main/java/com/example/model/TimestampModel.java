@@ -1,9 +1,19 @@
 package com.example.model;
 
+import com.example.ChapterAnalytics;
+import com.example.NoteSegments;
+import com.example.RowChanges;
+import com.example.TimelineBuckets;
+import com.example.TimestampBatch;
 import com.example.TimestampEntry;
 import com.example.TimestampType;
 import com.example.TimestampService;
-import java.util.ArrayList;
+import com.example.diagnostics.RecorderEvents;
+import com.example.metrics.Histogram;
+import com.example.metrics.MetricsRegistry;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Observable;
 
@@ -13,11 +23,35 @@ import java.util.Observable;
  */
 @SuppressWarnings("deprecation")
 public class TimestampModel extends Observable {
-    private List<TimestampEntry> timestamps;
+    private static final Histogram ADD_LATENCY = MetricsRegistry.getInstance().latency("model.add");
+    private static final Histogram REMOVE_LATENCY = MetricsRegistry.getInstance().latency("model.remove");
+    private static final Histogram UPDATE_NOTE_LATENCY = MetricsRegistry.getInstance().latency("model.updateNote");
+    private static final Histogram CLEAR_LATENCY = MetricsRegistry.getInstance().latency("model.clear");
+    private static final Histogram SET_LATENCY = MetricsRegistry.getInstance().latency("model.setTimestamps");
+    
+    private static final Histogram BATCH_LATENCY = MetricsRegistry.getInstance().latency("model.batch");
+    private static final Histogram BATCH_SIZE = MetricsRegistry.getInstance().histogram("model.batch.operations", "operations");
+    private static final Histogram UNDO_LATENCY = MetricsRegistry.getInstance().latency("model.undo");
+    // Oldest steps are dropped past this
+    public static final int MAX_UNDO_STEPS = 100;
+    
+    /**
+     * A completed change and the batch that reverts it
+     */
+    private static final class UndoStep {
+        final String description;
+        final TimestampBatch inverse;
+        
+        UndoStep(String description, TimestampBatch inverse) {
+            this.description = description;
+            this.inverse = inverse;
+        }
+    }
+    
     private TimestampService timestampService;
+    private final Deque<UndoStep> undoSteps = new ArrayDeque<>();
     
     public TimestampModel() {
-        this.timestamps = new ArrayList<>();
         this.timestampService = new TimestampService();
     }
     
@@ -25,76 +59,335 @@ public class TimestampModel extends Observable {
      * Add a new timestamp entry
      */
     public boolean addTimestamp(String timestamp, String notes, TimestampType type) {
-        boolean success = timestampService.addTimestamp(timestamp, notes, type);
-        if (success) {
-            this.timestamps = timestampService.getTimestamps();
+        return addTimestamp(timestamp, NoteSegments.parse(notes), type);
+    }
+    
+    /**
+     * Add a new timestamp entry with structured note segments
+     */
+    public boolean addTimestamp(String timestamp, NoteSegments notes, TimestampType type) {
+        long start = System.nanoTime();
+        RecorderEvents.ModelMutation event = new RecorderEvents.ModelMutation();
+        event.begin();
+        try {
+            TimestampBatch inverse = timestampService.apply(new TimestampBatch().insert(timestamp, notes, type));
+            if (inverse.isEmpty()) {
+                return false;
+            }
+            pushUndo("Add Timestamp", inverse);
             setChanged();
             notifyObservers("TIMESTAMP_ADDED");
+            return true;
+        } finally {
+            ADD_LATENCY.recordSince(start);
+            commitMutationEvent(event, "TIMESTAMP_ADDED");
+        }
+    }
+    
+    /**
+     * Add several entries with a single change notification
+     * @return the number of entries added
+     */
+    public int addEntries(List<TimestampEntry> entries) {
+        long start = System.nanoTime();
+        RecorderEvents.ModelMutation event = new RecorderEvents.ModelMutation();
+        event.begin();
+        try {
+            TimestampBatch inverse = timestampService.apply(new TimestampBatch().insertAll(entries));
+            int added = inverse.size();
+            if (added > 0) {
+                pushUndo(added == 1 ? "Add Timestamp" : "Add " + added + " Timestamps", inverse);
+                setChanged();
+                notifyObservers("TIMESTAMPS_ADDED");
+            }
+            return added;
+        } finally {
+            ADD_LATENCY.recordSince(start);
+            commitMutationEvent(event, "TIMESTAMPS_ADDED");
         }
-        return success;
     }
     
     /**
      * Remove a timestamp at the specified index
      */
     public boolean removeTimestamp(int index) {
-        boolean success = timestampService.removeTimestamp(index);
-        if (success) {
-            this.timestamps = timestampService.getTimestamps();
-            setChanged();
-            notifyObservers("TIMESTAMP_REMOVED");
+        return removeTimestamps(new int[] {index}) == 1;
+    }
+    
+    /**
+     * Remove the timestamps at the given indexes in one pass, with a single notification and undo step
+     * @return the number of entries removed
+     */
+    public int removeTimestamps(int[] indexes) {
+        long start = System.nanoTime();
+        RecorderEvents.ModelMutation event = new RecorderEvents.ModelMutation();
+        event.begin();
+        try {
+            TimestampBatch batch = new TimestampBatch();
+            for (int index : indexes) {
+                if (index >= 0 && index < timestampService.size()) {
+                    batch.delete(timestampService.getEntry(index));
+                }
+            }
+            TimestampBatch inverse = timestampService.apply(batch);
+            int removed = inverse.size();
+            if (removed > 0) {
+                pushUndo(removed == 1 ? "Delete Timestamp" : "Delete " + removed + " Timestamps", inverse);
+                setChanged();
+                notifyObservers("TIMESTAMP_REMOVED");
+            }
+            return removed;
+        } finally {
+            REMOVE_LATENCY.recordSince(start);
+            commitMutationEvent(event, "TIMESTAMP_REMOVED");
         }
-        return success;
     }
     
     /**
      * Update the note of a timestamp at the specified index
      */
     public void updateNote(int index, String newNote) {
-        timestampService.updateNote(index, newNote);
-        this.timestamps = timestampService.getTimestamps();
-        setChanged();
-        notifyObservers("NOTE_UPDATED");
+        long start = System.nanoTime();
+        RecorderEvents.ModelMutation event = new RecorderEvents.ModelMutation();
+        event.begin();
+        try {
+            NoteSegments before = notesAt(index);
+            timestampService.updateNote(index, newNote);
+            recordNoteUndo(index, before);
+            setChanged();
+            notifyObservers("NOTE_UPDATED");
+        } finally {
+            UPDATE_NOTE_LATENCY.recordSince(start);
+            commitMutationEvent(event, "NOTE_UPDATED");
+        }
+    }
+    
+    /**
+     * Update a single note segment of a timestamp at the specified index
+     */
+    public void updateNoteSegment(int index, int segment, String text) {
+        long start = System.nanoTime();
+        RecorderEvents.ModelMutation event = new RecorderEvents.ModelMutation();
+        event.begin();
+        try {
+            NoteSegments before = notesAt(index);
+            timestampService.updateNoteSegment(index, segment, text);
+            recordNoteUndo(index, before);
+            setChanged();
+            notifyObservers("NOTE_UPDATED");
+        } finally {
+            UPDATE_NOTE_LATENCY.recordSince(start);
+            commitMutationEvent(event, "NOTE_UPDATED");
+        }
     }
     
     /**
      * Clear all timestamps
      */
     public void clearAll() {
-        timestampService.clearAll();
-        this.timestamps = timestampService.getTimestamps();
-        setChanged();
-        notifyObservers("ALL_CLEARED");
+        long start = System.nanoTime();
+        RecorderEvents.ModelMutation event = new RecorderEvents.ModelMutation();
+        event.begin();
+        try {
+            List<TimestampEntry> cleared = timestampService.getTimestamps();
+            timestampService.clearAll();
+            if (!cleared.isEmpty()) {
+                pushUndo("Clear All", new TimestampBatch().insertAll(cleared));
+            }
+            setChanged();
+            notifyObservers("ALL_CLEARED");
+        } finally {
+            CLEAR_LATENCY.recordSince(start);
+            commitMutationEvent(event, "ALL_CLEARED");
+        }
+    }
+    
+    /**
+     * Apply many inserts, deletes and note updates as one change: one pass over the list,
+     * one notification and one undo step
+     * @param description what the change did, shown as "Undo <description>"
+     * @return false if the batch changed nothing
+     */
+    public boolean applyBatch(TimestampBatch batch, String description) {
+        long start = System.nanoTime();
+        RecorderEvents.ModelMutation event = new RecorderEvents.ModelMutation();
+        event.begin();
+        try {
+            BATCH_SIZE.record(batch.size());
+            TimestampBatch inverse = timestampService.apply(batch);
+            if (inverse.isEmpty()) {
+                return false;
+            }
+            pushUndo(description, inverse);
+            setChanged();
+            notifyObservers("BATCH_APPLIED");
+            return true;
+        } finally {
+            BATCH_LATENCY.recordSince(start);
+            commitMutationEvent(event, "BATCH_APPLIED");
+        }
+    }
+    
+    public boolean canUndo() {
+        return !undoSteps.isEmpty();
+    }
+    
+    /**
+     * Description of the change undo() would revert, or null if there is none
+     */
+    public String getUndoDescription() {
+        UndoStep step = undoSteps.peekLast();
+        return step != null ? step.description : null;
     }
     
     /**
-     * Get all timestamps (sorted chronologically)
+     * Revert the most recent change
+     * @return its description, or null if there was nothing to undo
+     */
+    public String undo() {
+        UndoStep step = undoSteps.pollLast();
+        if (step == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        RecorderEvents.ModelMutation event = new RecorderEvents.ModelMutation();
+        event.begin();
+        try {
+            timestampService.apply(step.inverse);
+            setChanged();
+            notifyObservers("UNDONE");
+            return step.description;
+        } finally {
+            UNDO_LATENCY.recordSince(start);
+            commitMutationEvent(event, "UNDONE");
+        }
+    }
+    
+    /**
+     * Get all timestamps (sorted chronologically; the service keeps them in order)
      */
     public List<TimestampEntry> getTimestamps() {
-        List<TimestampEntry> sortedTimestamps = timestampService.getTimestamps();
-        sortedTimestamps.sort((t1, t2) -> {
-            int seconds1 = timestampService.parseTimestampToSeconds(t1.getTimestamp());
-            int seconds2 = timestampService.parseTimestampToSeconds(t2.getTimestamp());
-            return Integer.compare(seconds1, seconds2);
-        });
-        return sortedTimestamps;
+        return timestampService.getTimestamps();
+    }
+    
+    /**
+     * Get all timestamps as a read-only list that follows later changes, without copying them;
+     * observers read it together with getLastChanges(). Only read it on the thread that mutates the model.
+     */
+    public List<TimestampEntry> viewTimestamps() {
+        return timestampService.viewTimestamps();
+    }
+    
+    /**
+     * Get the rows removed and inserted by the change observers were last notified of
+     */
+    public RowChanges getLastChanges() {
+        return timestampService.getLastChanges();
+    }
+    
+    /**
+     * Get copies of all timestamps that later note edits don't change, for reading off the EDT
+     */
+    public List<TimestampEntry> copyTimestamps() {
+        return timestampService.copyTimestamps();
+    }
+    
+    /**
+     * Get the rows (indexes into getTimestamps()) of entries with the given type
+     */
+    public int[] getRowsOfType(TimestampType type) {
+        return timestampService.rowsOfType(type);
+    }
+    
+    /**
+     * Get the rows (indexes into getTimestamps()) of entries added in [from, to); either bound may be null
+     * @param type only entries of this type, or null for any type
+     */
+    public int[] getRowsAddedBetween(LocalDateTime from, LocalDateTime to, TimestampType type) {
+        return timestampService.rowsAddedBetween(from, to, type);
+    }
+    
+    /**
+     * Get the entries added in [from, to), ordered by date added; either bound may be null
+     */
+    public List<TimestampEntry> getEntriesAddedBetween(LocalDateTime from, LocalDateTime to) {
+        return timestampService.entriesAddedBetween(from, to);
+    }
+    
+    /**
+     * Get the row of the entry at the given time with the given notes (or the first at that time), -1 if none
+     */
+    public int findRow(long millis, String notes) {
+        return timestampService.findRow(millis, notes);
+    }
+    
+    /**
+     * Describes where the entries are kept (heap or memory-mapped files), for diagnostics
+     */
+    public String getStorageDescription() {
+        return timestampService.getStorageDescription();
+    }
+    
+    /**
+     * Get the marker counts along the timeline; only read it on the thread that mutates the model
+     */
+    public TimelineBuckets getTimeline() {
+        return timestampService.getTimeline();
+    }
+    
+    /**
+     * Get the chapter statistics; only read them on the thread that mutates the model
+     */
+    public ChapterAnalytics getAnalytics() {
+        return timestampService.getAnalytics();
     }
     
     /**
      * Set timestamps (for loading from file)
      */
     public void setTimestamps(List<TimestampEntry> timestamps) {
-        timestampService.setTimestamps(timestamps);
-        this.timestamps = timestampService.getTimestamps();
-        setChanged();
-        notifyObservers("TIMESTAMPS_LOADED");
+        long start = System.nanoTime();
+        RecorderEvents.ModelMutation event = new RecorderEvents.ModelMutation();
+        event.begin();
+        try {
+            timestampService.setTimestamps(timestamps);
+            // A loaded file starts a new history
+            undoSteps.clear();
+            setChanged();
+            notifyObservers("TIMESTAMPS_LOADED");
+        } finally {
+            SET_LATENCY.recordSince(start);
+            commitMutationEvent(event, "TIMESTAMPS_LOADED");
+        }
+    }
+    
+    /**
+     * Apply a re-read version of the loaded file, changing only the entries that differ, as one undo step
+     * (so unsaved entries the file doesn't have can be brought back)
+     */
+    public TimestampService.ReconcileResult reloadTimestamps(List<TimestampEntry> reloaded) {
+        long start = System.nanoTime();
+        RecorderEvents.ModelMutation event = new RecorderEvents.ModelMutation();
+        event.begin();
+        try {
+            TimestampService.ReconcileResult result = timestampService.reconcile(reloaded);
+            if (!result.isEmpty()) {
+                pushUndo("Reload from File", result.inverse);
+                setChanged();
+                notifyObservers("TIMESTAMPS_RELOADED");
+            }
+            return result;
+        } finally {
+            SET_LATENCY.recordSince(start);
+            commitMutationEvent(event, "TIMESTAMPS_RELOADED");
+        }
     }
     
     /**
-     * Modify a timestamp by adding/subtracting seconds
+     * Modify a timestamp by adding/subtracting milliseconds
      */
-    public String modifyTimestamp(String timestamp, int seconds) {
-        return timestampService.addSecondsToTimestamp(timestamp, seconds);
+    public String modifyTimestamp(String timestamp, long millis) {
+        return timestampService.addMillisToTimestamp(timestamp, millis);
     }
     
     /**
@@ -104,6 +397,42 @@ public class TimestampModel extends Observable {
         return timestampService.parseTimestampToSeconds(timestamp);
     }
     
+    /**
+     * Parse timestamp to milliseconds, including any fraction or frames
+     */
+    public long parseTimestampToMillis(String timestamp) {
+        return TimestampService.toMillis(timestamp);
+    }
+    
+    private NoteSegments notesAt(int index) {
+        return index >= 0 && index < timestampService.size()
+            ? timestampService.getEntry(index).getNoteSegments().copy() : null;
+    }
+    
+    private void recordNoteUndo(int index, NoteSegments before) {
+        if (before != null && !before.equals(timestampService.getEntry(index).getNoteSegments())) {
+            pushUndo("Edit Note", new TimestampBatch().updateNotes(timestampService.getEntry(index), before));
+        }
+    }
+    
+    private void pushUndo(String description, TimestampBatch inverse) {
+        undoSteps.addLast(new UndoStep(description, inverse));
+        if (undoSteps.size() > MAX_UNDO_STEPS) {
+            undoSteps.pollFirst();
+        }
+    }
+    
+    /**
+     * Commit a JFR mutation event if recording is enabled for it
+     */
+    private void commitMutationEvent(RecorderEvents.ModelMutation event, String mutation) {
+        if (event.shouldCommit()) {
+            event.mutation = mutation;
+            event.entries = timestampService.size();
+            event.commit();
+        }
+    }
+    
     /**
      * Get the underlying TimestampService for file operations
      */
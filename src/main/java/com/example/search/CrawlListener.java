@@ -0,0 +1,8 @@
+package com.example.search;
+
+/**
+ * Progress of a library crawl; called from the crawler's worker threads
+ */
+public interface CrawlListener {
+    void progress(int filesDone, int filesToIndex);
+}
@@ -0,0 +1,29 @@
+package com.example.search;
+
+/**
+ * What a library crawl did
+ */
+public final class CrawlResult {
+    public final int indexed;
+    public final int unchanged;
+    public final int removed;
+    public final int failed;
+    public final long entries;
+    public final long elapsedMillis;
+
+    CrawlResult(int indexed, int unchanged, int removed, int failed, long entries, long elapsedMillis) {
+        this.indexed = indexed;
+        this.unchanged = unchanged;
+        this.removed = removed;
+        this.failed = failed;
+        this.entries = entries;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        String text = String.format("%d files indexed (%d entries), %d unchanged, %d removed in %.1f s",
+                indexed, entries, unchanged, removed, elapsedMillis / 1000.0);
+        return failed > 0 ? text + ", " + failed + " could not be read" : text;
+    }
+}
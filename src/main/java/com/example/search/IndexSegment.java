@@ -0,0 +1,246 @@
+package com.example.search;
+
+import com.example.TimestampType;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A segment written by SegmentWriter, memory-mapped read-only. Terms are found by binary search on the
+ * mapped term table, so opening a segment reads nothing but the header. Safe for concurrent readers.
+ */
+final class IndexSegment {
+    private static final TimestampType[] TYPES = TimestampType.values();
+
+    final String name;
+    final int fileCount;
+    final int entryCount;
+    private final int termCount;
+    private final ByteBuffer buffer;
+    private final int filesAt;
+    private final int entriesAt;
+    private final int termsAt;
+    private final int postingsAt;
+    private final int textAt;
+
+    private IndexSegment(String name, ByteBuffer buffer) throws IOException {
+        this.name = name;
+        this.buffer = buffer;
+        if (buffer.capacity() < SegmentWriter.HEADER_BYTES || buffer.getInt(0) != SegmentWriter.MAGIC) {
+            throw new IOException(name + " is not an index segment");
+        }
+        if (buffer.getInt(4) != SegmentWriter.VERSION) {
+            throw new IOException(name + " has unsupported version " + buffer.getInt(4));
+        }
+        fileCount = buffer.getInt(8);
+        entryCount = buffer.getInt(12);
+        termCount = buffer.getInt(16);
+        filesAt = (int) buffer.getLong(24);
+        entriesAt = (int) buffer.getLong(32);
+        termsAt = (int) buffer.getLong(40);
+        postingsAt = (int) buffer.getLong(48);
+        textAt = (int) buffer.getLong(56);
+        if (textAt + buffer.getLong(64) != buffer.capacity()) {
+            throw new IOException(name + " is truncated");
+        }
+    }
+
+    static IndexSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(path.getFileName() + " is too large");
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new IndexSegment(path.getFileName().toString(), buffer);
+        }
+    }
+
+    String path(int file) {
+        int record = filesAt + file * SegmentWriter.FILE_BYTES;
+        return text(buffer.getInt(record + 24), buffer.getInt(record + 28));
+    }
+
+    boolean isRemoved(int file) {
+        return buffer.getInt(filesAt + file * SegmentWriter.FILE_BYTES + 4) == SegmentWriter.DELETED;
+    }
+
+    int firstEntry(int file) {
+        return buffer.getInt(filesAt + file * SegmentWriter.FILE_BYTES);
+    }
+
+    int entryCount(int file) {
+        return Math.max(0, buffer.getInt(filesAt + file * SegmentWriter.FILE_BYTES + 4));
+    }
+
+    long modified(int file) {
+        return buffer.getLong(filesAt + file * SegmentWriter.FILE_BYTES + 8);
+    }
+
+    long length(int file) {
+        return buffer.getLong(filesAt + file * SegmentWriter.FILE_BYTES + 16);
+    }
+
+    long millis(int entry) {
+        return buffer.getLong(entriesAt + entry * SegmentWriter.ENTRY_BYTES);
+    }
+
+    int fileOf(int entry) {
+        return buffer.getInt(entriesAt + entry * SegmentWriter.ENTRY_BYTES + 8);
+    }
+
+    String notes(int entry) {
+        int record = entriesAt + entry * SegmentWriter.ENTRY_BYTES;
+        return text(buffer.getInt(record + 12), buffer.getInt(record + 16));
+    }
+
+    TimestampType type(int entry) {
+        return TYPES[buffer.getInt(entriesAt + entry * SegmentWriter.ENTRY_BYTES + 20)];
+    }
+
+    /**
+     * Entries containing the term, in ascending order; empty if the term isn't in this segment
+     */
+    int[] postings(byte[] term) {
+        int index = lowerBound(term);
+        if (index < termCount && compareTerm(index, term) == 0) {
+            return decode(index);
+        }
+        return new int[0];
+    }
+
+    /**
+     * Entries containing any term starting with the prefix, in ascending order. Stops after maxTerms
+     * terms, as a one-letter prefix could otherwise match most of the dictionary.
+     */
+    int[] prefixPostings(byte[] prefix, int maxTerms) {
+        int index = lowerBound(prefix);
+        int end = index;
+        while (end < termCount && end - index < maxTerms && startsWith(end, prefix)) {
+            end++;
+        }
+        if (end - index == 1) {
+            return decode(index);
+        }
+        BitSet union = new BitSet(entryCount);
+        for (int t = index; t < end; t++) {
+            for (int entry : decode(t)) {
+                union.set(entry);
+            }
+        }
+        return union.stream().toArray();
+    }
+
+    private int lowerBound(byte[] key) {
+        int low = 0;
+        int high = termCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareTerm(mid, key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int compareTerm(int index, byte[] key) {
+        int record = termsAt + index * SegmentWriter.TERM_BYTES;
+        int position = textAt + buffer.getInt(record);
+        int length = buffer.getInt(record + 4);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int difference = Byte.toUnsignedInt(buffer.get(position + i)) - Byte.toUnsignedInt(key[i]);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - key.length;
+    }
+
+    private boolean startsWith(int index, byte[] prefix) {
+        int record = termsAt + index * SegmentWriter.TERM_BYTES;
+        int position = textAt + buffer.getInt(record);
+        if (buffer.getInt(record + 4) < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(position + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int[] decode(int index) {
+        int record = termsAt + index * SegmentWriter.TERM_BYTES;
+        int position = postingsAt + buffer.getInt(record + 8);
+        int[] entries = new int[buffer.getInt(record + 12)];
+        int value = 0;
+        for (int i = 0; i < entries.length; i++) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(position++);
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            value += delta;
+            entries[i] = value;
+        }
+        return entries;
+    }
+
+    private String text(int position, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(textAt + position);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + fileCount + " files, " + entryCount + " entries, " + termCount + " terms)";
+    }
+
+    /**
+     * Entries present in every list; lists must be ascending
+     */
+    static int[] intersect(int[][] lists) {
+        int[][] bySize = lists.clone();
+        Arrays.sort(bySize, (a, b) -> Integer.compare(a.length, b.length));
+        int[] result = bySize[0];
+        for (int l = 1; l < bySize.length && result.length > 0; l++) {
+            int[] other = bySize[l];
+            int[] kept = new int[result.length];
+            int count = 0;
+            int from = 0;
+            for (int entry : result) {
+                // Galloping search, as a rare term is often matched against a very common one
+                int step = 1;
+                int high = from;
+                while (high < other.length && other[high] < entry) {
+                    from = high + 1;
+                    high += step;
+                    step <<= 1;
+                }
+                int found = Arrays.binarySearch(other, from, Math.min(high + 1, other.length), entry);
+                if (found >= 0) {
+                    kept[count++] = entry;
+                    from = found + 1;
+                } else {
+                    from = -found - 1;
+                }
+            }
+            result = Arrays.copyOf(kept, count);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.search;
+
+import com.example.FileService;
+import com.example.SessionFormat;
+import com.example.TimestampEntry;
+import com.example.importer.BatchingEntrySink;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Walks the index roots for timestamp files and indexes new and changed ones on one worker per core.
+ * Each worker parses whole files into its own SegmentWriter and writes a segment whenever it fills up,
+ * so workers never share state; the new segments become visible together at the end.
+ */
+final class LibraryCrawler {
+    private static final Set<String> EXTENSIONS = new HashSet<>(Arrays.asList(
+            "txt", "csv", "json", "srt", "vtt", SessionFormat.FILE_EXTENSION));
+
+    private static final class Candidate {
+        final Path path;
+        final long modified;
+        final long length;
+
+        Candidate(Path path, long modified, long length) {
+            this.path = path;
+            this.modified = modified;
+            this.length = length;
+        }
+    }
+
+    private final LibraryIndex index;
+    private final FileService fileService;
+    // Shared by the workers of one crawl
+    private final List<Candidate> changed = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger done = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong entries = new AtomicLong();
+    private final List<IndexSegment> written = Collections.synchronizedList(new ArrayList<>());
+
+    LibraryCrawler(LibraryIndex index, FileService fileService) {
+        this.index = index;
+        this.fileService = fileService;
+    }
+
+    CrawlResult crawl(LibraryIndex.Snapshot snapshot, boolean rebuild, CrawlListener listener) throws IOException {
+        long start = System.currentTimeMillis();
+        Path indexDirectory = index.getDirectory().toAbsolutePath().normalize();
+        Set<String> found = new HashSet<>();
+        int unchanged = 0;
+        for (Path root : snapshot.roots) {
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            for (Candidate candidate : walk(root, indexDirectory)) {
+                String path = candidate.path.toString();
+                if (!found.add(path)) {
+                    continue;
+                }
+                LibraryIndex.FileState state = snapshot.files.get(path);
+                if (!rebuild && state != null && state.modified == candidate.modified && state.length == candidate.length) {
+                    unchanged++;
+                } else {
+                    changed.add(candidate);
+                }
+            }
+        }
+        List<String> removed = new ArrayList<>();
+        if (!rebuild) {
+            for (Map.Entry<String, LibraryIndex.FileState> file : snapshot.files.entrySet()) {
+                Path path = Paths.get(file.getKey());
+                if (!found.contains(file.getKey()) && underRoot(path, snapshot.roots) && !Files.exists(path)) {
+                    removed.add(file.getKey());
+                }
+            }
+        }
+
+        // Biggest files first, so one large file doesn't leave a single worker busy at the end
+        changed.sort((a, b) -> Long.compare(b.length, a.length));
+        int workers = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), changed.size()));
+        ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "library-crawl");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                List<String> removals = w == 0 ? removed : Collections.emptyList();
+                results.add(pool.submit(() -> work(removals, listener)));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            pool.shutdownNow();
+            for (IndexSegment segment : written) {
+                Files.deleteIfExists(index.getDirectory().resolve(segment.name));
+            }
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw cause instanceof IOException ? (IOException) cause : new IOException("Crawl failed: " + cause, cause);
+        } finally {
+            pool.shutdown();
+        }
+
+        index.commit(new ArrayList<>(written), rebuild ? snapshot.segments : Collections.emptyList());
+        return new CrawlResult(changed.size() - failed.get(), unchanged, removed.size(), failed.get(), entries.get(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * One worker: takes the next file until none are left, writing a segment each time its writer fills up
+     */
+    private Void work(List<String> removals, CrawlListener listener) throws IOException {
+        SegmentWriter writer = new SegmentWriter(index.getDirectory());
+        try {
+            for (String path : removals) {
+                writer.addRemovedFile(path);
+            }
+            for (int i = next.getAndIncrement(); i < changed.size(); i = next.getAndIncrement()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new IOException("Crawl cancelled");
+                }
+                if (!indexFile(changed.get(i), writer)) {
+                    failed.incrementAndGet();
+                }
+                if (writer.isFull()) {
+                    entries.addAndGet(writer.getEntryCount());
+                    written.add(index.writeSegment(writer));
+                    writer.close();
+                    writer = new SegmentWriter(index.getDirectory());
+                }
+                if (listener != null) {
+                    listener.progress(done.incrementAndGet(), changed.size());
+                }
+            }
+            if (!writer.isEmpty()) {
+                entries.addAndGet(writer.getEntryCount());
+                written.add(index.writeSegment(writer));
+            }
+        } finally {
+            writer.close();
+        }
+        return null;
+    }
+
+    /**
+     * Parses one file into the writer; a file that can't be read is left out, so the next crawl retries it
+     */
+    private boolean indexFile(Candidate candidate, SegmentWriter writer) throws IOException {
+        writer.beginFile(candidate.path.toString(), candidate.modified, candidate.length);
+        try {
+            BatchingEntrySink sink = new BatchingEntrySink(batch -> {
+                try {
+                    for (TimestampEntry entry : batch) {
+                        writer.addEntry(entry.getMillis(), entry.getType(), entry.getNotes());
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            fileService.readEntries(candidate.path.toFile(), sink);
+            sink.flush();
+            writer.endFile();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            writer.abortFile();
+            System.err.println("Could not index " + candidate.path + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static List<Candidate> walk(Path root, Path indexDirectory) throws IOException {
+        List<Candidate> candidates = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) {
+                return directory.toAbsolutePath().normalize().equals(indexDirectory)
+                        ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile() && isTimestampFile(file.getFileName().toString())) {
+                    candidates.add(new Candidate(Paths.get(LibraryIndex.pathOf(file)),
+                            attributes.lastModifiedTime().toMillis(), attributes.size()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                // Unreadable folders are skipped rather than failing the crawl
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return candidates;
+    }
+
+    /**
+     * Files in the export formats, optionally compressed
+     */
+    static boolean isTimestampFile(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        if (lower.endsWith(".gz") || lower.endsWith(".zz")) {
+            lower = lower.substring(0, lower.length() - 3);
+        }
+        int dot = lower.lastIndexOf('.');
+        return dot > 0 && EXTENSIONS.contains(lower.substring(dot + 1));
+    }
+
+    private static boolean underRoot(Path path, List<Path> roots) {
+        for (Path root : roots) {
+            if (path.startsWith(root)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,581 @@
+package com.example.search;
+
+import com.example.FileService;
+import com.example.TimestampEntry;
+import com.example.TimestampType;
+import com.example.metrics.Histogram;
+import com.example.metrics.MetricsRegistry;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search index over saved and exported timestamp files, kept on disk, mapping note terms to (file, time)
+ * - the index is a list of immutable segments plus a manifest naming them; each segment has its own term
+ *   dictionary and postings, and a file's entries are taken from the newest segment that lists the file
+ * - saves and exports are indexed in the background as a small segment each; runs of small segments are
+ *   merged once there are more than MAX_SMALL_SEGMENTS of them
+ * - folders added as roots are crawled by LibraryCrawler, re-reading only files whose size or date changed
+ * - the directory is -Drecorder.index.dir, by default .timestamp-recorder/index in the user's home
+ * Searches run lock-free against the current list of segments and may be called from any thread.
+ */
+public class LibraryIndex {
+    public static final String DIR_PROPERTY = "recorder.index.dir";
+    public static final int DEFAULT_LIMIT = 500;
+
+    private static final Histogram QUERY_LATENCY = MetricsRegistry.getInstance().latency("search.query");
+    private static final Histogram UPDATE_LATENCY = MetricsRegistry.getInstance().latency("search.update");
+    private static final Histogram MERGE_LATENCY = MetricsRegistry.getInstance().latency("search.merge");
+
+    private static final String MANIFEST = "library.manifest";
+    private static final String MANIFEST_HEADER = "timestamp-library-index 1";
+    private static final String SEGMENT_PREFIX = "seg-";
+    private static final String SEGMENT_SUFFIX = ".idx";
+    // Segments under this many entries count as small and are merged
+    private static final int SMALL_SEGMENT_ENTRIES = 100_000;
+    private static final int MAX_SMALL_SEGMENTS = 8;
+    // A prefix matching more terms than this only matches the first ones
+    private static final int MAX_PREFIX_TERMS = 256;
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    /**
+     * Modification time and length of an indexed file, to tell whether it changed since
+     */
+    static final class FileState {
+        final long modified;
+        final long length;
+
+        FileState(long modified, long length) {
+            this.modified = modified;
+            this.length = length;
+        }
+    }
+
+    /**
+     * The segments at one point in time, oldest first, with the files each one is current for
+     */
+    static final class Snapshot {
+        final List<IndexSegment> segments;
+        final BitSet[] liveFiles;
+        final Map<String, FileState> files;
+        final List<Path> roots;
+        final long liveEntries;
+
+        Snapshot(List<IndexSegment> segments, List<Path> roots) {
+            this.segments = segments;
+            this.roots = roots;
+            this.liveFiles = new BitSet[segments.size()];
+            this.files = new HashMap<>();
+            Set<String> seen = new HashSet<>();
+            long entries = 0;
+            for (int s = segments.size() - 1; s >= 0; s--) {
+                IndexSegment segment = segments.get(s);
+                liveFiles[s] = new BitSet(segment.fileCount);
+                for (int file = 0; file < segment.fileCount; file++) {
+                    String path = segment.path(file);
+                    if (seen.add(path) && !segment.isRemoved(file)) {
+                        liveFiles[s].set(file);
+                        files.put(path, new FileState(segment.modified(file), segment.length(file)));
+                        entries += segment.entryCount(file);
+                    }
+                }
+            }
+            this.liveEntries = entries;
+        }
+    }
+
+    private final Path directory;
+    private final FileService fileService;
+    // Saves and merges are applied one at a time, in order, as tasks on the given executor
+    private final Executor executor;
+    private final Queue<Runnable> updates = new ArrayDeque<>();
+    private boolean updating;
+    private boolean closed;
+    private final Object crawlLock = new Object();
+    private volatile Snapshot snapshot;
+    private int nextSegment;
+    private boolean merging;
+    private int crawling;
+
+    /**
+     * Nothing is read until the index is first used
+     * @param executor runs background updates, e.g. the application's IO pool
+     */
+    public LibraryIndex(Path directory, FileService fileService, Executor executor) {
+        this.directory = directory;
+        this.fileService = fileService;
+        this.executor = executor;
+    }
+
+    /**
+     * The directory named by -Drecorder.index.dir, or .timestamp-recorder/index in the user's home
+     */
+    public static Path defaultDirectory() {
+        String configured = System.getProperty(DIR_PROPERTY);
+        if (configured != null && !configured.trim().isEmpty()) {
+            return Paths.get(configured.trim());
+        }
+        return Paths.get(System.getProperty("user.home"), ".timestamp-recorder", "index");
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Finds entries whose notes contain every term of the query; the last term also matches longer terms
+     * starting with it unless the query ends with a space, so results can follow typing. Hits come from
+     * the most recently indexed files first, in time order within a file.
+     */
+    public SearchResult search(String query, int limit) throws IOException {
+        long start = System.nanoTime();
+        Snapshot current = snapshot();
+        Set<String> unique = new LinkedHashSet<>(Tokenizer.tokens(query));
+        List<SearchHit> hits = new ArrayList<>();
+        int total = 0;
+        if (!unique.isEmpty()) {
+            byte[][] terms = new byte[unique.size()][];
+            int t = 0;
+            for (String term : unique) {
+                terms[t++] = term.getBytes(StandardCharsets.UTF_8);
+            }
+            boolean prefixLast = !Character.isWhitespace(query.charAt(query.length() - 1));
+            for (int s = current.segments.size() - 1; s >= 0; s--) {
+                IndexSegment segment = current.segments.get(s);
+                int[][] lists = new int[terms.length][];
+                boolean all = true;
+                for (int i = 0; i < terms.length && all; i++) {
+                    boolean prefix = prefixLast && i == terms.length - 1;
+                    lists[i] = prefix ? segment.prefixPostings(terms[i], MAX_PREFIX_TERMS) : segment.postings(terms[i]);
+                    all = lists[i].length > 0;
+                }
+                if (!all) {
+                    continue;
+                }
+                BitSet live = current.liveFiles[s];
+                for (int entry : IndexSegment.intersect(lists)) {
+                    int file = segment.fileOf(entry);
+                    if (!live.get(file)) {
+                        continue;
+                    }
+                    total++;
+                    if (hits.size() < limit) {
+                        hits.add(new SearchHit(new File(segment.path(file)), segment.millis(entry),
+                                segment.type(entry), segment.notes(entry)));
+                    }
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        QUERY_LATENCY.record(elapsed);
+        return new SearchResult(hits, total, elapsed);
+    }
+
+    /**
+     * Indexes a file that was just written with these entries. The entries are copied before returning
+     * and the index is updated on a background thread.
+     */
+    public void indexSaved(File file, List<TimestampEntry> entries) {
+        String path = pathOf(file.toPath());
+        long[] millis = new long[entries.size()];
+        TimestampType[] types = new TimestampType[entries.size()];
+        String[] notes = new String[entries.size()];
+        for (int i = 0; i < millis.length; i++) {
+            TimestampEntry entry = entries.get(i);
+            millis[i] = entry.getMillis();
+            types[i] = entry.getType();
+            notes[i] = entry.getNotes();
+        }
+        update(() -> {
+            long start = System.nanoTime();
+            try {
+                snapshot();
+                IndexSegment segment;
+                try (SegmentWriter writer = new SegmentWriter(directory)) {
+                    writer.beginFile(path, file.lastModified(), file.length());
+                    for (int i = 0; i < millis.length; i++) {
+                        writer.addEntry(millis[i], types[i], notes[i]);
+                    }
+                    writer.endFile();
+                    segment = writeSegment(writer);
+                }
+                commit(Collections.singletonList(segment), Collections.emptyList());
+            } catch (IOException e) {
+                System.err.println("Error indexing " + file.getName() + ": " + e.getMessage());
+            } finally {
+                UPDATE_LATENCY.recordSince(start);
+            }
+        });
+    }
+
+    /**
+     * Brings the index up to date with the root folders: new and changed files are read in parallel,
+     * and files that disappeared are dropped. A rebuild re-reads every file and replaces the whole index.
+     * Blocks until done, so call it off the EDT; only one crawl runs at a time.
+     */
+    public CrawlResult crawl(boolean rebuild, CrawlListener listener) throws IOException {
+        synchronized (crawlLock) {
+            synchronized (this) {
+                crawling++;
+                // A rebuild replaces everything there is when it starts, so let a running merge finish first
+                while (merging) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        crawling--;
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted waiting for an index merge");
+                    }
+                }
+            }
+            try {
+                return new LibraryCrawler(this, fileService).crawl(snapshot(), rebuild, listener);
+            } finally {
+                synchronized (this) {
+                    crawling--;
+                }
+                scheduleMerge();
+            }
+        }
+    }
+
+    /**
+     * Adds a folder to crawl; a folder already covered by a root is ignored
+     */
+    public synchronized void addRoot(Path root) throws IOException {
+        Snapshot current = snapshot();
+        Path normalized = Paths.get(pathOf(root));
+        for (Path existing : current.roots) {
+            if (normalized.startsWith(existing)) {
+                return;
+            }
+        }
+        List<Path> roots = new ArrayList<>();
+        for (Path existing : current.roots) {
+            if (!existing.startsWith(normalized)) {
+                roots.add(existing);
+            }
+        }
+        roots.add(normalized);
+        writeManifest(current.segments, roots);
+        snapshot = new Snapshot(current.segments, Collections.unmodifiableList(roots));
+    }
+
+    public List<Path> getRoots() throws IOException {
+        return snapshot().roots;
+    }
+
+    /**
+     * One-line summary of the index, e.g. for the search dialog
+     */
+    public String describe() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return "Library index at " + directory + " (not loaded)";
+        }
+        long bytes = 0;
+        for (IndexSegment segment : current.segments) {
+            bytes += directory.resolve(segment.name).toFile().length();
+        }
+        return String.format("%d files, %d entries in %d segments (%d MB)", current.files.size(),
+                current.liveEntries, current.segments.size(), bytes >> 20);
+    }
+
+    /**
+     * Waits for the running background update, then applies any still queued on the calling thread;
+     * updates arriving later run on the thread that makes them
+     */
+    public void close() {
+        synchronized (updates) {
+            closed = true;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(CLOSE_TIMEOUT_SECONDS);
+            try {
+                while (updating) {
+                    long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    if (remaining <= 0) {
+                        System.err.println("Library index updates still running at shutdown");
+                        return;
+                    }
+                    updates.wait(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            updating = true;
+        }
+        runUpdates();
+    }
+
+    /**
+     * Queues an update; one task at a time works through the queue, so updates never overlap
+     */
+    private void update(Runnable update) {
+        boolean inline;
+        synchronized (updates) {
+            updates.add(update);
+            if (updating) {
+                return;
+            }
+            updating = true;
+            inline = closed;
+        }
+        if (inline) {
+            runUpdates();
+            return;
+        }
+        try {
+            executor.execute(this::runUpdates);
+        } catch (RejectedExecutionException e) {
+            // The executor is shutting down; close() applies what is queued
+            synchronized (updates) {
+                updating = false;
+                updates.notifyAll();
+            }
+        }
+    }
+
+    private void runUpdates() {
+        while (true) {
+            Runnable next;
+            synchronized (updates) {
+                next = updates.poll();
+                if (next == null) {
+                    updating = false;
+                    updates.notifyAll();
+                    return;
+                }
+            }
+            try {
+                next.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error updating library index: " + e);
+            }
+        }
+    }
+
+    /**
+     * The current segments, loading the manifest on first use
+     */
+    Snapshot snapshot() throws IOException {
+        Snapshot current = snapshot;
+        return current != null ? current : load();
+    }
+
+    static String pathOf(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * Writes out a finished segment under a new name and maps it
+     */
+    IndexSegment writeSegment(SegmentWriter writer) throws IOException {
+        Path path;
+        synchronized (this) {
+            path = directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, nextSegment++, SEGMENT_SUFFIX));
+        }
+        writer.writeTo(path);
+        return IndexSegment.open(path);
+    }
+
+    /**
+     * Makes new segments visible, in place of the replaced ones; the segments to replace must be either
+     * the whole list (a rebuild) or its newest ones (a merge)
+     */
+    synchronized void commit(List<IndexSegment> added, Collection<IndexSegment> replaced) throws IOException {
+        Snapshot current = snapshot();
+        List<IndexSegment> segments = new ArrayList<>();
+        int insertAt = -1;
+        for (IndexSegment segment : current.segments) {
+            if (replaced.contains(segment)) {
+                insertAt = insertAt < 0 ? segments.size() : insertAt;
+            } else {
+                segments.add(segment);
+            }
+        }
+        segments.addAll(insertAt < 0 ? segments.size() : insertAt, added);
+        writeManifest(segments, current.roots);
+        snapshot = new Snapshot(Collections.unmodifiableList(segments), current.roots);
+        for (IndexSegment segment : replaced) {
+            // Still mapped by searches on the old snapshot; on Windows the delete fails and load() retries it
+            Files.deleteIfExists(directory.resolve(segment.name));
+        }
+        if (!added.isEmpty()) {
+            scheduleMerge();
+        }
+    }
+
+    private void scheduleMerge() {
+        synchronized (this) {
+            if (merging || crawling > 0 || smallTail(snapshot) <= MAX_SMALL_SEGMENTS) {
+                return;
+            }
+            merging = true;
+        }
+        update(this::mergeSmallSegments);
+    }
+
+    /**
+     * Number of small segments at the new end of the list
+     */
+    private static int smallTail(Snapshot current) {
+        int count = 0;
+        for (int s = current.segments.size() - 1; s >= 0 && current.segments.get(s).entryCount < SMALL_SEGMENT_ENTRIES; s--) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Merges the trailing run of small segments, keeping the newest version of each file in it
+     * and any removals, which still hide older copies in earlier segments
+     */
+    private void mergeSmallSegments() {
+        long start = System.nanoTime();
+        try {
+            Snapshot current = snapshot();
+            int tail = smallTail(current);
+            List<IndexSegment> run = current.segments.subList(current.segments.size() - tail, current.segments.size());
+            List<IndexSegment> merged = new ArrayList<>();
+            Set<String> seen = new HashSet<>();
+            SegmentWriter writer = new SegmentWriter(directory);
+            try {
+                for (int s = run.size() - 1; s >= 0; s--) {
+                    IndexSegment segment = run.get(s);
+                    for (int file = 0; file < segment.fileCount; file++) {
+                        String path = segment.path(file);
+                        if (!seen.add(path)) {
+                            continue;
+                        }
+                        if (segment.isRemoved(file)) {
+                            writer.addRemovedFile(path);
+                            continue;
+                        }
+                        writer.beginFile(path, segment.modified(file), segment.length(file));
+                        int first = segment.firstEntry(file);
+                        for (int entry = first; entry < first + segment.entryCount(file); entry++) {
+                            writer.addEntry(segment.millis(entry), segment.type(entry), segment.notes(entry));
+                        }
+                        writer.endFile();
+                        if (writer.isFull()) {
+                            merged.add(writeSegment(writer));
+                            writer.close();
+                            writer = new SegmentWriter(directory);
+                        }
+                    }
+                }
+                if (!writer.isEmpty()) {
+                    merged.add(writeSegment(writer));
+                }
+            } finally {
+                writer.close();
+            }
+            commit(merged, run);
+        } catch (IOException e) {
+            System.err.println("Error merging library index segments: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                merging = false;
+                notifyAll();
+            }
+            MERGE_LATENCY.recordSince(start);
+        }
+    }
+
+    private synchronized Snapshot load() throws IOException {
+        if (snapshot != null) {
+            return snapshot;
+        }
+        Files.createDirectories(directory);
+        List<IndexSegment> segments = new ArrayList<>();
+        List<Path> roots = new ArrayList<>();
+        Set<String> listed = new HashSet<>();
+        Path manifest = directory.resolve(MANIFEST);
+        if (Files.exists(manifest)) {
+            List<String> lines = Files.readAllLines(manifest, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !lines.get(0).equals(MANIFEST_HEADER)) {
+                throw new IOException(manifest + " is not a library index manifest");
+            }
+            for (String line : lines.subList(1, lines.size())) {
+                if (line.startsWith("segment ")) {
+                    String name = line.substring("segment ".length());
+                    listed.add(name);
+                    try {
+                        segments.add(IndexSegment.open(directory.resolve(name)));
+                    } catch (IOException e) {
+                        // A lost segment only loses its files until they are saved or crawled again
+                        System.err.println("Skipping library index segment " + name + ": " + e.getMessage());
+                    }
+                } else if (line.startsWith("root ")) {
+                    roots.add(Paths.get(line.substring("root ".length())));
+                }
+            }
+        }
+        // Remove leftovers of interrupted writes and segments whose deletion failed
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                boolean segment = name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                if (segment && !listed.contains(name) || name.endsWith(".tmp")) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        System.err.println("Could not remove stale index file " + name + ": " + e.getMessage());
+                    }
+                }
+                if (segment) {
+                    try {
+                        int number = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                        nextSegment = Math.max(nextSegment, number + 1);
+                    } catch (NumberFormatException e) {
+                        // Not one of ours
+                    }
+                }
+            }
+        }
+        snapshot = new Snapshot(Collections.unmodifiableList(segments), Collections.unmodifiableList(roots));
+        return snapshot;
+    }
+
+    /**
+     * Replaces the manifest atomically, so a crash leaves either the old or the new list of segments
+     */
+    private void writeManifest(List<IndexSegment> segments, List<Path> roots) throws IOException {
+        Path temporary = directory.resolve(MANIFEST + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            out.write(MANIFEST_HEADER);
+            out.newLine();
+            for (Path root : roots) {
+                out.write("root " + root);
+                out.newLine();
+            }
+            for (IndexSegment segment : segments) {
+                out.write("segment " + segment.name);
+                out.newLine();
+            }
+        }
+        Files.move(temporary, directory.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.search;
+
+import com.example.Timecode;
+import com.example.TimestampType;
+import java.io.File;
+
+/**
+ * One entry matching a library search
+ */
+public final class SearchHit {
+    private final File file;
+    private final long millis;
+    private final TimestampType type;
+    private final String notes;
+
+    SearchHit(File file, long millis, TimestampType type, String notes) {
+        this.file = file;
+        this.millis = millis;
+        this.type = type;
+        this.notes = notes;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    public String getTimestamp() {
+        return Timecode.format(millis);
+    }
+
+    public TimestampType getType() {
+        return type;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    @Override
+    public String toString() {
+        return file.getName() + " " + getTimestamp() + " " + notes;
+    }
+}
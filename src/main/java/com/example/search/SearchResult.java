@@ -0,0 +1,40 @@
+package com.example.search;
+
+import java.util.List;
+
+/**
+ * The first hits of a library search, with the total number of matches
+ */
+public final class SearchResult {
+    private final List<SearchHit> hits;
+    private final int totalMatches;
+    private final long elapsedNanos;
+
+    SearchResult(List<SearchHit> hits, int totalMatches, long elapsedNanos) {
+        this.hits = hits;
+        this.totalMatches = totalMatches;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public List<SearchHit> getHits() {
+        return hits;
+    }
+
+    public int getTotalMatches() {
+        return totalMatches;
+    }
+
+    public boolean isTruncated() {
+        return hits.size() < totalMatches;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        String text = String.format("%d matches in %.1f ms", totalMatches, elapsedNanos / 1e6);
+        return isTruncated() ? text + " - showing the first " + hits.size() : text;
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.search;
+
+import com.example.TimestampType;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds one immutable index segment. Note text is streamed to a temporary file as entries are added,
+ * so only the entry table and the postings are held in memory. Not thread-safe: the crawler gives each
+ * worker its own writer.
+ *
+ * Segment layout, big-endian:
+ * - header: magic, version, file/entry/term counts, then the offset of each section and the text length
+ * - files: first entry, entry count (DELETED for a removed file), last modified, length, path position and length
+ * - entries: millis, file, notes position and length, type
+ * - terms: term position and length, postings position and count; sorted by their UTF-8 bytes
+ * - postings: entry numbers per term, as varint deltas
+ * - text: UTF-8 paths, notes and terms, addressed by the positions above
+ */
+final class SegmentWriter implements Closeable {
+    static final int MAGIC = 0x54534958;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 72;
+    static final int FILE_BYTES = 32;
+    static final int ENTRY_BYTES = 24;
+    static final int TERM_BYTES = 16;
+    static final int DELETED = -1;
+
+    // A segment is written out once it reaches any of these
+    private static final int MAX_ENTRIES = 1_000_000;
+    private static final long MAX_TEXT_BYTES = 256L << 20;
+
+    private static final class FileRecord {
+        final String path;
+        final long modified;
+        final long length;
+        final int firstEntry;
+        int entryCount;
+        int pathPosition;
+        int pathLength;
+
+        FileRecord(String path, long modified, long length, int firstEntry) {
+            this.path = path;
+            this.modified = modified;
+            this.length = length;
+            this.firstEntry = firstEntry;
+        }
+    }
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    private final List<FileRecord> files = new ArrayList<>();
+    private final Map<String, IntList> postings = new HashMap<>();
+    private long[] millis = new long[1024];
+    private int[] entryFiles = new int[1024];
+    private int[] textPositions = new int[1024];
+    private int[] textLengths = new int[1024];
+    private byte[] types = new byte[1024];
+    private int entryCount;
+
+    private final Path textFile;
+    private final OutputStream text;
+    private long textBytes;
+    private FileRecord current;
+
+    SegmentWriter(Path directory) throws IOException {
+        textFile = Files.createTempFile(directory, "text", ".tmp");
+        text = new BufferedOutputStream(Files.newOutputStream(textFile), 64 * 1024);
+    }
+
+    /**
+     * Starts the entries of a file; its entries follow through addEntry() until endFile()
+     */
+    void beginFile(String path, long modified, long length) throws IOException {
+        current = new FileRecord(path, modified, length, entryCount);
+        current.pathPosition = appendText(path.getBytes(StandardCharsets.UTF_8));
+        current.pathLength = (int) (textBytes - current.pathPosition);
+        files.add(current);
+    }
+
+    void addEntry(long entryMillis, TimestampType type, String notes) throws IOException {
+        if (entryCount == millis.length) {
+            int capacity = entryCount * 2;
+            millis = Arrays.copyOf(millis, capacity);
+            entryFiles = Arrays.copyOf(entryFiles, capacity);
+            textPositions = Arrays.copyOf(textPositions, capacity);
+            textLengths = Arrays.copyOf(textLengths, capacity);
+            types = Arrays.copyOf(types, capacity);
+        }
+        byte[] bytes = notes.getBytes(StandardCharsets.UTF_8);
+        int entry = entryCount++;
+        millis[entry] = entryMillis;
+        entryFiles[entry] = files.size() - 1;
+        textPositions[entry] = appendText(bytes);
+        textLengths[entry] = bytes.length;
+        types[entry] = (byte) type.ordinal();
+        current.entryCount++;
+        Tokenizer.tokenize(notes, term -> {
+            IntList list = postings.computeIfAbsent(term, t -> new IntList());
+            // A term repeated within one note is recorded once
+            if (list.size == 0 || list.values[list.size - 1] != entry) {
+                list.add(entry);
+            }
+        });
+    }
+
+    void endFile() {
+        current = null;
+    }
+
+    /**
+     * Drops the file being added, e.g. after it failed to parse half-way; its text stays as unused bytes
+     */
+    void abortFile() {
+        entryCount = current.firstEntry;
+        files.remove(files.size() - 1);
+        for (IntList list : postings.values()) {
+            while (list.size > 0 && list.values[list.size - 1] >= entryCount) {
+                list.size--;
+            }
+        }
+        postings.values().removeIf(list -> list.size == 0);
+        current = null;
+    }
+
+    /**
+     * Records that a file no longer exists, hiding its entries in older segments
+     */
+    void addRemovedFile(String path) throws IOException {
+        beginFile(path, 0, 0);
+        current.entryCount = DELETED;
+        endFile();
+    }
+
+    boolean isEmpty() {
+        return files.isEmpty();
+    }
+
+    int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Whether the segment is big enough to be written out; checked between files
+     */
+    boolean isFull() {
+        return entryCount >= MAX_ENTRIES || textBytes >= MAX_TEXT_BYTES;
+    }
+
+    /**
+     * Writes the segment to the given path, via a temporary file so readers never see a partial one
+     */
+    void writeTo(Path target) throws IOException {
+        // Terms in unsigned byte order, which is code point order, so lookups can compare bytes
+        Integer[] order = new Integer[postings.size()];
+        byte[][] unsorted = new byte[order.length][];
+        IntList[] unsortedLists = new IntList[order.length];
+        int count = 0;
+        for (Map.Entry<String, IntList> posting : postings.entrySet()) {
+            order[count] = count;
+            unsorted[count] = posting.getKey().getBytes(StandardCharsets.UTF_8);
+            unsortedLists[count++] = posting.getValue();
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(unsorted[a], unsorted[b]));
+        byte[][] terms = new byte[order.length][];
+        IntList[] lists = new IntList[order.length];
+        int[] termPositions = new int[order.length];
+        for (int t = 0; t < order.length; t++) {
+            terms[t] = unsorted[order[t]];
+            lists[t] = unsortedLists[order[t]];
+            termPositions[t] = appendText(terms[t]);
+        }
+        text.close();
+
+        byte[] encoded = new byte[1024];
+        int encodedLength = 0;
+        int[] postingPositions = new int[terms.length];
+        for (int t = 0; t < terms.length; t++) {
+            postingPositions[t] = encodedLength;
+            int previous = 0;
+            for (int i = 0; i < lists[t].size; i++) {
+                if (encodedLength + 5 > encoded.length) {
+                    encoded = Arrays.copyOf(encoded, encoded.length * 2);
+                }
+                int value = lists[t].values[i];
+                encodedLength = writeVarint(encoded, encodedLength, value - previous);
+                previous = value;
+            }
+        }
+
+        long filesAt = HEADER_BYTES;
+        long entriesAt = filesAt + (long) files.size() * FILE_BYTES;
+        long termsAt = entriesAt + (long) entryCount * ENTRY_BYTES;
+        long postingsAt = termsAt + (long) terms.length * TERM_BYTES;
+        long textAt = postingsAt + encodedLength;
+        if (textAt + textBytes > Integer.MAX_VALUE) {
+            throw new IOException("Index segment would exceed 2 GB");
+        }
+
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(files.size());
+            out.writeInt(entryCount);
+            out.writeInt(terms.length);
+            out.writeInt(0);
+            out.writeLong(filesAt);
+            out.writeLong(entriesAt);
+            out.writeLong(termsAt);
+            out.writeLong(postingsAt);
+            out.writeLong(textAt);
+            out.writeLong(textBytes);
+            for (FileRecord file : files) {
+                out.writeInt(file.firstEntry);
+                out.writeInt(file.entryCount);
+                out.writeLong(file.modified);
+                out.writeLong(file.length);
+                out.writeInt(file.pathPosition);
+                out.writeInt(file.pathLength);
+            }
+            for (int e = 0; e < entryCount; e++) {
+                out.writeLong(millis[e]);
+                out.writeInt(entryFiles[e]);
+                out.writeInt(textPositions[e]);
+                out.writeInt(textLengths[e]);
+                out.writeInt(types[e]);
+            }
+            for (int t = 0; t < terms.length; t++) {
+                out.writeInt(termPositions[t]);
+                out.writeInt(terms[t].length);
+                out.writeInt(postingPositions[t]);
+                out.writeInt(lists[t].size);
+            }
+            out.write(encoded, 0, encodedLength);
+            Files.copy(textFile, out);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Deletes the temporary text file
+     */
+    @Override
+    public void close() {
+        try {
+            text.close();
+            Files.deleteIfExists(textFile);
+        } catch (IOException e) {
+            System.err.println("Error removing temporary index file: " + e.getMessage());
+        }
+    }
+
+    private int appendText(byte[] bytes) throws IOException {
+        if (textBytes + bytes.length > Integer.MAX_VALUE) {
+            throw new IOException("Index segment text would exceed 2 GB");
+        }
+        int position = (int) textBytes;
+        text.write(bytes);
+        textBytes += bytes.length;
+        return position;
+    }
+
+    private static int writeVarint(byte[] target, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            target[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[position++] = (byte) value;
+        return position;
+    }
+}
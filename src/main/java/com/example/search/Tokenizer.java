@@ -0,0 +1,57 @@
+package com.example.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Splits note text into lower-case search terms: runs of letters and digits, except that CJK
+ * ideographs and kana become one term per character, as those scripts don't separate words
+ */
+final class Tokenizer {
+    private Tokenizer() {
+    }
+
+    static void tokenize(CharSequence text, Consumer<String> terms) {
+        StringBuilder term = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = Character.codePointAt(text, i);
+            i += Character.charCount(codePoint);
+            if (isSingleCharacterTerm(codePoint)) {
+                flush(term, terms);
+                terms.accept(new String(Character.toChars(codePoint)));
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                term.appendCodePoint(Character.toLowerCase(codePoint));
+            } else {
+                flush(term, terms);
+            }
+        }
+        flush(term, terms);
+    }
+
+    static List<String> tokens(CharSequence text) {
+        List<String> tokens = new ArrayList<>();
+        tokenize(text, tokens::add);
+        return tokens;
+    }
+
+    private static boolean isSingleCharacterTerm(int codePoint) {
+        // Kana and CJK ideographs all lie above this
+        if (codePoint < 0x3040) {
+            return false;
+        }
+        if (Character.isIdeographic(codePoint)) {
+            return true;
+        }
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HIRAGANA || script == Character.UnicodeScript.KATAKANA;
+    }
+
+    private static void flush(StringBuilder term, Consumer<String> terms) {
+        if (term.length() > 0) {
+            terms.accept(term.toString());
+            term.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.store;
+
+import com.example.TimestampEntry;
+import com.example.TimestampType;
+import java.util.List;
+
+/**
+ * A list of entries whose time, date added, type and identity can be read without materializing them
+ */
+public interface EntryList extends List<TimestampEntry> {
+    long millisAt(int index);
+
+    /**
+     * Date added as SessionFormat epoch milliseconds
+     */
+    long addedAt(int index);
+
+    TimestampType typeAt(int index);
+
+    /**
+     * Identifies the entry at index: two lists from the same store hold the same entry where the ids are equal
+     */
+    long idAt(int index);
+}
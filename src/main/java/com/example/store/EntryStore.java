@@ -0,0 +1,88 @@
+package com.example.store;
+
+import com.example.TimestampEntry;
+import com.example.TimestampType;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Storage behind TimestampService for the chronologically sorted entry list
+ * Rows are positions in time order. Besides whole entries, the time, date added and type of a row
+ * can be read directly, so searches and indexes don't have to materialize entries.
+ * An entry handed out stays the same object for as long as anything references it, so callers can
+ * keep matching entries by identity; after changing an entry's notes in place, call updated(row).
+ */
+public interface EntryStore {
+    /** "heap" (default) or "mapped" */
+    String STORE_PROPERTY = "recorder.store";
+
+    int size();
+
+    TimestampEntry get(int row);
+
+    /**
+     * Time of the entry at the given row in milliseconds
+     */
+    long millisAt(int row);
+
+    /**
+     * Date added of the entry at the given row, as SessionFormat epoch milliseconds
+     */
+    long addedAt(int row);
+
+    TimestampType typeAt(int row);
+
+    void add(int row, TimestampEntry entry);
+
+    TimestampEntry remove(int row);
+
+    /**
+     * Writes back the entry at the given row after its notes were changed in place
+     */
+    void updated(int row);
+
+    /**
+     * Replaces everything with entries already in time order
+     */
+    void replaceAll(List<TimestampEntry> sortedEntries);
+
+    void clear();
+
+    /**
+     * The current rows as a list that later changes to the store don't affect
+     */
+    List<TimestampEntry> snapshot();
+
+    /**
+     * The current rows as a read-only list that follows later changes, without copying them;
+     * only read it on the thread that changes the store
+     */
+    List<TimestampEntry> view();
+
+    /**
+     * One-line description for diagnostics, e.g. the backend and its size
+     */
+    String describe();
+
+    /**
+     * Whether the store holds the entry objects themselves; false when entries are rebuilt from
+     * storage on demand and dropped again once unused
+     */
+    boolean keepsEntries();
+
+    void close();
+
+    /**
+     * Creates the store selected by -Drecorder.store; falls back to the heap if the mapped store can't be set up
+     */
+    static EntryStore create() {
+        if ("mapped".equalsIgnoreCase(System.getProperty(STORE_PROPERTY, "").trim())) {
+            try {
+                return new MappedEntryStore();
+            } catch (IOException e) {
+                System.err.println("Could not create mapped entry store, keeping entries on the heap: " + e.getMessage());
+            }
+        }
+        return new HeapEntryStore();
+    }
+}
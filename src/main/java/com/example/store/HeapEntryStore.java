@@ -0,0 +1,105 @@
+package com.example.store;
+
+import com.example.SessionFormat;
+import com.example.TimestampEntry;
+import com.example.TimestampType;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Keeps entries in an ArrayList on the heap; the default store
+ */
+public class HeapEntryStore implements EntryStore {
+    private List<TimestampEntry> entries = new ArrayList<>();
+    // Reads whichever list is current, as replaceAll() swaps it
+    private final List<TimestampEntry> view = new LiveView();
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public TimestampEntry get(int row) {
+        return entries.get(row);
+    }
+
+    @Override
+    public long millisAt(int row) {
+        return entries.get(row).getMillis();
+    }
+
+    @Override
+    public long addedAt(int row) {
+        return SessionFormat.toEpochMillis(entries.get(row).getDateAdded());
+    }
+
+    @Override
+    public TimestampType typeAt(int row) {
+        return entries.get(row).getType();
+    }
+
+    @Override
+    public void add(int row, TimestampEntry entry) {
+        entries.add(row, entry);
+    }
+
+    @Override
+    public TimestampEntry remove(int row) {
+        return entries.remove(row);
+    }
+
+    @Override
+    public void updated(int row) {
+        // The list holds the entry itself
+    }
+
+    @Override
+    public void replaceAll(List<TimestampEntry> sortedEntries) {
+        entries = new ArrayList<>(sortedEntries);
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public List<TimestampEntry> snapshot() {
+        return new ArrayList<>(entries);
+    }
+
+    @Override
+    public List<TimestampEntry> view() {
+        return view;
+    }
+
+    @Override
+    public String describe() {
+        return "heap, " + entries.size() + " entries";
+    }
+
+    @Override
+    public boolean keepsEntries() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        entries = new ArrayList<>();
+    }
+
+    private final class LiveView extends AbstractList<TimestampEntry> implements RandomAccess {
+        @Override
+        public TimestampEntry get(int index) {
+            return entries.get(index);
+        }
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+    }
+}
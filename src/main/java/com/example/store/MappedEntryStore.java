@@ -0,0 +1,596 @@
+package com.example.store;
+
+import com.example.NoteSegments;
+import com.example.SessionFormat;
+import com.example.Timecode;
+import com.example.TimestampEntry;
+import com.example.TimestampType;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Keeps entries in memory-mapped temporary files instead of as objects on the heap, for sessions
+ * too large to hold there. Each entry is a fixed 32-byte record (time in milliseconds and its style,
+ * date added, type and where its notes are) plus its note segments as UTF-8 in a second, append-only
+ * file; only the row order (one int per row) stays on the heap.
+ * Entries are materialized on demand. The most recently used ones (the visible table window) are
+ * cached, and all materialized entries are interned weakly so a row gives back the same object for as
+ * long as it is referenced. Space left by removed rows and rewritten notes is reclaimed by copying the
+ * live rows into another set of files once it outweighs them. Replaced sets of files are reused once
+ * no snapshot reads them any more, and files left behind by earlier runs are removed on startup.
+ */
+public class MappedEntryStore implements EntryStore {
+    /** Directory for the mapped files, the system temp directory by default */
+    public static final String DIRECTORY_PROPERTY = "recorder.store.dir";
+    /** Number of materialized entries kept cached */
+    public static final String CACHE_PROPERTY = "recorder.store.cache";
+    public static final int DEFAULT_CACHE_ENTRIES = 4096;
+
+    // Record layout; records divide the chunk size evenly so none straddles two chunks
+    private static final int RECORD_BYTES = 32;
+    private static final int MILLIS_OFFSET = 0;
+    private static final int ADDED_OFFSET = 8;
+    private static final int TEXT_POSITION_OFFSET = 16;
+    private static final int TEXT_LENGTH_OFFSET = 24;
+    private static final int TYPE_OFFSET = 28;
+    private static final int STYLE_OFFSET = 29;
+    // Compact once dead bytes pass this and outweigh the live ones
+    private static final long MIN_COMPACT_BYTES = 16 << 20;
+    private static final int MIN_INTERN_CAPACITY = 4096;
+    private static final TimestampType[] TYPES = TimestampType.values();
+    private static final Timecode.Style[] STYLES = Timecode.Style.values();
+    private static final String RECORDS_PREFIX = "recorder-entries-";
+    private static final String TEXT_PREFIX = "recorder-text-";
+    // Replaced generations whose files are kept for reuse; older ones are deleted
+    private static final int MAX_RETIRED = 2;
+    private static final Set<Path> SWEPT_DIRECTORIES = new HashSet<>();
+
+    /**
+     * One set of files; a new one is started by replaceAll(), clear() and compaction, so row
+     * snapshots of an older one stay readable
+     */
+    private static final class Generation {
+        final int id;
+        final MappedFile records;
+        final MappedFile text;
+        int slotCount;
+        long textEnd;
+
+        Generation(int id, MappedFile records, MappedFile text) {
+            this.id = id;
+            this.records = records;
+            this.text = text;
+        }
+    }
+
+    /**
+     * The files of a replaced generation, free for reuse once no snapshot references the generation
+     */
+    private static final class Retired extends WeakReference<Generation> {
+        final MappedFile records;
+        final MappedFile text;
+
+        Retired(Generation generation) {
+            super(generation);
+            this.records = generation.records;
+            this.text = generation.text;
+        }
+
+        void close() {
+            records.close();
+            text.close();
+        }
+    }
+
+    /**
+     * Weak reference to a materialized entry that remembers its key, for purging
+     */
+    private static final class SlotReference extends WeakReference<TimestampEntry> {
+        final long key;
+
+        SlotReference(TimestampEntry entry, long key, ReferenceQueue<TimestampEntry> queue) {
+            super(entry, queue);
+            this.key = key;
+        }
+    }
+
+    private final Path directory;
+    private final Map<Long, TimestampEntry> recent;
+    private Map<Long, SlotReference> interned = new HashMap<>();
+    private final ReferenceQueue<TimestampEntry> released = new ReferenceQueue<>();
+    private int internedPeak;
+
+    private Generation generation;
+    private int nextGenerationId;
+    private final List<Retired> retired = new ArrayList<>();
+    // Row -> slot in the current generation
+    private int[] rowSlots = new int[16];
+    private int size;
+    private long deadBytes;
+    private final List<TimestampEntry> view = new LiveRows();
+
+    public MappedEntryStore() throws IOException {
+        this(Paths.get(System.getProperty(DIRECTORY_PROPERTY, System.getProperty("java.io.tmpdir"))),
+             Integer.getInteger(CACHE_PROPERTY, DEFAULT_CACHE_ENTRIES));
+    }
+
+    public MappedEntryStore(Path directory, int cacheEntries) throws IOException {
+        this.directory = directory;
+        sweep(directory);
+        int capacity = Math.max(1, cacheEntries);
+        this.recent = new LinkedHashMap<Long, TimestampEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, TimestampEntry> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.generation = new Generation(nextGenerationId++, new MappedFile(directory, RECORDS_PREFIX),
+                new MappedFile(directory, TEXT_PREFIX));
+    }
+
+    /**
+     * Removes files left by earlier runs, once per directory
+     */
+    private static void sweep(Path directory) {
+        synchronized (SWEPT_DIRECTORIES) {
+            if (SWEPT_DIRECTORIES.add(directory.toAbsolutePath())) {
+                MappedFile.deleteStale(directory, RECORDS_PREFIX);
+                MappedFile.deleteStale(directory, TEXT_PREFIX);
+            }
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized TimestampEntry get(int row) {
+        return materialize(generation, rowSlots[checkRow(row)]);
+    }
+
+    @Override
+    public synchronized long millisAt(int row) {
+        return readLong(generation, rowSlots[checkRow(row)], MILLIS_OFFSET);
+    }
+
+    @Override
+    public synchronized long addedAt(int row) {
+        return readLong(generation, rowSlots[checkRow(row)], ADDED_OFFSET);
+    }
+
+    @Override
+    public synchronized TimestampType typeAt(int row) {
+        return readType(generation, rowSlots[checkRow(row)]);
+    }
+
+    @Override
+    public synchronized void add(int row, TimestampEntry entry) {
+        if (row < 0 || row > size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        int slot = append(generation, entry);
+        if (size == rowSlots.length) {
+            rowSlots = Arrays.copyOf(rowSlots, size * 2);
+        }
+        System.arraycopy(rowSlots, row, rowSlots, row + 1, size - row);
+        rowSlots[row] = slot;
+        size++;
+        intern(key(generation, slot), entry);
+    }
+
+    @Override
+    public synchronized TimestampEntry remove(int row) {
+        TimestampEntry entry = get(row);
+        int slot = rowSlots[row];
+        deadBytes += RECORD_BYTES + readTextLength(generation, slot);
+        System.arraycopy(rowSlots, row + 1, rowSlots, row, size - row - 1);
+        size--;
+        compactIfSparse();
+        return entry;
+    }
+
+    @Override
+    public synchronized void updated(int row) {
+        TimestampEntry entry = get(row);
+        int slot = rowSlots[row];
+        deadBytes += readTextLength(generation, slot);
+        write(generation, slot, entry);
+        compactIfSparse();
+    }
+
+    @Override
+    public synchronized void replaceAll(List<TimestampEntry> sortedEntries) {
+        Generation next = newGeneration();
+        int[] slots = new int[Math.max(16, sortedEntries.size())];
+        Map<Long, SlotReference> keep = new HashMap<>();
+        for (int row = 0; row < sortedEntries.size(); row++) {
+            TimestampEntry entry = sortedEntries.get(row);
+            slots[row] = append(next, entry);
+            long key = key(next, slots[row]);
+            keep.put(key, new SlotReference(entry, key, released));
+        }
+        switchTo(next, slots, sortedEntries.size(), keep);
+    }
+
+    @Override
+    public synchronized void clear() {
+        switchTo(newGeneration(), new int[16], 0, new HashMap<>());
+    }
+
+    @Override
+    public synchronized List<TimestampEntry> snapshot() {
+        return new Snapshot(generation, Arrays.copyOf(rowSlots, size));
+    }
+
+    @Override
+    public List<TimestampEntry> view() {
+        return view;
+    }
+
+    @Override
+    public synchronized String describe() {
+        purge();
+        long mapped = generation.records.mappedBytes() + generation.text.mappedBytes();
+        return String.format("memory-mapped, %d entries, %d MB mapped (%d MB reclaimable), %d entries materialized",
+                size, mapped >> 20, deadBytes >> 20, interned.size());
+    }
+
+    @Override
+    public boolean keepsEntries() {
+        return false;
+    }
+
+    @Override
+    public synchronized void close() {
+        generation.records.close();
+        generation.text.close();
+        for (Retired files : retired) {
+            files.close();
+        }
+        retired.clear();
+        recent.clear();
+        interned.clear();
+        size = 0;
+    }
+
+    /**
+     * Copies the live rows into fresh files once dead space outweighs them. Entries still referenced
+     * are re-keyed, so they keep their identity.
+     */
+    private void compactIfSparse() {
+        long used = (long) generation.slotCount * RECORD_BYTES + generation.textEnd;
+        if (deadBytes < MIN_COMPACT_BYTES || deadBytes < used - deadBytes) {
+            return;
+        }
+        Generation old = generation;
+        Generation next = newGeneration();
+        int[] oldToNew = new int[old.slotCount];
+        Arrays.fill(oldToNew, -1);
+        int[] slots = new int[Math.max(16, size)];
+        for (int row = 0; row < size; row++) {
+            int slot = rowSlots[row];
+            byte[] text = old.text.read(readLong(old, slot, TEXT_POSITION_OFFSET), readTextLength(old, slot));
+            slots[row] = appendRecord(next, readLong(old, slot, MILLIS_OFFSET), readStyle(old, slot),
+                    readLong(old, slot, ADDED_OFFSET), readType(old, slot), text);
+            oldToNew[slot] = slots[row];
+        }
+        Map<Long, SlotReference> keep = new HashMap<>();
+        purge();
+        for (SlotReference reference : interned.values()) {
+            TimestampEntry entry = reference.get();
+            if (entry != null && generationOf(reference.key) == old.id && oldToNew[slotOf(reference.key)] >= 0) {
+                long key = key(next, oldToNew[slotOf(reference.key)]);
+                keep.put(key, new SlotReference(entry, key, released));
+            }
+        }
+        switchTo(next, slots, size, keep);
+    }
+
+    /**
+     * Makes the given generation current and retires the old one: snapshots still holding it keep
+     * reading its files, which are reused by a later generation once those snapshots are dropped
+     */
+    private void switchTo(Generation next, int[] slots, int rows, Map<Long, SlotReference> keep) {
+        Generation old = generation;
+        generation = next;
+        rowSlots = slots;
+        size = rows;
+        deadBytes = 0;
+        recent.clear();
+        interned = keep;
+        internedPeak = keep.size();
+        retired.add(new Retired(old));
+        if (retired.size() > MAX_RETIRED) {
+            // Deleted now; the mappings of snapshots still reading them stay valid until collected
+            retired.remove(0).close();
+        }
+    }
+
+    /**
+     * Starts a generation in the files of a retired one nothing reads any more, or in new files
+     */
+    private Generation newGeneration() {
+        for (int i = 0; i < retired.size(); i++) {
+            Retired files = retired.get(i);
+            if (files.get() == null) {
+                retired.remove(i);
+                files.records.truncate();
+                files.text.truncate();
+                return new Generation(nextGenerationId++, files.records, files.text);
+            }
+        }
+        try {
+            return new Generation(nextGenerationId++, new MappedFile(directory, RECORDS_PREFIX),
+                    new MappedFile(directory, TEXT_PREFIX));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create mapped entry files in " + directory, e);
+        }
+    }
+
+    private TimestampEntry materialize(Generation source, int slot) {
+        long key = key(source, slot);
+        TimestampEntry entry = recent.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        purge();
+        SlotReference reference = interned.get(key);
+        entry = reference == null ? null : reference.get();
+        if (entry == null) {
+            entry = read(source, slot);
+            intern(key, entry);
+        }
+        recent.put(key, entry);
+        return entry;
+    }
+
+    private void intern(long key, TimestampEntry entry) {
+        purge();
+        interned.put(key, new SlotReference(entry, key, released));
+        internedPeak = Math.max(internedPeak, interned.size());
+    }
+
+    /**
+     * Drops collected entries from the intern table, and shrinks the table after a large batch
+     * of entries has gone
+     */
+    private void purge() {
+        SlotReference reference;
+        while ((reference = (SlotReference) released.poll()) != null) {
+            if (interned.get(reference.key) == reference) {
+                interned.remove(reference.key);
+            }
+        }
+        if (internedPeak > MIN_INTERN_CAPACITY && interned.size() < internedPeak / 8) {
+            interned = new HashMap<>(interned);
+            internedPeak = interned.size();
+        }
+    }
+
+    private TimestampEntry read(Generation source, int slot) {
+        long record = (long) slot * RECORD_BYTES;
+        ByteBuffer chunk = source.records.chunk(record);
+        int offset = MappedFile.offset(record);
+        ByteBuffer text = ByteBuffer.wrap(source.text.read(chunk.getLong(offset + TEXT_POSITION_OFFSET),
+                chunk.getInt(offset + TEXT_LENGTH_OFFSET)));
+        int segments = text.getInt();
+        NoteSegments notes = NoteSegments.empty();
+        for (int i = 0; i < segments; i++) {
+            notes.add(readString(text));
+        }
+        TimestampEntry entry = new TimestampEntry(chunk.getLong(offset + MILLIS_OFFSET),
+                STYLES[chunk.get(offset + STYLE_OFFSET)], notes, TYPES[chunk.get(offset + TYPE_OFFSET)]);
+        entry.setDateAdded(SessionFormat.fromEpochMillis(chunk.getLong(offset + ADDED_OFFSET)));
+        return entry;
+    }
+
+    private int append(Generation target, TimestampEntry entry) {
+        return appendRecord(target, entry.getMillis(), entry.getStyle(),
+                SessionFormat.toEpochMillis(entry.getDateAdded()), entry.getType(), encodeText(entry));
+    }
+
+    private int appendRecord(Generation target, long millis, Timecode.Style style, long added, TimestampType type,
+            byte[] text) {
+        int slot = target.slotCount++;
+        target.records.ensure((long) (slot + 1) * RECORD_BYTES);
+        writeRecord(target, slot, millis, style, added, type, text);
+        return slot;
+    }
+
+    /**
+     * Rewrites a slot with the entry's current contents; the text goes to the end of the text file
+     */
+    private void write(Generation target, int slot, TimestampEntry entry) {
+        writeRecord(target, slot, entry.getMillis(), entry.getStyle(), SessionFormat.toEpochMillis(entry.getDateAdded()),
+                entry.getType(), encodeText(entry));
+    }
+
+    private void writeRecord(Generation target, int slot, long millis, Timecode.Style style, long added,
+            TimestampType type, byte[] text) {
+        long textPosition = MappedFile.fit(target.textEnd, text.length);
+        target.text.write(textPosition, text);
+        deadBytes += textPosition - target.textEnd;
+        target.textEnd = textPosition + text.length;
+
+        long record = (long) slot * RECORD_BYTES;
+        ByteBuffer chunk = target.records.chunk(record);
+        int offset = MappedFile.offset(record);
+        chunk.putLong(offset + MILLIS_OFFSET, millis);
+        chunk.putLong(offset + ADDED_OFFSET, added);
+        chunk.putLong(offset + TEXT_POSITION_OFFSET, textPosition);
+        chunk.putInt(offset + TEXT_LENGTH_OFFSET, text.length);
+        chunk.put(offset + TYPE_OFFSET, (byte) type.ordinal());
+        chunk.put(offset + STYLE_OFFSET, (byte) style.ordinal());
+    }
+
+    /**
+     * The note segment count followed by the segments, each as a length-prefixed UTF-8 string
+     */
+    private static byte[] encodeText(TimestampEntry entry) {
+        NoteSegments notes = entry.getNoteSegments();
+        byte[][] strings = new byte[notes.size()][];
+        int length = 4;
+        for (int i = 0; i < notes.size(); i++) {
+            strings[i] = notes.get(i).getBytes(StandardCharsets.UTF_8);
+            length += 4 + strings[i].length;
+        }
+        ByteBuffer text = ByteBuffer.allocate(length);
+        text.putInt(notes.size());
+        for (byte[] string : strings) {
+            text.putInt(string.length).put(string);
+        }
+        return text.array();
+    }
+
+    private static String readString(ByteBuffer text) {
+        int length = text.getInt();
+        String value = new String(text.array(), text.position(), length, StandardCharsets.UTF_8);
+        text.position(text.position() + length);
+        return value;
+    }
+
+    private static long readLong(Generation source, int slot, int field) {
+        long record = (long) slot * RECORD_BYTES;
+        return source.records.chunk(record).getLong(MappedFile.offset(record) + field);
+    }
+
+    private static int readTextLength(Generation source, int slot) {
+        long record = (long) slot * RECORD_BYTES;
+        return source.records.chunk(record).getInt(MappedFile.offset(record) + TEXT_LENGTH_OFFSET);
+    }
+
+    private static Timecode.Style readStyle(Generation source, int slot) {
+        long record = (long) slot * RECORD_BYTES;
+        return STYLES[source.records.chunk(record).get(MappedFile.offset(record) + STYLE_OFFSET)];
+    }
+
+    private static TimestampType readType(Generation source, int slot) {
+        long record = (long) slot * RECORD_BYTES;
+        return TYPES[source.records.chunk(record).get(MappedFile.offset(record) + TYPE_OFFSET)];
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return row;
+    }
+
+    private static long key(Generation source, int slot) {
+        return ((long) source.id << 32) | slot;
+    }
+
+    private static int generationOf(long key) {
+        return (int) (key >>> 32);
+    }
+
+    private static int slotOf(long key) {
+        return (int) key;
+    }
+
+    /**
+     * The rows at one moment; entries are materialized as they are read
+     */
+    private final class Snapshot extends AbstractList<TimestampEntry> implements EntryList, RandomAccess {
+        private final Generation source;
+        private final int[] slots;
+
+        Snapshot(Generation source, int[] slots) {
+            this.source = source;
+            this.slots = slots;
+        }
+
+        @Override
+        public TimestampEntry get(int index) {
+            synchronized (MappedEntryStore.this) {
+                return materialize(source, slots[index]);
+            }
+        }
+
+        @Override
+        public int size() {
+            return slots.length;
+        }
+
+        @Override
+        public long millisAt(int index) {
+            synchronized (MappedEntryStore.this) {
+                return readLong(source, slots[index], MILLIS_OFFSET);
+            }
+        }
+
+        @Override
+        public long addedAt(int index) {
+            synchronized (MappedEntryStore.this) {
+                return readLong(source, slots[index], ADDED_OFFSET);
+            }
+        }
+
+        @Override
+        public TimestampType typeAt(int index) {
+            synchronized (MappedEntryStore.this) {
+                return readType(source, slots[index]);
+            }
+        }
+
+        @Override
+        public long idAt(int index) {
+            return key(source, slots[index]);
+        }
+    }
+
+    /**
+     * The current rows, read through to whichever generation is current
+     */
+    private final class LiveRows extends AbstractList<TimestampEntry> implements EntryList, RandomAccess {
+        @Override
+        public TimestampEntry get(int index) {
+            return MappedEntryStore.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return MappedEntryStore.this.size();
+        }
+
+        @Override
+        public long millisAt(int index) {
+            return MappedEntryStore.this.millisAt(index);
+        }
+
+        @Override
+        public long addedAt(int index) {
+            return MappedEntryStore.this.addedAt(index);
+        }
+
+        @Override
+        public TimestampType typeAt(int index) {
+            return MappedEntryStore.this.typeAt(index);
+        }
+
+        @Override
+        public long idAt(int index) {
+            synchronized (MappedEntryStore.this) {
+                return key(generation, rowSlots[index]);
+            }
+        }
+    }
+}
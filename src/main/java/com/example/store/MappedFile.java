@@ -0,0 +1,153 @@
+package com.example.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A temporary file mapped into memory in fixed-size chunks as it grows, deleted when closed
+ * Callers keep every value inside one chunk, so reads and writes are plain absolute buffer accesses.
+ * The last chunk is mapped small and remapped at twice the size as it fills, so a small session
+ * doesn't map (or allocate on disk) a whole chunk.
+ */
+final class MappedFile {
+    static final int CHUNK_BYTES = 64 << 20;
+    private static final int FIRST_MAPPING_BYTES = 1 << 20;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+
+    MappedFile(Path directory, String prefix) throws IOException {
+        path = Files.createTempFile(directory, prefix, ".dat");
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Maps further chunks, or remaps the last one larger, until the given position is covered
+     */
+    void ensure(long end) {
+        while (mappedBytes() < end) {
+            int last = chunks.size() - 1;
+            if (last >= 0 && chunks.get(last).capacity() < CHUNK_BYTES) {
+                long needed = end - (long) last * CHUNK_BYTES;
+                int size = chunks.get(last).capacity();
+                while (size < needed && size < CHUNK_BYTES) {
+                    size *= 2;
+                }
+                chunks.set(last, map(last, Math.min(size, CHUNK_BYTES)));
+            } else {
+                chunks.add(map(chunks.size(), FIRST_MAPPING_BYTES));
+            }
+        }
+    }
+
+    private ByteBuffer map(int chunk, int size) {
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, (long) chunk * CHUNK_BYTES, size);
+            return buffer.order(ByteOrder.nativeOrder());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not grow mapped file", e);
+        }
+    }
+
+    /**
+     * The chunk holding the given position; index into it with offset(position)
+     */
+    ByteBuffer chunk(long position) {
+        return chunks.get((int) (position / CHUNK_BYTES));
+    }
+
+    static int offset(long position) {
+        return (int) (position % CHUNK_BYTES);
+    }
+
+    /**
+     * First position at or after the given one where length bytes fit within a chunk
+     */
+    static long fit(long position, int length) {
+        if (length > CHUNK_BYTES) {
+            throw new IllegalArgumentException("Value of " + length + " bytes is larger than a mapped chunk");
+        }
+        return offset(position) + length > CHUNK_BYTES ? position - offset(position) + CHUNK_BYTES : position;
+    }
+
+    byte[] read(long position, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer source = chunk(position).duplicate();
+        source.position(offset(position));
+        source.get(bytes);
+        return bytes;
+    }
+
+    void write(long position, byte[] bytes) {
+        ensure(position + bytes.length);
+        ByteBuffer target = chunk(position).duplicate();
+        target.position(offset(position));
+        target.put(bytes);
+    }
+
+    long mappedBytes() {
+        if (chunks.isEmpty()) {
+            return 0;
+        }
+        return (long) (chunks.size() - 1) * CHUNK_BYTES + chunks.get(chunks.size() - 1).capacity();
+    }
+
+    /**
+     * Empties the file for reuse; nobody may still read buffers mapped from it
+     */
+    void truncate() {
+        chunks.clear();
+        try {
+            channel.truncate(0);
+        } catch (IOException e) {
+            // Windows refuses while old mappings are not yet collected; they are overwritten instead
+        }
+    }
+
+    /**
+     * Closes and deletes the file; buffers already mapped stay readable until they are collected
+     */
+    void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing mapped file: " + e.getMessage());
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // Still mapped on Windows; removed by the next start's sweep
+        }
+    }
+
+    /**
+     * Deletes files left in the directory with the given prefix, e.g. by a run that crashed or by a
+     * platform that refused to delete them while mapped. Files another process still has mapped are
+     * either unaffected (POSIX keeps them until unmapped) or refused (Windows), so this is safe to run
+     * while other instances share the directory.
+     */
+    static void deleteStale(Path directory, String prefix) {
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, prefix + "*.dat")) {
+            for (Path file : stale) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    // In use
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error removing stale mapped files: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.task;
+
+/**
+ * Work submitted to the TaskExecutor; runs on a pool thread, so it must not touch Swing or the model
+ */
+@FunctionalInterface
+public interface BackgroundTask<T> {
+    /**
+     * Does the work, reporting progress and checking for cancellation through the context
+     */
+    T run(TaskContext context) throws Exception;
+}
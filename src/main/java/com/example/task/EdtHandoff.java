@@ -0,0 +1,68 @@
+package com.example.task;
+
+import com.example.metrics.Histogram;
+import com.example.metrics.MetricsRegistry;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.swing.SwingUtilities;
+
+/**
+ * Passes task progress and results to the EDT. At most one invokeLater is pending at a time: whatever
+ * arrives before it runs is delivered in the same pass, and a task's progress is reduced to its latest value.
+ * - task.handoff: progress updates and results delivered per pass
+ */
+final class EdtHandoff {
+    private static final Histogram HANDOFF = MetricsRegistry.getInstance().histogram("task.handoff", "items");
+
+    private final Queue<Runnable> results = new ConcurrentLinkedQueue<>();
+    private final Set<TaskHandle<?>> progressed = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    void progress(TaskHandle<?> handle) {
+        if (progressed.add(handle)) {
+            schedule();
+        }
+    }
+
+    void result(Runnable delivery) {
+        results.add(delivery);
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::drain);
+        }
+    }
+
+    private void drain() {
+        // Cleared first, so anything posted during this pass schedules the next one
+        scheduled.set(false);
+        int items = 0;
+        for (Iterator<TaskHandle<?>> handles = progressed.iterator(); handles.hasNext(); items++) {
+            TaskHandle<?> handle = handles.next();
+            handles.remove();
+            deliver(handle::deliverProgress);
+        }
+        for (Runnable delivery = results.poll(); delivery != null; delivery = results.poll(), items++) {
+            deliver(delivery);
+        }
+        HANDOFF.record(items);
+    }
+
+    /**
+     * A failing listener must not keep the rest of the pass from being delivered
+     */
+    private static void deliver(Runnable delivery) {
+        try {
+            delivery.run();
+        } catch (RuntimeException e) {
+            System.err.println("Error in background task listener: " + e);
+            e.printStackTrace();
+        }
+    }
+}
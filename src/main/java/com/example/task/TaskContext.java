@@ -0,0 +1,24 @@
+package com.example.task;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * What a running BackgroundTask can see of its handle
+ */
+public interface TaskContext {
+    /**
+     * Reports progress; only the latest report is passed on to the EDT
+     */
+    void progress(long done, long total);
+
+    boolean isCancelled();
+
+    /**
+     * Throws CancellationException once the task was cancelled, for tasks that don't watch for interrupts
+     */
+    default void checkCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.task;
+
+import com.example.metrics.Counter;
+import com.example.metrics.Histogram;
+import com.example.metrics.MetricsRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs the application's background work: file reads and writes on the IO pool, parsing and searching
+ * on the CPU pool. Both pools have a fixed number of named daemon threads and a bounded queue. When a
+ * queue is full, submitting from a background thread waits for room; submitting from the EDT fails the
+ * task instead, so the UI never blocks on it. Progress and results reach the EDT through one coalescing
+ * handoff (EdtHandoff). Saves are never cancelled, and shutdown() waits for them.
+ * - task.io, task.cpu: run time from start to result (latency histograms, ns), not counting the time queued;
+ *   task.wait: time spent queued; task.rejected: tasks refused when full
+ */
+public final class TaskExecutor {
+    public enum Pool { IO, CPU }
+
+    public static final String IO_THREADS_PROPERTY = "recorder.tasks.ioThreads";
+    public static final int DEFAULT_IO_THREADS = 4;
+    public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+    private static final Histogram IO_LATENCY = MetricsRegistry.getInstance().latency("task.io");
+    private static final Histogram CPU_LATENCY = MetricsRegistry.getInstance().latency("task.cpu");
+    private static final Histogram WAIT_LATENCY = MetricsRegistry.getInstance().latency("task.wait");
+    private static final Counter REJECTED = MetricsRegistry.getInstance().counter("task.rejected");
+
+    private final ThreadPoolExecutor io;
+    private final ThreadPoolExecutor cpu;
+    private final EdtHandoff handoff = new EdtHandoff();
+    private final Set<TaskHandle<?>> running = ConcurrentHashMap.newKeySet();
+    // Tasks whose listener has not run yet; also the monitor awaitIdle() waits on
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    public TaskExecutor() {
+        this(Integer.getInteger(IO_THREADS_PROPERTY, DEFAULT_IO_THREADS),
+                Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public TaskExecutor(int ioThreads, int cpuThreads, int queueCapacity) {
+        io = createPool("task-io", ioThreads, queueCapacity);
+        cpu = createPool("task-cpu", cpuThreads, queueCapacity);
+    }
+
+    private static ThreadPoolExecutor createPool(String name, int threads, int queueCapacity) {
+        AtomicInteger count = new AtomicInteger();
+        int size = Math.max(1, threads);
+        return new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, TaskExecutor::queueFull);
+    }
+
+    /**
+     * Backpressure: a background submitter waits for room in the queue, the EDT is turned away
+     */
+    private static void queueFull(Runnable runnable, ThreadPoolExecutor pool) {
+        if (pool.isShutdown()) {
+            throw new RejectedExecutionException("Shutting down");
+        }
+        if (SwingUtilities.isEventDispatchThread()) {
+            REJECTED.increment();
+            throw new RejectedExecutionException("Too many background tasks are waiting; try again shortly");
+        }
+        try {
+            pool.getQueue().put(runnable);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting to queue the task", e);
+        }
+    }
+
+    /**
+     * Runs the task on the given pool; the listener gets its progress and result on the EDT
+     */
+    public <T> TaskHandle<T> submit(Pool pool, String name, BackgroundTask<T> task, TaskListener<T> listener) {
+        return start(new TaskHandle<>(this, name, pool, false, task, listener));
+    }
+
+    /**
+     * Runs a save on the IO pool; it can't be cancelled and shutdown() waits for it
+     */
+    public <T> TaskHandle<T> submitSave(String name, BackgroundTask<T> task, TaskListener<T> listener) {
+        return start(new TaskHandle<>(this, name, Pool.IO, true, task, listener));
+    }
+
+    /**
+     * The pool as a plain Executor, for work that keeps its own order and reports back itself, e.g. the
+     * library index's updates. Queueing follows the same backpressure rules; awaitIdle() and the task
+     * metrics don't see this work, and shutdown() drops what is still queued.
+     */
+    public Executor executor(Pool pool) {
+        return (pool == Pool.IO ? io : cpu)::execute;
+    }
+
+    private <T> TaskHandle<T> start(TaskHandle<T> handle) {
+        outstanding.incrementAndGet();
+        running.add(handle);
+        try {
+            (handle.getPool() == Pool.IO ? io : cpu).execute(handle::run);
+        } catch (RejectedExecutionException e) {
+            // Reported to the listener like any other failure
+            handle.reject(e);
+        }
+        return handle;
+    }
+
+    /**
+     * Called by the handle once its result is set, on the thread that set it
+     */
+    void finished(TaskHandle<?> handle) {
+        running.remove(handle);
+        // Tasks rejected or cancelled before they started have no run time
+        if (handle.getStarted() != 0) {
+            (handle.getPool() == Pool.IO ? IO_LATENCY : CPU_LATENCY).recordSince(handle.getStarted());
+        }
+        handoff.result(() -> {
+            try {
+                handle.deliverResult();
+            } finally {
+                synchronized (outstanding) {
+                    if (outstanding.decrementAndGet() == 0) {
+                        outstanding.notifyAll();
+                    }
+                }
+            }
+        });
+    }
+
+    void recordWait(long submitted) {
+        WAIT_LATENCY.recordSince(submitted);
+    }
+
+    EdtHandoff handoff() {
+        return handoff;
+    }
+
+    /**
+     * Tasks submitted and not finished yet
+     */
+    public List<TaskHandle<?>> getRunning() {
+        return new ArrayList<>(running);
+    }
+
+    /**
+     * Waits until every submitted task has finished and its listener has run on the EDT,
+     * e.g. for scripted runs; must not be called on the EDT. Returns false on timeout.
+     */
+    public boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        if (SwingUtilities.isEventDispatchThread()) {
+            throw new IllegalStateException("awaitIdle() would block the EDT it waits for");
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (outstanding) {
+            while (outstanding.get() > 0) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                outstanding.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops taking tasks, cancels everything but saves, and waits up to the timeout for the saves
+     * to finish. Returns false if a save was still running or failed.
+     */
+    public boolean shutdown(long timeoutMillis) {
+        io.shutdown();
+        cpu.shutdown();
+        List<TaskHandle<?>> saves = new ArrayList<>();
+        for (TaskHandle<?> handle : running) {
+            if (handle.isSave()) {
+                saves.add(handle);
+            } else {
+                handle.cancel();
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        boolean saved = true;
+        try {
+            for (TaskHandle<?> save : saves) {
+                try {
+                    save.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (ExecutionException e) {
+                    System.err.println(save.getName() + " failed: " + e.getCause());
+                    saved = false;
+                } catch (TimeoutException e) {
+                    System.err.println(save.getName() + " did not finish before shutdown");
+                    saved = false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            saved = false;
+        } finally {
+            io.shutdownNow();
+            cpu.shutdownNow();
+        }
+        return saved;
+    }
+}
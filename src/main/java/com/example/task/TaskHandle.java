@@ -0,0 +1,151 @@
+package com.example.task;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A submitted task: cancel it, wait for it, or check on it from any thread
+ */
+public final class TaskHandle<T> implements TaskContext {
+    private final TaskExecutor owner;
+    private final String name;
+    private final TaskExecutor.Pool pool;
+    private final boolean save;
+    private final TaskListener<T> listener;
+    private final Outcome outcome;
+    private final long submitted = System.nanoTime();
+    // When a pool thread picked the task up; 0 if it never ran
+    private volatile long started;
+    private volatile long done;
+    private volatile long total;
+
+    /**
+     * Tells the executor once the task has a result, however it got one
+     */
+    private final class Outcome extends FutureTask<T> {
+        Outcome(BackgroundTask<T> task) {
+            super(() -> task.run(TaskHandle.this));
+        }
+
+        void fail(Throwable cause) {
+            setException(cause);
+        }
+
+        @Override
+        protected void done() {
+            owner.finished(TaskHandle.this);
+        }
+    }
+
+    TaskHandle(TaskExecutor owner, String name, TaskExecutor.Pool pool, boolean save,
+               BackgroundTask<T> task, TaskListener<T> listener) {
+        this.owner = owner;
+        this.name = name;
+        this.pool = pool;
+        this.save = save;
+        this.listener = listener;
+        this.outcome = new Outcome(task);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public TaskExecutor.Pool getPool() {
+        return pool;
+    }
+
+    /**
+     * Whether shutdown waits for this task instead of cancelling it
+     */
+    public boolean isSave() {
+        return save;
+    }
+
+    /**
+     * Cancels the task, interrupting it if it is running; a save can't be cancelled.
+     * Returns false if the task had already finished.
+     */
+    public boolean cancel() {
+        return !save && outcome.cancel(true);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return outcome.isCancelled();
+    }
+
+    public boolean isDone() {
+        return outcome.isDone();
+    }
+
+    /**
+     * Waits for the result; the listener may not have run yet when this returns
+     */
+    public T get() throws InterruptedException, ExecutionException {
+        return outcome.get();
+    }
+
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return outcome.get(timeout, unit);
+    }
+
+    @Override
+    public void progress(long done, long total) {
+        this.done = done;
+        this.total = total;
+        owner.handoff().progress(this);
+    }
+
+    void run() {
+        started = System.nanoTime();
+        owner.recordWait(submitted);
+        outcome.run();
+    }
+
+    void reject(Throwable cause) {
+        outcome.fail(cause);
+    }
+
+    long getStarted() {
+        return started;
+    }
+
+    /**
+     * On the EDT: the latest progress, unless the result is already on its way
+     */
+    void deliverProgress() {
+        if (!isDone()) {
+            listener.progress(done, total);
+        }
+    }
+
+    /**
+     * On the EDT: the result
+     */
+    void deliverResult() {
+        if (outcome.isCancelled()) {
+            listener.cancelled();
+            return;
+        }
+        T result;
+        try {
+            result = outcome.get();
+        } catch (ExecutionException e) {
+            listener.failed(e.getCause());
+            return;
+        } catch (InterruptedException e) {
+            // Not reached: the task is done
+            Thread.currentThread().interrupt();
+            return;
+        }
+        listener.succeeded(result);
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + pool + (save ? ", save" : "") + ")";
+    }
+}
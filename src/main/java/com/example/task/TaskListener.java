@@ -0,0 +1,36 @@
+package com.example.task;
+
+import java.util.function.Consumer;
+
+/**
+ * Receives the outcome of a background task; every method is called on the EDT.
+ * Exactly one of succeeded(), failed() and cancelled() is called, after any progress().
+ */
+@FunctionalInterface
+public interface TaskListener<T> {
+    void succeeded(T result);
+
+    default void failed(Throwable cause) {
+        System.err.println("Background task failed: " + cause);
+    }
+
+    default void cancelled() {
+    }
+
+    default void progress(long done, long total) {
+    }
+
+    static <T> TaskListener<T> of(Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        return new TaskListener<T>() {
+            @Override
+            public void succeeded(T result) {
+                onSuccess.accept(result);
+            }
+
+            @Override
+            public void failed(Throwable cause) {
+                onFailure.accept(cause);
+            }
+        };
+    }
+}
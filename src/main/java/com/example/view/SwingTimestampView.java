@@ -1,27 +1,136 @@
 package com.example.view;
 
 import com.example.controller.TimestampController;
+import com.example.RowChanges;
 import com.example.TimestampEntry;
+import com.example.TimestampType;
 import com.example.view.components.UIComponents;
 import com.example.view.components.TimeModificationPanel;
 import com.example.view.components.DynamicNotesPanel;
+import com.example.view.components.TimestampPreviewDialog;
+import com.example.view.components.TimestampTableModel;
+import com.example.view.components.TimestampRowSorter;
+import com.example.view.components.TimelineStrip;
+import com.example.view.components.DiffDialog;
+import com.example.view.components.LibrarySearchDialog;
+import com.example.view.components.StatisticsPanel;
+import com.example.diff.DiffSummary;
+import com.example.diff.EntrySource;
+import com.example.diagnostics.EdtWatchdog;
+import com.example.diagnostics.GcMonitor;
+import com.example.diagnostics.RecorderEvents;
+import com.example.exporter.TimestampExporter;
+import com.example.lint.LintReport;
+import com.example.diagnostics.StartupTimer;
+import com.example.metrics.Histogram;
+import com.example.metrics.MetricsRegistry;
+import com.example.task.BackgroundTask;
+import com.example.task.TaskExecutor;
+import com.example.task.TaskListener;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.MenuEvent;
+import javax.swing.event.MenuListener;
+import javax.swing.filechooser.FileFilter;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.event.ActionEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Swing implementation of the TimestampView interface
  * Contains all GUI components and user interaction handling
  */
 public class SwingTimestampView implements TimestampView {
+    private static final Histogram REFRESH_LATENCY = MetricsRegistry.getInstance().latency("view.refreshTable");
+    private static final Histogram REFRESH_ROWS = MetricsRegistry.getInstance().histogram("view.refreshTable.rows", "rows");
+    
     private TimestampController controller;
     private JFrame frame;
     private JTextField timestampField;
     private DynamicNotesPanel notesPanel;
     private JTable timestampTable;
-    private DefaultTableModel tableModel;
+    private TimestampTableModel tableModel;
+    private TimestampRowSorter rowSorter;
+    private TimelineStrip timelineStrip;
+    private StatisticsPanel statisticsPanel;
+    private JDialog statisticsDialog;
+    private LibrarySearchDialog librarySearchDialog;
+    private boolean checkBeforeLoading = true;
+    private JComboBox<TypeFilter> typeFilter;
+    private JComboBox<AddedFilter> addedFilter;
+    private JFileChooser fileChooser;
+    private JButton liveButton;
+    private JLabel liveClockLabel;
+    private JLabel liveOverflowLabel;
+    private Timer liveClockTimer;
+    // Background tasks started by the view that are not done yet; only used on the EDT
+    private int backgroundTasks;
+    
+    // Delay before the file chooser is pre-built once the first frame is up
+    private static final int FILE_CHOOSER_PREWARM_DELAY_MS = 1500;
+    // Refresh interval of the live stream clock display
+    private static final int LIVE_CLOCK_INTERVAL_MS = 200;
+    
+    /**
+     * Table filter on entry type
+     */
+    private enum TypeFilter {
+        ALL("All entries", null),
+        MAIN("Main only", TimestampType.MAIN),
+        SUB("Sub only", TimestampType.SUB);
+        
+        final String label;
+        final TimestampType type;
+        
+        TypeFilter(String label, TimestampType type) {
+            this.label = label;
+            this.type = type;
+        }
+        
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+    
+    /**
+     * Table filter on when entries were added
+     */
+    private enum AddedFilter {
+        ANY_TIME("Any time", -1),
+        LAST_5_MINUTES("Last 5 minutes", 5),
+        LAST_30_MINUTES("Last 30 minutes", 30),
+        LAST_HOUR("Last hour", 60),
+        TODAY("Today", 0);
+        
+        final String label;
+        final int minutes;
+        
+        AddedFilter(String label, int minutes) {
+            this.label = label;
+            this.minutes = minutes;
+        }
+        
+        LocalDateTime since() {
+            if (minutes < 0) {
+                return null;
+            }
+            return minutes == 0 ? LocalDate.now().atStartOfDay() : LocalDateTime.now().minusMinutes(minutes);
+        }
+        
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
     
     public SwingTimestampView() {
         initializeGUI();
@@ -30,8 +139,9 @@ public class SwingTimestampView implements TimestampView {
     @Override
     public void setController(TimestampController controller) {
         this.controller = controller;
+        timelineStrip.setTimeline(controller.getTimeline());
         // Initialize table with current data
-        refreshTable(controller.getTimestamps());
+        refreshTable(controller.viewTimestamps(), RowChanges.all());
     }
     
     private void initializeGUI() {
@@ -43,7 +153,14 @@ public class SwingTimestampView implements TimestampView {
     
     private void createMainFrame() {
         frame = new JFrame("Timestamp Recorder");
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // Closing waits for saves still being written, see closeWindow()
+        frame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closeWindow();
+            }
+        });
         frame.setSize(950, 600);
         frame.setMinimumSize(new Dimension(800, 500));
         frame.setLocationRelativeTo(null);
@@ -59,11 +176,15 @@ public class SwingTimestampView implements TimestampView {
         // Bottom panel - Timestamp list
         JPanel listPanel = createListPanel();
         
+        // Top panel - Live marking
+        JPanel livePanel = createLivePanel();
+        
         // Menu bar
         JMenuBar menuBar = createMenuBar();
         frame.setJMenuBar(menuBar);
         
         // Layout
+        mainPanel.add(livePanel, BorderLayout.NORTH);
         mainPanel.add(inputPanel, BorderLayout.CENTER);
         mainPanel.add(listPanel, BorderLayout.SOUTH);
         
@@ -90,7 +211,7 @@ public class SwingTimestampView implements TimestampView {
         // Timestamp input box
         gbc = UIComponents.createGridBagConstraints(1, 0, 2, GridBagConstraints.HORIZONTAL, 1.0, 0, 
                                                    GridBagConstraints.CENTER, UIComponents.MEDIUM_INSETS);
-        timestampField = UIComponents.createTextField(0, "Format: mm:ss or hh:mm:ss (e.g., 01:30 or 1:30:45)", "00:00");
+        timestampField = UIComponents.createTextField(0, "Format: mm:ss or hh:mm:ss, optionally .SSS or :ff frames (e.g., 01:30, 1:30:45, 01:30.250)", "00:00");
         panel.add(timestampField, gbc);
         
         // Notes section
@@ -127,6 +248,55 @@ public class SwingTimestampView implements TimestampView {
         return panel;
     }
     
+    private JPanel createLivePanel() {
+        JPanel panel = UIComponents.createTitledPanel("Live Marking", new FlowLayout(FlowLayout.LEFT, 5, 0));
+        
+        liveButton = UIComponents.createActionButton("Start Live", e -> toggleLiveMode());
+        liveButton.setToolTipText("Start a stream clock at the timestamp field's value");
+        panel.add(liveButton);
+        
+        liveClockLabel = UIComponents.createLabel(formatClock(0));
+        panel.add(liveClockLabel);
+        
+        JButton markButton = UIComponents.createActionButton("Mark (F8)", e -> markLive(TimestampType.MAIN));
+        panel.add(markButton);
+        
+        JButton markSubButton = UIComponents.createActionButton("Mark Sub (F9)", e -> markLive(TimestampType.SUB));
+        panel.add(markSubButton);
+        
+        liveOverflowLabel = UIComponents.createLabel("");
+        panel.add(liveOverflowLabel);
+        
+        // Shortcuts work wherever focus is in the window
+        JRootPane rootPane = frame.getRootPane();
+        InputMap inputMap = rootPane.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        inputMap.put(KeyStroke.getKeyStroke("F8"), "liveMark");
+        inputMap.put(KeyStroke.getKeyStroke("F9"), "liveMarkSub");
+        inputMap.put(KeyStroke.getKeyStroke("ctrl Z"), "undo");
+        rootPane.getActionMap().put("liveMark", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                markLive(TimestampType.MAIN);
+            }
+        });
+        rootPane.getActionMap().put("liveMarkSub", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                markLive(TimestampType.SUB);
+            }
+        });
+        rootPane.getActionMap().put("undo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                undo();
+            }
+        });
+        
+        liveClockTimer = new Timer(LIVE_CLOCK_INTERVAL_MS, e -> updateLiveStatus());
+        
+        return panel;
+    }
+    
     private void resizeWindow() {
         if (frame != null) {
             frame.pack();
@@ -143,15 +313,12 @@ public class SwingTimestampView implements TimestampView {
         JPanel panel = UIComponents.createTitledPanel("Recorded Timestamps", new BorderLayout());
         
         // Create table
-        String[] columnNames = {"Time", "Note", "Date Added"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return column == 1; // Only note column is editable
-            }
-        };
+        tableModel = new TimestampTableModel();
         
         timestampTable = new JTable(tableModel);
+        // Click headers to sort by time, date added or type; earlier clicks break ties
+        rowSorter = new TimestampRowSorter(tableModel);
+        timestampTable.setRowSorter(rowSorter);
         
         // Apply custom styling to the table
         UIComponents.styleTable(timestampTable);
@@ -159,15 +326,12 @@ public class SwingTimestampView implements TimestampView {
         timestampTable.getColumnModel().getColumn(0).setPreferredWidth(100);
         timestampTable.getColumnModel().getColumn(1).setPreferredWidth(400);
         timestampTable.getColumnModel().getColumn(2).setPreferredWidth(150);
+        timestampTable.getColumnModel().getColumn(3).setPreferredWidth(50);
         
-        // Add table listener for note editing
-        tableModel.addTableModelListener(e -> {
-            if (e.getColumn() == 1) { // Note column
-                int row = e.getFirstRow();
-                String newNote = (String) tableModel.getValueAt(row, 1);
-                if (controller != null) {
-                    controller.updateNote(row, newNote);
-                }
+        // Forward note edits to the controller
+        tableModel.setNoteEditListener((row, newNote) -> {
+            if (controller != null) {
+                controller.updateNote(row, newNote);
             }
         });
         
@@ -175,13 +339,37 @@ public class SwingTimestampView implements TimestampView {
         scrollPane.setPreferredSize(new Dimension(0, 250));
         panel.add(scrollPane, BorderLayout.CENTER);
         
+        // Filters applied by the row sorter
+        panel.add(createFilterPanel(), BorderLayout.NORTH);
+        
+        // Timeline of all markers, above the action buttons
+        timelineStrip = new TimelineStrip();
+        timelineStrip.setRangeSelectionListener(this::selectTimeRange);
+        JPanel bottomPanel = new JPanel(new BorderLayout(0, 5));
+        bottomPanel.add(timelineStrip, BorderLayout.NORTH);
+        
         // Action buttons
         JPanel buttonPanel = createActionButtonPanel();
-        panel.add(buttonPanel, BorderLayout.SOUTH);
+        bottomPanel.add(buttonPanel, BorderLayout.SOUTH);
+        panel.add(bottomPanel, BorderLayout.SOUTH);
         
         return panel;
     }
     
+    private JPanel createFilterPanel() {
+        JPanel filterPanel = UIComponents.createFlowPanel(FlowLayout.LEFT, 5, 0);
+        
+        filterPanel.add(UIComponents.createLabel("Show:"));
+        typeFilter = UIComponents.createComboBox(TypeFilter.values(), e -> applyFilters(), "Show only main or sub-timestamps");
+        filterPanel.add(typeFilter);
+        
+        filterPanel.add(UIComponents.createLabel("Added:"));
+        addedFilter = UIComponents.createComboBox(AddedFilter.values(), e -> applyFilters(), "Show only recently added timestamps");
+        filterPanel.add(addedFilter);
+        
+        return filterPanel;
+    }
+    
     private JPanel createActionButtonPanel() {
         JPanel buttonPanel = UIComponents.createFlowPanel(FlowLayout.CENTER, 5, 5);
         
@@ -203,24 +391,148 @@ public class SwingTimestampView implements TimestampView {
     private JMenuBar createMenuBar() {
         JMenuBar menuBar = new JMenuBar();
         
-        // File menu
-        JMenu fileMenu = new JMenu("File");
+        // Menu items are only built the first time a menu is opened
+        menuBar.add(createLazyMenu("File", this::populateFileMenu));
+        menuBar.add(createLazyMenu("Edit", this::populateEditMenu));
+        menuBar.add(createLazyMenu("View", this::populateViewMenu));
+        menuBar.add(createLazyMenu("Help", this::populateHelpMenu));
         
+        return menuBar;
+    }
+    
+    private void populateFileMenu(JMenu fileMenu) {
         JMenuItem loadItem = new JMenuItem("Load Timestamps...");
         loadItem.addActionListener(e -> loadTimestamps());
         fileMenu.add(loadItem);
         
-        menuBar.add(fileMenu);
+        JMenuItem scanItem = new JMenuItem("Scan Document for Timestamps...");
+        scanItem.addActionListener(e -> scanDocument());
+        fileMenu.add(scanItem);
+        
+        JMenuItem checkItem = new JMenuItem("Check File...");
+        checkItem.setToolTipText("List lines with bad timecodes, out-of-order or duplicate entries and mixed indentation");
+        checkItem.addActionListener(e -> checkFile());
+        fileMenu.add(checkItem);
+        
+        fileMenu.addSeparator();
+        JMenuItem compareItem = new JMenuItem("Compare with File...");
+        compareItem.addActionListener(e -> compareWithFile());
+        fileMenu.add(compareItem);
+        
+        JMenuItem compareFilesItem = new JMenuItem("Compare Two Files...");
+        compareFilesItem.addActionListener(e -> compareTwoFiles());
+        fileMenu.add(compareFilesItem);
+        
+        fileMenu.addSeparator();
+        JMenuItem searchItem = new JMenuItem("Search Saved Files...");
+        searchItem.addActionListener(e -> showLibrarySearch());
+        fileMenu.add(searchItem);
+        
+        fileMenu.addSeparator();
+        JCheckBoxMenuItem watchItem = new JCheckBoxMenuItem("Reload Loaded File on Change", controller.isWatchingLoadedFile());
+        watchItem.setToolTipText("Apply edits made to the loaded file by other programs");
+        watchItem.addActionListener(e -> controller.setWatchLoadedFile(watchItem.isSelected()));
+        fileMenu.add(watchItem);
+        
+        JCheckBoxMenuItem checkBeforeLoadingItem = new JCheckBoxMenuItem("Check Files Before Loading", checkBeforeLoading);
+        checkBeforeLoadingItem.setToolTipText("Show problems found in a file and ask before loading it");
+        checkBeforeLoadingItem.addActionListener(e -> checkBeforeLoading = checkBeforeLoadingItem.isSelected());
+        fileMenu.add(checkBeforeLoadingItem);
+    }
+    
+    private void populateEditMenu(JMenu editMenu) {
+        JMenuItem undoItem = new JMenuItem("Undo (Ctrl+Z)");
+        undoItem.addActionListener(e -> undo());
+        editMenu.add(undoItem);
+        // Name the change that would be undone each time the menu opens
+        editMenu.addMenuListener(new MenuListener() {
+            @Override
+            public void menuSelected(MenuEvent e) {
+                String description = controller.getUndoDescription();
+                undoItem.setEnabled(description != null);
+                undoItem.setText(description != null ? "Undo " + description + " (Ctrl+Z)" : "Undo (Ctrl+Z)");
+            }
+            
+            @Override
+            public void menuDeselected(MenuEvent e) {
+            }
+            
+            @Override
+            public void menuCanceled(MenuEvent e) {
+            }
+        });
+        editMenu.addSeparator();
         
-        // Help menu
-        JMenu helpMenu = new JMenu("Help");
+        JMenuItem pasteItem = new JMenuItem("Paste Timestamps from Clipboard");
+        pasteItem.addActionListener(e -> pasteTimestamps());
+        editMenu.add(pasteItem);
+    }
+    
+    private void populateViewMenu(JMenu viewMenu) {
+        JMenuItem statisticsItem = new JMenuItem("Statistics");
+        statisticsItem.addActionListener(e -> showStatistics());
+        viewMenu.add(statisticsItem);
+    }
+    
+    private void populateHelpMenu(JMenu helpMenu) {
         JMenuItem aboutItem = new JMenuItem("About");
         aboutItem.addActionListener(e -> showAbout());
         helpMenu.add(aboutItem);
+    }
+    
+    /**
+     * Creates a menu whose items are built on first selection
+     */
+    private JMenu createLazyMenu(String title, Consumer<JMenu> populator) {
+        JMenu menu = new JMenu(title);
+        menu.addMenuListener(new MenuListener() {
+            private boolean populated = false;
+            
+            @Override
+            public void menuSelected(MenuEvent e) {
+                if (!populated) {
+                    populated = true;
+                    populator.accept(menu);
+                }
+            }
+            
+            @Override
+            public void menuDeselected(MenuEvent e) {
+            }
+            
+            @Override
+            public void menuCanceled(MenuEvent e) {
+            }
+        });
+        return menu;
+    }
+    
+    /**
+     * Shared file chooser, created on first use (or pre-warmed after the first frame)
+     */
+    private JFileChooser getFileChooser() {
+        if (fileChooser == null) {
+            fileChooser = new JFileChooser();
+        }
+        return fileChooser;
+    }
+    
+    /**
+     * Work deferred until the main window has been painted
+     */
+    private void onFirstFrame() {
+        StartupTimer.markFirstFrame();
         
-        menuBar.add(helpMenu);
+        // Swap in the custom font once the background loader has it
+        UIComponents.onCustomFontLoaded(() -> {
+            UIComponents.applyCustomFont(frame);
+            frame.revalidate();
+            frame.repaint();
+        });
         
-        return menuBar;
+        Timer prewarm = new Timer(FILE_CHOOSER_PREWARM_DELAY_MS, e -> getFileChooser());
+        prewarm.setRepeats(false);
+        prewarm.start();
     }
     
     // Event handlers that delegate to controller
@@ -236,18 +548,61 @@ public class SwingTimestampView implements TimestampView {
         }
     }
     
-    private void modifyTimestamp(int seconds) {
+    private void modifyTimestamp(long millis) {
         if (controller != null) {
-            controller.modifyTimestamp(timestampField.getText(), seconds);
+            controller.modifyTimestamp(timestampField.getText(), millis);
+        }
+    }
+    
+    private void undo() {
+        if (controller != null) {
+            controller.undo();
         }
     }
     
     private void deleteSelected() {
         if (controller != null) {
-            controller.deleteSelected(timestampTable.getSelectedRow());
+            int[] selectedRows = timestampTable.getSelectedRows();
+            for (int i = 0; i < selectedRows.length; i++) {
+                selectedRows[i] = timestampTable.convertRowIndexToModel(selectedRows[i]);
+            }
+            controller.deleteSelected(selectedRows);
         }
     }
     
+    private void toggleLiveMode() {
+        if (controller == null) {
+            return;
+        }
+        if (controller.isLiveMode()) {
+            controller.stopLiveMode();
+            liveClockTimer.stop();
+            liveButton.setText("Start Live");
+        } else {
+            controller.startLiveMode(timestampField.getText());
+            liveClockTimer.start();
+            liveButton.setText("Stop Live");
+        }
+        updateLiveStatus();
+    }
+    
+    private void markLive(TimestampType type) {
+        if (controller != null && controller.isLiveMode()) {
+            controller.markLive(type);
+        }
+    }
+    
+    private void updateLiveStatus() {
+        liveClockLabel.setText(formatClock(controller.getLiveElapsedMillis()));
+        long dropped = controller.getLiveOverflowCount();
+        liveOverflowLabel.setText(dropped > 0 ? "Dropped: " + dropped : "");
+    }
+    
+    private static String formatClock(long millis) {
+        long totalSeconds = millis / 1000;
+        return String.format("%d:%02d:%02d", totalSeconds / 3600, (totalSeconds % 3600) / 60, totalSeconds % 60);
+    }
+    
     private void clearAll() {
         if (controller != null) {
             controller.clearAll();
@@ -255,26 +610,342 @@ public class SwingTimestampView implements TimestampView {
     }
     
     private void loadTimestamps() {
-        JFileChooser fileChooser = new JFileChooser();
+        JFileChooser fileChooser = getFileChooser();
+        fileChooser.setSelectedFile(null);
         if (fileChooser.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION) {
-            controller.loadTimestamps(fileChooser.getSelectedFile());
+            File file = fileChooser.getSelectedFile();
+            if (checkBeforeLoading) {
+                lintInBackground(file, true);
+            } else {
+                controller.loadTimestamps(file);
+            }
+        }
+    }
+    
+    private void checkFile() {
+        File file = chooseFile("Check File");
+        if (file != null) {
+            lintInBackground(file, false);
+        }
+    }
+    
+    /**
+     * Checks the file off the EDT, then lists the problems found; when loading, a clean file
+     * is loaded straight away and otherwise only if the user chooses to
+     */
+    private void lintInBackground(File file, boolean thenLoad) {
+        inBackground(TaskExecutor.Pool.IO, "Check " + file.getName(), context -> controller.lintFile(file),
+                TaskListener.of(report -> showLintReport(file, report, thenLoad), cause -> {
+                    if (thenLoad) {
+                        // Let the loader report what is wrong with the file
+                        controller.loadTimestamps(file);
+                    } else {
+                        showError("Could not check file: " + cause.getMessage());
+                    }
+                }));
+    }
+    
+    private void showLintReport(File file, LintReport report, boolean thenLoad) {
+        if (thenLoad && !report.hasIssues()) {
+            controller.loadTimestamps(file);
+            return;
+        }
+        JTextArea reportArea = new JTextArea(report.format(), 20, 80);
+        reportArea.setEditable(false);
+        reportArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        reportArea.setCaretPosition(0);
+        JScrollPane reportPane = new JScrollPane(reportArea);
+        if (!thenLoad) {
+            JOptionPane.showMessageDialog(frame, reportPane, "Check " + file.getName(),
+                    report.hasIssues() ? JOptionPane.WARNING_MESSAGE : JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        Object[] options = {"Load Anyway", "Cancel"};
+        int choice = JOptionPane.showOptionDialog(frame, reportPane, "Problems in " + file.getName(),
+                JOptionPane.DEFAULT_OPTION, JOptionPane.WARNING_MESSAGE, null, options, options[1]);
+        if (choice == 0) {
+            controller.loadTimestamps(file);
+        }
+    }
+    
+    /**
+     * Runs the task on the controller's executor with a wait cursor until its result is back on the EDT
+     */
+    private <T> void inBackground(TaskExecutor.Pool pool, String name, BackgroundTask<T> task, TaskListener<T> listener) {
+        backgroundStarted();
+        controller.getTasks().submit(pool, name, task, new TaskListener<T>() {
+            @Override
+            public void succeeded(T result) {
+                backgroundFinished();
+                listener.succeeded(result);
+            }
+            
+            @Override
+            public void failed(Throwable cause) {
+                backgroundFinished();
+                listener.failed(cause);
+            }
+            
+            @Override
+            public void cancelled() {
+                backgroundFinished();
+                listener.cancelled();
+            }
+        });
+    }
+    
+    /**
+     * The wait cursor stays up until the last of the view's background tasks is done
+     */
+    private void backgroundStarted() {
+        if (backgroundTasks++ == 0) {
+            frame.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        }
+    }
+    
+    private void backgroundFinished() {
+        if (--backgroundTasks == 0) {
+            frame.setCursor(Cursor.getDefaultCursor());
         }
     }
     
     private void exportToText() {
-        JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setSelectedFile(new File("timestamps_export.txt"));
-        if (fileChooser.showSaveDialog(frame) == JFileChooser.APPROVE_OPTION) {
-            controller.exportToText(fileChooser.getSelectedFile());
+        JFileChooser fileChooser = getFileChooser();
+        
+        // One file filter per export format; the chosen filter picks the exporter
+        IdentityHashMap<FileFilter, TimestampExporter> formats = new IdentityHashMap<>();
+        fileChooser.setAcceptAllFileFilterUsed(false);
+        for (TimestampExporter exporter : controller.getExporters()) {
+            FileFilter filter = new FileNameExtensionFilter(exporter.getDisplayName(), exporter.getFileExtension());
+            formats.put(filter, exporter);
+            fileChooser.addChoosableFileFilter(filter);
+        }
+        fileChooser.setFileFilter(fileChooser.getChoosableFileFilters()[0]);
+        fileChooser.setSelectedFile(new File(fileChooser.getCurrentDirectory(), "timestamps_export.txt"));
+        
+        try {
+            if (fileChooser.showSaveDialog(frame) == JFileChooser.APPROVE_OPTION) {
+                TimestampExporter exporter = formats.get(fileChooser.getFileFilter());
+                File file = withExtension(fileChooser.getSelectedFile(), exporter.getFileExtension());
+                controller.export(file, exporter);
+            }
+        } finally {
+            // Restore the plain chooser used for loading
+            fileChooser.resetChoosableFileFilters();
+            fileChooser.setAcceptAllFileFilterUsed(true);
+        }
+    }
+    
+    /**
+     * Replaces or appends the file extension to match the export format
+     */
+    private static File withExtension(File file, String extension) {
+        String name = file.getName();
+        if (name.toLowerCase().endsWith("." + extension)) {
+            return file;
+        }
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return new File(file.getParentFile(), base + "." + extension);
+    }
+    
+    private void pasteTimestamps() {
+        String text;
+        try {
+            text = (String) Toolkit.getDefaultToolkit().getSystemClipboard().getData(DataFlavor.stringFlavor);
+        } catch (Exception e) {
+            showError("The clipboard does not contain text");
+            return;
+        }
+        extractInBackground(TaskExecutor.Pool.CPU, "Timestamps from Clipboard", context -> controller.extractTimestamps(text));
+    }
+    
+    private void scanDocument() {
+        JFileChooser fileChooser = getFileChooser();
+        fileChooser.setSelectedFile(null);
+        if (fileChooser.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION) {
+            File file = fileChooser.getSelectedFile();
+            extractInBackground(TaskExecutor.Pool.IO, "Timestamps in " + file.getName(), context -> controller.extractTimestamps(file));
+        }
+    }
+    
+    /**
+     * Non-modal statistics window that follows model changes while open
+     */
+    private void showStatistics() {
+        if (statisticsDialog == null) {
+            statisticsPanel = new StatisticsPanel(controller.getAnalytics());
+            statisticsDialog = new JDialog(frame, "Statistics", false);
+            statisticsDialog.setContentPane(statisticsPanel);
+            statisticsDialog.setSize(520, 450);
+            statisticsDialog.setLocationRelativeTo(frame);
+        } else {
+            statisticsPanel.refresh();
+        }
+        statisticsDialog.setVisible(true);
+    }
+    
+    private void showLibrarySearch() {
+        if (librarySearchDialog == null) {
+            librarySearchDialog = new LibrarySearchDialog(frame, controller.getLibraryIndex(), controller.getTasks(),
+                    controller::openSearchHit, this::chooseFolder);
+        }
+        librarySearchDialog.open();
+    }
+    
+    private File chooseFolder() {
+        JFileChooser fileChooser = getFileChooser();
+        fileChooser.setSelectedFile(null);
+        fileChooser.setDialogTitle("Add Folder to Search");
+        fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        try {
+            return fileChooser.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION ? fileChooser.getSelectedFile() : null;
+        } finally {
+            fileChooser.setDialogTitle(null);
+            fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
         }
     }
     
+    private void compareWithFile() {
+        File file = chooseFile("Compare Current Session With");
+        if (file != null) {
+            compareInBackground(controller.getSessionDiffSource(), controller.getFileDiffSource(file));
+        }
+    }
+    
+    private void compareTwoFiles() {
+        File oldFile = chooseFile("Choose the Old Version");
+        if (oldFile == null) {
+            return;
+        }
+        File newFile = chooseFile("Choose the New Version");
+        if (newFile != null) {
+            compareInBackground(controller.getFileDiffSource(oldFile), controller.getFileDiffSource(newFile));
+        }
+    }
+    
+    private File chooseFile(String title) {
+        JFileChooser fileChooser = getFileChooser();
+        fileChooser.setSelectedFile(null);
+        fileChooser.setDialogTitle(title);
+        try {
+            return fileChooser.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION ? fileChooser.getSelectedFile() : null;
+        } finally {
+            fileChooser.setDialogTitle(null);
+        }
+    }
+    
+    /**
+     * Runs the diff off the EDT, then shows it side by side
+     */
+    private void compareInBackground(EntrySource left, EntrySource right) {
+        DiffDialog.Rows rows = new DiffDialog.Rows(false);
+        inBackground(TaskExecutor.Pool.IO, "Compare", context -> controller.compare(left, right, rows),
+                TaskListener.<DiffSummary>of(summary -> DiffDialog.showDialog(frame, left.getName() + " \u2194 " + right.getName(),
+                        rows, summary, () -> saveUnifiedDiff(left, right)),
+                        cause -> showError("Could not compare: " + cause.getMessage())));
+    }
+    
+    private void saveUnifiedDiff(EntrySource left, EntrySource right) {
+        JFileChooser fileChooser = getFileChooser();
+        fileChooser.setSelectedFile(new File(fileChooser.getCurrentDirectory(), "timestamps.diff"));
+        if (fileChooser.showSaveDialog(frame) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+        controller.getTasks().submitSave("Save " + file.getName(), context -> controller.writeUnifiedDiff(left, right, file),
+                TaskListener.of(summary -> showSuccess("Diff saved to " + file.getName()),
+                        cause -> showError("Could not save diff: " + cause.getMessage())));
+    }
+    
+    /**
+     * Runs timestamp extraction off the EDT, then shows the preview and hands the kept entries to the controller
+     */
+    private void extractInBackground(TaskExecutor.Pool pool, String title, BackgroundTask<List<TimestampEntry>> extraction) {
+        inBackground(pool, title, extraction, TaskListener.of(found -> {
+            if (found.isEmpty()) {
+                showError("No timestamps found");
+                return;
+            }
+            List<TimestampEntry> selected = TimestampPreviewDialog.showDialog(frame, title, found);
+            if (selected != null) {
+                controller.addExtractedTimestamps(selected);
+            }
+        }, cause -> showError("Could not scan for timestamps: " + cause.getMessage())));
+    }
+    
+    /**
+     * Selects and scrolls to the visible table rows in [fromSecond, toSecond)
+     * The table model is in time order, so the range is found there and mapped to view rows
+     */
+    private void selectTimeRange(int fromSecond, int toSecond) {
+        int first = firstRowAtOrAfter(fromSecond);
+        int end = firstRowAtOrAfter(toSecond);
+        ListSelectionModel selection = timestampTable.getSelectionModel();
+        selection.setValueIsAdjusting(true);
+        selection.clearSelection();
+        int firstView = -1;
+        for (int row = first; row < end; row++) {
+            int view = timestampTable.convertRowIndexToView(row);
+            if (view >= 0) {
+                selection.addSelectionInterval(view, view);
+                firstView = firstView < 0 ? view : Math.min(firstView, view);
+            }
+        }
+        selection.setValueIsAdjusting(false);
+        if (firstView < 0 && first < tableModel.getRowCount()) {
+            firstView = timestampTable.convertRowIndexToView(first);
+        }
+        if (firstView >= 0) {
+            timestampTable.scrollRectToVisible(timestampTable.getCellRect(firstView, 0, true));
+        }
+    }
+    
+    private int firstRowAtOrAfter(int seconds) {
+        long millis = seconds * 1000L;
+        int low = 0;
+        int high = tableModel.getRowCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tableModel.getMillis(mid) < millis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
     private void refreshTable() {
         if (controller != null) {
-            refreshTable(controller.getTimestamps());
+            refreshTable(controller.viewTimestamps(), RowChanges.all());
+            applyFilters();
         }
     }
     
+    /**
+     * Combines the Show and Added boxes into the row sorter's filter; "Added" windows are
+     * measured from now, so this also runs on Refresh Table
+     */
+    private void applyFilters() {
+        TypeFilter type = (TypeFilter) typeFilter.getSelectedItem();
+        AddedFilter added = (AddedFilter) addedFilter.getSelectedItem();
+        TimestampRowSorter.KeyFilter filter = null;
+        if (type.type != null) {
+            filter = TimestampRowSorter.typeIs(type.type);
+        }
+        LocalDateTime since = added.since();
+        if (since != null) {
+            TimestampRowSorter.KeyFilter recent = TimestampRowSorter.addedAtOrAfter(since);
+            filter = filter == null ? recent : filter.and(recent);
+        }
+        if (filter != null) {
+            // The shown rows come from the model's type and date-added indexes rather than a pass over every row
+            filter = TimestampRowSorter.indexed(filter, () -> controller.getFilteredRows(type.type, since));
+        }
+        rowSorter.setFilter(filter);
+    }
+    
     private List<String> collectNotes() {
         return notesPanel.collectNotes();
     }
@@ -288,20 +959,25 @@ public class SwingTimestampView implements TimestampView {
                         "* Time adjustment buttons (+/-5s, +/-10s, +/-15s, +/-30s)\n" +
                         "* Save and load timestamp collections\n" +
                         "* Export to text format\n" +
+                        "* Paste or scan documents for timestamps anywhere in the text\n" +
                         "* Edit notes directly in table\n\n" +
                         "Architecture:\n" +
                         "* Model-View-Controller (MVC) design pattern\n" +
                         "* Separated business logic, presentation, and user interaction\n" +
                         "* Observer pattern for data synchronization\n\n" +
                         "Usage:\n" +
-                        "1. Add timestamps in mm:ss or hh:mm:ss format\n" +
+                        "1. Add timestamps in mm:ss or hh:mm:ss format (.SSS or :ff for sub-second)\n" +
                         "2. Use 'Add Timestamp' for main entries\n" +
                         "3. Use 'Add Sub-timestamp' for indented sub-entries\n" +
                         "4. Use +/- buttons to add multiple notes per timestamp\n" +
                         "5. Use time adjustment buttons to fine-tune timestamps\n" +
                         "6. Save, load, or export your collection\n\n" +
                         "Perfect for creating hierarchical timestamps for videos, podcasts, or audio files!\n\n" +
-                        "Developed with Java Swing using MVC Architecture";
+                        "Developed with Java Swing using MVC Architecture\n\n" +
+                        "Diagnostics:\n" +
+                        "* " + GcMonitor.summary() + "\n" +
+                        "* " + EdtWatchdog.summary() + "\n" +
+                        "* Entries: " + controller.getStorageDescription();
         
         JOptionPane.showMessageDialog(frame, message, "About", JOptionPane.INFORMATION_MESSAGE);
     }
@@ -309,9 +985,29 @@ public class SwingTimestampView implements TimestampView {
     // TimestampView interface implementation
     @Override
     public void refreshTable(List<TimestampEntry> timestamps) {
-        tableModel.setRowCount(0);
-        for (TimestampEntry entry : timestamps) {
-            tableModel.addRow(entry.toTableRow());
+        refreshTable(timestamps, RowChanges.all());
+    }
+    
+    @Override
+    public void refreshTable(List<TimestampEntry> timestamps, RowChanges changes) {
+        long start = System.nanoTime();
+        RecorderEvents.TableRefresh event = new RecorderEvents.TableRefresh();
+        event.begin();
+        EdtWatchdog.tagged("refreshTable", () -> {
+            // Small changes reach the row sorter as row inserts/deletes, so it doesn't re-sort
+            tableModel.setEntries(timestamps, changes);
+            timestampTable.repaint();
+            timelineStrip.repaint();
+            if (statisticsDialog != null && statisticsDialog.isVisible()) {
+                statisticsPanel.scheduleRefresh();
+            }
+        });
+        int rows = timestampTable.getRowCount();
+        REFRESH_LATENCY.recordSince(start);
+        REFRESH_ROWS.record(rows);
+        if (event.shouldCommit()) {
+            event.rows = rows;
+            event.commit();
         }
     }
     
@@ -325,6 +1021,26 @@ public class SwingTimestampView implements TimestampView {
         timestampField.setText(timestamp);
     }
     
+    @Override
+    public void showEntry(int index) {
+        if (index < 0 || index >= tableModel.getRowCount()) {
+            return;
+        }
+        int view = timestampTable.convertRowIndexToView(index);
+        if (view < 0) {
+            // Hidden by the Show/Added boxes, so clear them
+            typeFilter.setSelectedIndex(0);
+            addedFilter.setSelectedIndex(0);
+            applyFilters();
+            view = timestampTable.convertRowIndexToView(index);
+        }
+        if (view >= 0) {
+            timestampTable.getSelectionModel().setSelectionInterval(view, view);
+            timestampTable.scrollRectToVisible(timestampTable.getCellRect(view, 0, true));
+        }
+        frame.toFront();
+    }
+    
     @Override
     public void showError(String message) {
         JOptionPane.showMessageDialog(frame, message, "Error", JOptionPane.ERROR_MESSAGE);
@@ -347,9 +1063,49 @@ public class SwingTimestampView implements TimestampView {
     
     @Override
     public void show() {
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                // Queued behind the initial paint of the window
+                SwingUtilities.invokeLater(() -> onFirstFrame());
+            }
+        });
         frame.setVisible(true);
     }
     
+    /**
+     * Lets saves still being written finish before the application exits. The controller waits for them
+     * on a shutdown thread while a modal "Saving…" dialog keeps the window painted and closed to input.
+     */
+    private void closeWindow() {
+        JDialog savingDialog = new JDialog(frame, "Timestamp Recorder", true);
+        savingDialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+        JProgressBar progress = new JProgressBar();
+        progress.setIndeterminate(true);
+        JPanel content = UIComponents.createBorderPanel();
+        content.setBorder(BorderFactory.createEmptyBorder(12, 16, 12, 16));
+        content.add(new JLabel("Saving\u2026"), BorderLayout.NORTH);
+        content.add(progress, BorderLayout.CENTER);
+        savingDialog.setContentPane(content);
+        savingDialog.pack();
+        savingDialog.setLocationRelativeTo(frame);
+        
+        Thread shutdown = new Thread(() -> {
+            boolean saved = controller.shutdown();
+            SwingUtilities.invokeLater(() -> {
+                savingDialog.dispose();
+                if (!saved) {
+                    showError("A file could not be saved completely; see the error output for details");
+                }
+                hide();
+                System.exit(0);
+            });
+        }, "shutdown");
+        shutdown.start();
+        // Blocks in a nested event loop until the shutdown thread disposes the dialog
+        savingDialog.setVisible(true);
+    }
+    
     @Override
     public void hide() {
         frame.setVisible(false);
@@ -1,7 +1,9 @@
 package com.example.view;
 
 import com.example.controller.TimestampController;
+import com.example.RowChanges;
 import com.example.TimestampEntry;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -16,10 +18,20 @@ public interface TimestampView {
     void setController(TimestampController controller);
     
     /**
-     * Refresh the timestamp table with new data
+     * Refresh the timestamp table with new data; the list is a snapshot the view may keep
      */
     void refreshTable(List<TimestampEntry> timestamps);
     
+    /**
+     * Refresh the timestamp table after a model change. Unlike refreshTable(List), timestamps is the
+     * model's live list: it is only valid on the EDT and follows later changes in place. changes names
+     * the rows the change removed and inserted. Views that override this can update just those rows;
+     * by default a snapshot is taken and the whole table is refreshed with it.
+     */
+    default void refreshTable(List<TimestampEntry> timestamps, RowChanges changes) {
+        refreshTable(new ArrayList<>(timestamps));
+    }
+    
     /**
      * Clear all note fields in the input area
      */
@@ -30,6 +42,13 @@ public interface TimestampView {
      */
     void setTimestampField(String timestamp);
     
+    /**
+     * Select the entry at the given index (into the controller's timestamps) and scroll it into view.
+     * By default nothing is shown.
+     */
+    default void showEntry(int index) {
+    }
+    
     /**
      * Show an error message to the user
      */
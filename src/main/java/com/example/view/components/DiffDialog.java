@@ -0,0 +1,170 @@
+package com.example.view.components;
+
+import com.example.TimestampEntry;
+import com.example.diff.DiffKind;
+import com.example.diff.DiffListener;
+import com.example.diff.DiffSummary;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+
+/**
+ * Side-by-side view of a diff: old entry on the left, new entry on the right, one row per result
+ */
+public class DiffDialog extends JDialog {
+    // Rows kept for display; the summary still counts everything past this
+    public static final int MAX_ROWS = 200_000;
+
+    private static final String[] COLUMN_NAMES = {"Old Time", "Old Note", "Change", "New Time", "New Note"};
+    private static final EnumMap<DiffKind, Color> ROW_COLORS = new EnumMap<>(DiffKind.class);
+
+    static {
+        ROW_COLORS.put(DiffKind.ADDED, UIComponents.LIGHT_GREEN);
+        ROW_COLORS.put(DiffKind.REMOVED, UIComponents.LIGHT_RED);
+        ROW_COLORS.put(DiffKind.NOTE_CHANGED, new Color(255, 245, 200));
+        ROW_COLORS.put(DiffKind.SHIFTED, new Color(210, 225, 255));
+    }
+
+    /**
+     * Collects diff results for the dialog; safe to fill off the EDT before the dialog is shown
+     */
+    public static class Rows implements DiffListener {
+        private final List<DiffKind> kinds = new ArrayList<>();
+        private final List<TimestampEntry> lefts = new ArrayList<>();
+        private final List<TimestampEntry> rights = new ArrayList<>();
+        private final boolean includeUnchanged;
+        private boolean truncated;
+
+        public Rows(boolean includeUnchanged) {
+            this.includeUnchanged = includeUnchanged;
+        }
+
+        @Override
+        public void onDiff(DiffKind kind, TimestampEntry left, TimestampEntry right) {
+            if (kind == DiffKind.UNCHANGED && !includeUnchanged) {
+                return;
+            }
+            if (kinds.size() >= MAX_ROWS) {
+                truncated = true;
+                return;
+            }
+            kinds.add(kind);
+            lefts.add(left);
+            rights.add(right);
+        }
+    }
+
+    private final Rows rows;
+
+    private DiffDialog(Frame parent, String title, Rows rows, DiffSummary summary, Runnable saveUnifiedDiff) {
+        super(parent, title, true);
+        this.rows = rows;
+
+        JTable table = new JTable(new RowsTableModel());
+        UIComponents.styleTable(table);
+        table.setDefaultRenderer(Object.class, new KindRenderer());
+        table.getColumnModel().getColumn(0).setPreferredWidth(80);
+        table.getColumnModel().getColumn(1).setPreferredWidth(250);
+        table.getColumnModel().getColumn(2).setPreferredWidth(100);
+        table.getColumnModel().getColumn(3).setPreferredWidth(80);
+        table.getColumnModel().getColumn(4).setPreferredWidth(250);
+
+        String summaryText = summary.toString();
+        if (rows.truncated) {
+            summaryText += " - showing the first " + MAX_ROWS + " rows";
+        }
+        JLabel summaryLabel = UIComponents.createLabel(summaryText);
+        summaryLabel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+
+        JPanel buttonPanel = UIComponents.createFlowPanel(FlowLayout.RIGHT, 5, 5);
+        buttonPanel.add(UIComponents.createActionButton("Save Unified Diff...", e -> saveUnifiedDiff.run()));
+        buttonPanel.add(UIComponents.createActionButton("Close", e -> dispose()));
+
+        JPanel content = UIComponents.createBorderPanel();
+        content.add(summaryLabel, BorderLayout.NORTH);
+        content.add(new JScrollPane(table), BorderLayout.CENTER);
+        content.add(buttonPanel, BorderLayout.SOUTH);
+        setContentPane(content);
+        setSize(900, 500);
+        setLocationRelativeTo(parent);
+    }
+
+    /**
+     * Shows the collected diff; blocks until closed
+     */
+    public static void showDialog(Frame parent, String title, Rows rows, DiffSummary summary, Runnable saveUnifiedDiff) {
+        new DiffDialog(parent, title, rows, summary, saveUnifiedDiff).setVisible(true);
+    }
+
+    private class RowsTableModel extends AbstractTableModel {
+        @Override
+        public int getRowCount() {
+            return rows.kinds.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMN_NAMES.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMN_NAMES[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            TimestampEntry left = rows.lefts.get(row);
+            TimestampEntry right = rows.rights.get(row);
+            switch (column) {
+                case 0:
+                    return left != null ? left.getDisplayTimestamp() : "";
+                case 1:
+                    return left != null ? left.getDisplayNotes() : "";
+                case 2:
+                    return describe(rows.kinds.get(row), left, right);
+                case 3:
+                    return right != null ? right.getDisplayTimestamp() : "";
+                case 4:
+                    return right != null ? right.getDisplayNotes() : "";
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private static String describe(DiffKind kind, TimestampEntry left, TimestampEntry right) {
+        switch (kind) {
+            case ADDED:
+                return "added";
+            case REMOVED:
+                return "removed";
+            case NOTE_CHANGED:
+                return "note changed";
+            case SHIFTED:
+                return "shifted " + DiffSummary.formatShift(right.getMillis() - left.getMillis());
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * Colours each row by its kind of change
+     */
+    private class KindRenderer extends DefaultTableCellRenderer {
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                       boolean hasFocus, int row, int column) {
+            Component component = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+            if (!isSelected) {
+                Color color = ROW_COLORS.get(rows.kinds.get(row));
+                component.setBackground(color != null ? color : table.getBackground());
+            }
+            return component;
+        }
+    }
+}
@@ -7,97 +7,130 @@ import java.util.List;
 
 /**
  * Dynamic notes panel that manages multiple note input fields
- * Handles adding/removing note fields with proper UI updates
+ * Rows are added and removed in place; only the +/- buttons of neighbouring
+ * rows are updated and the window is resized only when the preferred size changes
  */
 public class DynamicNotesPanel extends JPanel {
     
-    private final List<JTextField> noteFields;
+    // Vertical gap between note rows
+    private static final int ROW_GAP = 3;
+    
+    private final List<NoteRow> rows;
     private final Runnable layoutUpdateCallback;
     
+    /**
+     * A single note row: text field with its + and - buttons
+     */
+    private static class NoteRow {
+        final JTextField field;
+        final JButton addButton;
+        final JButton removeButton;
+        final JPanel panel;
+        
+        NoteRow(JTextField field, JButton addButton, JButton removeButton, JPanel panel) {
+            this.field = field;
+            this.addButton = addButton;
+            this.removeButton = removeButton;
+            this.panel = panel;
+        }
+    }
+    
     public DynamicNotesPanel(Runnable layoutUpdateCallback) {
         super();
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
-        this.noteFields = new ArrayList<>();
+        this.rows = new ArrayList<>();
         this.layoutUpdateCallback = layoutUpdateCallback;
         setBorder(BorderFactory.createLoweredBevelBorder());
         
         // Add the first note field
-        addNoteField();
+        appendRow();
     }
     
     public void addNoteField() {
-        JTextField noteField = UIComponents.createTextField(25, "Optional description for this timestamp", null);
-        noteFields.add(noteField);
-        refreshPanel();
+        Dimension before = getPreferredSize();
+        appendRow();
+        layoutChanged(before);
     }
     
     public void removeNoteField(JTextField fieldToRemove) {
-        noteFields.remove(fieldToRemove);
-        refreshPanel();
+        int index = indexOf(fieldToRemove);
+        // The first row always stays
+        if (index <= 0) {
+            return;
+        }
+        Dimension before = getPreferredSize();
+        NoteRow removed = rows.remove(index);
+        remove(removed.panel);
+        
+        // The new last row takes over the + button
+        if (index == rows.size()) {
+            rows.get(index - 1).addButton.setVisible(true);
+        }
+        layoutChanged(before);
     }
     
-    private void refreshPanel() {
-        removeAll();
+    private void appendRow() {
+        JTextField noteField = UIComponents.createTextField(25, "Optional description for this timestamp", null);
+        JButton addButton = UIComponents.createControlButton("+", e -> addNoteField(), "Add another note");
+        JButton removeButton = UIComponents.createControlButton("-", e -> removeNoteField(noteField), "Remove this note");
+        
+        // Show - button only if it's not the first field
+        boolean first = rows.isEmpty();
+        removeButton.setVisible(!first);
         
-        for (int i = 0; i < noteFields.size(); i++) {
-            JTextField noteField = noteFields.get(i);
-            
+        JPanel panel = UIComponents.createNoteRowPanel(noteField, addButton, removeButton);
+        if (!first) {
+            panel.setBorder(BorderFactory.createEmptyBorder(ROW_GAP, 0, 0, 0));
             // Show + button only on the LAST note field
-            boolean showAddButton = (i == noteFields.size() - 1);
-            // Show - button only if there's more than one note field AND it's not the first field
-            boolean showRemoveButton = (noteFields.size() > 1 && i > 0);
-            
-            JPanel noteRowPanel = UIComponents.createNoteRowPanel(
-                noteField,
-                showAddButton,
-                showRemoveButton,
-                e -> addNoteField(),
-                e -> removeNoteField(noteField)
-            );
-            
-            add(noteRowPanel);
-            
-            if (i < noteFields.size() - 1) {
-                add(Box.createVerticalStrut(3));
-            }
+            rows.get(rows.size() - 1).addButton.setVisible(false);
         }
         
+        rows.add(new NoteRow(noteField, addButton, removeButton, panel));
+        add(panel);
+    }
+    
+    private int indexOf(JTextField field) {
+        for (int i = 0; i < rows.size(); i++) {
+            if (rows.get(i).field == field) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Single revalidate of this panel; the window is only resized when our preferred size changed
+     */
+    private void layoutChanged(Dimension before) {
         revalidate();
         repaint();
         
-        // Force parent containers to recalculate layout
-        Container parent = getParent();
-        while (parent != null) {
-            parent.revalidate();
-            parent.repaint();
-            if (parent instanceof JFrame) break;
-            parent = parent.getParent();
-        }
-        
         // Notify callback for layout updates (e.g., window resizing)
-        if (layoutUpdateCallback != null) {
+        if (layoutUpdateCallback != null && !before.equals(getPreferredSize())) {
             SwingUtilities.invokeLater(layoutUpdateCallback);
         }
     }
     
     public List<String> collectNotes() {
         List<String> notes = new ArrayList<>();
-        for (JTextField noteField : noteFields) {
-            notes.add(noteField.getText());
+        for (NoteRow row : rows) {
+            notes.add(row.field.getText());
         }
         return notes;
     }
     
     public void clearAllNotes() {
-        for (JTextField noteField : noteFields) {
-            noteField.setText("");
+        rows.get(0).field.setText("");
+        if (rows.size() == 1) {
+            return;
         }
         
         // Reset to single note field
-        noteFields.clear();
-        removeAll();
-        addNoteField();
-        revalidate();
-        repaint();
+        Dimension before = getPreferredSize();
+        while (rows.size() > 1) {
+            remove(rows.remove(rows.size() - 1).panel);
+        }
+        rows.get(0).addButton.setVisible(true);
+        layoutChanged(before);
     }
 }
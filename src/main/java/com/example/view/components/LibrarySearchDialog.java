@@ -0,0 +1,250 @@
+package com.example.view.components;
+
+import com.example.search.CrawlResult;
+import com.example.search.LibraryIndex;
+import com.example.search.SearchHit;
+import com.example.search.SearchResult;
+import com.example.task.TaskExecutor;
+import com.example.task.TaskHandle;
+import com.example.task.TaskListener;
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Searches the notes of every indexed file as you type; opening a hit loads its file at that entry
+ * Opening the dialog re-crawls the indexed folders in the background, which only reads changed files
+ */
+public class LibrarySearchDialog extends JDialog {
+    // Wait for a pause in typing before searching
+    private static final int SEARCH_DELAY_MS = 150;
+    private static final String[] COLUMN_NAMES = {"File", "Time", "Notes", "Folder"};
+
+    private final LibraryIndex index;
+    private final TaskExecutor tasks;
+    private final Consumer<SearchHit> opener;
+    private final Supplier<File> folderChooser;
+    private final JTextField queryField = UIComponents.createTextField(40, "Words from the notes; the last word may be partial", "");
+    private final JLabel statusLabel = UIComponents.createLabel(" ");
+    private final JLabel indexLabel = UIComponents.createLabel(" ");
+    private final HitsTableModel hitsModel = new HitsTableModel();
+    private final JTable hitsTable = new JTable(hitsModel);
+    private final Timer searchTimer;
+    // Only the newest search may update the table; an older one still running is cancelled
+    private int searchSequence;
+    private TaskHandle<SearchResult> searchTask;
+    private boolean crawling;
+
+    public LibrarySearchDialog(Frame parent, LibraryIndex index, TaskExecutor tasks, Consumer<SearchHit> opener,
+                               Supplier<File> folderChooser) {
+        super(parent, "Search Saved Files", false);
+        this.index = index;
+        this.tasks = tasks;
+        this.opener = opener;
+        this.folderChooser = folderChooser;
+
+        searchTimer = new Timer(SEARCH_DELAY_MS, e -> search());
+        searchTimer.setRepeats(false);
+        queryField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+        });
+        queryField.addActionListener(e -> openSelected());
+
+        UIComponents.styleTable(hitsTable);
+        hitsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        hitsTable.getColumnModel().getColumn(0).setPreferredWidth(160);
+        hitsTable.getColumnModel().getColumn(1).setPreferredWidth(80);
+        hitsTable.getColumnModel().getColumn(2).setPreferredWidth(360);
+        hitsTable.getColumnModel().getColumn(3).setPreferredWidth(200);
+        hitsTable.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    openSelected();
+                }
+            }
+        });
+
+        JPanel queryPanel = UIComponents.createBorderPanel();
+        queryPanel.add(UIComponents.createLabel("Find: "), BorderLayout.WEST);
+        queryPanel.add(queryField, BorderLayout.CENTER);
+        queryPanel.add(statusLabel, BorderLayout.SOUTH);
+        queryPanel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+
+        JPanel buttonPanel = UIComponents.createFlowPanel(FlowLayout.RIGHT, 5, 5);
+        buttonPanel.add(UIComponents.createActionButton("Add Folder...", e -> addFolder()));
+        buttonPanel.add(UIComponents.createActionButton("Rebuild Index", e -> crawl(true)));
+        buttonPanel.add(UIComponents.createActionButton("Open", e -> openSelected()));
+        buttonPanel.add(UIComponents.createActionButton("Close", e -> setVisible(false)));
+        JPanel southPanel = UIComponents.createBorderPanel();
+        indexLabel.setBorder(BorderFactory.createEmptyBorder(0, 5, 0, 5));
+        southPanel.add(indexLabel, BorderLayout.WEST);
+        southPanel.add(buttonPanel, BorderLayout.EAST);
+
+        JPanel content = UIComponents.createBorderPanel();
+        content.add(queryPanel, BorderLayout.NORTH);
+        content.add(new JScrollPane(hitsTable), BorderLayout.CENTER);
+        content.add(southPanel, BorderLayout.SOUTH);
+        setContentPane(content);
+        setSize(900, 500);
+        setLocationRelativeTo(parent);
+    }
+
+    /**
+     * Shows the dialog and brings the index up to date with the indexed folders
+     */
+    public void open() {
+        setVisible(true);
+        queryField.requestFocusInWindow();
+        crawl(false);
+    }
+
+    private void search() {
+        String query = queryField.getText();
+        int sequence = ++searchSequence;
+        if (searchTask != null) {
+            searchTask.cancel();
+        }
+        if (query.trim().isEmpty()) {
+            hitsModel.setHits(Collections.emptyList());
+            statusLabel.setText(" ");
+            return;
+        }
+        searchTask = tasks.submit(TaskExecutor.Pool.CPU, "Search saved files",
+                context -> index.search(query, LibraryIndex.DEFAULT_LIMIT), TaskListener.of(result -> {
+                    if (sequence == searchSequence) {
+                        hitsModel.setHits(result.getHits());
+                        statusLabel.setText(result.toString());
+                    }
+                }, cause -> {
+                    if (sequence == searchSequence) {
+                        statusLabel.setText("Search failed: " + cause.getMessage());
+                    }
+                }));
+    }
+
+    private void addFolder() {
+        File folder = folderChooser.get();
+        if (folder == null) {
+            return;
+        }
+        try {
+            index.addRoot(folder.toPath());
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, "Could not add " + folder + ": " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        crawl(false);
+    }
+
+    /**
+     * Crawls the indexed folders off the EDT, showing progress, then repeats the current search
+     */
+    private void crawl(boolean rebuild) {
+        if (crawling) {
+            return;
+        }
+        crawling = true;
+        indexLabel.setText(rebuild ? "Rebuilding index..." : "Checking indexed folders...");
+        tasks.submit(TaskExecutor.Pool.IO, "Index saved files", context -> index.crawl(rebuild, context::progress),
+                new TaskListener<CrawlResult>() {
+                    @Override
+                    public void progress(long done, long total) {
+                        indexLabel.setText("Indexing " + done + " of " + total + " files...");
+                    }
+
+                    @Override
+                    public void succeeded(CrawlResult result) {
+                        crawling = false;
+                        indexLabel.setText(result.indexed + result.removed > 0 ? index.describe() + " - " + result : index.describe());
+                        search();
+                    }
+
+                    @Override
+                    public void failed(Throwable cause) {
+                        crawling = false;
+                        indexLabel.setText("Indexing failed: " + cause.getMessage());
+                        search();
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        crawling = false;
+                        indexLabel.setText("Indexing cancelled");
+                    }
+                });
+    }
+
+    private void openSelected() {
+        int row = hitsTable.getSelectedRow();
+        if (row < 0 && hitsModel.getRowCount() > 0) {
+            row = 0;
+        }
+        if (row >= 0) {
+            opener.accept(hitsModel.hits.get(hitsTable.convertRowIndexToModel(row)));
+        }
+    }
+
+    private static class HitsTableModel extends AbstractTableModel {
+        private List<SearchHit> hits = Collections.emptyList();
+
+        void setHits(List<SearchHit> hits) {
+            this.hits = hits;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return hits.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMN_NAMES.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMN_NAMES[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            SearchHit hit = hits.get(row);
+            switch (column) {
+                case 0:
+                    return hit.getFile().getName();
+                case 1:
+                    return hit.getTimestamp();
+                case 2:
+                    return hit.getNotes();
+                case 3:
+                    return hit.getFile().getParent();
+                default:
+                    return null;
+            }
+        }
+    }
+}
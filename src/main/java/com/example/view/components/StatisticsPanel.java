@@ -0,0 +1,182 @@
+package com.example.view.components;
+
+import com.example.ChapterAnalytics;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Live chapter statistics: chapter durations and SUB counts, density and the longest gaps
+ * Everything is read from ChapterAnalytics, which the model keeps up to date, and refreshes
+ * are throttled so bursts of changes (e.g. live marking) cost at most one refresh per interval.
+ * A refresh only rewrites the chapter rows around the seconds changed since the previous one.
+ */
+public class StatisticsPanel extends JPanel {
+    public static final int REFRESH_INTERVAL_MS = 250;
+    // Rows shown in the chapter table; very long sessions show the first ones
+    private static final int MAX_CHAPTER_ROWS = 5_000;
+    private static final int GAPS_SHOWN = 5;
+    // Window for the "recent" density figure
+    private static final int RECENT_SECONDS = 5 * 60;
+    private static final String[] CHAPTER_COLUMNS = {"Chapter Start", "Duration", "Subs"};
+
+    private final ChapterAnalytics analytics;
+    private final JLabel summaryLabel = UIComponents.createLabel(" ");
+    private final ChapterTableModel chapterModel = new ChapterTableModel();
+    private final DefaultListModel<String> gapModel = new DefaultListModel<>();
+    private final Timer refreshTimer;
+
+    public StatisticsPanel(ChapterAnalytics analytics) {
+        super(new BorderLayout(5, 5));
+        this.analytics = analytics;
+        setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+
+        add(summaryLabel, BorderLayout.NORTH);
+
+        JTable chapterTable = new JTable(chapterModel);
+        UIComponents.styleTable(chapterTable);
+        add(new JScrollPane(chapterTable), BorderLayout.CENTER);
+
+        JPanel gapPanel = UIComponents.createTitledPanel("Longest Unmarked Gaps", new BorderLayout());
+        JList<String> gapList = new JList<>(gapModel);
+        gapList.setVisibleRowCount(GAPS_SHOWN);
+        gapPanel.add(gapList, BorderLayout.CENTER);
+        add(gapPanel, BorderLayout.SOUTH);
+
+        refreshTimer = new Timer(REFRESH_INTERVAL_MS, e -> refresh());
+        refreshTimer.setRepeats(false);
+        analytics.takeChangedRange();
+        chapterModel.replaceRows(0, 0, analytics.getChapters(MAX_CHAPTER_ROWS));
+        refresh();
+    }
+
+    /**
+     * Refreshes within the next interval; further calls until then are absorbed
+     */
+    public void scheduleRefresh() {
+        if (!refreshTimer.isRunning()) {
+            refreshTimer.start();
+        }
+    }
+
+    public void refresh() {
+        int last = analytics.getLastMarkedSecond();
+        summaryLabel.setText(String.format("%d chapters, %d entries, %.1f marks/min overall, %.1f marks/min in the last 5 min",
+                analytics.getChapterCount(), analytics.getEntryCount(), analytics.getMarksPerMinute(),
+                analytics.getMarksPerMinute(Math.max(0, last - RECENT_SECONDS), last + 1)));
+
+        int[] changed = analytics.takeChangedRange();
+        if (changed != null) {
+            updateChapters(changed[0], changed[1]);
+        }
+
+        gapModel.clear();
+        for (ChapterAnalytics.Gap gap : analytics.getLongestGaps(GAPS_SHOWN)) {
+            gapModel.addElement(formatSeconds(gap.lengthSeconds) + " from " + formatSeconds(gap.startSeconds)
+                    + " to " + formatSeconds(gap.startSeconds + gap.lengthSeconds));
+        }
+    }
+
+    /**
+     * Replaces the rows of the chapters that can differ after changes between fromSeconds and toSeconds:
+     * those starting in the range and the one running into it. Rows outside keep their values.
+     */
+    private void updateChapters(int fromSeconds, int toSeconds) {
+        List<ChapterAnalytics.Chapter> rows = chapterModel.rows;
+        int first = chapterModel.firstRowStartingAtOrAfter(fromSeconds);
+        if (first > 0) {
+            // Chapter starts before the range are unchanged, so the one running into it starts here
+            fromSeconds = rows.get(first - 1).startSeconds;
+            first = chapterModel.firstRowStartingAtOrAfter(fromSeconds);
+        }
+        int end = toSeconds == Integer.MAX_VALUE ? rows.size() : chapterModel.firstRowStartingAtOrAfter(toSeconds + 1);
+        boolean wasFull = rows.size() == MAX_CHAPTER_ROWS;
+        List<ChapterAnalytics.Chapter> changedChapters = analytics.getChapters(fromSeconds, toSeconds, MAX_CHAPTER_ROWS - first);
+        chapterModel.replaceRows(first, end, changedChapters);
+        if (rows.size() > MAX_CHAPTER_ROWS) {
+            chapterModel.replaceRows(MAX_CHAPTER_ROWS, rows.size(), List.of());
+        } else if (wasFull && rows.size() < MAX_CHAPTER_ROWS) {
+            // Chapters past the cap move up into view
+            chapterModel.replaceRows(0, rows.size(), analytics.getChapters(MAX_CHAPTER_ROWS));
+        }
+    }
+
+    private static String formatSeconds(int totalSeconds) {
+        return String.format("%d:%02d:%02d", totalSeconds / 3600, (totalSeconds % 3600) / 60, totalSeconds % 60);
+    }
+
+    /**
+     * Chapter rows formatted as they are painted, so a refresh only touches the changed rows
+     */
+    private static class ChapterTableModel extends AbstractTableModel {
+        private final List<ChapterAnalytics.Chapter> rows = new ArrayList<>();
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return CHAPTER_COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return CHAPTER_COLUMNS[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            ChapterAnalytics.Chapter chapter = rows.get(row);
+            switch (column) {
+                case 0:
+                    return formatSeconds(chapter.startSeconds);
+                case 1:
+                    return chapter.durationSeconds < 0 ? "(last)" : formatSeconds(chapter.durationSeconds);
+                default:
+                    return chapter.subCount;
+            }
+        }
+
+        /**
+         * Index of the first row whose chapter starts at or after the given second
+         */
+        int firstRowStartingAtOrAfter(int seconds) {
+            int low = 0;
+            int high = rows.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (rows.get(mid).startSeconds < seconds) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Replaces rows [start, end) with the given chapters, firing update events for the rows
+         * that stay and insert or delete events for the difference
+         */
+        void replaceRows(int start, int end, List<ChapterAnalytics.Chapter> chapters) {
+            int kept = Math.min(end - start, chapters.size());
+            for (int i = 0; i < kept; i++) {
+                rows.set(start + i, chapters.get(i));
+            }
+            if (kept > 0) {
+                fireTableRowsUpdated(start, start + kept - 1);
+            }
+            if (chapters.size() > kept) {
+                rows.addAll(start + kept, chapters.subList(kept, chapters.size()));
+                fireTableRowsInserted(start + kept, start + chapters.size() - 1);
+            } else if (end - start > kept) {
+                rows.subList(start + kept, end).clear();
+                fireTableRowsDeleted(start + kept, end - 1);
+            }
+        }
+    }
+}
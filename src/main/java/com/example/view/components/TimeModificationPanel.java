@@ -2,17 +2,17 @@ package com.example.view.components;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
 
 /**
  * Specialized panel for time modification buttons
- * Encapsulates the creation of time adjustment controls
+ * Encapsulates the creation of time adjustment controls; steps are in milliseconds
  */
 public class TimeModificationPanel extends JPanel {
     
-    private final IntConsumer timeModifierCallback;
+    private final LongConsumer timeModifierCallback;
     
-    public TimeModificationPanel(IntConsumer timeModifierCallback) {
+    public TimeModificationPanel(LongConsumer timeModifierCallback) {
         super(new GridBagLayout());
         this.timeModifierCallback = timeModifierCallback;
         initializeComponents();
@@ -28,30 +28,30 @@ public class TimeModificationPanel extends JPanel {
         gbc.anchor = GridBagConstraints.CENTER;
         add(UIComponents.createLabel("Time Adjust:"), gbc);
         
-        // Subtract time buttons (first row)
+        // Subtract time buttons (first row), coarse to fine
         gbc.gridx = 1; 
         gbc.gridy = 0;
         gbc.fill = GridBagConstraints.HORIZONTAL;
         gbc.weightx = 1.0;
-        int[] subtractTimes = {-30, -15, -10, -5};
+        long[] subtractTimes = {-30_000, -15_000, -10_000, -5_000, -1_000, -100};
         JPanel subtractPanel = createTimeButtonPanel(subtractTimes);
         add(subtractPanel, gbc);
         
-        // Add time buttons (second row)
+        // Add time buttons (second row), fine to coarse
         gbc.gridx = 1; 
         gbc.gridy = 1;
         gbc.fill = GridBagConstraints.HORIZONTAL;
         gbc.weightx = 1.0;
-        int[] addTimes = {5, 10, 15, 30};
+        long[] addTimes = {100, 1_000, 5_000, 10_000, 15_000, 30_000};
         JPanel addPanel = createTimeButtonPanel(addTimes);
         add(addPanel, gbc);
     }
     
-    private JPanel createTimeButtonPanel(int[] times) {
+    private JPanel createTimeButtonPanel(long[] times) {
         JPanel panel = UIComponents.createFlowPanel(FlowLayout.LEFT, 5, 0);
         
-        for (int seconds : times) {
-            JButton btn = UIComponents.createTimeButton(seconds, e -> timeModifierCallback.accept(seconds));
+        for (long millis : times) {
+            JButton btn = UIComponents.createTimeButton(millis, e -> timeModifierCallback.accept(millis));
             panel.add(btn);
         }
         
@@ -0,0 +1,163 @@
+package com.example.view.components;
+
+import com.example.TimelineBuckets;
+import com.example.TimestampType;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+
+/**
+ * Zoomable strip showing MAIN markers (top half) and SUB markers (bottom half) along the video
+ * Each pixel column paints the marker count of its time range, read from TimelineBuckets,
+ * so painting costs the same for ten entries or a million
+ * Mouse wheel zooms around the cursor, double-click fits the whole video, click selects a range
+ */
+public class TimelineStrip extends JComponent {
+
+    /**
+     * Receives the time range of a clicked pixel column
+     */
+    public interface RangeSelectionListener {
+        void rangeSelected(int fromSecond, int toSecond);
+    }
+
+    private static final Color BACKGROUND = new Color(250, 250, 250);
+    private static final Color MAIN_COLOR = new Color(70, 110, 200);
+    private static final Color SUB_COLOR = new Color(90, 170, 110);
+    private static final Color AXIS_COLOR = Color.GRAY;
+    private static final double ZOOM_STEP = 1.25;
+    private static final double MIN_VISIBLE_SECONDS = 10;
+
+    private TimelineBuckets timeline;
+    private RangeSelectionListener rangeSelectionListener;
+    // Visible range; fitted to the video while fitToDuration is set
+    private double viewStart;
+    private double viewSeconds;
+    private boolean fitToDuration = true;
+
+    public TimelineStrip() {
+        setPreferredSize(new Dimension(0, 48));
+        setToolTipText("");
+
+        MouseAdapter mouse = new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    fitToDuration = true;
+                    repaint();
+                } else if (rangeSelectionListener != null && timeline != null) {
+                    int[] range = columnRange(e.getX());
+                    rangeSelectionListener.rangeSelected(range[0], range[1]);
+                }
+            }
+
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                zoom(e.getX(), e.getWheelRotation() < 0 ? 1 / ZOOM_STEP : ZOOM_STEP);
+            }
+        };
+        addMouseListener(mouse);
+        addMouseWheelListener(mouse);
+    }
+
+    public void setTimeline(TimelineBuckets timeline) {
+        this.timeline = timeline;
+        repaint();
+    }
+
+    public void setRangeSelectionListener(RangeSelectionListener rangeSelectionListener) {
+        this.rangeSelectionListener = rangeSelectionListener;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int width = getWidth();
+        int height = getHeight();
+        g.setColor(BACKGROUND);
+        g.fillRect(0, 0, width, height);
+        if (timeline == null || width <= 0) {
+            return;
+        }
+        updateFit();
+
+        int[] mainCounts = new int[width];
+        int[] subCounts = new int[width];
+        int max = 1;
+        for (int x = 0; x < width; x++) {
+            int[] range = columnRange(x);
+            mainCounts[x] = timeline.count(TimestampType.MAIN, range[0], range[1]);
+            subCounts[x] = timeline.count(TimestampType.SUB, range[0], range[1]);
+            max = Math.max(max, Math.max(mainCounts[x], subCounts[x]));
+        }
+
+        // Log scale so a single marker stays visible next to dense clusters
+        int half = height / 2;
+        double scale = (half - 2) / Math.log1p(max);
+        for (int x = 0; x < width; x++) {
+            if (mainCounts[x] > 0) {
+                int bar = Math.max(2, (int) (Math.log1p(mainCounts[x]) * scale));
+                g.setColor(MAIN_COLOR);
+                g.drawLine(x, half - bar, x, half - 1);
+            }
+            if (subCounts[x] > 0) {
+                int bar = Math.max(2, (int) (Math.log1p(subCounts[x]) * scale));
+                g.setColor(SUB_COLOR);
+                g.drawLine(x, half + 1, x, half + bar);
+            }
+        }
+
+        g.setColor(AXIS_COLOR);
+        g.drawLine(0, half, width, half);
+        g.setFont(g.getFont().deriveFont(10f));
+        FontMetrics metrics = g.getFontMetrics();
+        String startLabel = formatSeconds((int) viewStart);
+        String endLabel = formatSeconds((int) (viewStart + viewSeconds));
+        g.drawString(startLabel, 2, height - 2);
+        g.drawString(endLabel, width - metrics.stringWidth(endLabel) - 2, height - 2);
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        if (timeline == null) {
+            return null;
+        }
+        updateFit();
+        int[] range = columnRange(e.getX());
+        return formatSeconds(range[0]) + " - " + formatSeconds(range[1]) + ": "
+                + timeline.count(TimestampType.MAIN, range[0], range[1]) + " main, "
+                + timeline.count(TimestampType.SUB, range[0], range[1]) + " sub";
+    }
+
+    /**
+     * Whole-second range [from, to) covered by a pixel column; never empty
+     */
+    private int[] columnRange(int x) {
+        double secondsPerPixel = viewSeconds / Math.max(1, getWidth());
+        int from = (int) Math.floor(viewStart + x * secondsPerPixel);
+        int to = (int) Math.floor(viewStart + (x + 1) * secondsPerPixel);
+        return new int[] {from, Math.max(from + 1, to)};
+    }
+
+    private void zoom(int x, double factor) {
+        updateFit();
+        double anchor = viewStart + viewSeconds * x / Math.max(1, getWidth());
+        double duration = Math.max(MIN_VISIBLE_SECONDS, timeline == null ? 0 : timeline.getDurationSeconds());
+        viewSeconds = Math.max(MIN_VISIBLE_SECONDS, Math.min(duration, viewSeconds * factor));
+        viewStart = Math.max(0, Math.min(duration - viewSeconds, anchor - viewSeconds * x / Math.max(1, getWidth())));
+        fitToDuration = viewSeconds >= duration;
+        repaint();
+    }
+
+    private void updateFit() {
+        if (fitToDuration) {
+            viewStart = 0;
+            viewSeconds = Math.max(MIN_VISIBLE_SECONDS, timeline == null ? 0 : timeline.getDurationSeconds());
+        }
+    }
+
+    private static String formatSeconds(int totalSeconds) {
+        return String.format("%d:%02d:%02d", totalSeconds / 3600, (totalSeconds % 3600) / 60, totalSeconds % 60);
+    }
+}
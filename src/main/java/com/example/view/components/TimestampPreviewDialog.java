@@ -0,0 +1,146 @@
+package com.example.view.components;
+
+import com.example.TimestampEntry;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Modal preview of extracted timestamps
+ * Lets the user untick or edit entries before they are added to the model
+ */
+public class TimestampPreviewDialog extends JDialog {
+    
+    private final List<TimestampEntry> candidates;
+    private final boolean[] included;
+    private final PreviewTableModel tableModel;
+    private boolean confirmed = false;
+    
+    private TimestampPreviewDialog(Window owner, String title, List<TimestampEntry> candidates) {
+        super(owner, title, ModalityType.APPLICATION_MODAL);
+        this.candidates = candidates;
+        this.included = new boolean[candidates.size()];
+        Arrays.fill(included, true);
+        this.tableModel = new PreviewTableModel();
+        initializeComponents();
+    }
+    
+    /**
+     * Shows the preview and returns the entries the user kept, or null if cancelled
+     */
+    public static List<TimestampEntry> showDialog(Component parent, String title, List<TimestampEntry> candidates) {
+        Window owner = parent == null ? null : SwingUtilities.getWindowAncestor(parent);
+        if (parent instanceof Window) {
+            owner = (Window) parent;
+        }
+        TimestampPreviewDialog dialog = new TimestampPreviewDialog(owner, title, candidates);
+        dialog.setVisible(true);
+        return dialog.confirmed ? dialog.getSelectedEntries() : null;
+    }
+    
+    private void initializeComponents() {
+        JPanel content = UIComponents.createBorderPanel();
+        content.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        
+        JLabel summary = UIComponents.createLabel(candidates.size() + " timestamps found. Untick the ones you don't want.");
+        content.add(summary, BorderLayout.NORTH);
+        
+        JTable table = new JTable(tableModel);
+        UIComponents.styleTable(table);
+        table.getColumnModel().getColumn(0).setPreferredWidth(60);
+        table.getColumnModel().getColumn(1).setPreferredWidth(100);
+        table.getColumnModel().getColumn(2).setPreferredWidth(500);
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(700, 350));
+        content.add(scrollPane, BorderLayout.CENTER);
+        
+        JPanel buttonPanel = UIComponents.createFlowPanel(FlowLayout.RIGHT, 5, 5);
+        buttonPanel.add(UIComponents.createActionButton("Select All", e -> setAllIncluded(true)));
+        buttonPanel.add(UIComponents.createActionButton("Select None", e -> setAllIncluded(false)));
+        buttonPanel.add(UIComponents.createActionButton("Add Selected", e -> {
+            if (table.isEditing()) {
+                table.getCellEditor().stopCellEditing();
+            }
+            confirmed = true;
+            dispose();
+        }));
+        buttonPanel.add(UIComponents.createActionButton("Cancel", e -> dispose()));
+        content.add(buttonPanel, BorderLayout.SOUTH);
+        
+        setContentPane(content);
+        pack();
+        setLocationRelativeTo(getOwner());
+    }
+    
+    private void setAllIncluded(boolean include) {
+        Arrays.fill(included, include);
+        tableModel.fireTableDataChanged();
+    }
+    
+    private List<TimestampEntry> getSelectedEntries() {
+        List<TimestampEntry> selected = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            if (included[i]) {
+                selected.add(candidates.get(i));
+            }
+        }
+        return selected;
+    }
+    
+    /**
+     * Include checkbox, timecode and editable notes
+     */
+    private class PreviewTableModel extends AbstractTableModel {
+        private final String[] columnNames = {"Add", "Time", "Note"};
+        
+        @Override
+        public int getRowCount() {
+            return candidates.size();
+        }
+        
+        @Override
+        public int getColumnCount() {
+            return columnNames.length;
+        }
+        
+        @Override
+        public String getColumnName(int column) {
+            return columnNames[column];
+        }
+        
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column == 0 ? Boolean.class : String.class;
+        }
+        
+        @Override
+        public boolean isCellEditable(int row, int column) {
+            return column != 1;
+        }
+        
+        @Override
+        public Object getValueAt(int row, int column) {
+            switch (column) {
+                case 0:
+                    return included[row];
+                case 1:
+                    return candidates.get(row).getTimestamp();
+                default:
+                    return candidates.get(row).getNotes();
+            }
+        }
+        
+        @Override
+        public void setValueAt(Object value, int row, int column) {
+            if (column == 0) {
+                included[row] = Boolean.TRUE.equals(value);
+            } else if (column == 2) {
+                candidates.get(row).setNotes(value == null ? "" : value.toString());
+            }
+            fireTableCellUpdated(row, column);
+        }
+    }
+}
@@ -0,0 +1,521 @@
+package com.example.view.components;
+
+import com.example.SessionFormat;
+import com.example.TimestampType;
+import com.example.metrics.Histogram;
+import com.example.metrics.MetricsRegistry;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * RowSorter for TimestampTableModel that sorts on primitive keys (time in milliseconds, date added
+ * as epoch milliseconds, type) kept per model row, instead of comparing cell strings
+ * - multi-column: clicking a header makes it the primary key and keeps earlier keys as tie-breakers;
+ *   remaining ties keep time order
+ * - filtering with composable KeyFilters on the same keys (see typeIs() and addedAtOrAfter()), so no
+ *   entry is read, or materialized when it lives off-heap; a filter built with indexed() takes its rows
+ *   from an index lookup (e.g. the model's type and date-added indexes) instead of testing every row
+ * - row inserts and deletes are placed by binary search and patched into the mapping instead of
+ *   re-sorting; with no sort keys and no filter the view is the model and nothing is mapped
+ */
+public class TimestampRowSorter extends RowSorter<TimestampTableModel> {
+    public static final int MAX_SORT_KEYS = 3;
+
+    private static final Histogram SORT_LATENCY = MetricsRegistry.getInstance().latency("view.sort");
+    // Inserts larger than this share of the rows re-sort everything instead
+    private static final int INCREMENTAL_DIVISOR = 8;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    private static final TimestampType[] TYPES = TimestampType.values();
+
+    /**
+     * Compares two model rows
+     */
+    private interface RowComparator {
+        int compare(int a, int b);
+    }
+
+    /**
+     * Decides from a row's keys whether it is shown
+     */
+    public interface KeyFilter {
+        boolean accept(long millis, long addedMillis, TimestampType type);
+
+        /**
+         * Model rows, ascending, that include every row the filter accepts, looked up in an index;
+         * null (the default) has the sorter test every row
+         */
+        default int[] candidateRows() {
+            return null;
+        }
+
+        default KeyFilter and(KeyFilter other) {
+            KeyFilter first = this;
+            return new KeyFilter() {
+                @Override
+                public boolean accept(long millis, long addedMillis, TimestampType type) {
+                    return first.accept(millis, addedMillis, type) && other.accept(millis, addedMillis, type);
+                }
+
+                @Override
+                public int[] candidateRows() {
+                    int[] rows = first.candidateRows();
+                    return rows != null ? rows : other.candidateRows();
+                }
+            };
+        }
+    }
+
+    private final TimestampTableModel model;
+    private List<SortKey> sortKeys = Collections.emptyList();
+    private KeyFilter filter;
+
+    // Keys per model row; only the first modelCount are in use
+    private long[] timeKeys = new long[0];
+    private long[] addedKeys = new long[0];
+    private byte[] typeKeys = new byte[0];
+    private int modelCount;
+
+    // View row -> model row, or null when the view is the model
+    private int[] viewToModel;
+    private int viewCount;
+    // Model row -> view row (-1 if filtered out), or null when the view is the model
+    private int[] modelToView;
+
+    public TimestampRowSorter(TimestampTableModel model) {
+        this.model = model;
+        allRowsChanged();
+    }
+
+    /**
+     * Entries of the given type
+     */
+    public static KeyFilter typeIs(TimestampType type) {
+        return (millis, addedMillis, entryType) -> entryType == type;
+    }
+
+    /**
+     * Entries added at or after the given time
+     */
+    public static KeyFilter addedAtOrAfter(LocalDateTime since) {
+        long sinceMillis = SessionFormat.toEpochMillis(since);
+        return (millis, addedMillis, type) -> addedMillis >= sinceMillis;
+    }
+
+    /**
+     * The filter, with the rows to test looked up in an index when the view is rebuilt. Rows inserted
+     * later are still tested on their keys, so the lookup only has to be current when it is called.
+     */
+    public static KeyFilter indexed(KeyFilter filter, Supplier<int[]> candidateRows) {
+        return new KeyFilter() {
+            @Override
+            public boolean accept(long millis, long addedMillis, TimestampType type) {
+                return filter.accept(millis, addedMillis, type);
+            }
+
+            @Override
+            public int[] candidateRows() {
+                return candidateRows.get();
+            }
+        };
+    }
+
+    /**
+     * Shows only the entries the filter accepts; null shows everything
+     */
+    public void setFilter(KeyFilter filter) {
+        this.filter = filter;
+        sort();
+    }
+
+    public KeyFilter getFilter() {
+        return filter;
+    }
+
+    @Override
+    public TimestampTableModel getModel() {
+        return model;
+    }
+
+    public boolean isSortable(int column) {
+        return column == TimestampTableModel.TIME_COLUMN || column == TimestampTableModel.DATE_COLUMN
+                || column == TimestampTableModel.TYPE_COLUMN;
+    }
+
+    /**
+     * Makes the column the primary sort key: ascending first, then descending, then unsorted
+     */
+    @Override
+    public void toggleSortOrder(int column) {
+        if (!isSortable(column)) {
+            return;
+        }
+        List<SortKey> keys = new ArrayList<>(sortKeys);
+        SortOrder order = SortOrder.ASCENDING;
+        for (int i = 0; i < keys.size(); i++) {
+            if (keys.get(i).getColumn() == column) {
+                SortKey existing = keys.remove(i);
+                if (i == 0) {
+                    order = existing.getSortOrder() == SortOrder.ASCENDING ? SortOrder.DESCENDING : SortOrder.UNSORTED;
+                }
+                break;
+            }
+        }
+        if (order != SortOrder.UNSORTED) {
+            keys.add(0, new SortKey(column, order));
+        }
+        if (keys.size() > MAX_SORT_KEYS) {
+            keys = keys.subList(0, MAX_SORT_KEYS);
+        }
+        setSortKeys(keys);
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> checked = new ArrayList<>();
+        if (keys != null) {
+            for (SortKey key : keys) {
+                if (key == null || !isSortable(key.getColumn())) {
+                    throw new IllegalArgumentException("Column " + (key == null ? null : key.getColumn()) + " is not sortable");
+                }
+                if (key.getSortOrder() != SortOrder.UNSORTED) {
+                    checked.add(key);
+                }
+            }
+        }
+        if (checked.equals(sortKeys)) {
+            return;
+        }
+        sortKeys = Collections.unmodifiableList(checked);
+        fireSortOrderChanged();
+        sort();
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        if (index < 0 || index >= viewCount) {
+            throw new IndexOutOfBoundsException("Invalid view row " + index);
+        }
+        return viewToModel == null ? index : viewToModel[index];
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        if (index < 0 || index >= modelCount) {
+            throw new IndexOutOfBoundsException("Invalid model row " + index);
+        }
+        return modelToView == null ? index : modelToView[index];
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return viewCount;
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return modelCount;
+    }
+
+    @Override
+    public void modelStructureChanged() {
+        allRowsChanged();
+    }
+
+    @Override
+    public void allRowsChanged() {
+        modelCount = model.getRowCount();
+        timeKeys = new long[modelCount];
+        addedKeys = new long[modelCount];
+        typeKeys = new byte[modelCount];
+        for (int row = 0; row < modelCount; row++) {
+            loadKeys(row);
+        }
+        sort();
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        int count = endRow - firstRow + 1;
+        if (firstRow < 0 || endRow < firstRow || firstRow > modelCount) {
+            throw new IndexOutOfBoundsException("Invalid insert " + firstRow + "-" + endRow);
+        }
+        ensureCapacity(modelCount + count);
+        System.arraycopy(timeKeys, firstRow, timeKeys, endRow + 1, modelCount - firstRow);
+        System.arraycopy(addedKeys, firstRow, addedKeys, endRow + 1, modelCount - firstRow);
+        System.arraycopy(typeKeys, firstRow, typeKeys, endRow + 1, modelCount - firstRow);
+        modelCount += count;
+        for (int row = firstRow; row <= endRow; row++) {
+            loadKeys(row);
+        }
+        if (viewToModel == null) {
+            viewCount = modelCount;
+            return;
+        }
+        if (count > modelCount / INCREMENTAL_DIVISOR) {
+            // The model may have more changes to report, so an index would not match these rows yet
+            sort(false);
+            return;
+        }
+
+        long start = System.nanoTime();
+        int[] previous = currentViewToModel();
+        for (int view = 0; view < viewCount; view++) {
+            if (viewToModel[view] >= firstRow) {
+                viewToModel[view] += count;
+            }
+        }
+        if (viewToModel.length < viewCount + count) {
+            viewToModel = Arrays.copyOf(viewToModel, Math.max(viewCount + count, viewToModel.length * 2));
+        }
+        RowComparator comparator = comparator();
+        for (int row = firstRow; row <= endRow; row++) {
+            if (!accepts(row)) {
+                continue;
+            }
+            int low = 0;
+            int high = viewCount;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (comparator.compare(viewToModel[mid], row) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            System.arraycopy(viewToModel, low, viewToModel, low + 1, viewCount - low);
+            viewToModel[low] = row;
+            viewCount++;
+        }
+        rebuildModelToView();
+        SORT_LATENCY.recordSince(start);
+        fireRowSorterChanged(previous);
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        int count = endRow - firstRow + 1;
+        if (firstRow < 0 || endRow < firstRow || endRow >= modelCount) {
+            throw new IndexOutOfBoundsException("Invalid delete " + firstRow + "-" + endRow);
+        }
+        System.arraycopy(timeKeys, endRow + 1, timeKeys, firstRow, modelCount - endRow - 1);
+        System.arraycopy(addedKeys, endRow + 1, addedKeys, firstRow, modelCount - endRow - 1);
+        System.arraycopy(typeKeys, endRow + 1, typeKeys, firstRow, modelCount - endRow - 1);
+        modelCount -= count;
+        if (viewToModel == null) {
+            viewCount = modelCount;
+            return;
+        }
+
+        long start = System.nanoTime();
+        int[] previous = currentViewToModel();
+        int kept = 0;
+        for (int view = 0; view < viewCount; view++) {
+            int row = viewToModel[view];
+            if (row > endRow) {
+                viewToModel[kept++] = row - count;
+            } else if (row < firstRow) {
+                viewToModel[kept++] = row;
+            }
+        }
+        viewCount = kept;
+        rebuildModelToView();
+        SORT_LATENCY.recordSince(start);
+        fireRowSorterChanged(previous);
+    }
+
+    /**
+     * Re-reads the keys of updated rows; only re-sorts if a key or the filter result changed
+     */
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        if (firstRow < 0 || endRow >= modelCount) {
+            throw new IndexOutOfBoundsException("Invalid update " + firstRow + "-" + endRow);
+        }
+        boolean changed = false;
+        for (int row = firstRow; row <= endRow; row++) {
+            long time = timeKeys[row];
+            long added = addedKeys[row];
+            byte type = typeKeys[row];
+            loadKeys(row);
+            changed |= time != timeKeys[row] || added != addedKeys[row] || type != typeKeys[row];
+            if (filter != null && !changed) {
+                changed = accepts(row) != (modelToView[row] >= 0);
+            }
+        }
+        if (changed) {
+            sort(false);
+        }
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        rowsUpdated(firstRow, endRow);
+    }
+
+    private void sort() {
+        sort(true);
+    }
+
+    /**
+     * Rebuilds the view from scratch: filter, then a stable sort on the keys. The filter's index lookup is
+     * used unless called part way through a model change, when the index is ahead of the keys.
+     */
+    private void sort(boolean useIndex) {
+        long start = System.nanoTime();
+        int[] previous = currentViewToModel();
+        if (sortKeys.isEmpty() && filter == null) {
+            viewToModel = null;
+            modelToView = null;
+            viewCount = modelCount;
+        } else {
+            int[] candidates = useIndex && filter != null ? filter.candidateRows() : null;
+            int[] rows;
+            int count = 0;
+            if (candidates != null) {
+                // O(k) for k candidates; the keys confirm each one
+                rows = new int[candidates.length];
+                for (int row : candidates) {
+                    if (row < modelCount && accepts(row)) {
+                        rows[count++] = row;
+                    }
+                }
+            } else {
+                rows = new int[modelCount];
+                for (int row = 0; row < modelCount; row++) {
+                    if (accepts(row)) {
+                        rows[count++] = row;
+                    }
+                }
+            }
+            if (!sortKeys.isEmpty()) {
+                mergeSort(rows, new int[count], 0, count, comparator());
+            }
+            viewToModel = rows;
+            viewCount = count;
+            rebuildModelToView();
+        }
+        SORT_LATENCY.recordSince(start);
+        fireRowSorterChanged(previous);
+    }
+
+    private void loadKeys(int row) {
+        timeKeys[row] = model.getMillis(row);
+        addedKeys[row] = model.getAddedMillis(row);
+        typeKeys[row] = (byte) model.getType(row).ordinal();
+    }
+
+    private boolean accepts(int row) {
+        return filter == null || filter.accept(timeKeys[row], addedKeys[row], TYPES[typeKeys[row]]);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (timeKeys.length < capacity) {
+            int size = Math.max(capacity, timeKeys.length * 2);
+            timeKeys = Arrays.copyOf(timeKeys, size);
+            addedKeys = Arrays.copyOf(addedKeys, size);
+            typeKeys = Arrays.copyOf(typeKeys, size);
+        }
+    }
+
+    private void rebuildModelToView() {
+        if (modelToView == null || modelToView.length < modelCount) {
+            modelToView = new int[Math.max(modelCount, 16)];
+        }
+        Arrays.fill(modelToView, 0, modelCount, -1);
+        for (int view = 0; view < viewCount; view++) {
+            modelToView[viewToModel[view]] = view;
+        }
+    }
+
+    /**
+     * The current mapping as JTable expects it in sorter events (identity spelled out)
+     */
+    private int[] currentViewToModel() {
+        if (viewToModel == null) {
+            int[] identity = new int[viewCount];
+            for (int i = 0; i < viewCount; i++) {
+                identity[i] = i;
+            }
+            return identity;
+        }
+        return Arrays.copyOf(viewToModel, viewCount);
+    }
+
+    /**
+     * Compares model rows by the sort keys in turn, then by row (time order)
+     */
+    private RowComparator comparator() {
+        int keyCount = sortKeys.size();
+        int[] columns = new int[keyCount];
+        boolean[] descending = new boolean[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            columns[i] = sortKeys.get(i).getColumn();
+            descending[i] = sortKeys.get(i).getSortOrder() == SortOrder.DESCENDING;
+        }
+        return (a, b) -> {
+            for (int i = 0; i < keyCount; i++) {
+                int result;
+                switch (columns[i]) {
+                    case TimestampTableModel.TIME_COLUMN:
+                        result = Long.compare(timeKeys[a], timeKeys[b]);
+                        break;
+                    case TimestampTableModel.DATE_COLUMN:
+                        result = Long.compare(addedKeys[a], addedKeys[b]);
+                        break;
+                    default:
+                        result = Byte.compare(typeKeys[a], typeKeys[b]);
+                        break;
+                }
+                if (result != 0) {
+                    return descending[i] ? -result : result;
+                }
+            }
+            return Integer.compare(a, b);
+        };
+    }
+
+    /**
+     * Stable merge sort of rows[from, to) without boxing; scratch must hold at least to elements
+     */
+    private static void mergeSort(int[] rows, int[] scratch, int from, int to, RowComparator comparator) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int row = rows[i];
+                int j = i - 1;
+                while (j >= from && comparator.compare(rows[j], row) > 0) {
+                    rows[j + 1] = rows[j];
+                    j--;
+                }
+                rows[j + 1] = row;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(rows, scratch, from, mid, comparator);
+        mergeSort(rows, scratch, mid, to, comparator);
+        if (comparator.compare(rows[mid - 1], rows[mid]) <= 0) {
+            return;
+        }
+        System.arraycopy(rows, from, scratch, from, to - from);
+        int left = from;
+        int right = mid;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < mid && comparator.compare(scratch[left], scratch[right]) <= 0)) {
+                rows[i] = scratch[left++];
+            } else {
+                rows[i] = scratch[right++];
+            }
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.view.components;
+
+import com.example.RowChanges;
+import com.example.SessionFormat;
+import com.example.TimestampEntry;
+import com.example.TimestampType;
+import com.example.store.EntryList;
+import javax.swing.table.AbstractTableModel;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Table model backed directly by timestamp entries
+ * Cell text (indentation, joined notes, formatted date) is produced on demand
+ * for the rows being painted instead of being copied into every row up front; entries kept
+ * off-heap (EntryList) are only materialized for those rows too
+ * The model's list is shown live, without copying it; the rows each change removed and inserted are
+ * reported as row insert/delete events so a RowSorter can update incrementally instead of starting over
+ */
+public class TimestampTableModel extends AbstractTableModel {
+    
+    public static final int TIME_COLUMN = 0;
+    public static final int NOTE_COLUMN = 1;
+    public static final int DATE_COLUMN = 2;
+    public static final int TYPE_COLUMN = 3;
+    
+    private static final String[] COLUMN_NAMES = {"Time", "Note", "Date Added", "Type"};
+    private static final String SUB_INDENT = "\u3000\u3000";
+    // More separate runs of inserted or deleted rows than this are reported as one data change
+    private static final int MAX_CHANGE_RUNS = 32;
+    
+    /**
+     * Receives note edits made in the table; row is the index into the entry list
+     */
+    public interface NoteEditListener {
+        void noteEdited(int row, String newNote);
+    }
+    
+    private List<TimestampEntry> entries = new ArrayList<>();
+    // Rows the listeners were last told about; a live list may have changed since
+    private int shownRows;
+    private NoteEditListener noteEditListener;
+    
+    public void setNoteEditListener(NoteEditListener noteEditListener) {
+        this.noteEditListener = noteEditListener;
+    }
+    
+    /**
+     * Shows the given list (in time order), which may be a live list that changes in place. If it is the
+     * list already shown, changes names the rows removed from and inserted into it since the last call;
+     * they are fired as row delete/insert events. Rows not named only changed their notes, which no
+     * sort key or filter uses, so no update events are fired; the table just needs a repaint.
+     * Anything else (another list, RowChanges.all(), too many separate runs) fires a data change.
+     */
+    public void setEntries(List<TimestampEntry> newEntries, RowChanges changes) {
+        int[] removedRows = changes.getRemovedRows();
+        int[] insertedRows = changes.getInsertedRows();
+        if (newEntries != entries || changes.isAll()
+                || shownRows - removedRows.length + insertedRows.length != newEntries.size()
+                || runs(removedRows) + runs(insertedRows) > MAX_CHANGE_RUNS) {
+            entries = newEntries;
+            shownRows = newEntries.size();
+            fireTableDataChanged();
+            return;
+        }
+        // Delete from the end so earlier row numbers stay valid, then insert at the final positions in order;
+        // listeners see the rows as they are after each event
+        ChangingRows changing = new ChangingRows(newEntries, removedRows, changes.getRemovedEntries(), insertedRows, shownRows);
+        entries = changing;
+        int end = removedRows.length;
+        while (end > 0) {
+            int first = runStart(removedRows, end - 1);
+            changing.delete(first);
+            fireTableRowsDeleted(removedRows[first], removedRows[end - 1]);
+            end = first;
+        }
+        for (int first = 0; first < insertedRows.length; ) {
+            int last = runEnd(insertedRows, first);
+            changing.insert(last + 1);
+            fireTableRowsInserted(insertedRows[first], insertedRows[last]);
+            first = last + 1;
+        }
+        entries = newEntries;
+        shownRows = newEntries.size();
+    }
+    
+    public TimestampEntry getEntry(int row) {
+        return entries.get(row);
+    }
+    
+    /**
+     * Time of the entry at the given row in milliseconds, without materializing an off-heap entry
+     */
+    public long getMillis(int row) {
+        return millisAt(sourceOf(row), sourceRow(row));
+    }
+    
+    /**
+     * Date added of the entry at the given row as SessionFormat epoch milliseconds
+     */
+    public long getAddedMillis(int row) {
+        List<TimestampEntry> source = sourceOf(row);
+        int index = sourceRow(row);
+        return source instanceof EntryList ? ((EntryList) source).addedAt(index)
+                : SessionFormat.toEpochMillis(source.get(index).getDateAdded());
+    }
+    
+    public TimestampType getType(int row) {
+        List<TimestampEntry> source = sourceOf(row);
+        int index = sourceRow(row);
+        return source instanceof EntryList ? ((EntryList) source).typeAt(index) : source.get(index).getType();
+    }
+    
+    /**
+     * The list holding the given row, which is the old or new list while changes are being fired
+     */
+    private List<TimestampEntry> sourceOf(int row) {
+        return entries instanceof ChangingRows ? ((ChangingRows) entries).source(row) : entries;
+    }
+    
+    private int sourceRow(int row) {
+        return entries instanceof ChangingRows ? ((ChangingRows) entries).sourceRow(row) : row;
+    }
+    
+    @Override
+    public int getRowCount() {
+        return entries.size();
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+    
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return column == NOTE_COLUMN; // Only note column is editable
+    }
+    
+    @Override
+    public Object getValueAt(int row, int column) {
+        TimestampEntry entry = getEntry(row);
+        switch (column) {
+            case TIME_COLUMN:
+                return entry.getDisplayTimestamp();
+            case NOTE_COLUMN:
+                return entry.getDisplayNotes();
+            case DATE_COLUMN:
+                return entry.getDisplayDateAdded();
+            case TYPE_COLUMN:
+                return entry.getType() == TimestampType.SUB ? "Sub" : "Main";
+            default:
+                return null;
+        }
+    }
+    
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        if (column != NOTE_COLUMN || value == null) {
+            return;
+        }
+        String newNote = value.toString();
+        // The editor shows the indented display text; don't store the indentation
+        TimestampEntry entry = getEntry(row);
+        if (entry.getType() == TimestampType.SUB && newNote.startsWith(SUB_INDENT)) {
+            newNote = newNote.substring(SUB_INDENT.length());
+        }
+        if (newNote.equals(entry.getNotes())) {
+            return;
+        }
+        if (noteEditListener != null) {
+            noteEditListener.noteEdited(row, newNote);
+        }
+    }
+    
+    private static long millisAt(List<TimestampEntry> entries, int index) {
+        return entries instanceof EntryList ? ((EntryList) entries).millisAt(index) : entries.get(index).getMillis();
+    }
+    
+    /**
+     * Number of runs of consecutive rows in an ascending array
+     */
+    private static int runs(int[] rows) {
+        int runs = 0;
+        for (int i = 0; i < rows.length; i = runEnd(rows, i) + 1) {
+            runs++;
+        }
+        return runs;
+    }
+    
+    private static int runStart(int[] rows, int last) {
+        int first = last;
+        while (first > 0 && rows[first - 1] == rows[first] - 1) {
+            first--;
+        }
+        return first;
+    }
+    
+    private static int runEnd(int[] rows, int first) {
+        int last = first;
+        while (last + 1 < rows.length && rows[last + 1] == rows[last] + 1) {
+            last++;
+        }
+        return last;
+    }
+    
+    /**
+     * The rows part way through setEntries(): the live list as it was before the change, with the removed
+     * rows deleted from the end and the inserted rows added from the start one run at a time. Rows are
+     * mapped onto the live list or the removed entries, so nothing is copied.
+     */
+    private static final class ChangingRows extends AbstractList<TimestampEntry> {
+        private final List<TimestampEntry> current;
+        private final int[] removedRows;
+        private final List<TimestampEntry> removedEntries;
+        private final int[] insertedRows;
+        // Removed rows from this index on are deleted already; inserted rows up to it are added
+        private int removedFrom;
+        private int insertedTo;
+        private int size;
+        
+        ChangingRows(List<TimestampEntry> current, int[] removedRows, List<TimestampEntry> removedEntries,
+                     int[] insertedRows, int size) {
+            this.current = current;
+            this.removedRows = removedRows;
+            this.removedEntries = removedEntries;
+            this.insertedRows = insertedRows;
+            this.removedFrom = removedRows.length;
+            this.size = size;
+        }
+        
+        /**
+         * Deletes the removed rows from the given index up to those already deleted
+         */
+        void delete(int from) {
+            size -= removedFrom - from;
+            removedFrom = from;
+        }
+        
+        /**
+         * Adds the inserted rows up to (not including) the given index
+         */
+        void insert(int to) {
+            size += to - insertedTo;
+            insertedTo = to;
+        }
+        
+        /**
+         * >= 0: row of the live list, < 0: ~index of a removed entry
+         */
+        private int locate(int row) {
+            if (removedFrom == 0) {
+                return skip(row, insertedRows, insertedTo);
+            }
+            // No inserts yet: rows are numbered as before the change, minus the deleted runs
+            int old = skip(row, removedRows, removedFrom);
+            int removed = Arrays.binarySearch(removedRows, old);
+            if (removed >= 0) {
+                return ~removed;
+            }
+            // Survivors keep their order; the live list also has all the inserted rows between them
+            return skip(old - ~removed, insertedRows, 0);
+        }
+        
+        /**
+         * Index in the full list of a row of the list that lacks the rows at gaps[from..], ascending
+         */
+        private static int skip(int row, int[] gaps, int from) {
+            int index = row;
+            for (int i = from; i < gaps.length && gaps[i] <= index; i++) {
+                index++;
+            }
+            return index;
+        }
+        
+        List<TimestampEntry> source(int row) {
+            return locate(row) >= 0 ? current : removedEntries;
+        }
+        
+        int sourceRow(int row) {
+            int located = locate(row);
+            return located >= 0 ? located : ~located;
+        }
+        
+        @Override
+        public TimestampEntry get(int row) {
+            if (row >= size) {
+                throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+            }
+            int located = locate(row);
+            return located >= 0 ? current.get(located) : removedEntries.get(~located);
+        }
+        
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.example.view.components;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionListener;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Factory class for creating standardized UI components
@@ -19,42 +22,26 @@ public class UIComponents {
     public static final Color LIGHT_RED = new Color(255, 200, 200);
     public static final Color LIGHT_GREEN = new Color(200, 255, 200);
     
-    // Custom font loading
-    private static Font customFont = null;
-    
-    // Standard fonts
-    public static final Font BUTTON_FONT = getCustomFont(Font.PLAIN, 14);
-    public static final Font SMALL_BUTTON_FONT = getCustomFont(Font.PLAIN, 14);
-    public static final Font LABEL_FONT = getCustomFont(Font.PLAIN, 16);
-    public static final Font INPUT_FIELD_FONT = getCustomFont(Font.PLAIN, 16);
+    // Custom font, loaded off the EDT by loadCustomFontAsync(); fallback fonts are used until then
+    private static volatile Font customFont = null;
+    private static volatile boolean customFontAttempted = false;
+    private static volatile boolean customFontLoadFinished = false;
+    private static final List<Runnable> customFontListeners = new ArrayList<>();
     
     // Standard insets
     public static final Insets SMALL_INSETS = new Insets(2, 2, 2, 2);
     public static final Insets MEDIUM_INSETS = new Insets(5, 5, 5, 5);
     
+    // Standard font sizes
+    private static final float BUTTON_FONT_SIZE = 14;
+    private static final float LABEL_FONT_SIZE = 16;
+    private static final float INPUT_FIELD_FONT_SIZE = 16;
+    
     /**
-     * Loads and returns custom font, falls back to system font if loading fails
+     * Returns the custom font if it has been loaded, otherwise the system fallback font.
+     * Never touches the font file, so it is safe to call on the EDT during startup.
      */
     public static Font getCustomFont(int style, float size) {
-        if (customFont == null) {
-            try {
-                // Load your custom font file from resources
-                java.io.InputStream fontStream = UIComponents.class.getResourceAsStream("/fonts/MyFont.ttf");
-                if (fontStream != null) {
-                    customFont = Font.createFont(Font.TRUETYPE_FONT, fontStream);
-                    // Register the font with the GraphicsEnvironment (optional but recommended)
-                    GraphicsEnvironment.getLocalGraphicsEnvironment().registerFont(customFont);
-                    fontStream.close();
-                    System.out.println("Custom font loaded successfully: " + customFont.getName());
-                } else {
-                    System.err.println("Custom font file not found, using system default");
-                }
-            } catch (Exception e) {
-                System.err.println("Failed to load custom font, using system default: " + e.getMessage());
-            }
-        }
-        
-        // If custom font loaded successfully, use it; otherwise fall back to system font
         if (customFont != null) {
             return customFont.deriveFont(style, size);
         } else {
@@ -62,6 +49,116 @@ public class UIComponents {
         }
     }
     
+    /**
+     * Loads and registers the custom font synchronously; later calls are no-ops
+     */
+    public static synchronized void loadCustomFont() {
+        if (customFontAttempted) {
+            return;
+        }
+        customFontAttempted = true;
+        try (java.io.InputStream fontStream = UIComponents.class.getResourceAsStream("/fonts/MyFont.ttf")) {
+            if (fontStream != null) {
+                Font font = Font.createFont(Font.TRUETYPE_FONT, fontStream);
+                // Register the font with the GraphicsEnvironment (optional but recommended)
+                GraphicsEnvironment.getLocalGraphicsEnvironment().registerFont(font);
+                customFont = font;
+                System.out.println("Custom font loaded successfully: " + font.getName());
+            } else {
+                System.err.println("Custom font file not found, using system default");
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to load custom font, using system default: " + e.getMessage());
+        } finally {
+            customFontLoadFinished = true;
+        }
+    }
+    
+    /**
+     * Starts loading the custom font on a background thread so the first frame
+     * does not wait for Font.createFont and registerFont
+     */
+    public static void loadCustomFontAsync() {
+        Thread loader = new Thread(() -> {
+            loadCustomFont();
+            List<Runnable> listeners;
+            synchronized (customFontListeners) {
+                listeners = new ArrayList<>(customFontListeners);
+                customFontListeners.clear();
+            }
+            if (customFont != null) {
+                for (Runnable listener : listeners) {
+                    SwingUtilities.invokeLater(listener);
+                }
+            }
+        }, "font-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+    
+    /**
+     * Runs the callback on the EDT once the custom font is available.
+     * Runs immediately (via invokeLater) if it is already loaded; never runs if loading failed.
+     */
+    public static void onCustomFontLoaded(Runnable callback) {
+        synchronized (customFontListeners) {
+            if (!customFontLoadFinished) {
+                customFontListeners.add(callback);
+                return;
+            }
+        }
+        if (customFont != null) {
+            SwingUtilities.invokeLater(callback);
+        }
+    }
+    
+    /**
+     * Swaps fallback fonts for the custom font throughout a component tree
+     */
+    public static void applyCustomFont(Component root) {
+        if (customFont == null || root == null) {
+            return;
+        }
+        Font font = root.getFont();
+        if (isFallbackFont(font)) {
+            root.setFont(getCustomFont(font.getStyle(), font.getSize2D()));
+        }
+        if (root instanceof JComponent) {
+            javax.swing.border.Border border = ((JComponent) root).getBorder();
+            if (border instanceof javax.swing.border.TitledBorder) {
+                javax.swing.border.TitledBorder titledBorder = (javax.swing.border.TitledBorder) border;
+                Font titleFont = titledBorder.getTitleFont();
+                if (isFallbackFont(titleFont)) {
+                    titledBorder.setTitleFont(getCustomFont(titleFont.getStyle(), titleFont.getSize2D()));
+                }
+            }
+        }
+        if (root instanceof JTable) {
+            applyCustomFont(((JTable) root).getTableHeader());
+        }
+        if (root instanceof Container) {
+            for (Component child : ((Container) root).getComponents()) {
+                applyCustomFont(child);
+            }
+        }
+    }
+    
+    private static boolean isFallbackFont(Font font) {
+        return font != null && Font.SANS_SERIF.equals(font.getName());
+    }
+    
+    public static Font getButtonFont() {
+        return getCustomFont(Font.PLAIN, BUTTON_FONT_SIZE);
+    }
+    
+    public static Font getLabelFont() {
+        return getCustomFont(Font.PLAIN, LABEL_FONT_SIZE);
+    }
+    
+    public static Font getInputFieldFont() {
+        return getCustomFont(Font.PLAIN, INPUT_FIELD_FONT_SIZE);
+    }
+    
     /**
      * Creates a standardized button with common properties
      */
@@ -69,7 +166,7 @@ public class UIComponents {
         JButton button = new JButton(text);
         button.addActionListener(action);
         button.setPreferredSize(size);
-        button.setFont(size.equals(SMALL_BUTTON_SIZE) ? SMALL_BUTTON_FONT : BUTTON_FONT);
+        button.setFont(getButtonFont());
         button.setMargin(SMALL_INSETS);
         if (tooltip != null) {
             button.setToolTipText(tooltip);
@@ -85,12 +182,15 @@ public class UIComponents {
     }
     
     /**
-     * Creates a time adjustment button with color coding
+     * Creates a time adjustment button with color coding; the step is in milliseconds
      */
-    public static JButton createTimeButton(int seconds, ActionListener action) {
-        String text = (seconds > 0 ? "+" : "") + seconds + "s";
-        String tooltip = (seconds > 0 ? "Add " : "Subtract ") + Math.abs(seconds) + " seconds";
-        Color backgroundColor = seconds > 0 ? LIGHT_GREEN : LIGHT_RED;
+    public static JButton createTimeButton(long millis, ActionListener action) {
+        String amount = millis % 1000 == 0
+            ? String.valueOf(Math.abs(millis) / 1000)
+            : BigDecimal.valueOf(Math.abs(millis), 3).stripTrailingZeros().toPlainString();
+        String text = (millis > 0 ? "+" : "-") + amount + "s";
+        String tooltip = (millis > 0 ? "Add " : "Subtract ") + amount + " seconds";
+        Color backgroundColor = millis > 0 ? LIGHT_GREEN : LIGHT_RED;
         
         JButton button = createButton(text, action, MEDIUM_BUTTON_SIZE, tooltip);
         button.setBackground(backgroundColor);
@@ -165,7 +265,7 @@ public class UIComponents {
      */
     public static void styleTable(JTable table) {
         // Set custom fonts
-        table.setFont(INPUT_FIELD_FONT); // 16pt font for table cells
+        table.setFont(getInputFieldFont()); // 16pt font for table cells
         table.getTableHeader().setFont(getCustomFont(Font.BOLD, 14)); // Bold headers
         
         // Set row height to accommodate larger font
@@ -182,7 +282,7 @@ public class UIComponents {
      */
     public static JTextField createTextField(int columns, String tooltip, String defaultText) {
         JTextField field = new JTextField(columns);
-        field.setFont(INPUT_FIELD_FONT);
+        field.setFont(getInputFieldFont());
         if (tooltip != null) {
             field.setToolTipText(tooltip);
         }
@@ -192,12 +292,25 @@ public class UIComponents {
         return field;
     }
     
+    /**
+     * Creates a combo box with custom font, tooltip and selection action
+     */
+    public static <E> JComboBox<E> createComboBox(E[] items, ActionListener action, String tooltip) {
+        JComboBox<E> comboBox = new JComboBox<>(items);
+        comboBox.setFont(getInputFieldFont());
+        if (tooltip != null) {
+            comboBox.setToolTipText(tooltip);
+        }
+        comboBox.addActionListener(action);
+        return comboBox;
+    }
+    
     /**
      * Creates a standard label with custom font
      */
     public static JLabel createLabel(String text) {
         JLabel label = new JLabel(text);
-        label.setFont(LABEL_FONT);
+        label.setFont(getLabelFont());
         return label;
     }
     
@@ -220,25 +333,16 @@ public class UIComponents {
     }
     
     /**
-     * Creates a standard note row panel with field and buttons
+     * Creates a standard note row panel with field and buttons.
+     * Both buttons are always added; callers toggle their visibility as rows come and go.
      */
-    public static JPanel createNoteRowPanel(JTextField noteField, boolean showAddButton, 
-                                          boolean showRemoveButton, ActionListener addAction, 
-                                          ActionListener removeAction) {
+    public static JPanel createNoteRowPanel(JTextField noteField, JButton addButton, JButton removeButton) {
         JPanel noteRowPanel = new JPanel(new BorderLayout(5, 0));
         noteRowPanel.add(noteField, BorderLayout.CENTER);
         
         JPanel buttonPanel = createFlowPanel(FlowLayout.LEFT, 2, 0);
-        
-        if (showAddButton) {
-            JButton addButton = createControlButton("+", addAction, "Add another note");
-            buttonPanel.add(addButton);
-        }
-        
-        if (showRemoveButton) {
-            JButton removeButton = createControlButton("-", removeAction, "Remove this note");
-            buttonPanel.add(removeButton);
-        }
+        buttonPanel.add(addButton);
+        buttonPanel.add(removeButton);
         
         noteRowPanel.add(buttonPanel, BorderLayout.EAST);
         return noteRowPanel;
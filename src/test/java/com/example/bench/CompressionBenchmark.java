@@ -0,0 +1,82 @@
+package com.example.bench;
+
+import com.example.FileService;
+import com.example.TimestampEntry;
+import com.example.TimestampType;
+import com.example.exporter.TextExporter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares export and load throughput of plain text against GZIP / DEFLATE at several levels.
+ * Usage, after mvn test-compile: java -cp target/classes:target/test-classes com.example.bench.CompressionBenchmark [entries] [rounds]
+ */
+public class CompressionBenchmark {
+    private static final String[] NOTES = {
+        "goal", "replay", "ad break", "intro", "Q&A with the host", "highlight | crowd reaction",
+        "sponsor segment", "tutorial part 3", "viewer question", "recap of the previous episode"
+    };
+    
+    public static void main(String[] args) throws IOException {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        List<TimestampEntry> timestamps = generate(entries);
+        File directory = Files.createTempDirectory("compression-bench").toFile();
+        
+        File plain = new File(directory, "bench.txt");
+        FileService fileService = new FileService();
+        fileService.export(timestamps, plain, new TextExporter());
+        long plainBytes = plain.length();
+        
+        System.out.printf("%d entries, %.1f MB of text, best of %d rounds%n", entries, plainBytes / 1e6, rounds);
+        System.out.printf("%-12s %10s %8s %14s %14s%n", "format", "size MB", "ratio", "export MB/s", "load MB/s");
+        run(fileService, timestamps, new File(directory, "bench.txt"), -1, plainBytes, rounds);
+        for (int level : new int[] {1, 6, 9}) {
+            run(fileService, timestamps, new File(directory, "bench.txt.gz"), level, plainBytes, rounds);
+        }
+        run(fileService, timestamps, new File(directory, "bench.txt.zz"), 6, plainBytes, rounds);
+        
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+    
+    private static void run(FileService fileService, List<TimestampEntry> timestamps, File file, int level,
+                            long plainBytes, int rounds) throws IOException {
+        fileService.setCompressionLevel(level);
+        long bestExport = Long.MAX_VALUE;
+        long bestLoad = Long.MAX_VALUE;
+        for (int round = 0; round < rounds; round++) {
+            long start = System.nanoTime();
+            fileService.export(timestamps, file, new TextExporter());
+            bestExport = Math.min(bestExport, System.nanoTime() - start);
+            
+            start = System.nanoTime();
+            int loaded = fileService.loadTimestamps(file).size();
+            bestLoad = Math.min(bestLoad, System.nanoTime() - start);
+            if (loaded != timestamps.size()) {
+                throw new IllegalStateException("Loaded " + loaded + " of " + timestamps.size() + " entries");
+            }
+        }
+        String name = file.getName().substring(file.getName().indexOf('.') + 1) + (level > 0 ? " -" + level : "");
+        System.out.printf("%-12s %10.2f %7.1fx %14.1f %14.1f%n", name, file.length() / 1e6,
+                (double) plainBytes / file.length(), plainBytes / 1e3 / (bestExport / 1e6), plainBytes / 1e3 / (bestLoad / 1e6));
+    }
+    
+    private static List<TimestampEntry> generate(int count) {
+        Random random = new Random(42);
+        List<TimestampEntry> timestamps = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int seconds = i * 7 + random.nextInt(5);
+            String timestamp = String.format("%d:%02d:%02d", seconds / 3600, seconds % 3600 / 60, seconds % 60);
+            TimestampType type = random.nextInt(4) == 0 ? TimestampType.MAIN : TimestampType.SUB;
+            timestamps.add(new TimestampEntry(timestamp, NOTES[random.nextInt(NOTES.length)], type));
+        }
+        return timestamps;
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.harness;
+
+import com.example.RowChanges;
+import com.example.TimestampEntry;
+import com.example.controller.TimestampController;
+import com.example.view.TimestampView;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A TimestampView without a window. Records every call the controller makes and when it was made,
+ * so scripted runs can see what the user would have seen and wait for background work to report back.
+ * Calls arrive on the EDT; the getters and awaitCall() may be used from any thread.
+ */
+public class RecordingTimestampView implements TimestampView {
+    // Older calls are only counted
+    public static final int RECENT_CALLS = 1000;
+
+    /**
+     * One call to the view
+     */
+    public static final class Call {
+        private final String method;
+        private final String detail;
+        private final long nanos;
+
+        Call(String method, String detail, long nanos) {
+            this.method = method;
+            this.detail = detail;
+            this.nanos = nanos;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+
+        /**
+         * System.nanoTime() when the call was made
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            return method + "(" + detail + ")";
+        }
+    }
+
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+    private final ArrayDeque<Call> recent = new ArrayDeque<>();
+    private TimestampController controller;
+    private boolean confirmClearAll = true;
+    private int rows;
+    private boolean showing;
+
+    private synchronized void record(String method, String detail) {
+        counts.merge(method, 1L, Long::sum);
+        if (recent.size() == RECENT_CALLS) {
+            recent.removeFirst();
+        }
+        recent.addLast(new Call(method, detail, System.nanoTime()));
+        notifyAll();
+    }
+
+    @Override
+    public void setController(TimestampController controller) {
+        this.controller = controller;
+        record("setController", "");
+    }
+
+    @Override
+    public void refreshTable(List<TimestampEntry> timestamps) {
+        rows = timestamps.size();
+        record("refreshTable", Integer.toString(rows));
+    }
+
+    /**
+     * Only the row count is kept, so the live list is not copied
+     */
+    @Override
+    public void refreshTable(List<TimestampEntry> timestamps, RowChanges changes) {
+        refreshTable(timestamps);
+    }
+
+    @Override
+    public void clearAllNoteFields() {
+        record("clearAllNoteFields", "");
+    }
+
+    @Override
+    public void setTimestampField(String timestamp) {
+        record("setTimestampField", timestamp);
+    }
+
+    @Override
+    public void showEntry(int index) {
+        record("showEntry", Integer.toString(index));
+    }
+
+    @Override
+    public void showError(String message) {
+        record("showError", message);
+    }
+
+    @Override
+    public void showSuccess(String message) {
+        record("showSuccess", message);
+    }
+
+    @Override
+    public boolean confirmClearAll() {
+        record("confirmClearAll", Boolean.toString(confirmClearAll));
+        return confirmClearAll;
+    }
+
+    @Override
+    public void show() {
+        showing = true;
+        record("show", "");
+    }
+
+    @Override
+    public void hide() {
+        showing = false;
+        record("hide", "");
+    }
+
+    /**
+     * The answer confirmClearAll() gives; true by default
+     */
+    public void setConfirmClearAll(boolean confirm) {
+        this.confirmClearAll = confirm;
+    }
+
+    public TimestampController getController() {
+        return controller;
+    }
+
+    /**
+     * Number of rows in the last refreshTable() call
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    public boolean isShowing() {
+        return showing;
+    }
+
+    public synchronized long getCount(String method) {
+        return counts.getOrDefault(method, 0L);
+    }
+
+    public synchronized Map<String, Long> getCounts() {
+        return new LinkedHashMap<>(counts);
+    }
+
+    /**
+     * The last RECENT_CALLS calls, oldest first
+     */
+    public synchronized List<Call> getRecentCalls() {
+        return new ArrayList<>(recent);
+    }
+
+    /**
+     * Waits for a call to one of the methods made at or after the given System.nanoTime(), e.g. the
+     * showSuccess() or showError() that ends a background load or save
+     */
+    public synchronized Call awaitCall(long sinceNanos, long timeoutMillis, String... methods)
+            throws InterruptedException, TimeoutException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (true) {
+            Call found = find(sinceNanos, methods);
+            if (found != null) {
+                return found;
+            }
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                throw new TimeoutException("No " + String.join("/", methods) + " call within " + timeoutMillis + " ms");
+            }
+            wait(remaining);
+        }
+    }
+
+    private Call find(long sinceNanos, String[] methods) {
+        Call found = null;
+        for (Iterator<Call> calls = recent.descendingIterator(); calls.hasNext(); ) {
+            Call call = calls.next();
+            if (call.nanos - sinceNanos < 0) {
+                break;
+            }
+            for (String method : methods) {
+                if (call.method.equals(method)) {
+                    found = call;
+                }
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.harness;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the ScenarioRunner workloads from the harness profile (mvn -Pharness verify); sizes and
+ * budgets come from the harness.* system properties set there
+ */
+class ScenarioHarnessIT {
+    @Test
+    void workloadsLeaveTheExpectedSessionWithinBudget() throws Exception {
+        assertEquals(0, ScenarioRunner.runScenarios(), "latency budgets exceeded, see the report above");
+    }
+}
@@ -0,0 +1,387 @@
+package com.example.harness;
+
+import com.example.TimestampEntry;
+import com.example.TimestampType;
+import com.example.controller.TimestampController;
+import com.example.metrics.Histogram;
+import com.example.metrics.MetricsRegistry;
+import com.example.model.TimestampModel;
+import com.example.search.LibraryIndex;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.IntConsumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Drives a TimestampController with a RecordingTimestampView through scripted workloads and reports
+ * the latency percentiles and allocation of each operation:
+ * - add: -Dharness.adds main/sub timestamps added one by one, as when marking by hand (default 1,000,000)
+ * - edit: -Dharness.editBursts bursts of -Dharness.burstEdits note edits on random rows (50 x 200)
+ * - delete: -Dharness.deletes single deletes in the middle of the session (500)
+ * - export, load: -Dharness.cycles saves of the whole session followed by loading it back (3);
+ *   timed until the view shows the result, since both run in the background
+ * Operations run on the EDT in batches, as the controller expects. Allocation is summed over all threads
+ * that are still running when the operation ends.
+ * Outside the timed sections the session is checked entry by entry against what the workload should have
+ * left (time, type and notes of every row), including after an undo and after each save is loaded back.
+ * Each -Dharness.budget.OPERATION.STAT=ms (STAT: p50, p90, p99 or max) is checked at the end; ScenarioHarnessIT
+ * runs all this from the harness profile in pom.xml and fails when a check or budget does.
+ * Usage: java -Djava.awt.headless=true -cp target/classes:target/test-classes com.example.harness.ScenarioRunner
+ */
+public class ScenarioRunner {
+    public static final String BUDGET_PREFIX = "harness.budget.";
+
+    // Operations per trip to the EDT, so the harness thread doesn't dominate the timings
+    private static final int BATCH = 1000;
+    private static final long ASYNC_TIMEOUT_MILLIS = 300_000;
+    private static final String[] NOTES = {
+        "goal", "replay", "ad break", "intro", "Q&A with the host", "highlight", "crowd reaction",
+        "sponsor segment", "tutorial part 3", "viewer question", "recap of the previous episode"
+    };
+
+    /**
+     * Timings of one operation
+     */
+    static final class Result {
+        final String operation;
+        final Histogram latency;
+        long allocatedBytes;
+        long elapsedNanos;
+
+        Result(String operation) {
+            this.operation = operation;
+            this.latency = MetricsRegistry.getInstance().latency("harness." + operation);
+        }
+
+        double millis(String stat) {
+            switch (stat) {
+                case "p50":
+                    return latency.get50thPercentile() / 1e6;
+                case "p90":
+                    return latency.getPercentile(90) / 1e6;
+                case "p99":
+                    return latency.getPercentile(99) / 1e6;
+                case "max":
+                    return latency.getMax() / 1e6;
+                default:
+                    throw new IllegalArgumentException("Unknown statistic " + stat + "; use p50, p90, p99 or max");
+            }
+        }
+    }
+
+    private final RecordingTimestampView view = new RecordingTimestampView();
+    private final Random random = new Random(42);
+    private final Map<String, Result> results = new TreeMap<>();
+    private final List<String> order = new ArrayList<>();
+    // What the session should hold: the workload index of each row's entry, and notes edited since
+    private final List<Integer> expectedRows = new ArrayList<>();
+    private final Map<Integer, String> editedNotes = new HashMap<>();
+    private TimestampController controller;
+
+    public static void main(String[] args) throws Exception {
+        System.exit(runScenarios() > 0 ? 1 : 0);
+    }
+
+    /**
+     * Runs the workloads in a temporary directory and prints the report; throws if the session
+     * ends up different from what the workloads should have left
+     * @return the number of budgets exceeded
+     */
+    public static int runScenarios() throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        Path directory = Files.createTempDirectory("scenario-runner");
+        // Saves are indexed for the library search; keep them out of the user's index
+        if (System.getProperty(LibraryIndex.DIR_PROPERTY) == null) {
+            System.setProperty(LibraryIndex.DIR_PROPERTY, directory.resolve("index").toString());
+        }
+        ScenarioRunner runner = new ScenarioRunner();
+        try {
+            runner.run(directory);
+            runner.printReport();
+            return runner.checkBudgets();
+        } finally {
+            delete(directory.toFile());
+        }
+    }
+
+    void run(Path directory) throws Exception {
+        onEdt(() -> {
+            TimestampModel model = new TimestampModel();
+            controller = new TimestampController(model, view);
+        });
+        int adds = Integer.getInteger("harness.adds", 1_000_000);
+        int bursts = Integer.getInteger("harness.editBursts", 50);
+        int burstEdits = Integer.getInteger("harness.burstEdits", 200);
+        int deletes = Integer.getInteger("harness.deletes", 500);
+        int cycles = Integer.getInteger("harness.cycles", 3);
+
+        long start = System.nanoTime();
+        onEdtTimed("add", adds, i -> {
+            // One MAIN every ten entries, each a second after the last
+            String timestamp = String.format("%d:%02d:%02d", i / 3600, i / 60 % 60, i % 60);
+            List<String> notes = Collections.singletonList(NOTES[i % NOTES.length] + " " + i);
+            if (i % 10 == 0) {
+                controller.addTimestamp(timestamp, notes);
+            } else {
+                controller.addSubTimestamp(timestamp, notes);
+            }
+        });
+        for (int i = 0; i < adds; i++) {
+            expectedRows.add(i);
+        }
+        expectSession("add");
+
+        for (int burst = 0; burst < bursts; burst++) {
+            int size = view.getRows();
+            int[] rows = new int[burstEdits];
+            for (int e = 0; e < burstEdits; e++) {
+                rows[e] = random.nextInt(Math.max(1, size));
+            }
+            onEdtTimed("edit", burstEdits, e -> controller.updateNote(rows[e], editedNote(e)));
+            for (int e = 0; e < burstEdits; e++) {
+                if (rows[e] < expectedRows.size()) {
+                    editedNotes.put(expectedRows.get(rows[e]), editedNote(e));
+                }
+            }
+        }
+        expectSession("edit");
+
+        int[] middle = new int[deletes];
+        for (int d = 0; d < deletes; d++) {
+            // Rows around the middle of what is left, so the tail has to move every time
+            int size = adds - d;
+            middle[d] = Math.max(0, size / 2 + random.nextInt(Math.max(1, size / 10)) - size / 20);
+        }
+        onEdtTimed("delete", deletes, d -> controller.deleteSelected(new int[] {middle[d]}));
+        int lastDeleted = -1;
+        for (int d = 0; d < deletes && middle[d] < expectedRows.size(); d++) {
+            lastDeleted = expectedRows.remove(middle[d]);
+        }
+        expectSession("delete");
+        if (lastDeleted >= 0) {
+            checkUndoDelete(middle[deletes - 1], lastDeleted);
+        }
+
+        for (int cycle = 0; cycle < cycles; cycle++) {
+            File file = directory.resolve("session-" + cycle + ".txt").toFile();
+            asyncTimed("export", () -> controller.exportToText(file));
+            // Clear first, so the check below only passes if the load really brought every entry back
+            onEdt(() -> controller.clearAll());
+            expectRows("clear", 0);
+            asyncTimed("load", () -> controller.loadTimestamps(file));
+            expectSession("load");
+        }
+
+        long elapsed = System.nanoTime() - start;
+        boolean[] flushed = new boolean[1];
+        onEdt(() -> flushed[0] = controller.shutdown());
+        System.out.printf("%d view calls in %.1f s%s%n", view.getCounts().values().stream().mapToLong(Long::longValue).sum(),
+                elapsed / 1e9, flushed[0] ? "" : "; a save did not finish at shutdown");
+    }
+
+    /**
+     * Runs count operations on the EDT in batches, timing each one
+     */
+    private void onEdtTimed(String operation, int count, IntConsumer action) throws Exception {
+        Result result = result(operation);
+        Map<Long, Long> allocated = allocatedBytes();
+        long start = System.nanoTime();
+        for (int from = 0; from < count; from += BATCH) {
+            int batchStart = from;
+            int batchEnd = Math.min(count, from + BATCH);
+            onEdt(() -> {
+                for (int i = batchStart; i < batchEnd; i++) {
+                    long opStart = System.nanoTime();
+                    action.accept(i);
+                    result.latency.recordSince(opStart);
+                }
+            });
+        }
+        result.elapsedNanos += System.nanoTime() - start;
+        result.allocatedBytes += allocatedSince(allocated);
+    }
+
+    /**
+     * Starts a background operation on the EDT and times it until the view shows its outcome
+     */
+    private void asyncTimed(String operation, Runnable action) throws Exception {
+        Result result = result(operation);
+        Map<Long, Long> allocated = allocatedBytes();
+        long start = System.nanoTime();
+        onEdt(action);
+        RecordingTimestampView.Call outcome;
+        try {
+            outcome = view.awaitCall(start, ASYNC_TIMEOUT_MILLIS, "showSuccess", "showError");
+        } catch (TimeoutException e) {
+            throw new IllegalStateException(operation + " did not finish: " + e.getMessage());
+        }
+        result.latency.recordSince(start);
+        result.elapsedNanos += System.nanoTime() - start;
+        // Let the listeners run before the next operation, so its timing starts from a quiet EDT
+        controller.getTasks().awaitIdle(ASYNC_TIMEOUT_MILLIS);
+        result.allocatedBytes += allocatedSince(allocated);
+        if (outcome.getMethod().equals("showError")) {
+            throw new IllegalStateException(operation + " failed: " + outcome.getDetail());
+        }
+    }
+
+    private Result result(String operation) {
+        if (!results.containsKey(operation)) {
+            order.add(operation);
+        }
+        return results.computeIfAbsent(operation, Result::new);
+    }
+
+    private void expectRows(String operation, int expected) {
+        if (view.getRows() != expected) {
+            throw new AssertionError("After " + operation + " the view shows " + view.getRows()
+                    + " rows, expected " + expected);
+        }
+    }
+
+    private static String editedNote(int edit) {
+        return NOTES[edit % NOTES.length] + " edited " + edit;
+    }
+
+    /**
+     * Checks every row of the session: the entry added as workload step i is at second i, is a MAIN
+     * entry every tenth step and a SUB otherwise, and has its original or last edited notes
+     */
+    private void expectSession(String operation) throws Exception {
+        expectRows(operation, expectedRows.size());
+        String[] mismatch = new String[1];
+        onEdt(() -> {
+            List<TimestampEntry> session = controller.getTimestamps();
+            for (int row = 0; row < expectedRows.size() && mismatch[0] == null; row++) {
+                mismatch[0] = compare(row, expectedRows.get(row), session.get(row));
+            }
+        });
+        if (mismatch[0] != null) {
+            throw new AssertionError("After " + operation + ": " + mismatch[0]);
+        }
+    }
+
+    private String compare(int row, int step, TimestampEntry entry) {
+        TimestampType type = step % 10 == 0 ? TimestampType.MAIN : TimestampType.SUB;
+        String notes = editedNotes.getOrDefault(step, NOTES[step % NOTES.length] + " " + step);
+        if (entry.getMillis() != step * 1000L || entry.getType() != type || !entry.getNotes().equals(notes)) {
+            return "row " + row + " is " + entry.getTimestamp() + " " + entry.getType() + " \"" + entry.getNotes()
+                    + "\", expected second " + step + " " + type + " \"" + notes + "\"";
+        }
+        return null;
+    }
+
+    /**
+     * Undoes the last delete, checks the entry is back in its row, then deletes it again
+     */
+    private void checkUndoDelete(int row, int step) throws Exception {
+        onEdt(() -> controller.undo());
+        expectedRows.add(row, step);
+        expectSession("undo");
+        onEdt(() -> controller.deleteSelected(new int[] {row}));
+        expectedRows.remove(row);
+        expectSession("delete after undo");
+    }
+
+    void printReport() {
+        System.out.printf("%-8s %9s %9s %9s %9s %9s %11s %10s %10s%n", "op", "count", "p50 ms", "p90 ms", "p99 ms",
+                "max ms", "alloc MB", "MB/s", "KB/op");
+        for (String operation : order) {
+            Result result = results.get(operation);
+            long count = result.latency.getCount();
+            double seconds = Math.max(1e-9, result.elapsedNanos / 1e9);
+            System.out.printf("%-8s %9d %9.3f %9.3f %9.3f %9.3f %11.1f %10.1f %10.2f%n", operation, count,
+                    result.millis("p50"), result.millis("p90"), result.millis("p99"), result.millis("max"),
+                    result.allocatedBytes / 1e6, result.allocatedBytes / 1e6 / seconds,
+                    count > 0 ? result.allocatedBytes / 1e3 / count : 0);
+        }
+    }
+
+    /**
+     * Checks the -Dharness.budget.OPERATION.STAT=ms properties; returns the number exceeded
+     */
+    int checkBudgets() {
+        int exceeded = 0;
+        for (String name : new TreeMap<>(System.getProperties()).keySet().toArray(new String[0])) {
+            if (!name.startsWith(BUDGET_PREFIX)) {
+                continue;
+            }
+            String key = name.substring(BUDGET_PREFIX.length());
+            int dot = key.lastIndexOf('.');
+            String value = System.getProperty(name).trim();
+            if (dot < 0 || value.isEmpty()) {
+                System.err.println("Ignoring budget " + name + "; use " + BUDGET_PREFIX + "OPERATION.STAT=ms");
+                continue;
+            }
+            Result result = results.get(key.substring(0, dot));
+            if (result == null || result.latency.getCount() == 0) {
+                System.out.println("Budget " + key + ": not run");
+                continue;
+            }
+            double budget = Double.parseDouble(value);
+            double actual = result.millis(key.substring(dot + 1));
+            boolean over = actual > budget;
+            System.out.printf("Budget %-12s %10.3f ms <= %10.3f ms  %s%n", key, actual, budget, over ? "EXCEEDED" : "ok");
+            if (over) {
+                exceeded++;
+            }
+        }
+        return exceeded;
+    }
+
+    /**
+     * Bytes allocated so far by each live thread; empty where the JVM can't tell
+     */
+    private static Map<Long, Long> allocatedBytes() {
+        Map<Long, Long> allocated = new HashMap<>();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            long[] ids = threads.getAllThreadIds();
+            long[] bytes = ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(ids);
+            for (int i = 0; i < ids.length; i++) {
+                if (bytes[i] >= 0) {
+                    allocated.put(ids[i], bytes[i]);
+                }
+            }
+        }
+        return allocated;
+    }
+
+    /**
+     * Bytes allocated since the earlier allocatedBytes(); threads that ended in between are not counted
+     */
+    private static long allocatedSince(Map<Long, Long> before) {
+        long total = 0;
+        for (Map.Entry<Long, Long> thread : allocatedBytes().entrySet()) {
+            total += thread.getValue() - before.getOrDefault(thread.getKey(), 0L);
+        }
+        return total;
+    }
+
+    private static void onEdt(Runnable action) throws InterruptedException, InvocationTargetException {
+        SwingUtilities.invokeAndWait(action);
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            Arrays.stream(children).forEach(ScenarioRunner::delete);
+        }
+        if (!file.delete()) {
+            System.err.println("Could not delete " + file);
+        }
+    }
+}
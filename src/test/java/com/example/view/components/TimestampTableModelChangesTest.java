@@ -0,0 +1,327 @@
+package com.example.view.components;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.NoteSegments;
+import com.example.RowChanges;
+import com.example.SessionFormat;
+import com.example.TimestampBatch;
+import com.example.TimestampEntry;
+import com.example.TimestampService;
+import com.example.TimestampType;
+import com.example.store.EntryStore;
+import com.example.store.HeapEntryStore;
+import com.example.store.MappedEntryStore;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Randomized check of the live refresh path: TimestampTableModel.setEntries() fed with the service's live
+ * list and RowChanges, the ChangingRows seen by listeners while row events fire, and TimestampRowSorter
+ * following those events incrementally. Runs adds, deletes, batches, note edits, undo and reloads on the
+ * heap and the mapped store, checking after every event that listeners see the rows they were told about,
+ * and after every change that the table and each sorter's view match the service.
+ */
+class TimestampTableModelChangesTest {
+    private static final int OPERATIONS = 1500;
+    private static final int INITIAL_ENTRIES = 300;
+
+    @TempDir
+    Path storeDirectory;
+
+    private EntryStore store;
+
+    @AfterEach
+    void closeStore() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void heapStore() {
+        store = new HeapEntryStore();
+        run(new Random(42));
+    }
+
+    @Test
+    void mappedStore() throws IOException {
+        // A small cache, so most rows are rebuilt from the files
+        store = new MappedEntryStore(storeDirectory, 16);
+        run(new Random(7));
+    }
+
+    private void run(Random random) {
+        TimestampService service = new TimestampService(store);
+        TimestampTableModel table = new TimestampTableModel();
+        Listener listener = new Listener(table);
+        table.addTableModelListener(listener);
+
+        // Sorted on time, descending; shows SUB entries looked up in the type index
+        TimestampRowSorter subByTime = listener.add(new TimestampRowSorter(table));
+        subByTime.setSortKeys(Arrays.asList(new RowSorter.SortKey(TimestampTableModel.TIME_COLUMN, SortOrder.DESCENDING)));
+        subByTime.setFilter(TimestampRowSorter.indexed(TimestampRowSorter.typeIs(TimestampType.SUB),
+                () -> service.rowsOfType(TimestampType.SUB)));
+        // Sorted on type, then date added; no filter
+        TimestampRowSorter byTypeAndAdded = listener.add(new TimestampRowSorter(table));
+        byTypeAndAdded.setSortKeys(Arrays.asList(
+                new RowSorter.SortKey(TimestampTableModel.TYPE_COLUMN, SortOrder.ASCENDING),
+                new RowSorter.SortKey(TimestampTableModel.DATE_COLUMN, SortOrder.ASCENDING)));
+        // Filtered on the keys only
+        TimestampRowSorter mainOnly = listener.add(new TimestampRowSorter(table));
+        mainOnly.setFilter(TimestampRowSorter.typeIs(TimestampType.MAIN));
+
+        List<TimestampEntry> initial = new ArrayList<>();
+        for (int i = 0; i < INITIAL_ENTRIES; i++) {
+            initial.add(randomEntry(random));
+        }
+        service.setTimestamps(initial);
+        refresh(service, table, listener);
+
+        // Like the controller's observer, the table is only refreshed after a call that sets the service's changes
+        Deque<TimestampBatch> undo = new ArrayDeque<>();
+        for (int operation = 0; operation < OPERATIONS; operation++) {
+            int choice = random.nextInt(100);
+            if (choice < 25) {
+                service.addTimestamp(randomTimecode(random), "added " + operation, randomType(random));
+            } else if (choice < 40 && service.size() > 0) {
+                service.removeTimestamp(random.nextInt(service.size()));
+            } else if (choice < 60) {
+                push(undo, service.apply(randomBatch(service, random, 1 + random.nextInt(20))));
+            } else if (choice < 63) {
+                // Too big to update in place: reported as all rows
+                push(undo, service.apply(randomBatch(service, random, 70 + random.nextInt(30))));
+            } else if (choice < 73 && service.size() > 0) {
+                service.updateNote(random.nextInt(service.size()), "edited " + operation);
+            } else if (choice < 85 && !undo.isEmpty()) {
+                service.apply(undo.pop());
+            } else if (choice < 97) {
+                push(undo, service.reconcile(reloadedCopy(service, random)).inverse);
+            } else if (choice < 99) {
+                // Not a model change, so nothing is refreshed; the filter's index lookup is used again
+                subByTime.setFilter(subByTime.getFilter());
+                checkSorter(subByTime, table);
+                continue;
+            } else {
+                service.clearAll();
+                undo.clear();
+            }
+            refresh(service, table, listener);
+            if (service.size() < INITIAL_ENTRIES / 4) {
+                List<TimestampEntry> more = new ArrayList<>();
+                for (int i = 0; i < INITIAL_ENTRIES; i++) {
+                    more.add(randomEntry(random));
+                }
+                push(undo, service.apply(new TimestampBatch().insertAll(more)));
+                refresh(service, table, listener);
+            }
+        }
+        assertTrue(listener.rowEvents > OPERATIONS / 2, "Most changes should arrive as row events, got " + listener.rowEvents);
+    }
+
+    private static void push(Deque<TimestampBatch> undo, TimestampBatch inverse) {
+        if (!inverse.isEmpty()) {
+            undo.push(inverse);
+        }
+    }
+
+    /**
+     * Hands the change to the table as the controller does, then checks the table and every sorter
+     */
+    private static void refresh(TimestampService service, TimestampTableModel table, Listener listener) {
+        RowChanges changes = service.getLastChanges();
+        try {
+            table.setEntries(service.viewTimestamps(), changes);
+        } catch (AssertionError e) {
+            throw new AssertionError("Applying " + changes + ", removed " + Arrays.toString(changes.getRemovedRows())
+                    + ", inserted " + Arrays.toString(changes.getInsertedRows()) + ": " + e.getMessage(), e);
+        }
+        List<TimestampEntry> expected = service.getTimestamps();
+        assertEquals(expected.size(), table.getRowCount(), "rows after " + service.getLastChanges());
+        assertEquals(expected.size(), listener.shown.size(), "rows listeners were told about");
+        for (int row = 0; row < expected.size(); row++) {
+            assertEquals(describe(expected.get(row)), describe(table.getEntry(row)), "row " + row);
+            assertEquals(expected.get(row).getMillis(), table.getMillis(row), "millis of row " + row);
+        }
+        for (TimestampRowSorter sorter : listener.sorters) {
+            checkSorter(sorter, table);
+        }
+    }
+
+    /**
+     * The sorter's view must be the filtered rows in a stable sort on its keys, with ties in row order
+     */
+    private static void checkSorter(TimestampRowSorter sorter, TimestampTableModel table) {
+        List<Integer> rows = new ArrayList<>();
+        for (int row = 0; row < table.getRowCount(); row++) {
+            TimestampRowSorter.KeyFilter filter = sorter.getFilter();
+            if (filter == null || filter.accept(table.getMillis(row), table.getAddedMillis(row), table.getType(row))) {
+                rows.add(row);
+            }
+        }
+        List<? extends RowSorter.SortKey> keys = sorter.getSortKeys();
+        rows.sort((a, b) -> {
+            for (RowSorter.SortKey key : keys) {
+                int result;
+                switch (key.getColumn()) {
+                    case TimestampTableModel.TIME_COLUMN:
+                        result = Long.compare(table.getMillis(a), table.getMillis(b));
+                        break;
+                    case TimestampTableModel.DATE_COLUMN:
+                        result = Long.compare(table.getAddedMillis(a), table.getAddedMillis(b));
+                        break;
+                    default:
+                        result = table.getType(a).compareTo(table.getType(b));
+                        break;
+                }
+                if (result != 0) {
+                    return key.getSortOrder() == SortOrder.DESCENDING ? -result : result;
+                }
+            }
+            return Integer.compare(a, b);
+        });
+        assertEquals(table.getRowCount(), sorter.getModelRowCount(), "sorter model rows");
+        assertEquals(rows.size(), sorter.getViewRowCount(), "sorter view rows");
+        for (int view = 0; view < rows.size(); view++) {
+            int row = sorter.convertRowIndexToModel(view);
+            assertEquals((int) rows.get(view), row, "model row of view row " + view);
+            assertEquals(view, sorter.convertRowIndexToView(row), "view row of model row " + row);
+        }
+    }
+
+    /**
+     * Forwards table events to the sorters as JTable does, and keeps the rows as listeners have been
+     * told about them, checked against what the table reports while each event fires
+     */
+    private static final class Listener implements TableModelListener {
+        private final TimestampTableModel table;
+        final List<TimestampRowSorter> sorters = new ArrayList<>();
+        final List<String> shown = new ArrayList<>();
+        int rowEvents;
+
+        Listener(TimestampTableModel table) {
+            this.table = table;
+        }
+
+        TimestampRowSorter add(TimestampRowSorter sorter) {
+            sorters.add(sorter);
+            return sorter;
+        }
+
+        @Override
+        public void tableChanged(TableModelEvent event) {
+            int first = event.getFirstRow();
+            int last = event.getLastRow();
+            if (event.getType() == TableModelEvent.DELETE) {
+                rowEvents++;
+                shown.subList(first, last + 1).clear();
+                sorters.forEach(sorter -> sorter.rowsDeleted(first, last));
+            } else if (event.getType() == TableModelEvent.INSERT) {
+                rowEvents++;
+                for (int row = first; row <= last; row++) {
+                    shown.add(row, rowKeys(table.getEntry(row)));
+                }
+                sorters.forEach(sorter -> sorter.rowsInserted(first, last));
+            } else {
+                shown.clear();
+                for (int row = 0; row < table.getRowCount(); row++) {
+                    shown.add(rowKeys(table.getEntry(row)));
+                }
+                sorters.forEach(TimestampRowSorter::allRowsChanged);
+            }
+            // Part way through a change, every row must still be the one listeners know. Notes are left
+            // out: edits change them in place without row events
+            assertEquals(shown.size(), table.getRowCount(), "rows while firing " + event.getType());
+            for (int row = 0; row < shown.size(); row++) {
+                assertEquals(shown.get(row), rowKeys(table.getEntry(row)), "row " + row + " while firing");
+                assertEquals(shown.get(row), rowKeys(table, row), "keys of row " + row + " while firing");
+            }
+        }
+    }
+
+    private static String describe(TimestampEntry entry) {
+        return entry.getMillis() + " " + entry.getType() + " " + entry.getDateAdded() + " " + entry.getNotes();
+    }
+
+    /**
+     * What identifies a row to a listener: its time, type and date added
+     */
+    private static String rowKeys(TimestampEntry entry) {
+        return entry.getMillis() + " " + entry.getType() + " " + SessionFormat.toEpochMillis(entry.getDateAdded());
+    }
+
+    /**
+     * rowKeys() from the primitive accessors the sorter reads
+     */
+    private static String rowKeys(TimestampTableModel table, int row) {
+        return table.getMillis(row) + " " + table.getType(row) + " " + table.getAddedMillis(row);
+    }
+
+    private static TimestampBatch randomBatch(TimestampService service, Random random, int operations) {
+        TimestampBatch batch = new TimestampBatch();
+        for (int i = 0; i < operations; i++) {
+            int choice = random.nextInt(3);
+            if (choice == 0 || service.size() == 0) {
+                batch.insert(randomEntry(random));
+            } else if (choice == 1) {
+                batch.delete(service.getEntry(random.nextInt(service.size())));
+            } else {
+                batch.updateNotes(service.getEntry(random.nextInt(service.size())), NoteSegments.parse("batch " + i));
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * The session as if saved, edited elsewhere and read back
+     */
+    private static List<TimestampEntry> reloadedCopy(TimestampService service, Random random) {
+        List<TimestampEntry> reloaded = new ArrayList<>(service.copyTimestamps());
+        int changes = random.nextInt(100) < 10 ? 80 : 1 + random.nextInt(10);
+        for (int i = 0; i < changes; i++) {
+            int choice = random.nextInt(3);
+            if (choice == 0 || reloaded.isEmpty()) {
+                reloaded.add(randomEntry(random));
+            } else if (choice == 1) {
+                reloaded.remove(random.nextInt(reloaded.size()));
+            } else {
+                TimestampEntry entry = reloaded.get(random.nextInt(reloaded.size()));
+                entry.setNotes("reloaded " + i);
+            }
+        }
+        return reloaded;
+    }
+
+    private static TimestampEntry randomEntry(Random random) {
+        return new TimestampEntry(randomTimecode(random), "note " + random.nextInt(1000), randomType(random));
+    }
+
+    /**
+     * Times in a narrow range, so many entries share a second or a millisecond
+     */
+    private static String randomTimecode(Random random) {
+        int seconds = random.nextInt(120);
+        if (random.nextBoolean()) {
+            return String.format("%d:%02d", seconds / 60, seconds % 60);
+        }
+        return String.format("%d:%02d.%03d", seconds / 60, seconds % 60, random.nextInt(4) * 250);
+    }
+
+    private static TimestampType randomType(Random random) {
+        return random.nextInt(3) == 0 ? TimestampType.MAIN : TimestampType.SUB;
+    }
+}